@@ -18,6 +18,11 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Tile server for the quest maps and route prefetching; it must allow bulk download.
+        // Empty keeps OpenStreetMap's tiles and turns prefetching off.
+        val tileUrlTemplate = (project.findProperty("tileUrlTemplate") as String?) ?: ""
+        buildConfigField("String", "TILE_URL_TEMPLATE", "\"$tileUrlTemplate\"")
     }
 
     buildTypes {
@@ -0,0 +1,87 @@
+package com.adventure.solo.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Guards the hot clue and quest progress queries against regressing to full table scans.
+ * The SQL mirrors the @Query strings in ClueDao, QuestProgressDao, ClueDiscoveryDao and PoiDao.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+    private AppDatabase db;
+    private SupportSQLiteDatabase sqlite;
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        sqlite = db.getOpenHelper().getWritableDatabase();
+    }
+
+    @After
+    public void closeDb() {
+        db.close();
+    }
+
+    @Test
+    public void cluesByQuestUseIndex() {
+        assertNoFullScan("SELECT * FROM clues WHERE questId = ? ORDER BY sequenceNumber ASC", 1L);
+    }
+
+    @Test
+    public void nextUndiscoveredClueUsesIndex() {
+        assertNoFullScan("SELECT * FROM clues WHERE questId = ? AND discovered = 0 ORDER BY sequenceNumber ASC LIMIT 1", 1L);
+        assertNoFullScan("SELECT * FROM clues WHERE questId = ? AND discovered = 0 ORDER BY sequenceNumber", 1L);
+    }
+
+    @Test
+    public void questProgressLookupsUseIndex() {
+        assertNoFullScan("SELECT * FROM quest_progress WHERE teamId = ?", "team");
+        assertNoFullScan("SELECT * FROM quest_progress WHERE questId = ? AND teamId = ?", 1L, "team");
+    }
+
+    @Test
+    public void undiscoveredCountForTeamUsesIndex() {
+        assertNoFullScan("SELECT COUNT(*) FROM clues c WHERE c.questId = ? AND NOT EXISTS (" +
+                "SELECT 1 FROM clue_progress cp WHERE cp.actualClueId = c.id AND cp.teamId = ? AND cp.discoveredByTeam = 1)",
+                1L, "team");
+    }
+
+    @Test
+    public void poiTileLookupsUseIndex() {
+        assertNoFullScan("SELECT * FROM pois WHERE tileKey IN (?, ?)", 1L, 2L);
+        assertNoFullScan("SELECT * FROM poi_tiles WHERE tileKey IN (?, ?)", 1L, 2L);
+    }
+
+    private void assertNoFullScan(String sql, Object... args) {
+        List<String> plan = new ArrayList<>();
+        try (Cursor cursor = sqlite.query("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detailColumn = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detailColumn));
+            }
+        }
+        assertFalse("Empty query plan for: " + sql, plan.isEmpty());
+        for (String step : plan) {
+            // "SCAN clues" / "SCAN TABLE clues" without "USING ... INDEX" reads every row
+            boolean fullScan = step.startsWith("SCAN") && !step.contains("USING");
+            assertFalse("Full table scan in plan " + plan + " for: " + sql, fullScan);
+        }
+    }
+}
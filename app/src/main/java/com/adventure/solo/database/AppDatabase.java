@@ -13,8 +13,13 @@ import com.adventure.solo.model.Clue;
 import com.adventure.solo.model.PlayerProfile;
 import com.adventure.solo.model.QuestProgress;
 import com.adventure.solo.model.ClueProgress;
+import com.adventure.solo.model.Poi;
+import com.adventure.solo.model.PoiTile;
+import com.adventure.solo.model.CachedChatMessage;
+import com.adventure.solo.model.PendingChatMessage;
 
-@Database(entities = {Quest.class, Clue.class, PlayerProfile.class, QuestProgress.class, ClueProgress.class}, version = 3) // Version incremented
+@Database(entities = {Quest.class, Clue.class, PlayerProfile.class, QuestProgress.class, ClueProgress.class,
+        Poi.class, PoiTile.class, CachedChatMessage.class, PendingChatMessage.class}, version = 7) // Version incremented
 @TypeConverters(Converters.class) // Added
 public abstract class AppDatabase extends RoomDatabase {
     private static volatile AppDatabase INSTANCE;
@@ -30,11 +35,53 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Index names must match what Room generates for the @Index declarations
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_clues_questId_discovered_sequenceNumber` ON `clues` (`questId`, `discovered`, `sequenceNumber`)");
+            database.execSQL("DROP INDEX IF EXISTS `index_quest_progress_teamId`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_quest_progress_teamId_status` ON `quest_progress` (`teamId`, `status`)");
+        }
+    };
+
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Tile-quantized Overpass cache, see PoiService
+            database.execSQL("CREATE TABLE IF NOT EXISTS `pois` (`id` INTEGER NOT NULL, `tileKey` INTEGER NOT NULL, `latitude` REAL NOT NULL, `longitude` REAL NOT NULL, `name` TEXT, `type` TEXT, PRIMARY KEY(`id`))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_pois_tileKey` ON `pois` (`tileKey`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `poi_tiles` (`tileKey` INTEGER NOT NULL, `fetchedAt` INTEGER NOT NULL, PRIMARY KEY(`tileKey`))");
+        }
+    };
+
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Local team chat store, see ChatSubscription
+            database.execSQL("CREATE TABLE IF NOT EXISTS `chat_messages` (`messageId` TEXT NOT NULL, `teamId` TEXT, `senderId` TEXT, `senderName` TEXT, `messageText` TEXT, `timestamp` INTEGER NOT NULL, PRIMARY KEY(`messageId`))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_chat_messages_teamId_messageId` ON `chat_messages` (`teamId`, `messageId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_chat_messages_teamId_timestamp` ON `chat_messages` (`teamId`, `timestamp`)");
+        }
+    };
+
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Outbound chat queue, see ChatOutbox
+            database.execSQL("CREATE TABLE IF NOT EXISTS `pending_chat_messages` (`messageId` TEXT NOT NULL, `teamId` TEXT, `senderId` TEXT, `senderName` TEXT, `messageText` TEXT, `createdAt` INTEGER NOT NULL, `attempts` INTEGER NOT NULL, `nextAttemptAt` INTEGER NOT NULL, PRIMARY KEY(`messageId`))");
+        }
+    };
+
     public abstract QuestDao questDao();
     public abstract ClueDao clueDao();
     public abstract PlayerProfileDao playerProfileDao(); // Added
     public abstract QuestProgressDao questProgressDao(); // Added
     public abstract ClueProgressDao clueProgressDao();   // Added
+    public abstract ClueDiscoveryDao clueDiscoveryDao();
+    public abstract PoiDao poiDao();
+    public abstract ChatMessageDao chatMessageDao();
+    public abstract PendingChatMessageDao pendingChatMessageDao();
 
     public static AppDatabase getInstance(Context context) {
         if (INSTANCE == null) {
@@ -45,7 +92,7 @@ public abstract class AppDatabase extends RoomDatabase {
                             AppDatabase.class,
                             DATABASE_NAME)
                             //.fallbackToDestructiveMigration() // Remove or comment out fallback
-                            .addMigrations(MIGRATION_2_3) // Add our migration
+                            .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7) // Add our migrations
                             .build();
                 }
             }
@@ -0,0 +1,25 @@
+package com.adventure.solo.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import com.adventure.solo.model.CachedChatMessage;
+import java.util.List;
+
+@Dao
+public interface ChatMessageDao {
+    // Newest first, from the (teamId, messageId) index; SQLite compares keys bytewise, as Firebase does
+    @Query("SELECT * FROM chat_messages WHERE teamId = :teamId ORDER BY messageId DESC LIMIT :limit")
+    List<CachedChatMessage> getLatest(String teamId, int limit);
+
+    @Query("SELECT * FROM chat_messages WHERE teamId = :teamId AND messageId < :beforeKey ORDER BY messageId DESC LIMIT :limit")
+    List<CachedChatMessage> getBefore(String teamId, String beforeKey, int limit);
+
+    // Null when nothing is cached for the team
+    @Query("SELECT MAX(timestamp) FROM chat_messages WHERE teamId = :teamId")
+    Long getLatestTimestamp(String teamId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<CachedChatMessage> messages);
+}
@@ -0,0 +1,83 @@
+package com.adventure.solo.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import com.adventure.solo.model.Clue;
+import com.adventure.solo.model.ClueProgress;
+import com.adventure.solo.model.QuestProgress;
+import com.adventure.solo.model.QuestStatus;
+import com.adventure.solo.model.wrapper.ClueDiscoveryResult;
+
+// Spans clues, clue_progress and quest_progress so a team clue discovery is written in a
+// single transaction instead of a chain of repository callbacks. ClueProgressRepository
+// awards the player's XP through PlayerProfileDao within the same transaction.
+@Dao
+public interface ClueDiscoveryDao {
+    @Query("SELECT * FROM clues WHERE id = :clueId")
+    Clue getClueById(long clueId);
+
+    @Query("SELECT * FROM clue_progress WHERE actualClueId = :actualClueId AND teamId = :teamId")
+    ClueProgress getClueProgress(long actualClueId, String teamId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertOrUpdateClueProgress(ClueProgress clueProgress);
+
+    @Query("SELECT * FROM quest_progress WHERE questId = :questId AND teamId = :teamId")
+    QuestProgress getQuestProgress(long questId, String teamId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertOrUpdateQuestProgress(QuestProgress questProgress);
+
+    @Query("SELECT COUNT(*) FROM clues WHERE questId = :questId")
+    int countCluesForQuest(long questId);
+
+    // Clues of the quest that the team has not discovered yet
+    @Query("SELECT COUNT(*) FROM clues c WHERE c.questId = :questId AND NOT EXISTS (" +
+           "SELECT 1 FROM clue_progress cp WHERE cp.actualClueId = c.id AND cp.teamId = :teamId AND cp.discoveredByTeam = 1)")
+    int countUndiscoveredCluesForTeam(long questId, String teamId);
+
+    /**
+     * Marks a clue as discovered for a team and flips the team's QuestProgress to COMPLETED
+     * when no undiscovered clues remain.
+     *
+     * @return the outcome, or null if the clue does not exist.
+     */
+    @Transaction
+    default ClueDiscoveryResult discoverClueForTeam(long clueId, String teamId, String playerId) {
+        Clue clue = getClueById(clueId);
+        if (clue == null) {
+            return null;
+        }
+        long questId = clue.getQuestId();
+
+        ClueProgress progress = getClueProgress(clueId, teamId);
+        if (progress != null && progress.isDiscoveredByTeam()) {
+            return new ClueDiscoveryResult(questId, false, false);
+        }
+        if (progress == null) {
+            progress = new ClueProgress(clueId, teamId, questId);
+        }
+        progress.setDiscoveredByTeam(true);
+        progress.setDiscoveredByPlayerId(playerId);
+        insertOrUpdateClueProgress(progress);
+
+        QuestProgress questProgress = getQuestProgress(questId, teamId);
+        if (questProgress != null && questProgress.getStatus() == QuestStatus.COMPLETED) {
+            return new ClueDiscoveryResult(questId, true, false);
+        }
+        if (countCluesForQuest(questId) == 0 || countUndiscoveredCluesForTeam(questId, teamId) > 0) {
+            return new ClueDiscoveryResult(questId, true, false);
+        }
+
+        if (questProgress == null) {
+            questProgress = new QuestProgress(questId, teamId);
+        }
+        questProgress.setStatus(QuestStatus.COMPLETED);
+        questProgress.setLastCompletedByPlayerId(playerId);
+        insertOrUpdateQuestProgress(questProgress);
+        return new ClueDiscoveryResult(questId, true, true);
+    }
+}
@@ -0,0 +1,31 @@
+package com.adventure.solo.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import com.adventure.solo.model.PendingChatMessage;
+import java.util.List;
+
+@Dao
+public interface PendingChatMessageDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(PendingChatMessage message);
+
+    // Oldest first, so a batch keeps send order
+    @Query("SELECT * FROM pending_chat_messages WHERE nextAttemptAt <= :now ORDER BY messageId LIMIT :limit")
+    List<PendingChatMessage> getDue(long now, int limit);
+
+    @Query("SELECT * FROM pending_chat_messages WHERE teamId = :teamId ORDER BY messageId")
+    List<PendingChatMessage> getForTeam(String teamId);
+
+    // Null when nothing is queued
+    @Query("SELECT MIN(nextAttemptAt) FROM pending_chat_messages")
+    Long getNextAttemptAt();
+
+    @Query("DELETE FROM pending_chat_messages WHERE messageId IN (:messageIds)")
+    void delete(List<String> messageIds);
+
+    @Query("UPDATE pending_chat_messages SET attempts = attempts + 1, nextAttemptAt = :nextAttemptAt WHERE messageId IN (:messageIds)")
+    void markFailed(List<String> messageIds, long nextAttemptAt);
+}
@@ -4,9 +4,13 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 import com.adventure.solo.model.PlayerProfile;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Dao
 public interface PlayerProfileDao {
@@ -19,6 +23,66 @@ public interface PlayerProfileDao {
     @Query("SELECT * FROM player_profiles WHERE teamId = :teamId")
     List<PlayerProfile> getPlayersByTeamId(String teamId);
 
+    @Query("SELECT * FROM player_profiles WHERE teamId IN (:teamIds)")
+    List<PlayerProfile> getPlayersByTeamIds(List<String> teamIds);
+
     @Update
     void update(PlayerProfile playerProfile);
+
+    // Delta updates: applied in SQL so concurrent awards cannot overwrite each other.
+    // Each returns the number of rows changed (0 if the profile does not exist).
+    @Query("UPDATE player_profiles SET individualXP = individualXP + :xpToAdd WHERE firebaseUid = :uid")
+    int addExperience(String uid, int xpToAdd);
+
+    @Query("UPDATE player_profiles SET coins = coins + :coinsToAdd WHERE firebaseUid = :uid")
+    int addCoins(String uid, int coinsToAdd);
+
+    @Query("UPDATE player_profiles SET coins = coins + :coinsToAdd WHERE firebaseUid IN (:uids)")
+    int addCoinsToPlayers(List<String> uids, int coinsToAdd);
+
+    // Only applies when the player still has enough stamina; returns 0 otherwise.
+    @Query("UPDATE player_profiles SET stamina = stamina - :staminaCost, coins = coins + :coinsGained " +
+           "WHERE firebaseUid = :uid AND stamina >= :staminaCost")
+    int spendStaminaForCoins(String uid, int staminaCost, int coinsGained);
+
+    @Query("UPDATE player_profiles SET stamina = :stamina, coins = :coins WHERE firebaseUid = :uid")
+    int updateStaminaAndCoins(String uid, int stamina, int coins);
+
+    // Stay below SQLite's default limit of 999 bound variables per statement
+    int MAX_BIND_ARGS = 900;
+
+    /**
+     * Pays the same coin amount to every listed player in one transaction.
+     *
+     * @return the number of profiles that were updated.
+     */
+    @Transaction
+    default int awardCoinsToPlayers(List<String> uids, int coinsToAdd) {
+        int updated = 0;
+        for (int start = 0; start < uids.size(); start += MAX_BIND_ARGS) {
+            int end = Math.min(start + MAX_BIND_ARGS, uids.size());
+            updated += addCoinsToPlayers(uids.subList(start, end), coinsToAdd);
+        }
+        return updated;
+    }
+
+    /**
+     * Loads the members of many teams at once, one query per MAX_BIND_ARGS teams, in one
+     * transaction so every team is read from the same state.
+     *
+     * @return each requested team ID mapped to its players; empty for teams without any.
+     */
+    @Transaction
+    default Map<String, List<PlayerProfile>> getPlayersGroupedByTeam(List<String> teamIds) {
+        Map<String, List<PlayerProfile>> byTeam = new HashMap<>();
+        for (String teamId : teamIds) byTeam.put(teamId, new ArrayList<>());
+        List<String> distinct = new ArrayList<>(byTeam.keySet());
+        for (int start = 0; start < distinct.size(); start += MAX_BIND_ARGS) {
+            int end = Math.min(start + MAX_BIND_ARGS, distinct.size());
+            for (PlayerProfile profile : getPlayersByTeamIds(distinct.subList(start, end))) {
+                byTeam.get(profile.teamId).add(profile);
+            }
+        }
+        return byTeam;
+    }
 }
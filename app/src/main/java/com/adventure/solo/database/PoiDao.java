@@ -0,0 +1,49 @@
+package com.adventure.solo.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import com.adventure.solo.model.Poi;
+import com.adventure.solo.model.PoiTile;
+import java.util.List;
+
+@Dao
+public interface PoiDao {
+    @Query("SELECT * FROM poi_tiles WHERE tileKey IN (:tileKeys)")
+    List<PoiTile> getTiles(List<Long> tileKeys);
+
+    @Query("SELECT * FROM pois WHERE tileKey IN (:tileKeys)")
+    List<Poi> getPoisInTiles(List<Long> tileKeys);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTile(PoiTile tile);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertPois(List<Poi> pois);
+
+    @Query("DELETE FROM pois WHERE tileKey = :tileKey")
+    void deletePoisInTile(long tileKey);
+
+    @Query("DELETE FROM poi_tiles WHERE fetchedAt < :cutoff")
+    void deleteTilesFetchedBefore(long cutoff);
+
+    @Query("DELETE FROM pois WHERE tileKey NOT IN (SELECT tileKey FROM poi_tiles)")
+    void deleteOrphanedPois();
+
+    /** Swaps a tile's POIs for a fresh Overpass result in one transaction. */
+    @Transaction
+    default void replaceTile(PoiTile tile, List<Poi> pois) {
+        deletePoisInTile(tile.tileKey);
+        insertPois(pois);
+        insertTile(tile);
+    }
+
+    /** Drops tiles, and their POIs, that were fetched before the cutoff. */
+    @Transaction
+    default void evictTilesFetchedBefore(long cutoff) {
+        deleteTilesFetchedBefore(cutoff);
+        deleteOrphanedPois();
+    }
+}
@@ -0,0 +1,75 @@
+package com.adventure.solo.di;
+
+import android.content.Context;
+import com.adventure.solo.database.AppDatabase;
+import com.adventure.solo.database.ChatMessageDao;
+import com.adventure.solo.database.ClueDao;
+import com.adventure.solo.database.ClueDiscoveryDao;
+import com.adventure.solo.database.ClueProgressDao;
+import com.adventure.solo.database.PendingChatMessageDao;
+import com.adventure.solo.database.PlayerProfileDao;
+import com.adventure.solo.database.PoiDao;
+import com.adventure.solo.database.QuestDao;
+import com.adventure.solo.database.QuestProgressDao;
+import dagger.Module;
+import dagger.Provides;
+import dagger.hilt.InstallIn;
+import dagger.hilt.android.qualifiers.ApplicationContext;
+import dagger.hilt.components.SingletonComponent;
+import javax.inject.Singleton;
+
+@Module
+@InstallIn(SingletonComponent.class)
+public class DatabaseModule {
+
+    @Provides
+    @Singleton
+    public AppDatabase provideAppDatabase(@ApplicationContext Context context) {
+        return AppDatabase.getInstance(context);
+    }
+
+    @Provides
+    public QuestDao provideQuestDao(AppDatabase database) {
+        return database.questDao();
+    }
+
+    @Provides
+    public ClueDao provideClueDao(AppDatabase database) {
+        return database.clueDao();
+    }
+
+    @Provides
+    public PlayerProfileDao providePlayerProfileDao(AppDatabase database) {
+        return database.playerProfileDao();
+    }
+
+    @Provides
+    public QuestProgressDao provideQuestProgressDao(AppDatabase database) {
+        return database.questProgressDao();
+    }
+
+    @Provides
+    public ClueProgressDao provideClueProgressDao(AppDatabase database) {
+        return database.clueProgressDao();
+    }
+
+    @Provides
+    public ClueDiscoveryDao provideClueDiscoveryDao(AppDatabase database) {
+        return database.clueDiscoveryDao();
+    }
+
+    @Provides
+    public PoiDao providePoiDao(AppDatabase database) {
+        return database.poiDao();
+    }
+
+    @Provides
+    public ChatMessageDao provideChatMessageDao(AppDatabase database) {
+        return database.chatMessageDao();
+    }
+
+    @Provides
+    public PendingChatMessageDao providePendingChatMessageDao(AppDatabase database) {
+        return database.pendingChatMessageDao();
+    }
+}
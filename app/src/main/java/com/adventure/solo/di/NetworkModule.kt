@@ -1,9 +1,11 @@
 package com.adventure.solo.di
 
+import com.adventure.solo.network.HttpClients
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
 import dagger.hilt.components.SingletonComponent
+import okhttp3.OkHttpClient
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
 import javax.inject.Singleton
@@ -14,10 +16,18 @@ object NetworkModule {
 
     @Provides
     @Singleton
-    fun provideRetrofit(): Retrofit {
+    fun provideOkHttpClient(): OkHttpClient {
+        // Shared with the non-Hilt screens so there is one connection pool per process
+        return HttpClients.shared()
+    }
+
+    @Provides
+    @Singleton
+    fun provideRetrofit(okHttpClient: OkHttpClient): Retrofit {
         // Base URL will be a placeholder as we're not making real calls yet
         return Retrofit.Builder()
             .baseUrl("https://api.example.com/")
+            .client(okHttpClient)
             .addConverterFactory(GsonConverterFactory.create())
             .build()
     }
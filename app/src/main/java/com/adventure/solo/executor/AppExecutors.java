@@ -0,0 +1,54 @@
+package com.adventure.solo.executor;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * App-wide background lanes shared by every repository and service.
+ * <p>
+ * diskWrite is a single thread so database writes are applied in submission order and
+ * never contend for SQLite's write lock. diskRead is a small pool for queries, which Room
+ * can serve concurrently under WAL. mainThread posts results back to the UI.
+ */
+@Singleton
+public class AppExecutors {
+    private final InstrumentedExecutor diskWrite;
+    private final InstrumentedExecutor diskRead;
+    private final Executor mainThread;
+
+    @Inject
+    public AppExecutors() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        this.diskWrite = new InstrumentedExecutor("db-write", 1);
+        this.diskRead = new InstrumentedExecutor("db-read", Math.max(2, Math.min(4, cpus - 1)));
+        this.mainThread = new MainThreadExecutor();
+    }
+
+    public InstrumentedExecutor diskWrite() {
+        return diskWrite;
+    }
+
+    public InstrumentedExecutor diskRead() {
+        return diskRead;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    public ExecutorMetrics[] metrics() {
+        return new ExecutorMetrics[] { diskWrite.snapshot(), diskRead.snapshot() };
+    }
+
+    private static class MainThreadExecutor implements Executor {
+        private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            mainThreadHandler.post(command);
+        }
+    }
+}
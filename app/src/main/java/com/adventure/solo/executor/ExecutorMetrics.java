@@ -0,0 +1,36 @@
+package com.adventure.solo.executor;
+
+import java.util.concurrent.TimeUnit;
+
+// Point-in-time view of an InstrumentedExecutor lane
+public class ExecutorMetrics {
+    public final String name;
+    public final int queueDepth;
+    public final int maxQueueDepth;
+    public final long submitted;
+    public final long completed;
+    public final long averageWaitNanos;
+    public final long maxWaitNanos;
+    public final long averageRunNanos;
+
+    public ExecutorMetrics(String name, int queueDepth, int maxQueueDepth, long submitted, long completed,
+                           long averageWaitNanos, long maxWaitNanos, long averageRunNanos) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.averageWaitNanos = averageWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.averageRunNanos = averageRunNanos;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": queued=" + queueDepth + " (max " + maxQueueDepth + ")"
+                + ", done=" + completed + "/" + submitted
+                + ", wait avg=" + TimeUnit.NANOSECONDS.toMicros(averageWaitNanos) + "us"
+                + " max=" + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "ms"
+                + ", run avg=" + TimeUnit.NANOSECONDS.toMicros(averageRunNanos) + "us";
+    }
+}
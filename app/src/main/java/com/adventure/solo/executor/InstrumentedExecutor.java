@@ -0,0 +1,103 @@
+package com.adventure.solo.executor;
+
+import android.util.Log;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fixed-size thread pool that records how long tasks wait before they start running
+// and how deep its queue gets. Used for the lanes handed out by AppExecutors.
+public class InstrumentedExecutor implements Executor {
+    private static final String TAG = "InstrumentedExecutor";
+    // Tasks that wait longer than this are logged, they usually mean a lane is saturated
+    private static final long SLOW_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final String name;
+    private final ThreadPoolExecutor pool;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger maxPending = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+
+    public InstrumentedExecutor(String name, int threads) {
+        this.name = name;
+        this.pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        // Idle lanes give their threads back instead of parking them forever
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        final long enqueuedAt = System.nanoTime();
+        int depth = pending.incrementAndGet();
+        updateMax(maxPending, depth);
+        submitted.incrementAndGet();
+        pool.execute(() -> {
+            long startedAt = System.nanoTime();
+            long waited = startedAt - enqueuedAt;
+            pending.decrementAndGet();
+            totalWaitNanos.addAndGet(waited);
+            updateMax(maxWaitNanos, waited);
+            if (waited > SLOW_WAIT_NANOS) {
+                Log.w(TAG, name + " task waited " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms to start");
+            }
+            try {
+                command.run();
+            } finally {
+                totalRunNanos.addAndGet(System.nanoTime() - startedAt);
+                completed.incrementAndGet();
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return pending.get();
+    }
+
+    public ExecutorMetrics snapshot() {
+        long done = completed.get();
+        return new ExecutorMetrics(name, pending.get(), maxPending.get(), submitted.get(), done,
+                done == 0 ? 0 : totalWaitNanos.get() / done,
+                maxWaitNanos.get(),
+                done == 0 ? 0 : totalRunNanos.get() / done);
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) { }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) { }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1); // Keep below the UI and render threads
+            return thread;
+        }
+    }
+}
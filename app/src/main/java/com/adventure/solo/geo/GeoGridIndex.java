@@ -0,0 +1,285 @@
+package com.adventure.solo.geo;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * In-memory spatial index over lat/lon points, bucketed into a uniform grid of roughly
+ * cellSizeMeters square cells. Radius and k-nearest queries only visit the cells that
+ * can contain a match, and append their results to a caller-owned list so a query on
+ * every location fix does not allocate.
+ * <p>
+ * Items are compared by identity. Methods are synchronized; the index is cheap enough
+ * to share between the UI thread and a background lane.
+ */
+public class GeoGridIndex<T> {
+    private static final double METERS_PER_DEGREE_LAT = GeoMath.METERS_PER_DEGREE_LAT;
+    private static final int NONE = -1;
+
+    private final double cellDegrees;
+
+    // Entry storage, linked per cell through next[]. Freed slots are chained via freeHead.
+    private double[] lats = new double[16];
+    private double[] lons = new double[16];
+    private Object[] items = new Object[16];
+    private int[] next = new int[16];
+    private int entryCount; // High-water mark of used slots
+    private int freeHead = NONE;
+    private int size;
+
+    // Open-addressing map from packed cell key to the head of its entry chain
+    private long[] cellKeys = new long[64];
+    private int[] cellHeads = new int[64];
+    private boolean[] cellUsed = new boolean[64];
+    private int cellCount;
+
+    private final IdentityHashMap<T, Integer> slotByItem = new IdentityHashMap<>();
+
+    // k-nearest scratch, grown on demand and reused between queries
+    private int[] bestSlots = new int[8];
+    private double[] bestDistances = new double[8];
+
+    public GeoGridIndex(double cellSizeMeters) {
+        if (cellSizeMeters <= 0) throw new IllegalArgumentException("cellSizeMeters must be > 0");
+        this.cellDegrees = cellSizeMeters / METERS_PER_DEGREE_LAT;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean contains(T item) {
+        return slotByItem.containsKey(item);
+    }
+
+    /** Adds an item, or moves it if it is already indexed. */
+    public synchronized void put(T item, double latitude, double longitude) {
+        Integer existing = slotByItem.get(item);
+        if (existing != null) {
+            int slot = existing;
+            if (cellKey(latitude, longitude) == cellKey(lats[slot], lons[slot])) {
+                lats[slot] = latitude;
+                lons[slot] = longitude;
+                return;
+            }
+            removeSlot(slot);
+        }
+        int slot = allocateSlot();
+        lats[slot] = latitude;
+        lons[slot] = longitude;
+        items[slot] = item;
+        int cell = findOrCreateCell(cellKey(latitude, longitude));
+        next[slot] = cellHeads[cell];
+        cellHeads[cell] = slot;
+        slotByItem.put(item, slot);
+        size++;
+    }
+
+    public synchronized boolean remove(T item) {
+        Integer slot = slotByItem.get(item);
+        if (slot == null) return false;
+        removeSlot(slot);
+        return true;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(items, 0, entryCount, null);
+        Arrays.fill(cellUsed, false);
+        slotByItem.clear();
+        entryCount = 0;
+        freeHead = NONE;
+        size = 0;
+        cellCount = 0;
+    }
+
+    /**
+     * Appends every item within radiusMeters of the point to out.
+     *
+     * @return the number of items appended.
+     */
+    public synchronized int queryRadius(double latitude, double longitude, double radiusMeters, List<? super T> out) {
+        if (size == 0) return 0;
+        int found = 0;
+        double radiusSq = radiusMeters * radiusMeters;
+        int row0 = row(latitude), col0 = col(longitude);
+        int rowSpan = (int) Math.ceil(radiusMeters / METERS_PER_DEGREE_LAT / cellDegrees);
+        int colSpan = colSpan(latitude, radiusMeters);
+        for (int r = row0 - rowSpan; r <= row0 + rowSpan; r++) {
+            for (int c = col0 - colSpan; c <= col0 + colSpan; c++) {
+                int cell = findCell(pack(r, c));
+                if (cell == NONE) continue;
+                for (int slot = cellHeads[cell]; slot != NONE; slot = next[slot]) {
+                    if (GeoMath.equirectangularSq(latitude, longitude, lats[slot], lons[slot]) <= radiusSq) {
+                        out.add(item(slot));
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Appends up to k items nearest to the point, closest first, ignoring anything
+     * farther than maxRadiusMeters.
+     *
+     * @return the number of items appended.
+     */
+    public synchronized int queryNearest(double latitude, double longitude, int k, double maxRadiusMeters, List<? super T> out) {
+        if (size == 0 || k <= 0) return 0;
+        if (bestSlots.length < k) {
+            bestSlots = new int[k];
+            bestDistances = new double[k];
+        }
+        int kept = 0;
+        double maxSq = maxRadiusMeters * maxRadiusMeters;
+        double cellMeters = cellDegrees * METERS_PER_DEGREE_LAT;
+        int maxRing = (int) Math.ceil(maxRadiusMeters / (cellMeters * Math.max(0.01, Math.cos(Math.toRadians(latitude)))));
+        int row0 = row(latitude), col0 = col(longitude);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every unvisited cell is at least (ring - 1) cells away; stop once the worst kept hit is nearer
+            if (kept == k) {
+                double reach = (ring - 1) * cellMeters * Math.cos(Math.toRadians(latitude));
+                if (reach > 0 && reach * reach >= bestDistances[kept - 1]) break;
+            }
+            for (int r = row0 - ring; r <= row0 + ring; r++) {
+                boolean edgeRow = r == row0 - ring || r == row0 + ring;
+                for (int c = col0 - ring; c <= col0 + ring; c += edgeRow ? 1 : 2 * ring) {
+                    int cell = findCell(pack(r, c));
+                    if (cell != NONE) {
+                        for (int slot = cellHeads[cell]; slot != NONE; slot = next[slot]) {
+                            double d = GeoMath.equirectangularSq(latitude, longitude, lats[slot], lons[slot]);
+                            if (d > maxSq || (kept == k && d >= bestDistances[kept - 1])) continue;
+                            int i = kept < k ? kept++ : kept - 1;
+                            while (i > 0 && bestDistances[i - 1] > d) {
+                                bestDistances[i] = bestDistances[i - 1];
+                                bestSlots[i] = bestSlots[i - 1];
+                                i--;
+                            }
+                            bestDistances[i] = d;
+                            bestSlots[i] = slot;
+                        }
+                    }
+                    if (ring == 0) break;
+                }
+            }
+        }
+        for (int i = 0; i < kept; i++) {
+            out.add(item(bestSlots[i]));
+        }
+        return kept;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T item(int slot) {
+        return (T) items[slot];
+    }
+
+    private void removeSlot(int slot) {
+        int cell = findCell(cellKey(lats[slot], lons[slot]));
+        if (cell != NONE) {
+            if (cellHeads[cell] == slot) {
+                cellHeads[cell] = next[slot];
+            } else {
+                for (int s = cellHeads[cell]; s != NONE; s = next[s]) {
+                    if (next[s] == slot) {
+                        next[s] = next[slot];
+                        break;
+                    }
+                }
+            }
+        }
+        slotByItem.remove(item(slot));
+        items[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    private int allocateSlot() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (entryCount == items.length) {
+            int capacity = items.length * 2;
+            lats = Arrays.copyOf(lats, capacity);
+            lons = Arrays.copyOf(lons, capacity);
+            items = Arrays.copyOf(items, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return entryCount++;
+    }
+
+    private int colSpan(double latitude, double radiusMeters) {
+        // Longitude cells shrink towards the poles, so more columns are needed to cover the radius
+        double cosLat = Math.max(0.01, Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude) + radiusMeters / METERS_PER_DEGREE_LAT))));
+        return (int) Math.ceil(radiusMeters / (METERS_PER_DEGREE_LAT * cosLat) / cellDegrees);
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int col(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees);
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return pack(row(latitude), col(longitude));
+    }
+
+    private static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int findCell(long key) {
+        int mask = cellKeys.length - 1;
+        for (int i = hash(key, mask); cellUsed[i]; i = (i + 1) & mask) {
+            if (cellKeys[i] == key) return i;
+        }
+        return NONE;
+    }
+
+    private int findOrCreateCell(long key) {
+        int cell = findCell(key);
+        if (cell != NONE) return cell;
+        if ((cellCount + 1) * 4 > cellKeys.length * 3) {
+            rehash(cellKeys.length * 2);
+        }
+        int mask = cellKeys.length - 1;
+        int i = hash(key, mask);
+        while (cellUsed[i]) i = (i + 1) & mask;
+        cellUsed[i] = true;
+        cellKeys[i] = key;
+        cellHeads[i] = NONE;
+        cellCount++;
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = cellKeys;
+        int[] oldHeads = cellHeads;
+        boolean[] oldUsed = cellUsed;
+        cellKeys = new long[capacity];
+        cellHeads = new int[capacity];
+        cellUsed = new boolean[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (!oldUsed[j]) continue;
+            int i = hash(oldKeys[j], mask);
+            while (cellUsed[i]) i = (i + 1) & mask;
+            cellUsed[i] = true;
+            cellKeys[i] = oldKeys[j];
+            cellHeads[i] = oldHeads[j];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.adventure.solo.geo;
+
+/**
+ * Distance helpers on plain doubles, free of android.location so they run on the JVM
+ * and never allocate. Distances are in metres on a spherical Earth.
+ * <p>
+ * The equirectangular approximation is within about 0.1% of haversine up to a few
+ * kilometres, which covers every game radius; {@link #distance} switches to haversine
+ * beyond {@link #EQUIRECTANGULAR_MAX_METERS}.
+ */
+public final class GeoMath {
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    public static final double METERS_PER_DEGREE_LAT = Math.PI * EARTH_RADIUS_METERS / 180.0;
+    public static final double EQUIRECTANGULAR_MAX_METERS = 10_000;
+
+    // Squared angular distance (radians) up to which the flat approximation is used
+    private static final double EQUIRECTANGULAR_MAX_RAD_SQ =
+            (EQUIRECTANGULAR_MAX_METERS / EARTH_RADIUS_METERS) * (EQUIRECTANGULAR_MAX_METERS / EARTH_RADIUS_METERS);
+
+    private GeoMath() {}
+
+    /** Fast short-range distance. */
+    public static double equirectangular(double lat1, double lon1, double lat2, double lon2) {
+        return Math.sqrt(equirectangularSq(lat1, lon1, lat2, lon2));
+    }
+
+    /** Squared equirectangular distance in square metres; compare against radius * radius. */
+    public static double equirectangularSq(double lat1, double lon1, double lat2, double lon2) {
+        double x = Math.toRadians(wrapLongitudeDelta(lon2 - lon1)) * Math.cos(Math.toRadians((lat1 + lat2) * 0.5));
+        double y = Math.toRadians(lat2 - lat1);
+        return (x * x + y * y) * EARTH_RADIUS_METERS * EARTH_RADIUS_METERS;
+    }
+
+    /** Great-circle distance, exact for a spherical Earth at any range. */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(wrapLongitudeDelta(lon2 - lon1));
+        double sinLat = Math.sin(dLat * 0.5);
+        double sinLon = Math.sin(dLon * 0.5);
+        double a = sinLat * sinLat + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /** Equirectangular at short range, haversine beyond EQUIRECTANGULAR_MAX_METERS. */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double x = Math.toRadians(wrapLongitudeDelta(lon2 - lon1)) * Math.cos(Math.toRadians((lat1 + lat2) * 0.5));
+        double y = Math.toRadians(lat2 - lat1);
+        double radSq = x * x + y * y;
+        if (radSq <= EQUIRECTANGULAR_MAX_RAD_SQ) {
+            return Math.sqrt(radSq) * EARTH_RADIUS_METERS;
+        }
+        return haversine(lat1, lon1, lat2, lon2);
+    }
+
+    /** True if the two points are within radiusMeters, without a square root. */
+    public static boolean isWithin(double lat1, double lon1, double lat2, double lon2, double radiusMeters) {
+        if (radiusMeters > EQUIRECTANGULAR_MAX_METERS) {
+            return haversine(lat1, lon1, lat2, lon2) <= radiusMeters;
+        }
+        return equirectangularSq(lat1, lon1, lat2, lon2) <= radiusMeters * radiusMeters;
+    }
+
+    /**
+     * Writes the distance from the origin to each (lats[i], lons[i]) into out[i] for
+     * i in [0, count). The origin's cosine is computed once, so this is the cheapest way
+     * to measure many short-range points.
+     */
+    public static void distances(double originLat, double originLon, double[] lats, double[] lons, int count, double[] out) {
+        double cosOrigin = Math.cos(Math.toRadians(originLat));
+        for (int i = 0; i < count; i++) {
+            double x = Math.toRadians(wrapLongitudeDelta(lons[i] - originLon)) * cosOrigin;
+            double y = Math.toRadians(lats[i] - originLat);
+            double radSq = x * x + y * y;
+            out[i] = radSq <= EQUIRECTANGULAR_MAX_RAD_SQ
+                    ? Math.sqrt(radSq) * EARTH_RADIUS_METERS
+                    : haversine(originLat, originLon, lats[i], lons[i]);
+        }
+    }
+
+    /**
+     * Index of the first of count points within radiusMeters of the origin, or -1.
+     */
+    public static int firstWithin(double originLat, double originLon, double[] lats, double[] lons, int count, double radiusMeters) {
+        if (radiusMeters > EQUIRECTANGULAR_MAX_METERS) {
+            for (int i = 0; i < count; i++) {
+                if (haversine(originLat, originLon, lats[i], lons[i]) <= radiusMeters) return i;
+            }
+            return -1;
+        }
+        double cosOrigin = Math.cos(Math.toRadians(originLat));
+        double maxRadSq = (radiusMeters / EARTH_RADIUS_METERS) * (radiusMeters / EARTH_RADIUS_METERS);
+        for (int i = 0; i < count; i++) {
+            double x = Math.toRadians(wrapLongitudeDelta(lons[i] - originLon)) * cosOrigin;
+            double y = Math.toRadians(lats[i] - originLat);
+            if (x * x + y * y <= maxRadSq) return i;
+        }
+        return -1;
+    }
+
+    public static double metersToLatitudeDegrees(double meters) {
+        return meters / METERS_PER_DEGREE_LAT;
+    }
+
+    /** Longitude span of the given east-west distance at a latitude (clamped near the poles). */
+    public static double metersToLongitudeDegrees(double meters, double atLatitude) {
+        return meters / (METERS_PER_DEGREE_LAT * Math.max(1e-6, Math.cos(Math.toRadians(atLatitude))));
+    }
+
+    /**
+     * Moves a point by the given metres north and east. Writes {lat, lon} into out[0..1]
+     * so callers can reuse the array.
+     */
+    public static void offset(double latitude, double longitude, double northMeters, double eastMeters, double[] out) {
+        out[0] = latitude + metersToLatitudeDegrees(northMeters);
+        out[1] = normalizeLongitude(longitude + metersToLongitudeDegrees(eastMeters, latitude));
+    }
+
+    public static double normalizeLongitude(double longitude) {
+        if (longitude >= -180 && longitude < 180) return longitude;
+        return ((longitude + 180) % 360 + 360) % 360 - 180;
+    }
+
+    // Shortest signed longitude difference, so points either side of the antimeridian stay close
+    private static double wrapLongitudeDelta(double delta) {
+        if (delta > 180) return delta - 360;
+        if (delta < -180) return delta + 360;
+        return delta;
+    }
+}
@@ -0,0 +1,246 @@
+package com.adventure.solo.geo;
+
+import android.location.Location;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Tracks which registered circular fences the player is in and emits ENTER, DWELL and
+ * EXIT transitions, instead of every screen re-testing a raw radius on each fix.
+ * <p>
+ * A fence is entered when the fix is inside its radius and left only once it is beyond
+ * radius + hysteresis, so a player standing on the boundary does not flicker in and out.
+ * Fix accuracy is weighed pessimistically both ways: an imprecise fix has to be deeper
+ * inside to enter and farther outside to exit. Fixes whose accuracy is worse than
+ * maxAccuracyMeters are ignored.
+ * <p>
+ * Fences live in a GeoGridIndex, so a fix far from every fence touches no fence at all.
+ * Listeners are called on the thread that delivered the fix, outside the engine's lock.
+ */
+@Singleton
+public class GeofenceEngine {
+    public enum Transition { ENTER, DWELL, EXIT }
+
+    public interface Listener {
+        void onGeofenceTransition(Fence fence, Transition transition, double distanceMeters);
+    }
+
+    public static class Fence {
+        public final String id;
+        public final double latitude;
+        public final double longitude;
+        public final double radiusMeters;
+        public final Object tag; // Caller data, e.g. the Clue or GameReward behind the fence
+
+        boolean inside;
+        boolean dwellReported;
+        long enteredAtMillis;
+
+        Fence(String id, double latitude, double longitude, double radiusMeters, Object tag) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusMeters = radiusMeters;
+            this.tag = tag;
+        }
+
+        public boolean isInside() {
+            return inside;
+        }
+    }
+
+    public static final double DEFAULT_HYSTERESIS_METERS = 8;
+    public static final long DEFAULT_DWELL_MILLIS = 30_000;
+    public static final float DEFAULT_MAX_ACCURACY_METERS = 75;
+    // Share of the reported accuracy radius counted against the player on each transition
+    public static final double DEFAULT_ACCURACY_WEIGHT = 0.5;
+    private static final double INDEX_CELL_METERS = 100;
+    private static final int NEAREST_CANDIDATES = 4;
+
+    private final GeoGridIndex<Fence> index = new GeoGridIndex<>(INDEX_CELL_METERS);
+    private final Map<String, Fence> fencesById = new HashMap<>();
+    private final List<Fence> insideFences = new ArrayList<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private double hysteresisMeters = DEFAULT_HYSTERESIS_METERS;
+    private long dwellMillis = DEFAULT_DWELL_MILLIS;
+    private float maxAccuracyMeters = DEFAULT_MAX_ACCURACY_METERS;
+    private double accuracyWeight = DEFAULT_ACCURACY_WEIGHT;
+    private double maxRadiusMeters;
+
+    // Reused per fix
+    private final List<Fence> candidates = new ArrayList<>();
+    private final List<Fence> nearest = new ArrayList<>();
+    private final List<Fence> pendingFences = new ArrayList<>();
+    private final List<Transition> pendingTransitions = new ArrayList<>();
+    private double[] pendingDistances = new double[8];
+
+    @Inject
+    public GeofenceEngine() {}
+
+    public synchronized void configure(double hysteresisMeters, long dwellMillis, float maxAccuracyMeters, double accuracyWeight) {
+        this.hysteresisMeters = hysteresisMeters;
+        this.dwellMillis = dwellMillis;
+        this.maxAccuracyMeters = maxAccuracyMeters;
+        this.accuracyWeight = accuracyWeight;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Registers a fence, replacing any fence with the same id (its state is reset). */
+    public synchronized Fence addFence(String id, double latitude, double longitude, double radiusMeters, Object tag) {
+        removeFence(id);
+        Fence fence = new Fence(id, latitude, longitude, radiusMeters, tag);
+        fencesById.put(id, fence);
+        index.put(fence, latitude, longitude);
+        if (radiusMeters > maxRadiusMeters) maxRadiusMeters = radiusMeters;
+        return fence;
+    }
+
+    /** Removes a fence without emitting EXIT. */
+    public synchronized boolean removeFence(String id) {
+        Fence fence = fencesById.remove(id);
+        if (fence == null) return false;
+        index.remove(fence);
+        insideFences.remove(fence);
+        if (fence.radiusMeters >= maxRadiusMeters) recomputeMaxRadius();
+        return true;
+    }
+
+    public synchronized void removeFencesWithPrefix(String idPrefix) {
+        List<String> ids = new ArrayList<>();
+        for (String id : fencesById.keySet()) {
+            if (id.startsWith(idPrefix)) ids.add(id);
+        }
+        for (String id : ids) removeFence(id);
+    }
+
+    public synchronized Fence getFence(String id) {
+        return fencesById.get(id);
+    }
+
+    public synchronized boolean isInside(String id) {
+        Fence fence = fencesById.get(id);
+        return fence != null && fence.inside;
+    }
+
+    /** Appends the fences whose centre lies within radiusMeters of the point; returns how many. */
+    public synchronized int queryFences(double latitude, double longitude, double radiusMeters, List<? super Fence> out) {
+        return index.queryRadius(latitude, longitude, radiusMeters, out);
+    }
+
+    /**
+     * Distance from the point to the edge of the closest fence (0 when inside one), or
+     * Double.POSITIVE_INFINITY if no fence lies within maxMeters.
+     */
+    public synchronized double distanceToNearestFence(double latitude, double longitude, double maxMeters) {
+        if (fencesById.isEmpty()) return Double.POSITIVE_INFINITY;
+        nearest.clear();
+        // Nearest by centre is not always nearest by edge when radii differ; a few candidates cover that
+        index.queryNearest(latitude, longitude, NEAREST_CANDIDATES, maxMeters + maxRadiusMeters, nearest);
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < nearest.size(); i++) {
+            Fence fence = nearest.get(i);
+            double edge = GeoMath.distance(latitude, longitude, fence.latitude, fence.longitude) - fence.radiusMeters;
+            if (edge < best) best = Math.max(0, edge);
+        }
+        nearest.clear();
+        return best <= maxMeters ? best : Double.POSITIVE_INFINITY;
+    }
+
+    public void onLocation(Location location) {
+        onLocation(location.getLatitude(), location.getLongitude(),
+                location.hasAccuracy() ? location.getAccuracy() : 0f, location.getTime());
+    }
+
+    public void onLocation(double latitude, double longitude, float accuracyMeters, long timeMillis) {
+        int eventCount;
+        Fence[] fences;
+        Transition[] transitions;
+        double[] distances;
+        synchronized (this) {
+            if (accuracyMeters > maxAccuracyMeters) return;
+            double slack = accuracyMeters * accuracyWeight;
+            if (insideFences.isEmpty() && fencesById.isEmpty()) return;
+
+            candidates.clear();
+            // Anything that could enter or still be inside lies within the largest exit envelope
+            index.queryRadius(latitude, longitude, maxRadiusMeters + hysteresisMeters + slack, candidates);
+            if (candidates.isEmpty() && insideFences.isEmpty()) return;
+
+            pendingFences.clear();
+            pendingTransitions.clear();
+            for (int i = 0; i < candidates.size(); i++) {
+                Fence fence = candidates.get(i);
+                double distance = GeoMath.distance(latitude, longitude, fence.latitude, fence.longitude);
+                if (!fence.inside) {
+                    if (distance + slack <= fence.radiusMeters) {
+                        fence.inside = true;
+                        fence.dwellReported = false;
+                        fence.enteredAtMillis = timeMillis;
+                        insideFences.add(fence);
+                        queue(fence, Transition.ENTER, distance);
+                    }
+                } else if (distance - slack > fence.radiusMeters + hysteresisMeters) {
+                    exit(fence, distance);
+                } else if (!fence.dwellReported && timeMillis - fence.enteredAtMillis >= dwellMillis) {
+                    fence.dwellReported = true;
+                    queue(fence, Transition.DWELL, distance);
+                }
+            }
+            // Inside fences that fell outside the query envelope have certainly been left
+            for (int i = insideFences.size() - 1; i >= 0; i--) {
+                Fence fence = insideFences.get(i);
+                if (!candidates.contains(fence)) {
+                    exit(fence, GeoMath.distance(latitude, longitude, fence.latitude, fence.longitude));
+                }
+            }
+
+            eventCount = pendingFences.size();
+            if (eventCount == 0) return;
+            fences = pendingFences.toArray(new Fence[0]);
+            transitions = pendingTransitions.toArray(new Transition[0]);
+            distances = Arrays.copyOf(pendingDistances, eventCount);
+        }
+        for (int i = 0; i < eventCount; i++) {
+            for (Listener listener : listeners) {
+                listener.onGeofenceTransition(fences[i], transitions[i], distances[i]);
+            }
+        }
+    }
+
+    private void exit(Fence fence, double distance) {
+        fence.inside = false;
+        insideFences.remove(fence);
+        queue(fence, Transition.EXIT, distance);
+    }
+
+    private void queue(Fence fence, Transition transition, double distance) {
+        int i = pendingFences.size();
+        if (i == pendingDistances.length) {
+            pendingDistances = Arrays.copyOf(pendingDistances, i * 2);
+        }
+        pendingFences.add(fence);
+        pendingTransitions.add(transition);
+        pendingDistances[i] = distance;
+    }
+
+    private void recomputeMaxRadius() {
+        maxRadiusMeters = 0;
+        for (Fence fence : fencesById.values()) {
+            if (fence.radiusMeters > maxRadiusMeters) maxRadiusMeters = fence.radiusMeters;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.adventure.solo.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups points into clusters on a screen-space grid of cellPixels square cells, one
+ * grid per integer zoom level. Each zoom level is clustered once, on first use, and
+ * cached until the items change, so panning only filters cached clusters against the
+ * viewport and zooming back to a visited level costs nothing.
+ * <p>
+ * Beyond maxClusterZoom every item is its own cluster. Methods are synchronized so the
+ * items can be replaced from a background thread.
+ */
+public class GridClusterer<T> {
+    public static final int MAX_ZOOM = 22;
+
+    public interface Locator<T> {
+        double latitudeOf(T item);
+        double longitudeOf(T item);
+    }
+
+    public static class Cluster<T> {
+        public final double latitude;
+        public final double longitude;
+        public final int count;
+        public final T first; // The only item when count == 1
+        final double x;
+        final double y;
+
+        Cluster(double x, double y, int count, T first) {
+            this.x = x;
+            this.y = y;
+            this.latitude = TileMath.yToLat(y);
+            this.longitude = TileMath.xToLon(x);
+            this.count = count;
+            this.first = first;
+        }
+
+        public boolean isSingle() {
+            return count == 1;
+        }
+    }
+
+    private final double cellPixels;
+    private final int maxClusterZoom;
+
+    private Object[] items = new Object[0];
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    private final List<Cluster<T>>[] clustersByZoom = new List[MAX_ZOOM + 1];
+
+    public GridClusterer(double cellPixels, int maxClusterZoom) {
+        if (cellPixels <= 0) throw new IllegalArgumentException("cellPixels must be > 0");
+        this.cellPixels = cellPixels;
+        this.maxClusterZoom = maxClusterZoom;
+    }
+
+    /** Replaces all items and drops every cached zoom level. */
+    public synchronized void setItems(List<T> newItems, Locator<T> locator) {
+        size = newItems != null ? newItems.size() : 0;
+        if (items.length < size) {
+            items = new Object[size];
+            xs = new double[size];
+            ys = new double[size];
+        }
+        for (int i = 0; i < size; i++) {
+            T item = newItems.get(i);
+            items[i] = item;
+            xs[i] = TileMath.lonToX(locator.longitudeOf(item));
+            ys[i] = TileMath.latToY(locator.latitudeOf(item));
+        }
+        for (int i = size; i < items.length && items[i] != null; i++) items[i] = null;
+        for (int z = 0; z <= MAX_ZOOM; z++) clustersByZoom[z] = null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Appends the clusters at the zoom level whose centre lies in the box to out. west may
+     * be greater than east when the box crosses the antimeridian.
+     *
+     * @return the number of clusters appended.
+     */
+    public synchronized int query(int zoom, double south, double west, double north, double east, List<Cluster<T>> out) {
+        if (size == 0) return 0;
+        zoom = Math.max(0, Math.min(MAX_ZOOM, zoom));
+        List<Cluster<T>> clusters = clustersByZoom[zoom];
+        if (clusters == null) {
+            clusters = build(zoom);
+            clustersByZoom[zoom] = clusters;
+        }
+        double x0 = TileMath.lonToX(west), x1 = TileMath.lonToX(east);
+        double y0 = TileMath.latToY(north), y1 = TileMath.latToY(south);
+        boolean wraps = x0 > x1;
+        int found = 0;
+        for (int i = 0; i < clusters.size(); i++) {
+            Cluster<T> cluster = clusters.get(i);
+            if (cluster.y < y0 || cluster.y > y1) continue;
+            boolean inX = wraps ? (cluster.x >= x0 || cluster.x <= x1) : (cluster.x >= x0 && cluster.x <= x1);
+            if (!inX) continue;
+            out.add(cluster);
+            found++;
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Cluster<T>> build(int zoom) {
+        List<Cluster<T>> clusters = new ArrayList<>();
+        if (zoom > maxClusterZoom) {
+            for (int i = 0; i < size; i++) clusters.add(new Cluster<>(xs[i], ys[i], 1, (T) items[i]));
+            return clusters;
+        }
+        double cellsPerWorld = TileMath.worldPixels(zoom) / cellPixels;
+        Map<Long, Integer> cellIndex = new HashMap<>();
+        int[] counts = new int[Math.min(size, 64)];
+        double[] sumX = new double[counts.length];
+        double[] sumY = new double[counts.length];
+        int[] firstItem = new int[counts.length];
+        int cells = 0;
+        for (int i = 0; i < size; i++) {
+            long cx = (long) (xs[i] * cellsPerWorld);
+            long cy = (long) (ys[i] * cellsPerWorld);
+            Long key = (cx << 32) | (cy & 0xFFFFFFFFL);
+            Integer cell = cellIndex.get(key);
+            if (cell == null) {
+                if (cells == counts.length) {
+                    int capacity = cells * 2;
+                    counts = Arrays.copyOf(counts, capacity);
+                    sumX = Arrays.copyOf(sumX, capacity);
+                    sumY = Arrays.copyOf(sumY, capacity);
+                    firstItem = Arrays.copyOf(firstItem, capacity);
+                }
+                cell = cells++;
+                cellIndex.put(key, cell);
+                firstItem[cell] = i;
+            }
+            counts[cell]++;
+            sumX[cell] += xs[i];
+            sumY[cell] += ys[i];
+        }
+        for (int c = 0; c < cells; c++) {
+            int n = counts[c];
+            int first = firstItem[c];
+            // A lone item keeps its exact position; groups sit at their centroid
+            if (n == 1) {
+                clusters.add(new Cluster<>(xs[first], ys[first], 1, (T) items[first]));
+            } else {
+                clusters.add(new Cluster<>(sumX[c] / n, sumY[c] / n, n, (T) items[first]));
+            }
+        }
+        return clusters;
+    }
+}
@@ -0,0 +1,96 @@
+package com.adventure.solo.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Web Mercator helpers shared by marker clustering and tile bookkeeping. x and y are
+ * normalised world coordinates in [0, 1), with y growing southwards like slippy-map
+ * tiles; multiply by 256 * 2^zoom for pixels.
+ */
+public final class TileMath {
+    public static final double MAX_LATITUDE = 85.05112878;
+    public static final int TILE_SIZE = 256;
+
+    private TileMath() {}
+
+    public static double lonToX(double longitude) {
+        double x = (GeoMath.normalizeLongitude(longitude) + 180.0) / 360.0;
+        return x >= 1.0 ? 0.0 : x;
+    }
+
+    public static double latToY(double latitude) {
+        double lat = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        double sin = Math.sin(Math.toRadians(lat));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    public static double xToLon(double x) {
+        return x * 360.0 - 180.0;
+    }
+
+    public static double yToLat(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+
+    /** World width and height in pixels at a zoom level. */
+    public static double worldPixels(int zoom) {
+        return (double) TILE_SIZE * (1L << zoom);
+    }
+
+    public static int tileX(double longitude, int zoom) {
+        return (int) Math.floor(lonToX(longitude) * (1 << zoom));
+    }
+
+    public static int tileY(double latitude, int zoom) {
+        int n = 1 << zoom;
+        return Math.min(n - 1, (int) Math.floor(latToY(latitude) * n));
+    }
+
+    /** Packs a slippy-map tile address into one long: 6 bits of zoom, 29 each of x and y. */
+    public static long tileKey(int zoom, int x, int y) {
+        return ((long) zoom << 58) | ((long) x << 29) | y;
+    }
+
+    public static int zoomOf(long tileKey) {
+        return (int) (tileKey >>> 58);
+    }
+
+    public static int xOf(long tileKey) {
+        return (int) ((tileKey >>> 29) & 0x1FFFFFFF);
+    }
+
+    public static int yOf(long tileKey) {
+        return (int) (tileKey & 0x1FFFFFFF);
+    }
+
+    /** Tile bounds as {south, west, north, east}. */
+    public static double[] tileBounds(long tileKey) {
+        int n = 1 << zoomOf(tileKey);
+        int x = xOf(tileKey), y = yOf(tileKey);
+        return new double[] {
+                yToLat((y + 1) / (double) n), xToLon(x / (double) n),
+                yToLat(y / (double) n), xToLon((x + 1) / (double) n)};
+    }
+
+    /**
+     * Keys of the tiles at a zoom level that cover a bounding box, row by row. A box whose
+     * west edge is east of its east edge crosses the antimeridian. Returns an empty list
+     * when more than maxTiles would be needed.
+     */
+    public static List<Long> tilesCovering(double south, double west, double north, double east,
+                                           int zoom, int maxTiles) {
+        List<Long> keys = new ArrayList<>();
+        int n = 1 << zoom;
+        int minX = tileX(west, zoom), maxX = tileX(east, zoom);
+        int minY = tileY(north, zoom), maxY = tileY(south, zoom);
+        int columns = maxX >= minX ? maxX - minX + 1 : n - minX + maxX + 1;
+        if ((long) columns * (maxY - minY + 1) > maxTiles) return keys;
+        for (int y = minY; y <= maxY; y++) {
+            for (int i = 0; i < columns; i++) {
+                keys.add(tileKey(zoom, (minX + i) % n, y));
+            }
+        }
+        return keys;
+    }
+}
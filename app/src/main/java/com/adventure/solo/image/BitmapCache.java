@@ -0,0 +1,261 @@
+package com.adventure.solo.image;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.adventure.solo.executor.AppExecutors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide LRU cache of decoded icons and avatars, keyed by source and target size,
+ * so a map update or list bind never decodes the same image twice.
+ * <p>
+ * Bitmaps are decoded with inSampleSize to the smallest power-of-two reduction that is
+ * still at least the target size, into a pooled scratch bitmap (inBitmap), and then
+ * scaled to the exact size. Only the scaled copies are handed out and cached; the scratch
+ * bitmaps never leave the cache, so reusing them can not corrupt an image on screen.
+ * Vector and other non-bitmap drawables are rasterized once at the requested size.
+ * <p>
+ * Screens that bind while the user scrolls or interacts should check peekAsset and, on a
+ * miss, decode with loadAsset on the disk lanes; getAsset decodes on the calling thread.
+ * <p>
+ * Not tied to Hilt so the demo screens, which run without it, can share the instance.
+ */
+public class BitmapCache {
+    private static final String TAG = "BitmapCache";
+    private static final int MAX_SCRATCH_BITMAPS = 3;
+
+    private static volatile BitmapCache instance;
+
+    private final Context context;
+    private final Resources resources;
+    private final LruCache<String, Bitmap> cache;
+    private final List<Bitmap> scratch = new ArrayList<>();
+
+    // Receives an asynchronously loaded bitmap on the main thread; null if it failed
+    public interface Callback {
+        void onLoaded(@Nullable Bitmap bitmap);
+    }
+
+    public static BitmapCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (BitmapCache.class) {
+                if (instance == null) {
+                    instance = new BitmapCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private BitmapCache(Context context) {
+        this.context = context;
+        this.resources = context.getResources();
+        // An eighth of the heap, in bytes
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+        this.cache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Image from the assets folder scaled to width x height, or null if it can not be
+     * opened or decoded.
+     */
+    @Nullable
+    public Bitmap getAsset(String path, int width, int height) {
+        String key = "asset:" + path + "@" + width + "x" + height;
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null) return bitmap;
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream in = context.getAssets().open(path)) {
+                BitmapFactory.decodeStream(in, null, options);
+            }
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                Log.e(TAG, "Not a decodable image: " + path);
+                return null;
+            }
+            prepareSampledDecode(options, width, height);
+            // Opens the asset per attempt; a retry must not continue a half-read stream
+            Bitmap decoded = decodeWithReuse(options, () -> {
+                try (InputStream in = context.getAssets().open(path)) {
+                    return BitmapFactory.decodeStream(in, null, options);
+                }
+            });
+            bitmap = finish(decoded, width, height);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open asset: " + path, e);
+            return null;
+        }
+        if (bitmap != null) cache.put(key, bitmap);
+        return bitmap;
+    }
+
+    /** The cached bitmap for an asset, or null without decoding anything. */
+    @Nullable
+    public Bitmap peekAsset(String path, int width, int height) {
+        return cache.get("asset:" + path + "@" + width + "x" + height);
+    }
+
+    /**
+     * Decodes an asset on diskRead and delivers it on the main thread. Views that may be
+     * rebound meanwhile (list rows, markers) must check they still show the same asset.
+     */
+    public void loadAsset(String path, int width, int height, AppExecutors appExecutors, Callback callback) {
+        appExecutors.diskRead().execute(() -> {
+            Bitmap bitmap = getAsset(path, width, height);
+            appExecutors.mainThread().execute(() -> callback.onLoaded(bitmap));
+        });
+    }
+
+    /**
+     * Drawable resource as a bitmap of width x height; 0 for either uses the drawable's
+     * intrinsic size. Vector drawables are rasterized.
+     */
+    @Nullable
+    public Bitmap getResource(@DrawableRes int resId, int width, int height) {
+        String key = "res:" + resId + "@" + width + "x" + height;
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null) return bitmap;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(resources, resId, options);
+        if (options.outWidth > 0 && options.outHeight > 0) {
+            int w = width > 0 ? width : options.outWidth;
+            int h = height > 0 ? height : options.outHeight;
+            prepareSampledDecode(options, w, h);
+            try {
+                bitmap = finish(decodeWithReuse(options, () -> BitmapFactory.decodeResource(resources, resId, options)), w, h);
+            } catch (IOException e) {
+                // decodeResource opens the resource itself and does not throw this
+                Log.e(TAG, "Failed to decode resource: " + resId, e);
+                bitmap = null;
+            }
+        } else {
+            bitmap = rasterize(resId, width, height);
+        }
+        if (bitmap != null) cache.put(key, bitmap);
+        return bitmap;
+    }
+
+    @Nullable
+    public Drawable getAssetDrawable(String path, int width, int height) {
+        Bitmap bitmap = getAsset(path, width, height);
+        return bitmap != null ? new BitmapDrawable(resources, bitmap) : null;
+    }
+
+    @Nullable
+    public Drawable getResourceDrawable(@DrawableRes int resId, int width, int height) {
+        Bitmap bitmap = getResource(resId, width, height);
+        return bitmap != null ? new BitmapDrawable(resources, bitmap) : null;
+    }
+
+    public int dpToPx(float dp) {
+        return Math.round(dp * resources.getDisplayMetrics().density);
+    }
+
+    /** Call from Application.onTrimMemory. */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            cache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            cache.trimToSize(cache.size() / 2);
+        }
+        synchronized (scratch) {
+            scratch.clear();
+        }
+    }
+
+    // Decodes from the start of its source each time it is called
+    private interface Decoder {
+        Bitmap decode() throws IOException;
+    }
+
+    private static void prepareSampledDecode(BitmapFactory.Options options, int width, int height) {
+        int sample = 1;
+        // Largest power of two that keeps both dimensions at or above the target
+        while (options.outWidth / (sample * 2) >= width && options.outHeight / (sample * 2) >= height) {
+            sample *= 2;
+        }
+        options.inSampleSize = sample;
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+    }
+
+    private Bitmap decodeWithReuse(BitmapFactory.Options options, Decoder decoder) throws IOException {
+        int sample = options.inSampleSize;
+        int neededBytes = (options.outWidth / sample + 1) * (options.outHeight / sample + 1) * 4;
+        synchronized (scratch) {
+            for (int i = 0; i < scratch.size(); i++) {
+                if (scratch.get(i).getAllocationByteCount() >= neededBytes) {
+                    options.inBitmap = scratch.remove(i);
+                    break;
+                }
+            }
+        }
+        try {
+            return decoder.decode();
+        } catch (IllegalArgumentException e) {
+            // inBitmap could not be reused for this image (e.g. an unexpected config). It is
+            // still a valid scratch bitmap, so it goes back to the pool, and the image is
+            // decoded again from the start of its source into a fresh bitmap.
+            Bitmap rejected = options.inBitmap;
+            options.inBitmap = null;
+            if (rejected != null) {
+                synchronized (scratch) {
+                    if (scratch.size() < MAX_SCRATCH_BITMAPS) scratch.add(rejected);
+                }
+            }
+            return decoder.decode();
+        }
+    }
+
+    private Bitmap finish(Bitmap decoded, int width, int height) {
+        if (decoded == null) return null;
+        Bitmap result = decoded.getWidth() == width && decoded.getHeight() == height
+                ? decoded.copy(Bitmap.Config.ARGB_8888, false)
+                : Bitmap.createScaledBitmap(decoded, width, height, true);
+        synchronized (scratch) {
+            if (decoded.isMutable() && scratch.size() < MAX_SCRATCH_BITMAPS) {
+                scratch.add(decoded);
+            }
+        }
+        return result;
+    }
+
+    private Bitmap rasterize(@DrawableRes int resId, int width, int height) {
+        Drawable drawable = ContextCompat.getDrawable(context, resId);
+        if (drawable == null) return null;
+        int w = width > 0 ? width : Math.max(1, drawable.getIntrinsicWidth());
+        int h = height > 0 ? height : Math.max(1, drawable.getIntrinsicHeight());
+        Bitmap bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, w, h);
+        drawable.draw(canvas);
+        return bitmap;
+    }
+}
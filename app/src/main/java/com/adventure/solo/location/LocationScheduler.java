@@ -0,0 +1,181 @@
+package com.adventure.solo.location;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.os.BatteryManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+
+import com.adventure.solo.geo.GeofenceEngine;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.hilt.android.qualifiers.ApplicationContext;
+
+/**
+ * The one location stream every screen subscribes to. Fused updates run only while at
+ * least one listener is registered, and their interval and priority follow
+ * SamplingPolicy: rare low-power fixes far from any fence, 1 Hz GPS close to one.
+ * <p>
+ * Every fix is fed to the GeofenceEngine before listeners see it, so screens observe
+ * fence transitions rather than measuring distances themselves. Listeners are called
+ * on the main thread; add and remove them from the main thread too.
+ */
+@Singleton
+public class LocationScheduler {
+    private static final String TAG = "LocationScheduler";
+
+    // Fences farther than this count as "none nearby" for sampling purposes
+    private static final double FENCE_SEARCH_METERS = 5_000;
+    private static final long BATTERY_CHECK_MILLIS = 60_000;
+    private static final int LOW_BATTERY_PERCENT = 20;
+
+    public interface Listener {
+        void onLocation(Location location);
+    }
+
+    private final Context context;
+    private final GeofenceEngine geofenceEngine;
+    private final FusedLocationProviderClient fusedClient;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private Location lastLocation;
+    private SamplingPolicy.Sample activeSample; // null while updates are stopped
+    private boolean lowPower;
+    private long batteryCheckedAt = -BATTERY_CHECK_MILLIS;
+
+    private final LocationCallback callback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult result) {
+            for (Location location : result.getLocations()) {
+                lastLocation = location;
+                geofenceEngine.onLocation(location);
+                for (Listener listener : listeners) {
+                    listener.onLocation(location);
+                }
+            }
+            reschedule();
+        }
+    };
+
+    @Inject
+    public LocationScheduler(@ApplicationContext Context context, GeofenceEngine geofenceEngine) {
+        this.context = context;
+        this.geofenceEngine = geofenceEngine;
+        this.fusedClient = LocationServices.getFusedLocationProviderClient(context);
+    }
+
+    /** Subscribes to the shared stream, starting updates for the first listener. */
+    public void addListener(Listener listener) {
+        if (listeners.contains(listener)) return;
+        listeners.add(listener);
+        if (lastLocation != null) listener.onLocation(lastLocation);
+        if (activeSample == null) reschedule();
+    }
+
+    /** Unsubscribes; updates stop with the last listener. */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty() && activeSample != null) {
+            Log.d(TAG, "No listeners left, stopping location updates.");
+            fusedClient.removeLocationUpdates(callback);
+            activeSample = null;
+        }
+    }
+
+    public Location getLastLocation() {
+        return lastLocation;
+    }
+
+    /**
+     * Re-evaluates the sampling rate, e.g. after fences near the player were added, instead
+     * of waiting for the next fix at the old rate. Safe to call from any thread.
+     */
+    public void refresh() {
+        mainHandler.post(() -> {
+            if (!listeners.isEmpty()) reschedule();
+        });
+    }
+
+    private void reschedule() {
+        if (listeners.isEmpty()) return;
+        SamplingPolicy.Sample sample;
+        if (lastLocation == null) {
+            sample = SamplingPolicy.INITIAL;
+        } else {
+            double distance = geofenceEngine.distanceToNearestFence(
+                    lastLocation.getLatitude(), lastLocation.getLongitude(), FENCE_SEARCH_METERS);
+            float speed = lastLocation.hasSpeed() ? lastLocation.getSpeed() : 0f;
+            sample = SamplingPolicy.choose(distance, speed, isLowPower());
+        }
+        if (sample.equals(activeSample)) return;
+        request(sample);
+    }
+
+    private void request(SamplingPolicy.Sample sample) {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "Location permission missing, not requesting updates.");
+            return;
+        }
+        LocationRequest request = new LocationRequest.Builder(priorityOf(sample.power), sample.intervalMillis)
+                .setMinUpdateIntervalMillis(sample.minIntervalMillis)
+                .build();
+        try {
+            // Re-requesting with the same callback replaces the previous request
+            fusedClient.requestLocationUpdates(request, callback, Looper.getMainLooper());
+            Log.d(TAG, "Location sampling " + activeSample + " -> " + sample);
+            activeSample = sample;
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission revoked while requesting updates", e);
+        }
+    }
+
+    private static int priorityOf(SamplingPolicy.Power power) {
+        switch (power) {
+            case HIGH_ACCURACY:
+                return Priority.PRIORITY_HIGH_ACCURACY;
+            case BALANCED:
+                return Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+            default:
+                return Priority.PRIORITY_LOW_POWER;
+        }
+    }
+
+    // Battery state changes slowly; checked at most once a minute rather than per fix
+    private boolean isLowPower() {
+        long now = SystemClock.elapsedRealtime();
+        if (now - batteryCheckedAt < BATTERY_CHECK_MILLIS) return lowPower;
+        batteryCheckedAt = now;
+
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        BatteryManager batteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        boolean saver = powerManager != null && powerManager.isPowerSaveMode();
+        boolean lowBattery = false;
+        if (batteryManager != null && !batteryManager.isCharging()) {
+            int percent = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+            lowBattery = percent > 0 && percent <= LOW_BATTERY_PERCENT;
+        }
+        lowPower = saver || lowBattery;
+        return lowPower;
+    }
+}
@@ -0,0 +1,109 @@
+package com.adventure.solo.location;
+
+/**
+ * Picks how often and how precisely to sample location from the distance to the nearest
+ * active fence, the player's speed and the battery state. Pure Java so it can be tested
+ * off-device; LocationScheduler turns a Sample into a fused LocationRequest.
+ * <p>
+ * Within NEAR_METERS of a fence the player is about to trigger it, so fixes come at 1 Hz
+ * with GPS. Farther out, the interval grows with distance but never exceeds half the time
+ * the player needs to reach the near band at their current speed, so a cyclist does not
+ * ride through a fence between two fixes. Intervals are snapped to a few fixed steps so
+ * that small speed changes do not re-register the request on every fix.
+ */
+public final class SamplingPolicy {
+    public enum Power { HIGH_ACCURACY, BALANCED, LOW_POWER }
+
+    public static final class Sample {
+        public final long intervalMillis;
+        public final long minIntervalMillis; // Fastest rate at which fixes requested by others are accepted
+        public final Power power;
+
+        Sample(long intervalMillis, Power power) {
+            this.intervalMillis = intervalMillis;
+            this.minIntervalMillis = Math.max(MIN_INTERVAL_MILLIS, intervalMillis / 2);
+            this.power = power;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Sample)) return false;
+            Sample other = (Sample) o;
+            return intervalMillis == other.intervalMillis && power == other.power;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(intervalMillis) + power.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return power + "@" + intervalMillis + "ms";
+        }
+    }
+
+    public static final double NEAR_METERS = 100;
+    public static final double MID_METERS = 300;
+    public static final double FAR_METERS = 800;
+
+    static final long MIN_INTERVAL_MILLIS = 1_000;
+    static final long NEAR_INTERVAL_MILLIS = 1_000;
+    static final long MID_INTERVAL_MILLIS = 3_000;
+    static final long FAR_INTERVAL_MILLIS = 10_000;
+    static final long REMOTE_INTERVAL_MILLIS = 60_000;
+    static final long IDLE_INTERVAL_MILLIS = 120_000;
+
+    // Requested intervals are rounded down to one of these
+    private static final long[] STEPS = {1_000, 2_000, 3_000, 5_000, 10_000, 20_000, 30_000, 60_000, 120_000, 240_000};
+
+    /** Used until the first fix, when the distance to any fence is still unknown. */
+    public static final Sample INITIAL = new Sample(5_000, Power.BALANCED);
+
+    private SamplingPolicy() {}
+
+    /**
+     * @param distanceMeters distance to the nearest fence edge, or Double.POSITIVE_INFINITY
+     *                       when no fence is registered nearby.
+     * @param speedMps       current ground speed, 0 when unknown.
+     * @param lowPower       true in battery saver or when the battery is low and not charging.
+     */
+    public static Sample choose(double distanceMeters, float speedMps, boolean lowPower) {
+        if (Double.isInfinite(distanceMeters) || Double.isNaN(distanceMeters)) {
+            return new Sample(lowPower ? IDLE_INTERVAL_MILLIS * 2 : IDLE_INTERVAL_MILLIS, Power.LOW_POWER);
+        }
+
+        long interval;
+        Power power;
+        if (distanceMeters <= NEAR_METERS) {
+            interval = lowPower ? 2 * NEAR_INTERVAL_MILLIS : NEAR_INTERVAL_MILLIS;
+            power = Power.HIGH_ACCURACY;
+        } else if (distanceMeters <= MID_METERS) {
+            interval = MID_INTERVAL_MILLIS;
+            // GPS is the dominant drain; on a low battery the network fix is good enough this far out
+            power = lowPower ? Power.BALANCED : Power.HIGH_ACCURACY;
+        } else if (distanceMeters <= FAR_METERS) {
+            interval = FAR_INTERVAL_MILLIS;
+            power = Power.BALANCED;
+        } else {
+            interval = REMOTE_INTERVAL_MILLIS;
+            power = Power.BALANCED;
+        }
+        if (lowPower && distanceMeters > NEAR_METERS) interval *= 2;
+
+        if (distanceMeters > NEAR_METERS && speedMps > 0.5f) {
+            long reachMillis = (long) ((distanceMeters - NEAR_METERS) / speedMps * 1000);
+            interval = Math.min(interval, Math.max(MIN_INTERVAL_MILLIS, reachMillis / 2));
+        }
+        return new Sample(snap(interval), power);
+    }
+
+    private static long snap(long interval) {
+        long snapped = STEPS[0];
+        for (long step : STEPS) {
+            if (step <= interval) snapped = step;
+        }
+        return snapped;
+    }
+}
@@ -0,0 +1,48 @@
+package com.adventure.solo.location;
+
+import android.location.Location;
+
+import org.osmdroid.views.overlay.mylocation.IMyLocationConsumer;
+import org.osmdroid.views.overlay.mylocation.IMyLocationProvider;
+
+/**
+ * osmdroid location provider backed by the shared LocationScheduler stream, so map
+ * overlays do not open their own GPS listener next to the scheduler's.
+ */
+public class SharedLocationProvider implements IMyLocationProvider, LocationScheduler.Listener {
+    private final LocationScheduler scheduler;
+    private IMyLocationConsumer consumer;
+
+    public SharedLocationProvider(LocationScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public boolean startLocationProvider(IMyLocationConsumer myLocationConsumer) {
+        consumer = myLocationConsumer;
+        scheduler.addListener(this);
+        return true;
+    }
+
+    @Override
+    public void stopLocationProvider() {
+        scheduler.removeListener(this);
+        consumer = null;
+    }
+
+    @Override
+    public Location getLastKnownLocation() {
+        return scheduler.getLastLocation();
+    }
+
+    @Override
+    public void destroy() {
+        stopLocationProvider();
+    }
+
+    @Override
+    public void onLocation(Location location) {
+        IMyLocationConsumer target = consumer;
+        if (target != null) target.onLocationChanged(location, this);
+    }
+}
@@ -0,0 +1,57 @@
+package com.adventure.solo.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.adventure.solo.model.firebase.ChatMessage;
+
+// A team chat message stored locally, so chat renders from disk before Firebase answers
+@Entity(tableName = "chat_messages",
+        indices = {@Index({"teamId", "messageId"}), @Index({"teamId", "timestamp"})})
+public class CachedChatMessage {
+    @PrimaryKey
+    @NonNull
+    public String messageId; // Firebase push key; keys sort in send order
+
+    public String teamId;
+    public String senderId;
+    public String senderName;
+    public String messageText;
+    public long timestamp; // Server timestamp in milliseconds
+
+    public CachedChatMessage(@NonNull String messageId, String teamId, String senderId, String senderName,
+                             String messageText, long timestamp) {
+        this.messageId = messageId;
+        this.teamId = teamId;
+        this.senderId = senderId;
+        this.senderName = senderName;
+        this.messageText = messageText;
+        this.timestamp = timestamp;
+    }
+
+    public static CachedChatMessage from(ChatMessage message) {
+        return new CachedChatMessage(message.messageId, message.teamId, message.senderId, message.senderName,
+                message.messageText, message.getTimestampLong());
+    }
+
+    public ChatMessage toChatMessage() {
+        ChatMessage message = new ChatMessage();
+        message.messageId = messageId;
+        message.teamId = teamId;
+        message.senderId = senderId;
+        message.senderName = senderName;
+        message.messageText = messageText;
+        message.timestamp = timestamp;
+        return message;
+    }
+
+    @NonNull
+    public String getMessageId() { return messageId; }
+    public String getTeamId() { return teamId; }
+    public String getSenderId() { return senderId; }
+    public String getSenderName() { return senderName; }
+    public String getMessageText() { return messageText; }
+    public long getTimestamp() { return timestamp; }
+}
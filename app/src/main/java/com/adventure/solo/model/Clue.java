@@ -2,6 +2,7 @@ package com.adventure.solo.model;
 
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters; // For ClueType converter
 import com.adventure.solo.database.Converters; // Assuming Converters class location
@@ -10,7 +11,9 @@ import com.adventure.solo.database.Converters; // Assuming Converters class loca
         foreignKeys = @ForeignKey(entity = Quest.class,
                 parentColumns = "id",
                 childColumns = "questId",
-                onDelete = ForeignKey.CASCADE))
+                onDelete = ForeignKey.CASCADE),
+        // Serves questId lookups (and the FK) plus the discovered filter and sequence ordering
+        indices = {@Index({"questId", "discovered", "sequenceNumber"})})
 @TypeConverters(Converters.class) // Added for ClueType
 public class Clue {
     @PrimaryKey(autoGenerate = true)
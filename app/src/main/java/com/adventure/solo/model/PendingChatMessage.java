@@ -0,0 +1,62 @@
+package com.adventure.solo.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import com.adventure.solo.model.firebase.ChatMessage;
+
+// A chat message written locally but not yet acknowledged by Firebase, see ChatOutbox
+@Entity(tableName = "pending_chat_messages")
+public class PendingChatMessage {
+    @PrimaryKey
+    @NonNull
+    public String messageId; // Push key chosen when queued, so a resend overwrites instead of duplicating
+
+    public String teamId;
+    public String senderId;
+    public String senderName;
+    public String messageText;
+    public long createdAt; // System.currentTimeMillis() when queued
+    public int attempts; // Failed writes so far
+    public long nextAttemptAt; // Earliest time to try again, System.currentTimeMillis() based
+
+    public PendingChatMessage(@NonNull String messageId, String teamId, String senderId, String senderName,
+                              String messageText, long createdAt, int attempts, long nextAttemptAt) {
+        this.messageId = messageId;
+        this.teamId = teamId;
+        this.senderId = senderId;
+        this.senderName = senderName;
+        this.messageText = messageText;
+        this.createdAt = createdAt;
+        this.attempts = attempts;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public static PendingChatMessage from(ChatMessage message, long now) {
+        return new PendingChatMessage(message.messageId, message.teamId, message.senderId, message.senderName,
+                message.messageText, now, 0, now);
+    }
+
+    // A pending copy for display; the timestamp stays unset until the server assigns one
+    public ChatMessage toChatMessage() {
+        ChatMessage message = new ChatMessage();
+        message.messageId = messageId;
+        message.teamId = teamId;
+        message.senderId = senderId;
+        message.senderName = senderName;
+        message.messageText = messageText;
+        message.pending = true;
+        return message;
+    }
+
+    @NonNull
+    public String getMessageId() { return messageId; }
+    public String getTeamId() { return teamId; }
+    public String getSenderId() { return senderId; }
+    public String getSenderName() { return senderName; }
+    public String getMessageText() { return messageText; }
+    public long getCreatedAt() { return createdAt; }
+    public int getAttempts() { return attempts; }
+    public long getNextAttemptAt() { return nextAttemptAt; }
+}
@@ -0,0 +1,33 @@
+package com.adventure.solo.model;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// An OpenStreetMap amenity node cached from Overpass, filed under the POI tile that contains it
+@Entity(tableName = "pois", indices = {@Index("tileKey")})
+public class Poi {
+    @PrimaryKey
+    public long id; // OpenStreetMap node id
+
+    public long tileKey; // TileMath.tileKey at PoiService.TILE_ZOOM
+    public double latitude;
+    public double longitude;
+    public String name;
+    public String type; // Value of the amenity tag
+
+    public Poi(long id, double latitude, double longitude, String name, String type) {
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.name = name;
+        this.type = type;
+    }
+
+    public long getId() { return id; }
+    public long getTileKey() { return tileKey; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public String getName() { return name; }
+    public String getType() { return type; }
+}
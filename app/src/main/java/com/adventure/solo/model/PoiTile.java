@@ -0,0 +1,21 @@
+package com.adventure.solo.model;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// Records when a POI tile was last fetched, so fresh tiles are served without a network call
+@Entity(tableName = "poi_tiles")
+public class PoiTile {
+    @PrimaryKey
+    public long tileKey;
+
+    public long fetchedAt; // System.currentTimeMillis() of the Overpass response
+
+    public PoiTile(long tileKey, long fetchedAt) {
+        this.tileKey = tileKey;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public long getTileKey() { return tileKey; }
+    public long getFetchedAt() { return fetchedAt; }
+}
@@ -9,7 +9,7 @@ import static androidx.room.ForeignKey.CASCADE; // If using FKs to Room entities
 // Composite primary key defined in @Entity
 @Entity(tableName = "quest_progress",
         primaryKeys = {"questId", "teamId"}, // teamId from Firebase, questId from local Quest
-        indices = {@Index("questId"), @Index("teamId")}
+        indices = {@Index("questId"), @Index({"teamId", "status"})} // teamId prefix also serves teamId-only lookups
         // Example ForeignKey if Quest table was local and had a matching questId
         // foreignKeys = @ForeignKey(entity = Quest.class,
         //                            parentColumns = "id", // Assuming Quest has 'id' as PK
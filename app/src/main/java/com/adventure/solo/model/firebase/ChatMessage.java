@@ -10,6 +10,8 @@ public class ChatMessage {
     public String senderName; // Display name of the sender
     public String messageText;
     public Object timestamp; // Use Object for ServerValue.TIMESTAMP, will be Long after fetch
+    @Exclude
+    public boolean pending; // Queued in ChatOutbox and not yet acknowledged; never written to Firebase
 
     public ChatMessage() {
         // Default constructor required for calls to DataSnapshot.getValue(ChatMessage.class)
@@ -0,0 +1,13 @@
+package com.adventure.solo.model.wrapper;
+
+public class ClueDiscoveryResult {
+    public long questId;
+    public boolean newlyDiscovered; // False if the team had already discovered this clue
+    public boolean questCompleted;  // True only for the discovery that completed the quest
+
+    public ClueDiscoveryResult(long questId, boolean newlyDiscovered, boolean questCompleted) {
+        this.questId = questId;
+        this.newlyDiscovered = newlyDiscovered;
+        this.questCompleted = questCompleted;
+    }
+}
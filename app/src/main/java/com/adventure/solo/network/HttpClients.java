@@ -0,0 +1,42 @@
+package com.adventure.solo.network;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * The app's single OkHttpClient, so every caller shares one connection pool and dispatcher.
+ * NetworkModule hands it to Hilt; the demo screens, which run without Hilt, use shared()
+ * directly. OkHttp already requests and transparently decompresses gzip.
+ */
+public final class HttpClients {
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+
+    private static volatile OkHttpClient shared;
+
+    private HttpClients() {}
+
+    public static OkHttpClient shared() {
+        if (shared == null) {
+            synchronized (HttpClients.class) {
+                if (shared == null) {
+                    Dispatcher dispatcher = new Dispatcher();
+                    dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+                    shared = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            .dispatcher(dispatcher)
+                            .connectTimeout(10, TimeUnit.SECONDS)
+                            .readTimeout(30, TimeUnit.SECONDS)
+                            .callTimeout(45, TimeUnit.SECONDS)
+                            .retryOnConnectionFailure(true)
+                            .build();
+                }
+            }
+        }
+        return shared;
+    }
+}
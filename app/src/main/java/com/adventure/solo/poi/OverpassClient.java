@@ -0,0 +1,97 @@
+package com.adventure.solo.poi;
+
+import androidx.annotation.NonNull;
+
+import com.adventure.solo.model.Poi;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Overpass API client on the shared OkHttpClient. Responses are parsed as they stream in,
+ * on OkHttp's dispatcher thread; the returned Call cancels the request and its parse.
+ */
+public class OverpassClient {
+    public static final String DEFAULT_ENDPOINT = "https://overpass-api.de/api/interpreter";
+
+    public interface ResultCallback {
+        void onResult(List<Poi> pois);
+        void onError(IOException e);
+    }
+
+    private final OkHttpClient httpClient;
+    private final HttpUrl endpoint;
+
+    public OverpassClient(OkHttpClient httpClient, String endpoint) {
+        this.httpClient = httpClient;
+        this.endpoint = HttpUrl.get(endpoint);
+    }
+
+    /** Amenity nodes inside the bounding box. Blocks; call from a background thread. */
+    public List<Poi> fetchAmenities(double south, double west, double north, double east) throws IOException {
+        try (Response response = newAmenitiesCall(south, west, north, east).execute()) {
+            return parse(response);
+        }
+    }
+
+    /** Asynchronous fetchAmenities; cancelling the returned Call suppresses the callback. */
+    public Call enqueueAmenities(double south, double west, double north, double east, ResultCallback callback) {
+        Call call = newAmenitiesCall(south, west, north, east);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                if (!call.isCanceled()) callback.onError(e);
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                List<Poi> pois;
+                try (Response r = response) {
+                    pois = parse(r);
+                } catch (IOException e) {
+                    if (!call.isCanceled()) callback.onError(e);
+                    return;
+                }
+                if (!call.isCanceled()) callback.onResult(pois);
+            }
+        });
+        return call;
+    }
+
+    private Call newAmenitiesCall(double south, double west, double north, double east) {
+        HttpUrl url = endpoint.newBuilder()
+                .addQueryParameter("data", amenityQuery(south, west, north, east))
+                .build();
+        return httpClient.newCall(new Request.Builder().url(url).get().build());
+    }
+
+    private static List<Poi> parse(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            // Overpass answers 429 and 504 when it is overloaded
+            throw new IOException("Overpass returned HTTP " + response.code());
+        }
+        ResponseBody body = response.body();
+        if (body == null) throw new IOException("Overpass returned no body");
+        try (Reader reader = new InputStreamReader(body.byteStream(), StandardCharsets.UTF_8)) {
+            return OverpassParser.parse(reader);
+        } catch (IllegalStateException | NumberFormatException e) {
+            // JsonReader reports an unexpected structure with unchecked exceptions
+            throw new IOException("Malformed Overpass response", e);
+        }
+    }
+
+    static String amenityQuery(double south, double west, double north, double east) {
+        return "[out:json][timeout:25];node[\"amenity\"](" + south + "," + west + "," + north + "," + east + ");out body qt;";
+    }
+}
@@ -0,0 +1,90 @@
+package com.adventure.solo.poi;
+
+import com.adventure.solo.model.Poi;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams an Overpass "out:json" response into Poi rows. Elements are read one at a time
+ * with a JsonReader, so neither the response text nor a JSON tree is ever held in memory,
+ * and anything that is not a node with coordinates (ways, relations, skeleton output) is
+ * skipped without being materialized.
+ */
+public final class OverpassParser {
+    static final String UNNAMED = "N/A";
+    static final String UNKNOWN_TYPE = "Unknown";
+
+    private OverpassParser() {}
+
+    public static List<Poi> parse(Reader in) throws IOException {
+        List<Poi> pois = new ArrayList<>();
+        JsonReader reader = new JsonReader(in);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("elements".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Poi poi = readElement(reader);
+                    if (poi != null) pois.add(poi);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return pois;
+    }
+
+    private static Poi readElement(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String type = null;
+        long id = 0;
+        double lat = Double.NaN, lon = Double.NaN;
+        String name = UNNAMED, amenity = UNKNOWN_TYPE;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "type": type = reader.nextString(); break;
+                case "id": id = reader.nextLong(); break;
+                case "lat": lat = reader.nextDouble(); break;
+                case "lon": lon = reader.nextDouble(); break;
+                case "tags":
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String tag = reader.nextName();
+                        if ("name".equals(tag) && reader.peek() == JsonToken.STRING) {
+                            name = reader.nextString();
+                        } else if ("amenity".equals(tag) && reader.peek() == JsonToken.STRING) {
+                            amenity = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (!"node".equals(type) || Double.isNaN(lat) || Double.isNaN(lon)) return null;
+        return new Poi(id, lat, lon, name, amenity);
+    }
+}
@@ -0,0 +1,316 @@
+package com.adventure.solo.poi;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.adventure.solo.database.AppDatabase;
+import com.adventure.solo.database.PoiDao;
+import com.adventure.solo.executor.InstrumentedExecutor;
+import com.adventure.solo.geo.TileMath;
+import com.adventure.solo.model.Poi;
+import com.adventure.solo.model.PoiTile;
+import com.adventure.solo.network.HttpClients;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+
+/**
+ * Points of interest for a map area, fetched from Overpass one fixed tile at a time.
+ * <p>
+ * Areas are quantized to tiles at TILE_ZOOM, so overlapping or repeated scans ask for the
+ * same tiles. Each tile is looked up in a small in-memory LRU, then in Room, and only
+ * fetched from the network when it is missing or older than TTL_MILLIS. Network fetches go
+ * through a TileLoader, which coalesces requests for the same tile, runs at most
+ * MAX_CONCURRENT_FETCHES at once and cancels tiles no area wants any more. Parsing and
+ * disk work run off the main thread; tiles are handed back one by one as they become
+ * available, so callers can merge them into the map incrementally.
+ * <p>
+ * Not tied to Hilt so the demo screens, which run without it, can share the instance.
+ */
+public class PoiService {
+    private static final String TAG = "PoiService";
+    public static final int TILE_ZOOM = 15; // About 1.2 km across at the equator
+    // More tiles than this means the viewport is too zoomed out to search
+    public static final int MAX_TILES_PER_AREA = 16;
+    // Overpass rate-limits per client; a couple of parallel tiles keeps panning responsive
+    private static final int MAX_CONCURRENT_FETCHES = 2;
+    private static final long TTL_MILLIS = TimeUnit.DAYS.toMillis(7);
+    // Stale tiles are still served when the network fails, until they are this old
+    private static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final int MEMORY_TILES = 64;
+
+    public interface Callback {
+        /** POIs of one tile, from memory, disk or the network. Called on the main thread. */
+        void onTileLoaded(long tileKey, List<Poi> pois);
+
+        /** Every tile of the area has been delivered or has failed. Called on the main thread. */
+        void onAreaLoaded(int poiCount, int tilesFailed);
+    }
+
+    private static volatile PoiService instance;
+
+    private final PoiDao poiDao;
+    private final OverpassClient client;
+    private final TileLoader<List<Poi>> tileLoader;
+    private final InstrumentedExecutor diskExecutor = new InstrumentedExecutor("poi-disk", 1);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Access-ordered, so the least recently shown tile is dropped first
+    private final LinkedHashMap<Long, CachedTile> memory = new LinkedHashMap<Long, CachedTile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedTile> eldest) {
+            return size() > MEMORY_TILES;
+        }
+    };
+
+    private static class CachedTile {
+        final long fetchedAt;
+        final List<Poi> pois;
+
+        CachedTile(long fetchedAt, List<Poi> pois) {
+            this.fetchedAt = fetchedAt;
+            this.pois = pois;
+        }
+    }
+
+    public static PoiService getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PoiService.class) {
+                if (instance == null) {
+                    instance = new PoiService(AppDatabase.getInstance(context).poiDao(),
+                            new OverpassClient(HttpClients.shared(), OverpassClient.DEFAULT_ENDPOINT));
+                }
+            }
+        }
+        return instance;
+    }
+
+    PoiService(PoiDao poiDao, OverpassClient client) {
+        this.poiDao = poiDao;
+        this.client = client;
+        this.tileLoader = new TileLoader<>(this::fetchTile, MAX_CONCURRENT_FETCHES);
+        diskExecutor.execute(() -> poiDao.evictTilesFetchedBefore(System.currentTimeMillis() - RETENTION_MILLIS));
+    }
+
+    /**
+     * Loads the POIs inside a bounding box. Tiles already in memory are delivered before this
+     * returns; the rest follow asynchronously. Must be called on the main thread.
+     *
+     * @param previous an earlier request this one replaces, typically the last viewport. It
+     *                 stops calling back at once, and its network fetches are cancelled once
+     *                 this request has claimed the tiles both share.
+     * @return null, without calling back, if the area needs more than MAX_TILES_PER_AREA tiles.
+     */
+    @Nullable
+    public AreaRequest loadArea(double south, double west, double north, double east,
+                                Callback callback, @Nullable AreaRequest previous) {
+        List<Long> tileKeys = TileMath.tilesCovering(south, west, north, east, TILE_ZOOM, MAX_TILES_PER_AREA);
+        if (tileKeys.isEmpty()) return null;
+        if (previous != null) previous.cancelled = true;
+
+        long now = System.currentTimeMillis();
+        List<Long> missing = new ArrayList<>();
+        List<CachedTile> hits = new ArrayList<>();
+        List<Long> hitKeys = new ArrayList<>();
+        for (long tileKey : tileKeys) {
+            CachedTile tile = getCached(tileKey);
+            if (tile != null && now - tile.fetchedAt < TTL_MILLIS) {
+                hits.add(tile);
+                hitKeys.add(tileKey);
+            } else {
+                missing.add(tileKey);
+            }
+        }
+
+        AreaRequest request = new AreaRequest(callback, missing.size());
+        for (int i = 0; i < hits.size(); i++) {
+            request.poiCount.addAndGet(hits.get(i).pois.size());
+            callback.onTileLoaded(hitKeys.get(i), hits.get(i).pois);
+        }
+        if (missing.isEmpty()) {
+            request.done = true;
+            if (previous != null) previous.releaseFetches();
+            callback.onAreaLoaded(request.poiCount.get(), 0);
+            return request;
+        }
+        diskExecutor.execute(() -> {
+            loadFromDisk(missing, request);
+            // Queued after this request's fetches, so shared tiles keep their fetch
+            if (previous != null) previous.releaseFetches();
+        });
+        return request;
+    }
+
+    /** A pending loadArea call. */
+    public final class AreaRequest {
+        private final Callback callback;
+        private final AtomicInteger remaining;
+        private final AtomicInteger poiCount = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<TileLoader<List<Poi>>.Request> fetches = new ArrayList<>();
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        private AreaRequest(Callback callback, int tiles) {
+            this.callback = callback;
+            this.remaining = new AtomicInteger(tiles);
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        /** Stops callbacks and cancels the fetches no other request shares. */
+        public void cancel() {
+            cancelled = true;
+            releaseFetches();
+        }
+
+        private void releaseFetches() {
+            List<TileLoader<List<Poi>>.Request> toCancel;
+            synchronized (this) {
+                toCancel = new ArrayList<>(fetches);
+                fetches.clear();
+            }
+            for (TileLoader<List<Poi>>.Request fetch : toCancel) fetch.cancel();
+        }
+
+        private void fetch(long tileKey, @Nullable List<Poi> stale) {
+            TileLoader<List<Poi>>.Request fetch = tileLoader.load(tileKey, new TileLoader.Listener<List<Poi>>() {
+                @Override
+                public void onLoaded(long key, List<Poi> pois) {
+                    deliver(key, pois);
+                    tileDone();
+                }
+
+                @Override
+                public void onFailed(long key, IOException e) {
+                    Log.e(TAG, "Error fetching POI tile " + TileMath.xOf(key) + "/" + TileMath.yOf(key), e);
+                    failed.incrementAndGet();
+                    if (stale != null) deliver(key, stale);
+                    tileDone();
+                }
+            });
+            synchronized (this) {
+                if (!cancelled) {
+                    fetches.add(fetch);
+                    return;
+                }
+            }
+            fetch.cancel();
+        }
+
+        private void deliver(long tileKey, List<Poi> pois) {
+            if (cancelled) return;
+            poiCount.addAndGet(pois.size());
+            mainHandler.post(() -> {
+                if (!cancelled) callback.onTileLoaded(tileKey, pois);
+            });
+        }
+
+        private void tileDone() {
+            if (remaining.decrementAndGet() == 0) {
+                done = true;
+                synchronized (this) {
+                    fetches.clear();
+                }
+                mainHandler.post(() -> {
+                    if (!cancelled) callback.onAreaLoaded(poiCount.get(), failed.get());
+                });
+            }
+        }
+    }
+
+    private void loadFromDisk(List<Long> tileKeys, AreaRequest request) {
+        if (request.cancelled) return;
+        long now = System.currentTimeMillis();
+        Map<Long, PoiTile> tiles = new HashMap<>();
+        Map<Long, List<Poi>> poisByTile = new HashMap<>();
+        try {
+            for (PoiTile tile : poiDao.getTiles(tileKeys)) {
+                tiles.put(tile.tileKey, tile);
+            }
+            if (!tiles.isEmpty()) {
+                for (Poi poi : poiDao.getPoisInTiles(new ArrayList<>(tiles.keySet()))) {
+                    List<Poi> pois = poisByTile.get(poi.tileKey);
+                    if (pois == null) {
+                        pois = new ArrayList<>();
+                        poisByTile.put(poi.tileKey, pois);
+                    }
+                    pois.add(poi);
+                }
+            }
+        } catch (Exception e) {
+            // A broken cache only costs a refetch
+            Log.e(TAG, "Error reading cached POI tiles", e);
+            tiles.clear();
+        }
+
+        for (long tileKey : tileKeys) {
+            PoiTile tile = tiles.get(tileKey);
+            List<Poi> pois = poisByTile.containsKey(tileKey)
+                    ? Collections.unmodifiableList(poisByTile.get(tileKey)) : Collections.<Poi>emptyList();
+            if (tile != null && now - tile.fetchedAt < TTL_MILLIS) {
+                putCached(tileKey, new CachedTile(tile.fetchedAt, pois));
+                request.deliver(tileKey, pois);
+                request.tileDone();
+            } else {
+                request.fetch(tileKey, tile != null ? pois : null);
+            }
+        }
+    }
+
+    // Runs the network request for TileLoader; parsing happens on OkHttp's dispatcher thread
+    private TileLoader.Cancellable fetchTile(long tileKey, TileLoader.Sink<List<Poi>> sink) {
+        double[] bounds = TileMath.tileBounds(tileKey);
+        Call call = client.enqueueAmenities(bounds[0], bounds[1], bounds[2], bounds[3], new OverpassClient.ResultCallback() {
+            @Override
+            public void onResult(List<Poi> fetched) {
+                // Nodes on a shared edge come back for both tiles; each is filed under exactly one
+                List<Poi> pois = new ArrayList<>(fetched.size());
+                for (Poi poi : fetched) {
+                    if (TileMath.tileKey(TILE_ZOOM, TileMath.tileX(poi.longitude, TILE_ZOOM),
+                            TileMath.tileY(poi.latitude, TILE_ZOOM)) == tileKey) {
+                        poi.tileKey = tileKey;
+                        pois.add(poi);
+                    }
+                }
+                long fetchedAt = System.currentTimeMillis();
+                List<Poi> result = Collections.unmodifiableList(pois);
+                putCached(tileKey, new CachedTile(fetchedAt, result));
+                diskExecutor.execute(() -> poiDao.replaceTile(new PoiTile(tileKey, fetchedAt), pois));
+                sink.onSuccess(result);
+            }
+
+            @Override
+            public void onError(IOException e) {
+                sink.onFailure(e);
+            }
+        });
+        return call::cancel;
+    }
+
+    private CachedTile getCached(long tileKey) {
+        synchronized (memory) {
+            return memory.get(tileKey);
+        }
+    }
+
+    private void putCached(long tileKey, CachedTile tile) {
+        synchronized (memory) {
+            memory.put(tileKey, tile);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.adventure.solo.poi;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs asynchronous per-tile fetches with three guarantees:
+ * <ul>
+ *   <li>Coalescing: while a tile is queued or in flight, further requests for it wait on the
+ *   same fetch instead of starting another.</li>
+ *   <li>Latest wins: a tile whose requests have all been cancelled is dropped from the queue,
+ *   or cancelled mid-flight, so a pan does not leave fetches running for areas no longer
+ *   on screen.</li>
+ *   <li>Bounded concurrency: at most maxConcurrent fetches run at once; newer tiles are
+ *   started first, since they belong to the most recent viewport.</li>
+ * </ul>
+ * Thread-safe; listeners are called on whichever thread completes the fetch.
+ */
+public class TileLoader<T> {
+
+    public interface Fetcher<T> {
+        /**
+         * Starts fetching a tile and eventually calls exactly one method of the sink, unless
+         * the returned handle is cancelled first.
+         */
+        Cancellable fetch(long tileKey, Sink<T> sink);
+    }
+
+    public interface Sink<T> {
+        void onSuccess(T result);
+        void onFailure(IOException e);
+    }
+
+    public interface Listener<T> {
+        void onLoaded(long tileKey, T result);
+        void onFailed(long tileKey, IOException e);
+    }
+
+    public interface Cancellable {
+        void cancel();
+    }
+
+    private final class Entry {
+        final long tileKey;
+        final List<Request> waiters = new ArrayList<>();
+        boolean started;
+        boolean cancelled;
+        Cancellable handle;
+
+        Entry(long tileKey) {
+            this.tileKey = tileKey;
+        }
+    }
+
+    /** One caller's interest in a tile. */
+    public final class Request implements Cancellable {
+        private final Entry entry;
+        private final Listener<T> listener;
+
+        private Request(Entry entry, Listener<T> listener) {
+            this.entry = entry;
+            this.listener = listener;
+        }
+
+        @Override
+        public void cancel() {
+            TileLoader.this.cancel(this);
+        }
+    }
+
+    private final Fetcher<T> fetcher;
+    private final int maxConcurrent;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // Newest first
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private int running;
+
+    public TileLoader(Fetcher<T> fetcher, int maxConcurrent) {
+        this.fetcher = fetcher;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public Request load(long tileKey, Listener<T> listener) {
+        Request request;
+        synchronized (this) {
+            Entry entry = entries.get(tileKey);
+            if (entry == null) {
+                entry = new Entry(tileKey);
+                entries.put(tileKey, entry);
+                queue.addFirst(entry);
+            }
+            request = new Request(entry, listener);
+            entry.waiters.add(request);
+        }
+        pump();
+        return request;
+    }
+
+    /** Tiles queued or in flight, for diagnostics and tests. */
+    public synchronized int pendingCount() {
+        return entries.size();
+    }
+
+    public synchronized int runningCount() {
+        return running;
+    }
+
+    private void cancel(Request request) {
+        Cancellable toCancel = null;
+        synchronized (this) {
+            Entry entry = request.entry;
+            if (!entry.waiters.remove(request) || !entry.waiters.isEmpty()) return;
+            if (entries.get(entry.tileKey) != entry) return; // Already finished
+            entries.remove(entry.tileKey);
+            entry.cancelled = true;
+            if (!entry.started) {
+                queue.remove(entry);
+                return;
+            }
+            running--;
+            // Null while the fetcher is still being started; pump() cancels it then
+            toCancel = entry.handle;
+        }
+        if (toCancel != null) toCancel.cancel();
+        pump();
+    }
+
+    private void pump() {
+        while (true) {
+            Entry entry;
+            synchronized (this) {
+                if (running >= maxConcurrent || queue.isEmpty()) return;
+                entry = queue.pollFirst();
+                entry.started = true;
+                running++;
+            }
+            Cancellable handle = fetcher.fetch(entry.tileKey, new EntrySink(entry));
+            boolean cancelledWhileStarting;
+            synchronized (this) {
+                entry.handle = handle;
+                cancelledWhileStarting = entry.cancelled;
+            }
+            if (cancelledWhileStarting && handle != null) handle.cancel();
+        }
+    }
+
+    private final class EntrySink implements Sink<T> {
+        private final Entry entry;
+
+        EntrySink(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void onSuccess(T result) {
+            for (Request request : finish()) request.listener.onLoaded(entry.tileKey, result);
+            pump();
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+            for (Request request : finish()) request.listener.onFailed(entry.tileKey, e);
+            pump();
+        }
+
+        private List<Request> finish() {
+            synchronized (TileLoader.this) {
+                // A cancelled entry has already been removed and its slot released
+                if (entries.get(entry.tileKey) != entry) return new ArrayList<>();
+                entries.remove(entry.tileKey);
+                running--;
+                return new ArrayList<>(entry.waiters);
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.adventure.solo.repository;
+
+import com.adventure.solo.database.PendingChatMessageDao;
+import com.adventure.solo.model.PendingChatMessage;
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import android.util.Log;
+
+/**
+ * Outbound team chat messages, queued in the pending_chat_messages table until Firebase
+ * acknowledges them.
+ * <p>
+ * A message gets its push key when it is queued, so it can be shown right away and every
+ * retry overwrites the same key instead of adding a copy. Messages queued within
+ * BATCH_WINDOW_MILLIS of each other go out in one multi-path write. A failed batch is
+ * retried with exponential backoff. The queue survives process death and is flushed again
+ * on the next start.
+ * <p>
+ * Use on the main thread.
+ */
+public class ChatOutbox {
+    private static final String TAG = "ChatOutbox";
+    // A burst of messages typed in quick succession becomes one write
+    static final long BATCH_WINDOW_MILLIS = 300;
+    static final int MAX_BATCH = 100;
+    static final long MIN_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(2);
+    static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /** Runs a task on the main thread after a delay; a Handler in the app, manual in tests. */
+    interface Timer {
+        void schedule(Runnable task, long delayMillis);
+    }
+
+    interface Clock {
+        long now();
+    }
+
+    /** Hears about a team's queued messages, on the main thread. */
+    public interface Listener {
+        void onQueued(ChatMessage message);
+        void onSent(String messageId);
+    }
+
+    private final ChatRemote remote;
+    private final PendingChatMessageDao pendingChatMessageDao;
+    private final Executor diskRead;
+    private final Executor diskWrite;
+    private final Executor mainThread;
+    private final Timer timer;
+    private final Clock clock;
+    private final Map<String, List<Listener>> listeners = new HashMap<>();
+    // When the scheduled flush runs, Long.MAX_VALUE if none is scheduled
+    private long flushAt = Long.MAX_VALUE;
+    private boolean flushing;
+
+    ChatOutbox(ChatRemote remote, PendingChatMessageDao pendingChatMessageDao,
+               Executor diskRead, Executor diskWrite, Executor mainThread, Timer timer, Clock clock) {
+        this.remote = remote;
+        this.pendingChatMessageDao = pendingChatMessageDao;
+        this.diskRead = diskRead;
+        this.diskWrite = diskWrite;
+        this.mainThread = mainThread;
+        this.timer = timer;
+        this.clock = clock;
+    }
+
+    /** Sends whatever an earlier process left in the queue. */
+    void start() {
+        scheduleFlush(0);
+    }
+
+    public void addListener(String teamId, Listener listener) {
+        List<Listener> teamListeners = listeners.get(teamId);
+        if (teamListeners == null) {
+            teamListeners = new CopyOnWriteArrayList<>();
+            listeners.put(teamId, teamListeners);
+        }
+        teamListeners.add(listener);
+    }
+
+    public void removeListener(String teamId, Listener listener) {
+        List<Listener> teamListeners = listeners.get(teamId);
+        if (teamListeners == null) return;
+        teamListeners.remove(listener);
+        if (teamListeners.isEmpty()) listeners.remove(teamId);
+    }
+
+    /**
+     * Queues a message, giving it its key. Listeners hear about it before this returns; it
+     * is stored and sent in the background.
+     */
+    public void enqueue(ChatMessage message) {
+        message.messageId = remote.newKey(message.teamId);
+        message.pending = true;
+        for (Listener listener : listenersFor(message.teamId)) listener.onQueued(message);
+        PendingChatMessage row = PendingChatMessage.from(message, clock.now());
+        diskWrite.execute(() -> {
+            try {
+                pendingChatMessageDao.insert(row);
+            } catch (Exception e) {
+                Log.e(TAG, "Error queueing chat message " + row.messageId, e);
+            }
+            mainThread.execute(() -> scheduleFlush(BATCH_WINDOW_MILLIS));
+        });
+    }
+
+    /**
+     * The queued messages of a team, oldest first, for display. Call off the main thread.
+     */
+    List<ChatMessage> getPending(String teamId) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (PendingChatMessage row : pendingChatMessageDao.getForTeam(teamId)) messages.add(row.toChatMessage());
+        return messages;
+    }
+
+    static long backoffMillis(int attempts) {
+        if (attempts <= 0) return 0;
+        int doublings = Math.min(attempts - 1, 30);
+        return Math.min(MAX_BACKOFF_MILLIS, MIN_BACKOFF_MILLIS << doublings);
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        long at = clock.now() + Math.max(0, delayMillis);
+        if (at >= flushAt) return; // An earlier flush will pick it up
+        flushAt = at;
+        timer.schedule(() -> {
+            if (flushAt != at) return; // Superseded by an earlier one
+            flushAt = Long.MAX_VALUE;
+            flush();
+        }, Math.max(0, delayMillis));
+    }
+
+    private void flush() {
+        // One batch at a time; the next is looked up when this one completes
+        if (flushing) return;
+        flushing = true;
+        long now = clock.now();
+        diskRead.execute(() -> {
+            List<PendingChatMessage> due;
+            Long nextAttemptAt;
+            try {
+                due = pendingChatMessageDao.getDue(now, MAX_BATCH);
+                nextAttemptAt = due.isEmpty() ? pendingChatMessageDao.getNextAttemptAt() : null;
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading the chat queue", e);
+                due = Collections.emptyList();
+                nextAttemptAt = null;
+            }
+            List<PendingChatMessage> batch = due;
+            Long next = nextAttemptAt;
+            mainThread.execute(() -> {
+                if (batch.isEmpty()) {
+                    flushing = false;
+                    if (next != null) scheduleFlush(next - clock.now());
+                    return;
+                }
+                send(batch);
+            });
+        });
+    }
+
+    private void send(List<PendingChatMessage> batch) {
+        List<ChatMessage> messages = new ArrayList<>(batch.size());
+        List<String> ids = new ArrayList<>(batch.size());
+        int attempts = 0;
+        for (PendingChatMessage row : batch) {
+            ChatMessage message = row.toChatMessage();
+            message.pending = false;
+            messages.add(message);
+            ids.add(row.messageId);
+            attempts = Math.max(attempts, row.attempts);
+        }
+        int failedAttempts = attempts + 1;
+        // Offline, Firebase holds the write and completes it after reconnecting
+        remote.write(messages, error -> {
+            if (error == null) {
+                onBatchSent(batch, ids);
+            } else {
+                // The remote has logged the error
+                long retryIn = backoffMillis(failedAttempts);
+                long nextAttemptAt = clock.now() + retryIn;
+                diskWrite.execute(() -> {
+                    try {
+                        pendingChatMessageDao.markFailed(ids, nextAttemptAt);
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error rescheduling chat messages", e);
+                    }
+                    mainThread.execute(() -> {
+                        flushing = false;
+                        scheduleFlush(retryIn);
+                    });
+                });
+            }
+        });
+    }
+
+    private void onBatchSent(List<PendingChatMessage> batch, List<String> ids) {
+        for (PendingChatMessage row : batch) {
+            for (Listener listener : listenersFor(row.teamId)) listener.onSent(row.messageId);
+        }
+        diskWrite.execute(() -> {
+            try {
+                pendingChatMessageDao.delete(ids);
+            } catch (Exception e) {
+                Log.e(TAG, "Error removing sent chat messages", e);
+            }
+            mainThread.execute(() -> {
+                flushing = false;
+                scheduleFlush(0); // More may have been queued meanwhile
+            });
+        });
+    }
+
+    private List<Listener> listenersFor(String teamId) {
+        List<Listener> teamListeners = listeners.get(teamId);
+        return teamListeners != null ? teamListeners : Collections.emptyList();
+    }
+}
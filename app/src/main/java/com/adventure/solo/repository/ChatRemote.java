@@ -0,0 +1,48 @@
+package com.adventure.solo.repository;
+
+import androidx.annotation.Nullable;
+
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import java.util.List;
+
+/** The server side of team chat, swappable for tests. Callbacks arrive on the main thread. */
+interface ChatRemote {
+    interface MessageListener {
+        // A message was added or changed
+        void onMessage(ChatMessage message);
+        void onError(String message);
+    }
+
+    interface PageCallback {
+        /**
+         * @param page messages oldest first.
+         * @param last whether nothing older exists.
+         */
+        void onPage(List<ChatMessage> page, boolean last);
+        void onError(String message);
+    }
+
+    interface WriteCallback {
+        // error is null once the server has acknowledged the write
+        void onComplete(@Nullable String error);
+    }
+
+    /**
+     * Listens to messages sent at or after sinceTimestamp, or to the latest `limit` messages
+     * when it is null. Run the returned Runnable to stop listening.
+     */
+    Runnable listen(String teamId, @Nullable Long sinceTimestamp, int limit, MessageListener listener);
+
+    /** Fetches up to `limit` messages before the given key. */
+    void fetchBefore(String teamId, String beforeKey, int limit, PageCallback callback);
+
+    /** A new, chronologically ordered message key. Works offline. */
+    String newKey(String teamId);
+
+    /**
+     * Writes messages under their keys, with server timestamps, in one atomic write. Writing
+     * a key again overwrites it, so retries cannot duplicate a message.
+     */
+    void write(List<ChatMessage> messages, WriteCallback callback);
+}
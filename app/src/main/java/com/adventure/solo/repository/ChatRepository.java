@@ -0,0 +1,186 @@
+package com.adventure.solo.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.adventure.solo.database.ChatMessageDao;
+import com.adventure.solo.database.PendingChatMessageDao;
+import com.adventure.solo.executor.AppExecutors;
+import com.adventure.solo.model.firebase.ChatMessage;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Team chat at /chats/{teamId}/messages, cached in the local chat_messages table. A
+ * subscription renders the cached messages first, then listens only to what is newer, and
+ * fetches older history a page at a time when asked; see ChatSubscription. Outgoing
+ * messages go through a persistent ChatOutbox.
+ */
+@Singleton
+public class ChatRepository {
+    private static final String TAG = "ChatRepository";
+    public static final int PAGE_SIZE = 50;
+
+    private final DatabaseReference chatsRef;
+    private final ChatMessageDao chatMessageDao;
+    private final AppExecutors appExecutors;
+    private final ChatRemote remote = new FirebaseChatRemote();
+    private final ChatOutbox outbox;
+
+    // Callback for a subscription's messages, on the main thread
+    public interface ChatListener {
+        /**
+         * @param messages  every loaded message, oldest first.
+         * @param newAtEnd  whether the change is a message newer than all others, e.g. one just sent.
+         */
+        void onMessages(List<ChatMessage> messages, boolean newAtEnd);
+        void onError(String message);
+    }
+
+    @Inject
+    public ChatRepository(FirebaseDatabase firebaseDatabase, ChatMessageDao chatMessageDao,
+                          PendingChatMessageDao pendingChatMessageDao, AppExecutors appExecutors) {
+        this.chatsRef = firebaseDatabase.getReference("chats");
+        this.chatMessageDao = chatMessageDao;
+        this.appExecutors = appExecutors;
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        this.outbox = new ChatOutbox(remote, pendingChatMessageDao, appExecutors.diskRead(), appExecutors.diskWrite(),
+                appExecutors.mainThread(), mainHandler::postDelayed, System::currentTimeMillis);
+        // Messages a previous process queued but never got acknowledged
+        appExecutors.mainThread().execute(outbox::start);
+    }
+
+    private DatabaseReference messagesRef(String teamId) {
+        return chatsRef.child(teamId).child("messages");
+    }
+
+    /** Starts showing a team's latest messages. Call on the main thread; close the subscription when done. */
+    public ChatSubscription subscribe(String teamId, ChatListener listener) {
+        ChatSubscription subscription = new ChatSubscription(teamId, remote, chatMessageDao, outbox,
+                appExecutors.diskRead(), appExecutors.diskWrite(), appExecutors.mainThread(), listener);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Queues a message for its team's chat and returns right away. Subscriptions show it as
+     * pending until Firebase has it; it is retried until then, also after a restart.
+     * Call on the main thread.
+     */
+    public void sendMessage(ChatMessage message) {
+        outbox.enqueue(message);
+    }
+
+    @Nullable
+    private static ChatMessage parse(DataSnapshot snapshot) {
+        try {
+            ChatMessage message = snapshot.getValue(ChatMessage.class);
+            if (message != null) message.messageId = snapshot.getKey();
+            return message;
+        } catch (Exception e) {
+            Log.e(TAG, "Error deserializing chat message " + snapshot.getKey(), e);
+            return null;
+        }
+    }
+
+    private class FirebaseChatRemote implements ChatRemote {
+        @Override
+        public Runnable listen(String teamId, @Nullable Long sinceTimestamp, int limit, MessageListener listener) {
+            // Catching up by server timestamp also picks up messages pushed offline with older keys.
+            // Needs ".indexOn": "timestamp" on chats/$teamId/messages to be filtered server-side.
+            Query query = sinceTimestamp != null
+                    ? messagesRef(teamId).orderByChild("timestamp").startAt(sinceTimestamp)
+                    : messagesRef(teamId).orderByKey().limitToLast(limit);
+            ChildEventListener childListener = new ChildEventListener() {
+                @Override
+                public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                    ChatMessage message = parse(snapshot);
+                    if (message != null) listener.onMessage(message);
+                }
+
+                @Override
+                public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                    ChatMessage message = parse(snapshot);
+                    if (message != null) listener.onMessage(message);
+                }
+
+                // A new message pushes the oldest one out of a limited query, but it stays loaded
+                @Override public void onChildRemoved(@NonNull DataSnapshot snapshot) {}
+                @Override public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {}
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Chat listener cancelled: " + error.getMessage());
+                    listener.onError(error.getMessage());
+                }
+            };
+            query.addChildEventListener(childListener);
+            return () -> query.removeEventListener(childListener);
+        }
+
+        @Override
+        public void fetchBefore(String teamId, String beforeKey, int limit, PageCallback callback) {
+            messagesRef(teamId).orderByKey().endBefore(beforeKey).limitToLast(limit)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        List<ChatMessage> page = new ArrayList<>(limit);
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            ChatMessage message = parse(child);
+                            if (message != null) page.add(message);
+                        }
+                        // Counts children rather than parsed messages, so a bad one cannot end the history early
+                        callback.onPage(page, snapshot.getChildrenCount() < limit);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Failed to load older messages: " + error.getMessage());
+                        callback.onError(error.getMessage());
+                    }
+                });
+        }
+
+        @Override
+        public String newKey(String teamId) {
+            // Generated on the device from the clock, so it works offline
+            return messagesRef(teamId).push().getKey();
+        }
+
+        @Override
+        public void write(List<ChatMessage> messages, WriteCallback callback) {
+            Map<String, Object> updates = new HashMap<>();
+            for (ChatMessage message : messages) {
+                Map<String, Object> value = new HashMap<>();
+                value.put("messageId", message.messageId);
+                value.put("teamId", message.teamId);
+                value.put("senderId", message.senderId);
+                value.put("senderName", message.senderName);
+                value.put("messageText", message.messageText);
+                value.put("timestamp", ServerValue.TIMESTAMP);
+                updates.put(message.teamId + "/messages/" + message.messageId, value);
+            }
+            chatsRef.updateChildren(updates, (error, ref) -> {
+                if (error != null) Log.e(TAG, "Failed to send " + messages.size() + " chat messages: " + error.getMessage());
+                callback.onComplete(error != null ? error.getMessage() : null);
+            });
+        }
+    }
+}
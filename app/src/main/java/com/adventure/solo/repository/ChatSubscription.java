@@ -0,0 +1,226 @@
+package com.adventure.solo.repository;
+
+import com.adventure.solo.database.ChatMessageDao;
+import com.adventure.solo.model.CachedChatMessage;
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import android.util.Log;
+
+/**
+ * One screen's view of a team chat, offline first.
+ * <p>
+ * The latest page is rendered from the local chat_messages table before the network is
+ * touched. The live listener then asks Firebase only for messages sent since the newest
+ * cached timestamp, or for the latest page on a first open, and every message it delivers
+ * is written back. Older pages come from the table first and from Firebase once the table
+ * runs out, so the table always holds an unbroken run of a team's newest messages.
+ * <p>
+ * Messages queued in the ChatOutbox are shown as pending from the moment they are sent
+ * until Firebase acknowledges them, across restarts too.
+ * <p>
+ * Use on the main thread.
+ */
+public class ChatSubscription {
+    private static final String TAG = "ChatSubscription";
+
+    private final String teamId;
+    private final ChatRemote remote;
+    private final ChatMessageDao chatMessageDao;
+    private final ChatOutbox outbox;
+    private final Executor diskRead;
+    private final Executor diskWrite;
+    private final Executor mainThread;
+    private final ChatRepository.ChatListener listener;
+    private final ChatWindow window = new ChatWindow();
+    // Keys of loaded messages that are still in the outbox
+    private final Set<String> pendingKeys = new HashSet<>();
+    private Runnable stopListening;
+    private boolean loadingOlder;
+    private boolean closed;
+
+    private final ChatRemote.MessageListener liveListener = new ChatRemote.MessageListener() {
+        @Override
+        public void onMessage(ChatMessage message) {
+            if (closed) return;
+            // Firebase echoes local writes before the server has them; those stay pending
+            message.pending = pendingKeys.contains(message.messageId);
+            boolean newAtEnd = window.put(message);
+            listener.onMessages(window.snapshot(), newAtEnd);
+            // Pending messages, and those still waiting for a server timestamp, are stored later
+            if (!message.pending) store(Collections.singletonList(message));
+        }
+
+        @Override
+        public void onError(String message) {
+            if (!closed) listener.onError(message);
+        }
+    };
+
+    private final ChatOutbox.Listener outboxListener = new ChatOutbox.Listener() {
+        @Override
+        public void onQueued(ChatMessage message) {
+            if (closed) return;
+            pendingKeys.add(message.messageId);
+            window.put(message);
+            listener.onMessages(window.snapshot(), true);
+        }
+
+        @Override
+        public void onSent(String messageId) {
+            if (closed || !pendingKeys.remove(messageId)) return;
+            ChatMessage pending = window.get(messageId);
+            if (pending == null) return;
+            // A new object, so the adapter sees the change
+            ChatMessage sent = copy(pending);
+            sent.pending = false;
+            window.put(sent);
+            listener.onMessages(window.snapshot(), false);
+            store(Collections.singletonList(sent));
+        }
+    };
+
+    ChatSubscription(String teamId, ChatRemote remote, ChatMessageDao chatMessageDao, ChatOutbox outbox,
+                     Executor diskRead, Executor diskWrite, Executor mainThread,
+                     ChatRepository.ChatListener listener) {
+        this.teamId = teamId;
+        this.remote = remote;
+        this.chatMessageDao = chatMessageDao;
+        this.outbox = outbox;
+        this.diskRead = diskRead;
+        this.diskWrite = diskWrite;
+        this.mainThread = mainThread;
+        this.listener = listener;
+    }
+
+    void start() {
+        diskRead.execute(() -> {
+            List<ChatMessage> cached;
+            List<ChatMessage> queued;
+            Long since;
+            try {
+                cached = toMessages(chatMessageDao.getLatest(teamId, ChatRepository.PAGE_SIZE));
+                since = cached.isEmpty() ? null : chatMessageDao.getLatestTimestamp(teamId);
+                queued = outbox.getPending(teamId);
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading cached chat for team " + teamId, e);
+                cached = Collections.emptyList();
+                queued = Collections.emptyList();
+                since = null;
+            }
+            List<ChatMessage> page = cached;
+            List<ChatMessage> pending = queued;
+            Long sinceTimestamp = since;
+            mainThread.execute(() -> {
+                if (closed) return;
+                outbox.addListener(teamId, outboxListener);
+                for (ChatMessage message : page) window.put(message);
+                for (ChatMessage message : pending) {
+                    pendingKeys.add(message.messageId);
+                    window.put(message);
+                }
+                if (!window.isEmpty()) listener.onMessages(window.snapshot(), true);
+                // Inclusive, since two messages can share a millisecond; the overlap is merged by key
+                stopListening = remote.listen(teamId, sinceTimestamp, ChatRepository.PAGE_SIZE, liveListener);
+            });
+        });
+    }
+
+    public boolean hasOlder() {
+        return window.hasOlder();
+    }
+
+    /** Loads the page before the oldest loaded message, unless one is already on its way. */
+    public void loadOlder() {
+        String oldestKey = window.oldestKey();
+        if (closed || loadingOlder || !window.hasOlder() || oldestKey == null) return;
+        loadingOlder = true;
+        diskRead.execute(() -> {
+            List<ChatMessage> cached;
+            try {
+                cached = toMessages(chatMessageDao.getBefore(teamId, oldestKey, ChatRepository.PAGE_SIZE));
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading cached chat for team " + teamId, e);
+                cached = Collections.emptyList();
+            }
+            List<ChatMessage> page = cached;
+            mainThread.execute(() -> onCachedPage(page));
+        });
+    }
+
+    private void onCachedPage(List<ChatMessage> page) {
+        if (closed) {
+            loadingOlder = false;
+            return;
+        }
+        if (!page.isEmpty()) {
+            window.addOlderPage(page, false);
+            listener.onMessages(window.snapshot(), false);
+        }
+        if (page.size() == ChatRepository.PAGE_SIZE) {
+            loadingOlder = false;
+            return;
+        }
+        // The table has nothing older; the rest of the history is only on the server
+        remote.fetchBefore(teamId, window.oldestKey(), ChatRepository.PAGE_SIZE, new ChatRemote.PageCallback() {
+            @Override
+            public void onPage(List<ChatMessage> page, boolean last) {
+                loadingOlder = false;
+                if (closed) return;
+                window.addOlderPage(page, last);
+                listener.onMessages(window.snapshot(), false);
+                store(page);
+            }
+
+            @Override
+            public void onError(String message) {
+                loadingOlder = false;
+                if (!closed) listener.onError(message);
+            }
+        });
+    }
+
+    public void close() {
+        closed = true;
+        outbox.removeListener(teamId, outboxListener);
+        if (stopListening != null) stopListening.run();
+    }
+
+    private void store(List<ChatMessage> messages) {
+        List<CachedChatMessage> rows = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            if (message.messageId != null && message.timestamp instanceof Long) rows.add(CachedChatMessage.from(message));
+        }
+        if (rows.isEmpty()) return;
+        diskWrite.execute(() -> {
+            try {
+                chatMessageDao.insertAll(rows);
+            } catch (Exception e) {
+                Log.e(TAG, "Error caching chat messages for team " + teamId, e);
+            }
+        });
+    }
+
+    private static ChatMessage copy(ChatMessage message) {
+        ChatMessage copy = new ChatMessage();
+        copy.messageId = message.messageId;
+        copy.teamId = message.teamId;
+        copy.senderId = message.senderId;
+        copy.senderName = message.senderName;
+        copy.messageText = message.messageText;
+        copy.timestamp = message.timestamp;
+        copy.pending = message.pending;
+        return copy;
+    }
+
+    private static List<ChatMessage> toMessages(List<CachedChatMessage> rows) {
+        List<ChatMessage> messages = new ArrayList<>(rows.size());
+        for (CachedChatMessage row : rows) messages.add(row.toChatMessage());
+        return messages;
+    }
+}
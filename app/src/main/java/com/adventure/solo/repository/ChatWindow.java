@@ -0,0 +1,68 @@
+package com.adventure.solo.repository;
+
+import androidx.annotation.Nullable;
+
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * The loaded part of a team's chat: the live tail plus whatever older pages were fetched,
+ * ordered by message key. Firebase push keys sort chronologically, so key order is send
+ * order. Not thread-safe.
+ */
+class ChatWindow {
+    private final TreeMap<String, ChatMessage> messages = new TreeMap<>();
+    private boolean reachedStart;
+
+    /**
+     * Adds a message, or replaces the loaded one with the same key.
+     *
+     * @return whether it is newer than every other loaded message.
+     */
+    boolean put(ChatMessage message) {
+        if (message.messageId == null) return false;
+        messages.put(message.messageId, message);
+        return message.messageId.equals(messages.lastKey());
+    }
+
+    /**
+     * Adds a page fetched before oldestKey().
+     *
+     * @param last whether the page was short, so nothing older exists.
+     */
+    void addOlderPage(List<ChatMessage> page, boolean last) {
+        for (ChatMessage message : page) put(message);
+        if (last) reachedStart = true;
+    }
+
+    @Nullable
+    ChatMessage get(String messageId) {
+        return messages.get(messageId);
+    }
+
+    boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    @Nullable
+    String oldestKey() {
+        return messages.isEmpty() ? null : messages.firstKey();
+    }
+
+    boolean hasOlder() {
+        return !reachedStart;
+    }
+
+    int size() {
+        return messages.size();
+    }
+
+    /** The loaded messages, oldest first, as a list the caller may keep. */
+    List<ChatMessage> snapshot() {
+        return Collections.unmodifiableList(new ArrayList<>(messages.values()));
+    }
+}
@@ -1,12 +1,14 @@
 package com.adventure.solo.repository;
 
+import com.adventure.solo.database.AppDatabase;
+import com.adventure.solo.database.ClueDiscoveryDao;
 import com.adventure.solo.database.ClueProgressDao;
+import com.adventure.solo.database.PlayerProfileDao;
 import com.adventure.solo.model.ClueProgress;
+import com.adventure.solo.model.wrapper.ClueDiscoveryResult;
+import com.adventure.solo.executor.AppExecutors;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import android.os.Handler;
-import android.os.Looper;
+import java.util.concurrent.Executor;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import android.util.Log;
@@ -15,63 +17,91 @@ import android.util.Log;
 public class ClueProgressRepository {
     private static final String TAG = "ClueProgressRepository";
     private final ClueProgressDao clueProgressDao;
-    private final ExecutorService executorService;
-    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final ClueDiscoveryDao clueDiscoveryDao;
+    private final PlayerProfileDao playerProfileDao;
+    private final AppDatabase database;
+    private final Executor diskRead;
+    private final Executor diskWrite;
+    private final Executor mainThread;
 
     public interface ClueProgressCallback<T> { void onComplete(T result); void onError(Exception e); }
 
     @Inject
-    public ClueProgressRepository(ClueProgressDao clueProgressDao) {
+    public ClueProgressRepository(ClueProgressDao clueProgressDao, ClueDiscoveryDao clueDiscoveryDao,
+                                  PlayerProfileDao playerProfileDao, AppDatabase database,
+                                  AppExecutors appExecutors) {
         this.clueProgressDao = clueProgressDao;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.clueDiscoveryDao = clueDiscoveryDao;
+        this.playerProfileDao = playerProfileDao;
+        this.database = database;
+        this.diskRead = appExecutors.diskRead();
+        this.diskWrite = appExecutors.diskWrite();
+        this.mainThread = appExecutors.mainThread();
     }
 
     public void insertOrUpdate(ClueProgress cp, ClueProgressCallback<Void> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
                 clueProgressDao.insertOrUpdate(cp);
-                if(callback != null) mainThreadHandler.post(() -> callback.onComplete(null));
+                if(callback != null) mainThread.execute(() -> callback.onComplete(null));
             } catch (Exception e) {
                 Log.e(TAG, "Error in insertOrUpdate: " + e.getMessage(), e);
-                if(callback != null) mainThreadHandler.post(() -> callback.onError(e));
+                if(callback != null) mainThread.execute(() -> callback.onError(e));
             }
         });
     }
 
     public void getClueProgress(long actualClueId, String teamId, ClueProgressCallback<ClueProgress> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 ClueProgress cp = clueProgressDao.getClueProgress(actualClueId, teamId);
-                mainThreadHandler.post(() -> callback.onComplete(cp));
+                mainThread.execute(() -> callback.onComplete(cp));
             } catch (Exception e) {
                 Log.e(TAG, "Error in getClueProgress: " + e.getMessage(), e);
-                mainThreadHandler.post(() -> callback.onError(e));
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
 
+    // Synchronous read for callers already on a background lane (e.g. QuestManager)
+    public List<ClueProgress> getProgressForQuestByTeam(long questId, String teamId) {
+        return clueProgressDao.getProgressForQuestByTeam(questId, teamId);
+    }
+
     public void getProgressForQuestByTeam(long questId, String teamId, ClueProgressCallback<List<ClueProgress>> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 // Assuming ClueProgress.questId is long, and DAO method expects long.
                 List<ClueProgress> progresses = clueProgressDao.getProgressForQuestByTeam(questId, teamId);
-                mainThreadHandler.post(() -> callback.onComplete(progresses));
+                mainThread.execute(() -> callback.onComplete(progresses));
             } catch (Exception e) {
                 Log.e(TAG, "Error in getProgressForQuestByTeam: " + e.getMessage(), e);
-                mainThreadHandler.post(() -> callback.onError(e));
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
 
     public void updateDiscovered(long actualClueId, String teamId, boolean discovered, String playerId, ClueProgressCallback<Void> callback) {
-         executorService.execute(() -> {
+         diskWrite.execute(() -> {
             try {
                 clueProgressDao.updateDiscovered(actualClueId, teamId, discovered, playerId);
-                if(callback != null) mainThreadHandler.post(() -> callback.onComplete(null));
+                if(callback != null) mainThread.execute(() -> callback.onComplete(null));
             } catch (Exception e) {
                 Log.e(TAG, "Error in updateDiscovered: " + e.getMessage(), e);
-                if(callback != null) mainThreadHandler.post(() -> callback.onError(e));
+                if(callback != null) mainThread.execute(() -> callback.onError(e));
+            }
+        });
+    }
+
+    // Synchronous - must be called from a background thread.
+    // Clue progress, player XP and quest completion are written in one Room transaction.
+    public ClueDiscoveryResult discoverClueForTeam(long clueId, String teamId, String playerId, int xpReward) {
+        return database.runInTransaction(() -> {
+            ClueDiscoveryResult result = clueDiscoveryDao.discoverClueForTeam(clueId, teamId, playerId);
+            if (result != null && result.newlyDiscovered) {
+                playerProfileDao.addExperience(playerId, xpReward);
             }
+            return result;
         });
     }
 }
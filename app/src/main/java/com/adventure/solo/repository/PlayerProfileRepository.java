@@ -2,20 +2,23 @@ package com.adventure.solo.repository;
 
 import com.adventure.solo.database.PlayerProfileDao;
 import com.adventure.solo.model.PlayerProfile;
-import java.util.List; // For future methods that might return lists
+import com.adventure.solo.executor.AppExecutors;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import android.os.Handler;
-import android.os.Looper;
+import java.util.concurrent.Executor;
 
 
 @Singleton
 public class PlayerProfileRepository {
     private final PlayerProfileDao playerProfileDao;
-    private final ExecutorService executorService; // For background operations
-    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final Executor diskRead;
+    private final Executor diskWrite;
+    private final Executor mainThread;
 
 
     // Define a callback interface for async operations
@@ -24,75 +27,92 @@ public class PlayerProfileRepository {
     }
 
     @Inject
-    public PlayerProfileRepository(PlayerProfileDao playerProfileDao) {
+    public PlayerProfileRepository(PlayerProfileDao playerProfileDao, AppExecutors appExecutors) {
         this.playerProfileDao = playerProfileDao;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.diskRead = appExecutors.diskRead();
+        this.diskWrite = appExecutors.diskWrite();
+        this.mainThread = appExecutors.mainThread();
     }
 
     public void insertOrUpdate(PlayerProfile playerProfile, PlayerProfileCallback<Void> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
                 playerProfileDao.insertOrUpdate(playerProfile);
-                if (callback != null) mainThreadHandler.post(() -> callback.onComplete(null));
+                if (callback != null) mainThread.execute(() -> callback.onComplete(null));
             } catch (Exception e) {
                 // Handle error, maybe pass to callback
                 android.util.Log.e("PlayerProfileRepo", "Error inserting/updating profile", e);
-                if (callback != null) mainThreadHandler.post(() -> callback.onComplete(null)); // Or an error state
+                if (callback != null) mainThread.execute(() -> callback.onComplete(null)); // Or an error state
             }
         });
     }
 
     public void getByFirebaseUid(String uid, PlayerProfileCallback<PlayerProfile> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 PlayerProfile profile = playerProfileDao.getByFirebaseUid(uid);
-                mainThreadHandler.post(() -> callback.onComplete(profile));
+                mainThread.execute(() -> callback.onComplete(profile));
             } catch (Exception e) {
                 android.util.Log.e("PlayerProfileRepo", "Error getting profile by UID", e);
-                mainThreadHandler.post(() -> callback.onComplete(null)); // Or an error state
+                mainThread.execute(() -> callback.onComplete(null)); // Or an error state
             }
         });
     }
 
     public void getPlayersByTeamId(String teamId, PlayerProfileCallback<List<PlayerProfile>> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 List<PlayerProfile> profiles = playerProfileDao.getPlayersByTeamId(teamId);
-                mainThreadHandler.post(() -> callback.onComplete(profiles));
+                mainThread.execute(() -> callback.onComplete(profiles));
             } catch (Exception e) {
                 android.util.Log.e("PlayerProfileRepo", "Error getting profiles by team ID", e);
-                mainThreadHandler.post(() -> callback.onComplete(null)); // Or an error state
+                mainThread.execute(() -> callback.onComplete(null)); // Or an error state
+            }
+        });
+    }
+
+    // Members of many teams from a single query (chunked for very large team counts).
+    // The callback receives every requested team ID, mapped to an empty list if it has no players, or null on error.
+    public void getPlayersByTeamIds(Collection<String> teamIds, PlayerProfileCallback<Map<String, List<PlayerProfile>>> callback) {
+        diskRead.execute(() -> {
+            try {
+                Map<String, List<PlayerProfile>> byTeam = teamIds == null || teamIds.isEmpty()
+                        ? new HashMap<>() : playerProfileDao.getPlayersGroupedByTeam(new ArrayList<>(teamIds));
+                mainThread.execute(() -> callback.onComplete(byTeam));
+            } catch (Exception e) {
+                android.util.Log.e("PlayerProfileRepo", "Error getting profiles for " + teamIds.size() + " teams", e);
+                mainThread.execute(() -> callback.onComplete(null));
             }
         });
     }
 
     public void updatePlayerProfile(PlayerProfile playerProfile, PlayerProfileCallback<Void> callback) {
-         executorService.execute(() -> {
+         diskWrite.execute(() -> {
             try {
                 playerProfileDao.update(playerProfile);
-                if (callback != null) mainThreadHandler.post(() -> callback.onComplete(null));
+                if (callback != null) mainThread.execute(() -> callback.onComplete(null));
             } catch (Exception e) {
                 android.util.Log.e("PlayerProfileRepo", "Error updating profile", e);
-                if (callback != null) mainThreadHandler.post(() -> callback.onComplete(null)); // Or an error state
+                if (callback != null) mainThread.execute(() -> callback.onComplete(null)); // Or an error state
             }
         });
     }
 
     public void updateTeamIdForPlayer(String firebaseUid, String newTeamId, PlayerProfileCallback<Boolean> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
                 PlayerProfile profile = playerProfileDao.getByFirebaseUid(firebaseUid);
                 if (profile != null) {
                     profile.setTeamId(newTeamId); // Use setter if available
                     playerProfileDao.update(profile);
-                    mainThreadHandler.post(() -> callback.onComplete(true));
+                    mainThread.execute(() -> callback.onComplete(true));
                 } else {
                     android.util.Log.e("PlayerProfileRepo", "Profile not found for UID: " + firebaseUid + " when trying to update teamId.");
-                    mainThreadHandler.post(() -> callback.onComplete(false)); // Profile not found
+                    mainThread.execute(() -> callback.onComplete(false)); // Profile not found
                 }
             } catch (Exception e) {
                 android.util.Log.e("PlayerProfileRepo", "Error updating team ID for player " + firebaseUid, e);
-                mainThreadHandler.post(() -> callback.onComplete(false));
+                mainThread.execute(() -> callback.onComplete(false));
             }
         });
     }
@@ -103,57 +123,70 @@ public class PlayerProfileRepository {
     }
 
     public void addExperience(String firebaseUid, int xpToAdd, PlayerProfileCallback<Boolean> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
-                PlayerProfile profile = playerProfileDao.getByFirebaseUid(firebaseUid);
-                if (profile != null) {
-                    profile.individualXP += xpToAdd;
-                    playerProfileDao.update(profile);
-                    mainThreadHandler.post(() -> callback.onComplete(true));
-                } else {
-                    mainThreadHandler.post(() -> callback.onComplete(false));
-                }
+                boolean updated = playerProfileDao.addExperience(firebaseUid, xpToAdd) > 0;
+                if (callback != null) mainThread.execute(() -> callback.onComplete(updated));
             } catch (Exception e) {
                 android.util.Log.e("PlayerProfileRepo", "Error adding experience for " + firebaseUid, e);
-                mainThreadHandler.post(() -> callback.onComplete(false));
+                if (callback != null) mainThread.execute(() -> callback.onComplete(false));
             }
         });
     }
 
     public void addCoins(String firebaseUid, int coinsToAdd, PlayerProfileCallback<Boolean> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
-                PlayerProfile profile = playerProfileDao.getByFirebaseUid(firebaseUid);
-                if (profile != null) {
-                    profile.coins += coinsToAdd;
-                    playerProfileDao.update(profile);
-                    mainThreadHandler.post(() -> callback.onComplete(true));
-                } else {
-                    mainThreadHandler.post(() -> callback.onComplete(false));
-                }
+                boolean updated = playerProfileDao.addCoins(firebaseUid, coinsToAdd) > 0;
+                if (callback != null) mainThread.execute(() -> callback.onComplete(updated));
             } catch (Exception e) {
                 android.util.Log.e("PlayerProfileRepo", "Error adding coins for " + firebaseUid, e);
-                mainThreadHandler.post(() -> callback.onComplete(false));
+                if (callback != null) mainThread.execute(() -> callback.onComplete(false));
+            }
+        });
+    }
+
+    // Pays a whole team (or any group of players) in a single transaction.
+    // The callback receives the number of profiles that were credited.
+    public void awardCoinsToPlayers(List<String> firebaseUids, int coinsToAdd, PlayerProfileCallback<Integer> callback) {
+        diskWrite.execute(() -> {
+            try {
+                int updated = firebaseUids == null || firebaseUids.isEmpty()
+                        ? 0 : playerProfileDao.awardCoinsToPlayers(firebaseUids, coinsToAdd);
+                if (callback != null) mainThread.execute(() -> callback.onComplete(updated));
+            } catch (Exception e) {
+                android.util.Log.e("PlayerProfileRepo", "Error awarding coins to " + firebaseUids, e);
+                if (callback != null) mainThread.execute(() -> callback.onComplete(0));
+            }
+        });
+    }
+
+    // Deducts stamina and credits coins atomically; completes with false if the player
+    // does not exist or no longer has enough stamina.
+    public void spendStaminaForCoins(String firebaseUid, int staminaCost, int coinsGained, PlayerProfileCallback<Boolean> callback) {
+        diskWrite.execute(() -> {
+            try {
+                boolean updated = playerProfileDao.spendStaminaForCoins(firebaseUid, staminaCost, coinsGained) > 0;
+                if (callback != null) mainThread.execute(() -> callback.onComplete(updated));
+            } catch (Exception e) {
+                android.util.Log.e("PlayerProfileRepo", "Error spending stamina for " + firebaseUid, e);
+                if (callback != null) mainThread.execute(() -> callback.onComplete(false));
             }
         });
     }
 
     public void updateStaminaAndCoins(String firebaseUid, int newStamina, int newCoins, PlayerProfileCallback<Boolean> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
-                PlayerProfile profile = playerProfileDao.getByFirebaseUid(firebaseUid);
-                if (profile != null) {
-                    profile.setStamina(newStamina);
-                    profile.setCoins(newCoins);
-                    playerProfileDao.update(profile);
-                    mainThreadHandler.post(() -> callback.onComplete(true));
+                if (playerProfileDao.updateStaminaAndCoins(firebaseUid, newStamina, newCoins) > 0) {
+                    if (callback != null) mainThread.execute(() -> callback.onComplete(true));
                 } else {
                     android.util.Log.e("PlayerProfileRepo", "Profile not found for UID: " + firebaseUid + " when updating stamina/coins.");
-                    mainThreadHandler.post(() -> callback.onComplete(false));
+                    if (callback != null) mainThread.execute(() -> callback.onComplete(false));
                 }
             } catch (Exception e) {
                 android.util.Log.e("PlayerProfileRepo", "Error updating stamina/coins for " + firebaseUid, e);
-                mainThreadHandler.post(() -> callback.onComplete(false));
+                if (callback != null) mainThread.execute(() -> callback.onComplete(false));
             }
         });
     }
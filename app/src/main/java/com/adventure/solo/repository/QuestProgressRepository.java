@@ -3,11 +3,9 @@ package com.adventure.solo.repository;
 import com.adventure.solo.database.QuestProgressDao;
 import com.adventure.solo.model.QuestProgress;
 import com.adventure.solo.model.QuestStatus;
+import com.adventure.solo.executor.AppExecutors;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import android.os.Handler;
-import android.os.Looper;
+import java.util.concurrent.Executor;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import android.util.Log;
@@ -16,63 +14,75 @@ import android.util.Log;
 public class QuestProgressRepository {
     private static final String TAG = "QuestProgressRepository";
     private final QuestProgressDao questProgressDao;
-    private final ExecutorService executorService;
-    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final Executor diskRead;
+    private final Executor diskWrite;
+    private final Executor mainThread;
 
     public interface QuestProgressCallback<T> { void onComplete(T result); void onError(Exception e); }
 
     @Inject
-    public QuestProgressRepository(QuestProgressDao questProgressDao) {
+    public QuestProgressRepository(QuestProgressDao questProgressDao, AppExecutors appExecutors) {
         this.questProgressDao = questProgressDao;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.diskRead = appExecutors.diskRead();
+        this.diskWrite = appExecutors.diskWrite();
+        this.mainThread = appExecutors.mainThread();
     }
 
     public void insertOrUpdate(QuestProgress qp, QuestProgressCallback<Void> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
                 questProgressDao.insertOrUpdate(qp);
-                if(callback != null) mainThreadHandler.post(() -> callback.onComplete(null));
+                if(callback != null) mainThread.execute(() -> callback.onComplete(null));
             } catch (Exception e) {
                 Log.e(TAG, "Error in insertOrUpdate: " + e.getMessage(), e);
-                if(callback != null) mainThreadHandler.post(() -> callback.onError(e));
+                if(callback != null) mainThread.execute(() -> callback.onError(e));
             }
         });
     }
 
+    // Synchronous reads for callers already on a background lane (e.g. QuestManager)
+    public QuestProgress getQuestProgress(long questId, String teamId) {
+        return questProgressDao.getQuestProgress(questId, teamId);
+    }
+
+    public List<QuestProgress> getProgressForTeam(String teamId) {
+        return questProgressDao.getProgressForTeam(teamId);
+    }
+
     public void getQuestProgress(long questId, String teamId, QuestProgressCallback<QuestProgress> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 // Assuming questId in QuestProgress is long, and DAO method expects long.
                 QuestProgress qp = questProgressDao.getQuestProgress(questId, teamId);
-                mainThreadHandler.post(() -> callback.onComplete(qp));
+                mainThread.execute(() -> callback.onComplete(qp));
             } catch (Exception e) {
                 Log.e(TAG, "Error in getQuestProgress: " + e.getMessage(), e);
-                mainThreadHandler.post(() -> callback.onError(e));
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
 
     public void getProgressForTeam(String teamId, QuestProgressCallback<List<QuestProgress>> callback) {
-         executorService.execute(() -> {
+         diskRead.execute(() -> {
             try {
                 List<QuestProgress> progresses = questProgressDao.getProgressForTeam(teamId);
-                mainThreadHandler.post(() -> callback.onComplete(progresses));
+                mainThread.execute(() -> callback.onComplete(progresses));
             } catch (Exception e) {
                 Log.e(TAG, "Error in getProgressForTeam: " + e.getMessage(), e);
-                mainThreadHandler.post(() -> callback.onError(e));
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
 
     public void updateStatus(long questId, String teamId, QuestStatus status, String playerId, QuestProgressCallback<Void> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
                 // Assuming questId in QuestProgress is long, and DAO method expects long.
                 questProgressDao.updateStatus(questId, teamId, status, playerId);
-                if(callback != null) mainThreadHandler.post(() -> callback.onComplete(null));
+                if(callback != null) mainThread.execute(() -> callback.onComplete(null));
             } catch (Exception e) {
                 Log.e(TAG, "Error in updateStatus: " + e.getMessage(), e);
-                if(callback != null) mainThreadHandler.post(() -> callback.onError(e));
+                if(callback != null) mainThread.execute(() -> callback.onError(e));
             }
         });
     }
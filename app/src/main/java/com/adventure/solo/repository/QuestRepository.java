@@ -4,16 +4,14 @@ import com.adventure.solo.database.ClueDao; // Needed to insert clues
 import com.adventure.solo.database.QuestDao;
 import com.adventure.solo.model.Clue; // Needed for List<Clue>
 import com.adventure.solo.model.Quest;
+import com.adventure.solo.executor.AppExecutors;
 // Using local QuestRepoCallback instead of QuestManager.QuestManagerCallback
 // import com.adventure.solo.service.QuestManager;
 
 import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import android.os.Handler;
-import android.os.Looper;
+import java.util.concurrent.Executor;
 import android.util.Log; // For logging
 
 @Singleton
@@ -21,18 +19,21 @@ public class QuestRepository {
     private static final String TAG = "QuestRepository";
     private final QuestDao questDao;
     private final ClueDao clueDao; // Added for inserting clues with quest
-    private final ExecutorService executorService;
-    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final Executor diskRead;
+    private final Executor diskWrite;
+    private final Executor mainThread;
 
     // Callback interface for asynchronous operations
     public interface QuestRepoCallback<T> { void onComplete(T result); void onError(Exception e); }
 
 
     @Inject
-    public QuestRepository(QuestDao questDao, ClueDao clueDao) { // Added ClueDao
+    public QuestRepository(QuestDao questDao, ClueDao clueDao, AppExecutors appExecutors) { // Added ClueDao
         this.questDao = questDao;
         this.clueDao = clueDao; // Added
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.diskRead = appExecutors.diskRead();
+        this.diskWrite = appExecutors.diskWrite();
+        this.mainThread = appExecutors.mainThread();
     }
 
     // insert(Quest) was renamed insertQuestAndGetId in DAO and returns long
@@ -79,13 +80,13 @@ public class QuestRepository {
 
     // Async version of getAllQuests
     public void getAllQuests(QuestRepoCallback<List<Quest>> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 List<Quest> quests = questDao.getAllQuestsNonLiveData(); // Uses the renamed DAO method
-                mainThreadHandler.post(() -> callback.onComplete(quests));
+                mainThread.execute(() -> callback.onComplete(quests));
             } catch (Exception e) {
                 Log.e(TAG, "Error fetching all quests from database async", e);
-                mainThreadHandler.post(() -> callback.onError(e));
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
@@ -99,19 +100,19 @@ public class QuestRepository {
 
     // Async version of getQuestById
     public void getQuestById(long questId, QuestRepoCallback<Quest> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 Quest quest = questDao.getQuestById(questId); // Uses renamed DAO method
-                mainThreadHandler.post(() -> callback.onComplete(quest));
+                mainThread.execute(() -> callback.onComplete(quest));
             } catch (Exception e) {
                 Log.e(TAG, "Error fetching quest by ID async: " + questId, e);
-                mainThreadHandler.post(() -> callback.onError(e));
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
 
     public void insertQuestAndCluesForDebug(Quest quest, List<Clue> clues, QuestRepoCallback<Long> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
                 long generatedQuestId = questDao.insertQuestAndGetId(quest);
                 if (generatedQuestId > 0 && clues != null && !clues.isEmpty()) {
@@ -120,10 +121,10 @@ public class QuestRepository {
                     }
                     clueDao.insertAllClues(clues); // Assumes ClueDao has insertAllClues
                 }
-                mainThreadHandler.post(() -> callback.onComplete(generatedQuestId));
+                mainThread.execute(() -> callback.onComplete(generatedQuestId));
             } catch (Exception e) {
                 Log.e(TAG, "Error inserting quest and clues for debug", e);
-                mainThreadHandler.post(() -> callback.onError(e));
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
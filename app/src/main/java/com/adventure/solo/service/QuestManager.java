@@ -8,12 +8,14 @@ import com.adventure.solo.repository.ClueRepository;
 import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import android.os.Handler;
-import android.os.Looper;
+import java.util.concurrent.Executor;
 import android.util.Log; // For logging
 import java.util.List; // For List
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.Collections; // For Collections.sort if needed
 import java.util.Comparator; // For Comparator if needed
 
@@ -23,12 +25,18 @@ import com.adventure.solo.model.firebase.Team;
 import com.adventure.solo.model.ClueProgress;
 import com.adventure.solo.model.QuestProgress;
 import com.adventure.solo.model.QuestStatus;
+import com.adventure.solo.model.wrapper.ClueDiscoveryResult;
 import com.adventure.solo.model.wrapper.ClueWithProgress;
 import com.adventure.solo.model.wrapper.QuestWithProgress;
 import com.adventure.solo.repository.PlayerProfileRepository;
 import com.adventure.solo.repository.TeamRepository;
 import com.adventure.solo.repository.ClueProgressRepository;
 import com.adventure.solo.repository.QuestProgressRepository;
+import com.adventure.solo.executor.AppExecutors;
+import com.adventure.solo.geo.GeoMath;
+import com.adventure.solo.geo.GeofenceEngine;
+import com.adventure.solo.location.LocationScheduler;
+import com.adventure.solo.tiles.TilePrefetcher;
 
 
 @Singleton
@@ -41,12 +49,20 @@ public class QuestManager {
     private final TeamRepository teamRepository; // Added
     private final ClueProgressRepository clueProgressRepository; // Added
     private final QuestProgressRepository questProgressRepository; // Added
+    private final GeofenceEngine geofenceEngine;
+    private final LocationScheduler locationScheduler;
+    private final TilePrefetcher tilePrefetcher;
 
     private static final float PROXIMITY_RADIUS = 50;
     private static final int DEFAULT_CLUES_PER_QUEST = 5;
 
-    private final ExecutorService executorService;
-    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final Executor diskRead;
+    private final Executor diskWrite;
+    private final Executor mainThread;
+
+    // Clues of every quest loaded through this manager, to drop the fences of removed clues.
+    // Proximity queries go through the GeofenceEngine, which keeps its own spatial index.
+    private final Map<Long, List<Clue>> indexedCluesByQuest = new HashMap<>();
 
     // Constants for rewards (can be moved to a config file or class)
     private static final int XP_PER_CLUE = 10;
@@ -60,7 +76,11 @@ public class QuestManager {
                        PlayerProfileRepository playerProfileRepository, // Added
                        TeamRepository teamRepository, // Added
                        ClueProgressRepository clueProgressRepository, // Added
-                       QuestProgressRepository questProgressRepository) { // Added
+                       QuestProgressRepository questProgressRepository, // Added
+                       AppExecutors appExecutors,
+                       GeofenceEngine geofenceEngine,
+                       LocationScheduler locationScheduler,
+                       TilePrefetcher tilePrefetcher) {
         this.questGenerator = questGenerator;
         this.questRepository = questRepository;
         this.clueRepository = clueRepository;
@@ -68,7 +88,12 @@ public class QuestManager {
         this.teamRepository = teamRepository; // Added
         this.clueProgressRepository = clueProgressRepository; // Added
         this.questProgressRepository = questProgressRepository; // Added
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.geofenceEngine = geofenceEngine;
+        this.locationScheduler = locationScheduler;
+        this.tilePrefetcher = tilePrefetcher;
+        this.diskRead = appExecutors.diskRead();
+        this.diskWrite = appExecutors.diskWrite();
+        this.mainThread = appExecutors.mainThread();
     }
 
     public interface QuestManagerCallback<T> {
@@ -86,6 +111,9 @@ public class QuestManager {
 
         List<Clue> clues = questGenerator.generateClues(quest, DEFAULT_CLUES_PER_QUEST);
         clueRepository.insertAll(clues);
+        indexClues(questId, clues);
+        // Download the route's map tiles while the player is still on a good connection
+        tilePrefetcher.prefetchQuest(quest, clues);
 
         return quest;
     }
@@ -95,7 +123,9 @@ public class QuestManager {
     }
 
     public List<Clue> getQuestClues(long questId) {
-        return clueRepository.getCluesForQuest(questId);
+        List<Clue> clues = clueRepository.getCluesForQuest(questId);
+        indexClues(questId, clues);
+        return clues;
     }
 
     public Clue getNextClue(long questId) {
@@ -103,13 +133,42 @@ public class QuestManager {
     }
 
     public boolean checkProximityToClue(Location userLocation, Clue clue) {
-        float[] results = new float[1];
-        Location.distanceBetween(
-            userLocation.getLatitude(), userLocation.getLongitude(),
-            clue.getTargetLatitude(), clue.getTargetLongitude(),
-            results
-        );
-        return results[0] <= PROXIMITY_RADIUS;
+        return GeoMath.isWithin(userLocation.getLatitude(), userLocation.getLongitude(),
+                clue.getTargetLatitude(), clue.getTargetLongitude(), PROXIMITY_RADIUS);
+    }
+
+    // Fence id under which a clue is registered with the GeofenceEngine; the fence tag is the Clue
+    public static String clueFenceId(long clueId) {
+        return "clue:" + clueId;
+    }
+
+    // Replaces whatever was indexed for the quest; Room hands out new Clue instances on every load.
+    // Each clue also gets a PROXIMITY_RADIUS fence, so subscribers hear ENTER/EXIT instead of polling.
+    private void indexClues(long questId, List<Clue> clues) {
+        synchronized (indexedCluesByQuest) {
+            List<Clue> previous = indexedCluesByQuest.remove(questId);
+            if (previous != null) {
+                Set<Long> keptIds = new HashSet<>();
+                if (clues != null) {
+                    for (Clue clue : clues) keptIds.add(clue.getId());
+                }
+                for (Clue clue : previous) {
+                    if (!keptIds.contains(clue.getId())) geofenceEngine.removeFence(clueFenceId(clue.getId()));
+                }
+            }
+            if (clues == null || clues.isEmpty()) return;
+            for (Clue clue : clues) {
+                if (clue.getId() == 0) continue; // Not persisted yet, no stable fence id
+                // Keep the inside/outside state of fences that did not move across reloads
+                GeofenceEngine.Fence fence = geofenceEngine.getFence(clueFenceId(clue.getId()));
+                if (fence == null || fence.latitude != clue.getTargetLatitude() || fence.longitude != clue.getTargetLongitude()) {
+                    geofenceEngine.addFence(clueFenceId(clue.getId()), clue.getTargetLatitude(), clue.getTargetLongitude(), PROXIMITY_RADIUS, clue);
+                }
+            }
+            indexedCluesByQuest.put(questId, new ArrayList<>(clues));
+        }
+        // New fences may be right next to the player; don't wait out a long idle interval
+        locationScheduler.refresh();
     }
 
     public void markClueAsDiscovered(Clue clue) {
@@ -133,10 +192,11 @@ public class QuestManager {
     public void abandonQuest(long questId) {
         questRepository.delete(questId);
         // Clues will be automatically deleted due to CASCADE delete in Room
+        indexClues(questId, null);
     }
 
     public void markClueAsDiscovered(long clueId, QuestManagerCallback<Boolean> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
                 clueRepository.updateDiscoveredStatus(clueId, true);
                 // Assuming success if no exception
@@ -147,10 +207,10 @@ public class QuestManager {
                 } else {
                     Log.w("QuestManager", "Collected clue with ID " + clueId + " not found in DB. Cannot check for quest completion.");
                 }
-                mainThreadHandler.post(() -> callback.onComplete(true));
+                mainThread.execute(() -> callback.onComplete(true));
             } catch (Exception e) {
                 Log.e("QuestManager", "Error marking clue discovered: " + clueId, e);
-                mainThreadHandler.post(() -> callback.onComplete(false));
+                mainThread.execute(() -> callback.onComplete(false));
             }
         });
     }
@@ -180,19 +240,19 @@ public class QuestManager {
     }
 
     public void getQuestDetails(long questId, QuestManagerCallback<Quest> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 Quest quest = questRepository.getQuestById(questId);
-                mainThreadHandler.post(() -> callback.onComplete(quest));
+                mainThread.execute(() -> callback.onComplete(quest));
             } catch (Exception e) {
                 Log.e("QuestManager", "Error getting quest details for ID: " + questId, e);
-                mainThreadHandler.post(() -> callback.onComplete(null)); // Or trigger onError
+                mainThread.execute(() -> callback.onComplete(null)); // Or trigger onError
             }
         });
     }
 
     public void getNextClueForQuest(long questId, long lastCollectedClueId, QuestManagerCallback<Clue> callback) {
-         executorService.execute(() -> {
+         diskRead.execute(() -> {
             try {
                 List<Clue> clues = clueRepository.getCluesByQuestIdNonLiveData(questId); // Assumes sorted by sequence
                 Clue nextClue = null;
@@ -223,10 +283,10 @@ public class QuestManager {
                         }
                     }
                 }
-                mainThreadHandler.post(() -> callback.onComplete(nextClue));
+                mainThread.execute(() -> callback.onComplete(nextClue));
             } catch (Exception e) {
                 Log.e("QuestManager", "Error getting next clue for quest ID: " + questId, e);
-                mainThreadHandler.post(() -> callback.onComplete(null)); // Or trigger onError
+                mainThread.execute(() -> callback.onComplete(null)); // Or trigger onError
             }
         });
     }
@@ -238,144 +298,26 @@ public class QuestManager {
     // Make sure they are still here.
 
     // New team-based markClueAsDiscovered
+    // Runs as a single background hop: the discovery, XP award and quest completion check
+    // are one Room transaction, and the callback is posted exactly once.
     public void markClueAsDiscovered(long clueId, String playerId, String teamId, QuestManagerCallback<Boolean> callback) {
-        executorService.execute(() -> {
+        diskWrite.execute(() -> {
             try {
-                Clue clue = clueRepository.getClueById(clueId);
-                if (clue == null) {
+                ClueDiscoveryResult result = clueProgressRepository.discoverClueForTeam(clueId, teamId, playerId, XP_PER_CLUE);
+                if (result == null) {
                     throw new Exception("Clue not found with id: " + clueId);
                 }
-                long questIdForClue = clue.getQuestId();
-
-                clueProgressRepository.getClueProgress(clueId, teamId, new ClueProgressRepository.ClueProgressCallback<ClueProgress>() {
-                    @Override
-                    public void onComplete(ClueProgress existingProgress) {
-                        try {
-                            ClueProgress progressToUpdate = existingProgress;
-                            if (progressToUpdate == null) {
-                                progressToUpdate = new ClueProgress(clueId, teamId, questIdForClue);
-                            }
-
-                            if (!progressToUpdate.isDiscoveredByTeam()) {
-                                progressToUpdate.setDiscoveredByTeam(true);
-                                progressToUpdate.setDiscoveredByPlayerId(playerId);
-
-                                final ClueProgress finalProgressToUpdate = progressToUpdate;
-                                clueProgressRepository.insertOrUpdate(finalProgressToUpdate, new ClueProgressRepository.ClueProgressCallback<Void>() {
-                                    @Override
-                                    public void onComplete(Void result) {
-                                        playerProfileRepository.addExperience(playerId, XP_PER_CLUE, xpSuccess -> {
-                                            if (!xpSuccess) Log.e(TAG, "Failed to add XP for player " + playerId + " for clue " + clueId);
-                                        });
-                                        // Pass the original callback to the completion check
-                                        checkAndCompleteQuestForTeam(questIdForClue, teamId, playerId, callback);
-                                    }
-                                    @Override
-                                    public void onError(Exception e) { // onError for insertOrUpdate
-                                        Log.e(TAG, "Failed to update clue progress for clueId " + clueId + " teamId " + teamId, e);
-                                        mainThreadHandler.post(() -> callback.onError(e));
-                                    }
-                                });
-                            } else {
-                                mainThreadHandler.post(() -> callback.onComplete(true)); // Already discovered, still a "success" for this call
-                            }
-                        } catch (Exception e) {
-                             Log.e(TAG, "Inner error in markClueAsDiscovered (team): " + e.getMessage(), e);
-                             mainThreadHandler.post(() -> callback.onError(e));
-                        }
-                    }
-                     @Override
-                    public void onError(Exception e) { // onError for getClueProgress
-                        Log.e(TAG, "Failed to get existing clue progress for clueId " + clueId + " teamId " + teamId, e);
-                        mainThreadHandler.post(() -> callback.onError(e));
-                    }
-                });
-            } catch (Exception e) { // Catch error from clueRepository.getClueById or other initial sync errors
-                Log.e(TAG, "Outer error in markClueAsDiscovered (team): " + e.getMessage(), e);
-                mainThreadHandler.post(() -> callback.onError(e));
-            }
-        });
-    }
-
-    private void checkAndCompleteQuestForTeam(long questId, String teamId, String discoveringPlayerId, QuestManagerCallback<Boolean> originalCallback) {
-        questProgressRepository.getQuestProgress(questId, teamId, new QuestProgressRepository.QuestProgressCallback<QuestProgress>() {
-            @Override
-            public void onComplete(QuestProgress questProgress) {
-                 try {
-                    if (questProgress != null && questProgress.getStatus() == QuestStatus.COMPLETED) {
-                        Log.d(TAG, "Quest " + questId + " already completed for team " + teamId);
-                        if(originalCallback != null) mainThreadHandler.post(() -> originalCallback.onComplete(true));
-                        return;
-                    }
-
-                    clueProgressRepository.getProgressForQuestByTeam(questId, teamId, new ClueProgressRepository.ClueProgressCallback<List<ClueProgress>>() {
-                        @Override
-                        public void onComplete(List<ClueProgress> clueProgressList) {
-                            try {
-                                List<Clue> allCluesForQuest = clueRepository.getCluesByQuestIdNonLiveData(questId);
-                                if (allCluesForQuest == null || allCluesForQuest.isEmpty()) {
-                                    Log.w(TAG, "No clues found for quest " + questId + ". Cannot determine completion for team " + teamId);
-                                    if(originalCallback != null) mainThreadHandler.post(() -> originalCallback.onComplete(true)); // Clue discovery was success
-                                    return;
-                                }
-
-                                boolean allDiscovered = true;
-                                if (clueProgressList == null || clueProgressList.size() < allCluesForQuest.size()) {
-                                    allDiscovered = false;
-                                } else {
-                                    for (Clue clue : allCluesForQuest) {
-                                        boolean foundProgressForThisClue = false;
-                                        for (ClueProgress cp : clueProgressList) {
-                                            if (cp.actualClueId == clue.getId() && cp.isDiscoveredByTeam()) {
-                                                foundProgressForThisClue = true;
-                                                break;
-                                            }
-                                        }
-                                        if (!foundProgressForThisClue) {
-                                            allDiscovered = false;
-                                            break;
-                                        }
-                                    }
-                                }
-
-                                if (allDiscovered) {
-                                    QuestProgress currentQp = questProgress != null ? questProgress : new QuestProgress(questId, teamId);
-                                    currentQp.setStatus(QuestStatus.COMPLETED);
-                                    currentQp.setLastCompletedByPlayerId(discoveringPlayerId);
-
-                                    questProgressRepository.insertOrUpdate(currentQp, new QuestProgressRepository.QuestProgressCallback<Void>() {
-                                        @Override public void onComplete(Void result) {
-                                            Log.i(TAG, "Quest " + questId + " marked COMPLETED for team " + teamId);
-                                            awardTeamCompletionBonus(teamId);
-                                            if(originalCallback != null) mainThreadHandler.post(() -> originalCallback.onComplete(true));
-                                        }
-                                        @Override public void onError(Exception e) {
-                                            Log.e(TAG, "Failed to update QP to COMPLETED for Q:" + questId + " T:" + teamId, e);
-                                            if(originalCallback != null) mainThreadHandler.post(() -> originalCallback.onError(e));
-                                        }
-                                    });
-                                } else {
-                                    Log.d(TAG, "Quest " + questId + " not yet complete for team " + teamId);
-                                    if(originalCallback != null) mainThreadHandler.post(() -> originalCallback.onComplete(true));
-                                }
-                            } catch (Exception e) { // Catch for errors inside clueProgressRepository.getProgressForQuestByTeam callback
-                                Log.e(TAG, "Error processing clue progresses for quest completion check", e);
-                                if(originalCallback != null) mainThreadHandler.post(() -> originalCallback.onError(e));
-                            }
-                        }
-                        @Override public void onError(Exception e) { // onError for clueProgressRepository.getProgressForQuestByTeam
-                             Log.e(TAG, "Failed to get clue progresses for quest completion check", e);
-                             if(originalCallback != null) mainThreadHandler.post(() -> originalCallback.onError(e));
-                        }
-                    });
-                 } catch (Exception e) { // Catch for errors inside questProgressRepository.getQuestProgress callback
-                    Log.e(TAG, "Error processing quest progress for quest completion check", e);
-                    if(originalCallback != null) mainThreadHandler.post(() -> originalCallback.onError(e));
-                 }
-            }
-            @Override public void onError(Exception e) { // onError for questProgressRepository.getQuestProgress
-                Log.e(TAG, "Failed to get quest progress for quest completion check", e);
-                if(originalCallback != null) mainThreadHandler.post(() -> originalCallback.onError(e));
+                if (result.questCompleted) {
+                    Log.i(TAG, "Quest " + result.questId + " marked COMPLETED for team " + teamId);
+                    awardTeamCompletionBonus(teamId);
+                } else if (!result.newlyDiscovered) {
+                    Log.d(TAG, "Clue " + clueId + " already discovered by team " + teamId);
+                }
+                // Already discovered is still a "success" for this call
+                if (callback != null) mainThread.execute(() -> callback.onComplete(true));
+            } catch (Exception e) {
+                Log.e(TAG, "Error in markClueAsDiscovered (team): " + e.getMessage(), e);
+                if (callback != null) mainThread.execute(() -> callback.onError(e));
             }
         });
     }
@@ -384,12 +326,12 @@ public class QuestManager {
         teamRepository.getTeam(teamId, new TeamRepository.TeamDataCallback() {
             @Override
             public void onComplete(Team team) {
-                if (team != null && team.memberPlayerIds != null) {
-                    for (String memberId : team.memberPlayerIds) {
-                        playerProfileRepository.addCoins(memberId, COINS_QUEST_COMPLETION_BONUS, coinSuccess -> {
-                            if (!coinSuccess) Log.e(TAG, "Failed to add completion bonus coins to player " + memberId);
-                        });
-                    }
+                if (team != null && team.memberPlayerIds != null && !team.memberPlayerIds.isEmpty()) {
+                    playerProfileRepository.awardCoinsToPlayers(team.memberPlayerIds, COINS_QUEST_COMPLETION_BONUS, credited -> {
+                        if (credited < team.memberPlayerIds.size()) {
+                            Log.e(TAG, "Completion bonus credited to " + credited + " of " + team.memberPlayerIds.size() + " members of team " + teamId);
+                        }
+                    });
                 }
             }
             // TeamRepository.TeamDataCallback from previous step does not have onError.
@@ -400,102 +342,68 @@ public class QuestManager {
 
 
     public void getCluesForQuest(long questId, QuestManagerCallback<List<Clue>> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 List<Clue> clues = clueRepository.getCluesByQuestIdNonLiveData(questId); // Uses existing sync DAO call
-                mainThreadHandler.post(() -> callback.onComplete(clues));
+                indexClues(questId, clues);
+                mainThread.execute(() -> callback.onComplete(clues));
             } catch (Exception e) {
                 Log.e("QuestManager", "Error getting all clues for quest ID: " + questId, e);
-                mainThreadHandler.post(() -> callback.onComplete(new ArrayList<>())); // Return empty list on error
+                mainThread.execute(() -> callback.onComplete(new ArrayList<>())); // Return empty list on error
             }
         });
     }
 
     public void getActiveQuestsForTeam(String teamId, QuestManagerCallback<List<QuestWithProgress>> callback) {
-        executorService.execute(() -> { // Still run overall logic on executor
+        diskRead.execute(() -> {
             try {
                 List<Quest> allQuests = questRepository.getAllQuestsNonLiveData();
                 if (allQuests == null) allQuests = new ArrayList<>();
+                // Synchronous read on this same lane, no second executor hop
+                List<QuestProgress> teamProgresses = questProgressRepository.getProgressForTeam(teamId);
 
-                // Use QuestProgressRepository for async fetch
-                questProgressRepository.getProgressForTeam(teamId, new QuestProgressRepository.QuestProgressCallback<List<QuestProgress>>() {
-                    @Override
-                    public void onComplete(List<QuestProgress> teamProgresses) {
-                        try {
-                            List<QuestWithProgress> result = new ArrayList<>();
-                            for (Quest quest : allQuests) { // allQuests is from background thread, safe here
-                                QuestProgress progress = null;
-                                if (teamProgresses != null) {
-                                    for (QuestProgress tp : teamProgresses) {
-                                        if (tp.questId == quest.getId()) {
-                                            progress = tp;
-                                            break;
-                                        }
-                                    }
-                                }
-                                if (progress == null || progress.getStatus() == QuestStatus.NOT_STARTED || progress.getStatus() == QuestStatus.IN_PROGRESS) {
-                                    result.add(new QuestWithProgress(quest, progress));
-                                }
-                            }
-                            mainThreadHandler.post(() -> callback.onComplete(result));
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error processing team progresses for active quests", e);
-                            mainThreadHandler.post(() -> callback.onError(e));
-                        }
-                    }
-
-                    @Override
-                    public void onError(Exception e) { // onError from questProgressRepository.getProgressForTeam
-                        Log.e(TAG, "Failed to get team progress for active quests", e);
-                        mainThreadHandler.post(() -> callback.onError(e));
+                Map<Long, QuestProgress> progressByQuest = new HashMap<>();
+                if (teamProgresses != null) {
+                    for (QuestProgress tp : teamProgresses) progressByQuest.put(tp.questId, tp);
+                }
+                List<QuestWithProgress> result = new ArrayList<>();
+                for (Quest quest : allQuests) {
+                    QuestProgress progress = progressByQuest.get(quest.getId());
+                    if (progress == null || progress.getStatus() == QuestStatus.NOT_STARTED || progress.getStatus() == QuestStatus.IN_PROGRESS) {
+                        result.add(new QuestWithProgress(quest, progress));
                     }
-                });
-            } catch (Exception e) { // Catch error from sync questRepository.getAllQuestsNonLiveData()
-                Log.e(TAG, "Failed to get all quests for active quests for team", e);
-                mainThreadHandler.post(() -> callback.onError(e));
+                }
+                mainThread.execute(() -> callback.onComplete(result));
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to get active quests for team " + teamId, e);
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
 
     public void getCluesForTeamQuest(long questId, String teamId, QuestManagerCallback<List<ClueWithProgress>> callback) {
-        executorService.execute(() -> { // Still run overall logic on executor
+        diskRead.execute(() -> {
             try {
                 List<Clue> allClues = clueRepository.getCluesByQuestIdNonLiveData(questId);
                 if (allClues == null) allClues = new ArrayList<>();
+                indexClues(questId, allClues);
+                if (tilePrefetcher.needsPrefetch(questId)) {
+                    tilePrefetcher.prefetchQuest(questRepository.getQuestById(questId), allClues);
+                }
+                List<ClueProgress> teamClueProgresses = clueProgressRepository.getProgressForQuestByTeam(questId, teamId);
 
-                // Use ClueProgressRepository for async fetch
-                clueProgressRepository.getProgressForQuestByTeam(questId, teamId, new ClueProgressRepository.ClueProgressCallback<List<ClueProgress>>() {
-                     @Override
-                     public void onComplete(List<ClueProgress> teamClueProgresses) {
-                        try {
-                            List<ClueWithProgress> result = new ArrayList<>();
-                            for (Clue clue : allClues) { // allClues is from background thread
-                                ClueProgress progress = null;
-                                if (teamClueProgresses != null) {
-                                    for (ClueProgress cp : teamClueProgresses) {
-                                        if (cp.actualClueId == clue.getId()) {
-                                            progress = cp;
-                                            break;
-                                        }
-                                    }
-                                }
-                                result.add(new ClueWithProgress(clue, progress));
-                            }
-                            mainThreadHandler.post(() -> callback.onComplete(result));
-                        } catch (Exception e) { // Catch errors from processing lists
-                            Log.e(TAG, "Error processing team clue progresses", e);
-                            mainThreadHandler.post(() -> callback.onError(e));
-                        }
-                     }
-                     @Override
-                     public void onError(Exception e) { // onError for clueProgressRepository.getProgressForQuestByTeam
-                        Log.e(TAG, "Failed to get team clue progresses", e);
-                        mainThreadHandler.post(() -> callback.onError(e));
-                     }
-                });
-            } catch (Exception e) { // Catch error from sync clueRepository.getCluesByQuestIdNonLiveData
-                 Log.e(TAG, "Failed to get all clues for team quest", e);
-                 mainThreadHandler.post(() -> callback.onError(e));
+                Map<Long, ClueProgress> progressByClue = new HashMap<>();
+                if (teamClueProgresses != null) {
+                    for (ClueProgress cp : teamClueProgresses) progressByClue.put(cp.actualClueId, cp);
+                }
+                List<ClueWithProgress> result = new ArrayList<>(allClues.size());
+                for (Clue clue : allClues) {
+                    result.add(new ClueWithProgress(clue, progressByClue.get(clue.getId())));
+                }
+                mainThread.execute(() -> callback.onComplete(result));
+            } catch (Exception e) {
+                 Log.e(TAG, "Failed to get clues for team quest Q:" + questId + " T:" + teamId, e);
+                 mainThread.execute(() -> callback.onError(e));
             }
         });
     }
@@ -506,30 +414,20 @@ public class QuestManager {
     // They might need to be adapted or new team-aware versions created if general "next clue for team" is needed.
 
     public void getQuestDetailsForTeam(long questId, String teamId, QuestManagerCallback<QuestWithProgress> callback) {
-        executorService.execute(() -> {
+        diskRead.execute(() -> {
             try {
                 Quest quest = questRepository.getQuestById(questId); // Assuming getQuestById is synchronous
                 if (quest == null) {
-                    mainThreadHandler.post(() -> callback.onError(new Exception("Quest not found: " + questId)));
+                    mainThread.execute(() -> callback.onError(new Exception("Quest not found: " + questId)));
                     return;
                 }
-                questProgressRepository.getQuestProgress(questId, teamId, new QuestProgressRepository.QuestProgressCallback<QuestProgress>() {
-                    @Override
-                    public void onComplete(QuestProgress progress) {
-                        // progress can be null if the team hasn't started this quest yet
-                        mainThreadHandler.post(() -> callback.onComplete(new QuestWithProgress(quest, progress)));
-                    }
-                    @Override
-                    public void onError(Exception e) {
-                        Log.e(TAG, "Error fetching quest progress for Q:" + questId + " T:" + teamId, e);
-                        // Still return quest details, but progress will be null or error indicated
-                        mainThreadHandler.post(() -> callback.onError(e));
-                    }
-                });
-            } catch (Exception e) { // Catch error from questRepository.getQuestById()
-                Log.e(TAG, "Error fetching quest details for Q:" + questId, e);
-                mainThreadHandler.post(() -> callback.onError(e));
+                // progress can be null if the team hasn't started this quest yet
+                QuestProgress progress = questProgressRepository.getQuestProgress(questId, teamId);
+                mainThread.execute(() -> callback.onComplete(new QuestWithProgress(quest, progress)));
+            } catch (Exception e) {
+                Log.e(TAG, "Error fetching quest details for Q:" + questId + " T:" + teamId, e);
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+package com.adventure.solo.tiles;
+
+import android.content.Context;
+
+import androidx.preference.PreferenceManager;
+
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.modules.SqliteArchiveTileWriter;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The osmdroid SQLite archive that quest route tiles are prefetched into.
+ * <p>
+ * It lives in osmdroid's base path, where every MapView's default tile provider looks for
+ * archives when it is created and reads them before going to the network. A map that was
+ * already open when the archive was first created picks it up the next time it is created.
+ * Tiles are stored under the name of the source they came from and never expire.
+ */
+public class QuestTileArchive implements TilePrefetcher.TileStore {
+    public static final String FILE_NAME = "quest_tiles.sqlite";
+    private static boolean configurationLoaded;
+
+    private final Context context;
+    private final ITileSource tileSource;
+    private SqliteArchiveTileWriter writer;
+
+    public QuestTileArchive(Context context, ITileSource tileSource) {
+        this.context = context.getApplicationContext();
+        this.tileSource = tileSource;
+    }
+
+    public static File file(Context context) {
+        synchronized (QuestTileArchive.class) {
+            // The map screens load the same configuration, so they resolve the same base path
+            if (!configurationLoaded) {
+                Configuration.getInstance().load(context, PreferenceManager.getDefaultSharedPreferences(context));
+                configurationLoaded = true;
+            }
+        }
+        return new File(Configuration.getInstance().getOsmdroidBasePath(), FILE_NAME);
+    }
+
+    @Override
+    public boolean contains(int zoom, int x, int y) throws IOException {
+        return writer().exists(tileSource, MapTileIndex.getTileIndex(zoom, x, y));
+    }
+
+    @Override
+    public void save(int zoom, int x, int y, byte[] tile) throws IOException {
+        // A null expiration keeps the tile until the archive is deleted
+        if (!writer().saveFile(tileSource, MapTileIndex.getTileIndex(zoom, x, y), new ByteArrayInputStream(tile), null)) {
+            throw new IOException("Could not store tile " + zoom + "/" + x + "/" + y);
+        }
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        writer();
+    }
+
+    private synchronized SqliteArchiveTileWriter writer() throws IOException {
+        if (writer == null) {
+            File archive = file(context);
+            File dir = archive.getParentFile();
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Could not create " + dir);
+            }
+            try {
+                writer = new SqliteArchiveTileWriter(archive.getAbsolutePath());
+            } catch (Exception e) {
+                throw new IOException("Could not open tile archive " + archive, e);
+            }
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,56 @@
+package com.adventure.solo.tiles;
+
+import com.adventure.solo.BuildConfig;
+
+import org.osmdroid.tileprovider.tilesource.OnlineTileSourceBase;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+import org.osmdroid.tileprovider.tilesource.TileSourcePolicy;
+import org.osmdroid.util.MapTileIndex;
+
+/**
+ * The tile source the quest maps draw and the TilePrefetcher downloads into the
+ * QuestTileArchive. Both must agree, since archived tiles are looked up by source name.
+ * <p>
+ * Set the Gradle property tileUrlTemplate (with {z}, {x} and {y} placeholders) to a provider
+ * whose terms allow offline and bulk download to enable route prefetching. Without it the maps
+ * use OpenStreetMap's Mapnik tiles, whose policy forbids bulk download, so nothing is prefetched.
+ */
+public final class QuestTileSource {
+    static final String NAME = "QuestTiles";
+    private static final int MAX_ZOOM = 19;
+    private static final int TILE_SIZE_PIXELS = 256;
+    private static final int MAX_CONCURRENT_DOWNLOADS = 2;
+    private static final String ATTRIBUTION = "\u00a9 OpenStreetMap contributors";
+
+    private static OnlineTileSourceBase instance;
+
+    private QuestTileSource() {}
+
+    public static synchronized OnlineTileSourceBase get() {
+        if (instance == null) {
+            instance = BuildConfig.TILE_URL_TEMPLATE.isEmpty()
+                    ? TileSourceFactory.MAPNIK
+                    : fromTemplate(NAME, BuildConfig.TILE_URL_TEMPLATE);
+        }
+        return instance;
+    }
+
+    /** A source for a provider that allows bulk download, at urlTemplate. */
+    static OnlineTileSourceBase fromTemplate(String name, String urlTemplate) {
+        return new TemplateTileSource(name, urlTemplate);
+    }
+
+    private static final class TemplateTileSource extends OnlineTileSourceBase {
+        TemplateTileSource(String name, String urlTemplate) {
+            super(name, 0, MAX_ZOOM, TILE_SIZE_PIXELS, ".png", new String[] {urlTemplate}, ATTRIBUTION,
+                    new TileSourcePolicy(MAX_CONCURRENT_DOWNLOADS, TileSourcePolicy.FLAG_USER_AGENT_MEANINGFUL));
+        }
+
+        @Override
+        public String getTileURLString(long pMapTileIndex) {
+            return getBaseUrl().replace("{z}", String.valueOf(MapTileIndex.getZoom(pMapTileIndex)))
+                    .replace("{x}", String.valueOf(MapTileIndex.getX(pMapTileIndex)))
+                    .replace("{y}", String.valueOf(MapTileIndex.getY(pMapTileIndex)));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.adventure.solo.tiles;
+
+import com.adventure.solo.geo.GeoMath;
+import com.adventure.solo.geo.TileMath;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Slippy-map tiles covering a walking route: a disc of marginMeters around every waypoint
+ * and a corridor of the same half-width along each leg between consecutive waypoints.
+ */
+public final class TileCoverage {
+
+    private TileCoverage() {}
+
+    /**
+     * TileMath keys for zooms minZoom..maxZoom, lowest zoom first so the overview arrives
+     * before the detail. Waypoints are {latitude, longitude} pairs in route order.
+     */
+    public static Set<Long> forRoute(List<double[]> waypoints, double marginMeters, int minZoom, int maxZoom) {
+        Set<Long> keys = new LinkedHashSet<>();
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            for (int i = 0; i < waypoints.size(); i++) {
+                double[] point = waypoints.get(i);
+                addDisc(keys, point[0], point[1], marginMeters, zoom);
+                if (i == 0) continue;
+                double[] from = waypoints.get(i - 1);
+                double legMeters = GeoMath.distance(from[0], from[1], point[0], point[1]);
+                // Step at most half a tile, or half the margin, so the corridor has no gaps
+                double step = Math.max(1, Math.min(marginMeters, tileMeters(point[0], zoom)) / 2);
+                int samples = (int) Math.ceil(legMeters / step);
+                for (int s = 1; s < samples; s++) {
+                    double t = (double) s / samples;
+                    addDisc(keys, from[0] + (point[0] - from[0]) * t, from[1] + (point[1] - from[1]) * t, marginMeters, zoom);
+                }
+            }
+        }
+        return keys;
+    }
+
+    // Width of a tile on the ground at a latitude
+    static double tileMeters(double latitude, int zoom) {
+        return GeoMath.EARTH_RADIUS_METERS * 2 * Math.PI * Math.cos(Math.toRadians(latitude)) / (1 << zoom);
+    }
+
+    private static void addDisc(Set<Long> keys, double latitude, double longitude, double marginMeters, int zoom) {
+        double latDelta = GeoMath.metersToLatitudeDegrees(marginMeters);
+        double lonDelta = GeoMath.metersToLongitudeDegrees(marginMeters, latitude);
+        keys.addAll(TileMath.tilesCovering(latitude - latDelta, longitude - lonDelta,
+                latitude + latDelta, longitude + lonDelta, zoom, Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,234 @@
+package com.adventure.solo.tiles;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.adventure.solo.executor.InstrumentedExecutor;
+import com.adventure.solo.geo.TileMath;
+import com.adventure.solo.model.Clue;
+import com.adventure.solo.model.Quest;
+
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.tilesource.OnlineTileSourceBase;
+import org.osmdroid.util.MapTileIndex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.hilt.android.qualifiers.ApplicationContext;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Downloads the map tiles along a quest route, zooms MIN_ZOOM..MAX_ZOOM, into the
+ * QuestTileArchive so the map can draw them without a network round trip once the player
+ * is out in a park with weak signal.
+ * <p>
+ * Only tile sources whose TileSourcePolicy accepts bulk download are prefetched from; see
+ * QuestTileSource. For any other source, such as OpenStreetMap's own tile servers, nothing is
+ * downloaded. Tiles already in the archive are skipped. A tile another route is already
+ * downloading is not fetched twice; the waiting route takes over that download's outcome. At
+ * most MAX_CONCURRENT_DOWNLOADS run at once, and a route is capped at MAX_TILES_PER_ROUTE
+ * (lowest zooms first) to bound the archive size and the load on the tile server.
+ */
+@Singleton
+public class TilePrefetcher {
+    private static final String TAG = "TilePrefetcher";
+    public static final int MIN_ZOOM = 14;
+    public static final int MAX_ZOOM = 18;
+    // Around the start, each clue and each leg between them
+    private static final double ROUTE_MARGIN_METERS = 150;
+    private static final int MAX_TILES_PER_ROUTE = 800;
+    private static final int MAX_CONCURRENT_DOWNLOADS = 2;
+
+    public interface TileStore {
+        // Creates the store if it does not exist yet
+        void open() throws IOException;
+        boolean contains(int zoom, int x, int y) throws IOException;
+        void save(int zoom, int x, int y, byte[] tile) throws IOException;
+    }
+
+    public interface Listener {
+        /** Called on a download thread once every tile of the route has been handled. */
+        void onPrefetchFinished(int downloaded, int skipped, int failed);
+    }
+
+    private final OkHttpClient httpClient;
+    private final OnlineTileSourceBase tileSource;
+    private final TileStore store;
+    @Nullable private final String userAgent;
+    private final Executor executor;
+    // Tiles queued or downloading, with the other runs waiting for the same tile, so
+    // overlapping routes never fetch a tile twice
+    private final Map<Long, List<Run>> pending = new HashMap<>();
+    // Quests whose routes were prefetched by this process
+    private final Set<Long> prefetchedQuests = Collections.synchronizedSet(new HashSet<>());
+
+    @Inject
+    public TilePrefetcher(@ApplicationContext Context context, OkHttpClient httpClient) {
+        this(httpClient, QuestTileSource.get(), new QuestTileArchive(context, QuestTileSource.get()), null,
+                new InstrumentedExecutor("tile-prefetch", MAX_CONCURRENT_DOWNLOADS));
+    }
+
+    // userAgent null means osmdroid's configured value, which the tile servers require
+    TilePrefetcher(OkHttpClient httpClient, OnlineTileSourceBase tileSource, TileStore store,
+                   @Nullable String userAgent, Executor executor) {
+        this.httpClient = httpClient;
+        this.tileSource = tileSource;
+        this.store = store;
+        this.userAgent = userAgent;
+        this.executor = executor;
+        if (!isEnabled()) {
+            Log.i(TAG, "Tile source " + tileSource.name() + " does not allow bulk download, not prefetching");
+            return;
+        }
+        // Map views only discover archives that exist when they are created, so create it early
+        executor.execute(() -> {
+            try {
+                store.open();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not open the tile archive", e);
+            }
+        });
+    }
+
+    /** Whether the tile source's policy allows prefetching from it at all. */
+    public boolean isEnabled() {
+        return tileSource.getTileSourcePolicy().acceptsBulkDownload();
+    }
+
+    /**
+     * Whether prefetchQuest would still download anything for the quest, so callers on a hot
+     * path can skip loading it once its route has been prefetched.
+     */
+    public boolean needsPrefetch(long questId) {
+        return isEnabled() && !prefetchedQuests.contains(questId);
+    }
+
+    /** Prefetches the quest start and its clues in sequence order, once per quest and process. */
+    public void prefetchQuest(Quest quest, List<Clue> clues) {
+        if (quest == null || !isEnabled() || !prefetchedQuests.add(quest.getId())) return;
+        List<double[]> route = new ArrayList<>();
+        route.add(new double[] {quest.getStartLatitude(), quest.getStartLongitude()});
+        if (clues != null) {
+            for (Clue clue : clues) route.add(new double[] {clue.getTargetLatitude(), clue.getTargetLongitude()});
+        }
+        prefetchRoute(route, (downloaded, skipped, failed) -> {
+            Log.d(TAG, "Quest " + quest.getId() + " tiles: " + downloaded + " downloaded, " + skipped + " cached, " + failed + " failed");
+            // Let a later activation retry what failed
+            if (failed > 0) prefetchedQuests.remove(quest.getId());
+        });
+    }
+
+    /**
+     * Prefetches the tiles around {latitude, longitude} waypoints and the legs between them.
+     * Finishes with no tiles at all when the tile source does not allow bulk download.
+     */
+    public void prefetchRoute(List<double[]> waypoints, @Nullable Listener listener) {
+        List<double[]> route = new ArrayList<>(waypoints);
+        executor.execute(() -> {
+            if (!isEnabled()) {
+                new Run(listener, 0);
+                return;
+            }
+            int maxZoom = Math.min(MAX_ZOOM, tileSource.getMaximumZoomLevel());
+            List<Long> keys = new ArrayList<>(TileCoverage.forRoute(route, ROUTE_MARGIN_METERS, MIN_ZOOM, maxZoom));
+            if (keys.size() > MAX_TILES_PER_ROUTE) {
+                Log.w(TAG, "Route needs " + keys.size() + " tiles, prefetching the first " + MAX_TILES_PER_ROUTE);
+                keys = keys.subList(0, MAX_TILES_PER_ROUTE);
+            }
+            Run run = new Run(listener, keys.size());
+            for (long key : keys) {
+                synchronized (pending) {
+                    List<Run> waiting = pending.get(key);
+                    if (waiting != null) {
+                        // Counted when that download finishes, so a failure there is a failure here
+                        waiting.add(run);
+                        continue;
+                    }
+                    pending.put(key, new ArrayList<>());
+                }
+                executor.execute(() -> {
+                    boolean stored = false;
+                    try {
+                        stored = download(key, run);
+                    } finally {
+                        List<Run> waiting;
+                        synchronized (pending) {
+                            waiting = pending.remove(key);
+                        }
+                        run.tileDone();
+                        for (Run other : waiting) {
+                            (stored ? other.skipped : other.failed).incrementAndGet();
+                            other.tileDone();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static final class Run {
+        final Listener listener;
+        final AtomicInteger remaining;
+        final AtomicInteger downloaded = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        Run(Listener listener, int tiles) {
+            this.listener = listener;
+            this.remaining = new AtomicInteger(tiles);
+            if (tiles == 0) finish();
+        }
+
+        void tileDone() {
+            if (remaining.decrementAndGet() == 0) finish();
+        }
+
+        private void finish() {
+            if (listener != null) listener.onPrefetchFinished(downloaded.get(), skipped.get(), failed.get());
+        }
+    }
+
+    // Returns whether the tile is in the store afterwards
+    private boolean download(long key, Run run) {
+        int zoom = TileMath.zoomOf(key), x = TileMath.xOf(key), y = TileMath.yOf(key);
+        try {
+            if (store.contains(zoom, x, y)) {
+                run.skipped.incrementAndGet();
+                return true;
+            }
+            String url = tileSource.getTileURLString(MapTileIndex.getTileIndex(zoom, x, y));
+            String agent = userAgent != null ? userAgent : Configuration.getInstance().getUserAgentValue();
+            Request request = new Request.Builder().url(url).header("User-Agent", agent).build();
+            try (Response response = httpClient.newCall(request).execute()) {
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    throw new IOException("Tile server returned HTTP " + response.code());
+                }
+                store.save(zoom, x, y, body.bytes());
+            }
+            run.downloaded.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to prefetch tile " + zoom + "/" + x + "/" + y + ": " + e.getMessage());
+            run.failed.incrementAndGet();
+            return false;
+        }
+    }
+}
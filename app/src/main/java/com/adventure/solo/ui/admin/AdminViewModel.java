@@ -64,37 +64,31 @@ public class AdminViewModel extends ViewModel {
     }
 
     private void fetchMembersForTeams(List<Team> teams) {
-        Map<String, List<PlayerProfile>> newTeamMembersMap = new HashMap<>();
         if (teams == null || teams.isEmpty()) {
-             _teamMembersMap.postValue(newTeamMembersMap); // Post empty map
+             _teamMembersMap.postValue(new HashMap<>()); // Post empty map
              _isLoading.postValue(false); // All loading done (no teams or members to fetch)
              return;
         }
 
-        final int[] teamsProcessedCounter = {0}; // Effectively final array for use in lambda
-
+        // Only teams with members need a lookup; the rest map to an empty list
+        List<String> teamIdsWithMembers = new ArrayList<>();
         for (Team team : teams) {
-            if (team.memberPlayerIds != null && !team.memberPlayerIds.isEmpty()) {
-                // This requires a method in PlayerProfileRepository to fetch multiple profiles by UIDs
-                // Or, if PlayerProfile has teamId, getPlayersByTeamId might work if it's up-to-date
-                // For now, using getPlayersByTeamId as per prompt.
-                playerProfileRepository.getPlayersByTeamId(team.teamId, profiles -> {
-                    newTeamMembersMap.put(team.teamId, profiles != null ? profiles : new ArrayList<>());
-                    teamsProcessedCounter[0]++;
-                    if (teamsProcessedCounter[0] == teams.size()) {
-                        _teamMembersMap.postValue(newTeamMembersMap);
-                        _isLoading.postValue(false); // All loading finished
-                    }
-                });
-            } else {
-                newTeamMembersMap.put(team.teamId, new ArrayList<>()); // No members
-                teamsProcessedCounter[0]++;
-                if (teamsProcessedCounter[0] == teams.size()) {
-                    _teamMembersMap.postValue(newTeamMembersMap);
-                    _isLoading.postValue(false); // All loading finished
-                }
+            if (team.teamId != null && team.memberPlayerIds != null && !team.memberPlayerIds.isEmpty()) {
+                teamIdsWithMembers.add(team.teamId);
             }
         }
+
+        // One query for every team instead of one per team
+        playerProfileRepository.getPlayersByTeamIds(teamIdsWithMembers, membersByTeam -> {
+            if (membersByTeam == null) _toastMessage.postValue("Failed to load team members.");
+            Map<String, List<PlayerProfile>> newTeamMembersMap = new HashMap<>();
+            for (Team team : teams) {
+                List<PlayerProfile> profiles = membersByTeam != null ? membersByTeam.get(team.teamId) : null;
+                newTeamMembersMap.put(team.teamId, profiles != null ? profiles : new ArrayList<>());
+            }
+            _teamMembersMap.postValue(newTeamMembersMap);
+            _isLoading.postValue(false); // All loading finished
+        });
     }
 
 
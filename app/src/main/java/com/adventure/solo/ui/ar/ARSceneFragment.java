@@ -5,6 +5,8 @@ import android.content.Context; // For onAttach
 import android.content.pm.PackageManager;
 import android.opengl.GLSurfaceView;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.MotionEvent; // For setOnTouchListener
@@ -19,7 +21,11 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
 // import com.adventure.solo.R; // Auto-imported by IDE typically
+import com.adventure.solo.BuildConfig;
 import com.adventure.solo.databinding.FragmentArSceneBinding;
+import com.adventure.solo.geo.GeofenceEngine;
+import com.adventure.solo.location.LocationScheduler;
+import com.adventure.solo.ui.ar.scene.ArNode;
 import com.google.ar.core.ArCoreApk;
 import com.google.ar.core.Session;
 import com.google.ar.core.exceptions.CameraNotAvailableException;
@@ -28,14 +34,17 @@ import com.google.ar.core.exceptions.UnavailableDeviceNotCompatibleException;
 import com.google.ar.core.exceptions.UnavailableSdkTooOldException;
 import com.google.ar.core.exceptions.UnavailableUserDeclinedInstallationException;
 
-import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationCallback;
-import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationResult;
-import com.google.android.gms.location.LocationServices;
 import android.location.Location;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import dagger.hilt.android.AndroidEntryPoint;
+import javax.inject.Inject;
 
 @AndroidEntryPoint
 public class ARSceneFragment extends Fragment {
@@ -45,22 +54,62 @@ public class ARSceneFragment extends Fragment {
     private static final int LOCATION_PERMISSION_CODE = 1; // Can be combined
 
     private FragmentArSceneBinding binding;
-    private Session session;
+    @Inject
+    ArSessionManager sessionManager;
+    private Session session; // Borrowed from sessionManager between onResume and onDestroyView
     private GLSurfaceView glSurfaceView;
     private DisplayRotationHelper displayRotationHelper;
     private MainRenderer mainRenderer;
+    private HeadingSensor headingSensor;
+    private RenderScheduler renderScheduler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final long FRAME_STATS_REFRESH_MILLIS = 500;
+    private final Runnable frameStatsRefresh = new Runnable() {
+        @Override
+        public void run() {
+            if (binding == null || mainRenderer == null) return;
+            binding.frameStatsOverlay.setText(mainRenderer.getFrameStats().dump());
+            mainHandler.postDelayed(this, FRAME_STATS_REFRESH_MILLIS);
+        }
+    };
 
-    private FusedLocationProviderClient fusedLocationClient;
-    private LocationCallback locationCallback;
     private Location currentLocation;
+    @Inject
+    LocationScheduler locationScheduler;
+    // Fixes arrive at whatever rate the scheduler picks for the distance to the nearest clue
+    private final LocationScheduler.Listener locationListener = location -> {
+        currentLocation = location;
+        if (headingSensor != null) {
+            headingSensor.updateDeclination(location.getLatitude(), location.getLongitude(), location.getAltitude(), location.getTime());
+        }
+        if (mainRenderer != null) mainRenderer.onLocation(location.getLatitude(), location.getLongitude());
+    };
 
-    private double targetLatitude;
-    private double targetLongitude;
-    private long clueId; // Added
+    private long[] clueIds;
+    private double[] targetLatitudes;
+    private double[] targetLongitudes;
     private int rewardPoints; // Added
 
-    private boolean objectVisible = false;
+    // Fence state and collections survive view recreation
+    private final Set<Long> inRangeClueIds = new HashSet<>();
+    private final Set<Long> collectedClueIds = new HashSet<>();
     private static final float PROXIMITY_RADIUS_METERS = 20.0f;
+    private static final String FENCE_PREFIX = "ar:clue:";
+
+    @Inject
+    GeofenceEngine geofenceEngine;
+    // AR objects are only shown or hidden on fence transitions, not re-tested on every fix
+    private final GeofenceEngine.Listener fenceListener = (fence, transition, distanceMeters) -> {
+        if (!fence.id.startsWith(FENCE_PREFIX) || !(fence.tag instanceof Long)) return;
+        long clueId = (Long) fence.tag;
+        if (transition == GeofenceEngine.Transition.ENTER) {
+            setClueInRange(clueId, true);
+            Log.i(TAG, "Object for Clue ID " + clueId + " is now IN RANGE (" + Math.round(distanceMeters) + " m).");
+        } else if (transition == GeofenceEngine.Transition.EXIT) {
+            setClueInRange(clueId, false);
+            Log.i(TAG, "Object for Clue ID " + clueId + " is now OUT OF RANGE.");
+        }
+    };
 
     private ARObjectInteractionListener interactionListener; // Added
 
@@ -68,11 +117,16 @@ public class ARSceneFragment extends Fragment {
     public ARSceneFragment() {}
 
     public static ARSceneFragment newInstance(double lat, double lon, long clueId, int rewardPoints) {
+        return newInstance(new long[] {clueId}, new double[] {lat}, new double[] {lon}, rewardPoints);
+    }
+
+    /** One AR scene for several clues; each appears once the player is within range of it. */
+    public static ARSceneFragment newInstance(long[] clueIds, double[] lats, double[] lons, int rewardPoints) {
         ARSceneFragment fragment = new ARSceneFragment();
         Bundle args = new Bundle();
-        args.putDouble("targetLatitude", lat);
-        args.putDouble("targetLongitude", lon);
-        args.putLong("clueId", clueId); // Added
+        args.putLongArray("clueIds", clueIds);
+        args.putDoubleArray("targetLatitudes", lats);
+        args.putDoubleArray("targetLongitudes", lons);
         args.putInt("rewardPoints", rewardPoints); // Added
         fragment.setArguments(args);
         return fragment;
@@ -98,14 +152,22 @@ public class ARSceneFragment extends Fragment {
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        if (getArguments() != null) {
-            targetLatitude = getArguments().getDouble("targetLatitude");
-            targetLongitude = getArguments().getDouble("targetLongitude");
-            clueId = getArguments().getLong("clueId");
+        clueIds = new long[0];
+        targetLatitudes = new double[0];
+        targetLongitudes = new double[0];
+        if (getArguments() != null && getArguments().getLongArray("clueIds") != null) {
+            clueIds = getArguments().getLongArray("clueIds");
+            targetLatitudes = getArguments().getDoubleArray("targetLatitudes");
+            targetLongitudes = getArguments().getDoubleArray("targetLongitudes");
             rewardPoints = getArguments().getInt("rewardPoints");
-            Log.d(TAG, "ARSceneFragment created for Clue ID: " + clueId + " at " + targetLatitude + "," + targetLongitude);
+            Log.d(TAG, "ARSceneFragment created for " + clueIds.length + " clues.");
+        }
+        geofenceEngine.addListener(fenceListener);
+        for (int i = 0; i < clueIds.length; i++) {
+            if (targetLatitudes[i] == 0 && targetLongitudes[i] == 0) continue;
+            geofenceEngine.addFence(FENCE_PREFIX + clueIds[i], targetLatitudes[i], targetLongitudes[i], PROXIMITY_RADIUS_METERS, clueIds[i]);
         }
-        fusedLocationClient = LocationServices.getFusedLocationProviderClient(requireActivity());
+        locationScheduler.refresh();
     }
 
     @Nullable
@@ -115,43 +177,42 @@ public class ARSceneFragment extends Fragment {
         glSurfaceView = binding.glSurfaceView;
 
         displayRotationHelper = new DisplayRotationHelper(requireContext());
-        mainRenderer = new MainRenderer(requireContext(), displayRotationHelper, () -> {
-            // This Runnable is called by MainRenderer's handleTap()
-            Log.d(TAG, "Tap event received from MainRenderer. Object visible: " + objectVisible);
-            if (objectVisible && interactionListener != null) {
-                Log.d(TAG, "Object collected: Clue ID " + clueId + ", Points: " + rewardPoints);
-                objectVisible = false; // Hide immediately prevent re-collection
-                if(mainRenderer != null) mainRenderer.setObjectVisible(false);
-                interactionListener.onARElementCollected(clueId, rewardPoints);
-
-                // Pop backstack to close AR view after collection
-                if (getParentFragmentManager() != null) {
-                     getParentFragmentManager().popBackStack();
-                } else {
-                    Log.w(TAG, "ParentFragmentManager is null, cannot popBackStack.");
-                }
-            } else {
-                Log.d(TAG, "Tap ignored. Object not visible or no listener. Visible: " + objectVisible + ", Listener: " + (interactionListener != null));
+        headingSensor = new HeadingSensor(requireContext());
+        List<ArNode> nodes = new ArrayList<>(clueIds.length);
+        for (int i = 0; i < clueIds.length; i++) {
+            if (!collectedClueIds.contains(clueIds[i])) {
+                nodes.add(new ArNode(clueIds[i], targetLatitudes[i], targetLongitudes[i], rewardPoints));
             }
-        });
+        }
+        // The renderer picks the tapped object on the GL thread; collection happens on the main thread
+        mainRenderer = new MainRenderer(requireContext(), displayRotationHelper, headingSensor,
+                sessionManager.getGlResources(), nodes,
+                (clueId, points) -> mainHandler.post(() -> onClueCollected(clueId, points)));
+        for (long clueId : inRangeClueIds) mainRenderer.setClueInRange(clueId, true);
+        if (currentLocation != null) mainRenderer.onLocation(currentLocation.getLatitude(), currentLocation.getLongitude());
 
         glSurfaceView.setPreserveEGLContextOnPause(true);
         glSurfaceView.setEGLContextClientVersion(2);
         glSurfaceView.setEGLConfigChooser(8, 8, 8, 8, 16, 0);
+        // Shaders and meshes outlive this view, for the next clue's AR scene
+        glSurfaceView.setEGLContextFactory(sessionManager.getEglContextFactory());
         glSurfaceView.setRenderer(mainRenderer);
-        glSurfaceView.setRenderMode(GLSurfaceView.RENDERMODE_CONTINUOUSLY);
+        // Low-rate camera preview until a clue is in range, full rate while one is
+        renderScheduler = new RenderScheduler(requireContext(), glSurfaceView);
+        renderScheduler.setObjectsInRange(!inRangeClueIds.isEmpty());
+
+        binding.frameStatsOverlay.setVisibility(BuildConfig.DEBUG ? View.VISIBLE : View.GONE);
 
         glSurfaceView.setOnTouchListener((v, event) -> {
             if (event.getAction() == MotionEvent.ACTION_DOWN) {
                 if (mainRenderer != null) {
-                    mainRenderer.handleTap();
+                    mainRenderer.handleTap(event.getX(), event.getY());
                 }
                 return true;
             }
             return false;
         });
 
-        setupLocationCallback();
         return binding.getRoot();
     }
 
@@ -166,16 +227,20 @@ public class ARSceneFragment extends Fragment {
         Log.d(TAG, "Permissions granted, starting location updates.");
         startLocationUpdates();
 
+        long sessionRequested = System.nanoTime();
         if (session == null) {
-            Log.d(TAG, "ARCore session is null, attempting to create.");
+            Log.d(TAG, "ARCore session is null, acquiring one.");
             try {
-                ArCoreApk.InstallStatus installStatus = ArCoreApk.getInstance().requestInstall(requireActivity(), true);
-                if (installStatus == ArCoreApk.InstallStatus.INSTALL_REQUESTED) {
-                    Log.d(TAG, "ARCore installation requested. Will return and wait.");
-                    return;
+                // A pooled session means ARCore is already installed
+                if (!sessionManager.hasSession()) {
+                    ArCoreApk.InstallStatus installStatus = ArCoreApk.getInstance().requestInstall(requireActivity(), true);
+                    if (installStatus == ArCoreApk.InstallStatus.INSTALL_REQUESTED) {
+                        Log.d(TAG, "ARCore installation requested. Will return and wait.");
+                        return;
+                    }
                 }
-                session = new Session(requireContext());
-                Log.d(TAG, "ARCore session created.");
+                session = sessionManager.acquire();
+                Log.d(TAG, "ARCore session acquired.");
             } catch (Exception e) {
                 handleSessionCreationException(e);
                 return;
@@ -185,15 +250,19 @@ public class ARSceneFragment extends Fragment {
         try {
             Log.d(TAG, "Resuming ARCore session.");
             session.resume();
-            if(mainRenderer!=null) mainRenderer.setSession(session);
+            if(mainRenderer!=null) mainRenderer.setSession(session, sessionRequested);
         } catch (CameraNotAvailableException e) {
             Log.e(TAG, "Camera not available during onResume", e);
             Toast.makeText(requireContext(), "Camera not available. Please restart the app.", Toast.LENGTH_LONG).show();
-            session = null; // Invalidate session
+            sessionManager.release(session); // Still paused; the next resume retries the camera
+            session = null;
             return;
         }
         if(glSurfaceView!=null) glSurfaceView.onResume();
+        if(renderScheduler!=null) renderScheduler.onResume();
         if(displayRotationHelper!=null) displayRotationHelper.onResume();
+        if(headingSensor!=null) headingSensor.onResume();
+        if (BuildConfig.DEBUG) mainHandler.post(frameStatsRefresh);
         Log.d(TAG, "onResume completed.");
     }
 
@@ -202,6 +271,10 @@ public class ARSceneFragment extends Fragment {
         super.onPause();
         Log.d(TAG, "onPause called");
         stopLocationUpdates();
+        mainHandler.removeCallbacks(frameStatsRefresh);
+        if (mainRenderer != null) Log.i(TAG, "AR frame stats:\n" + mainRenderer.getFrameStats().dump());
+        if(headingSensor!=null) headingSensor.onPause();
+        if(renderScheduler!=null) renderScheduler.onPause();
         if (session != null) {
             Log.d(TAG, "Pausing ARCore session.");
             if(displayRotationHelper!=null) displayRotationHelper.onPause();
@@ -215,16 +288,47 @@ public class ARSceneFragment extends Fragment {
         super.onDestroyView();
         Log.d(TAG, "onDestroyView called");
         if (session != null) {
-            Log.d(TAG, "Closing ARCore session.");
-            session.close();
+            // Kept paused for the next AR scene instead of closed
+            Log.d(TAG, "Releasing ARCore session.");
+            sessionManager.release(session);
             session = null;
         }
+        mainHandler.removeCallbacksAndMessages(null);
         mainRenderer = null;
+        renderScheduler = null;
+        headingSensor = null;
         displayRotationHelper = null;
         glSurfaceView = null;
         binding = null;
     }
 
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        geofenceEngine.removeListener(fenceListener);
+        geofenceEngine.removeFencesWithPrefix(FENCE_PREFIX);
+    }
+
+    /** Frame timings of the AR view, or null while it has no view. For tests and tooling. */
+    @Nullable
+    public FrameMetrics getFrameMetrics() {
+        return mainRenderer != null ? mainRenderer.getFrameStats().snapshot() : null;
+    }
+
+    // Included in `adb shell dumpsys activity <activity>`, so harnesses can collect frame timings
+    @Override
+    public void dump(@NonNull String prefix, @Nullable FileDescriptor fd, @NonNull PrintWriter writer, @Nullable String[] args) {
+        super.dump(prefix, fd, writer, args);
+        if (mainRenderer == null) return;
+        writer.print(prefix);
+        writer.println("AR frame stats:");
+        for (String line : mainRenderer.getFrameStats().dump().split("\n")) {
+            writer.print(prefix);
+            writer.print("  ");
+            writer.println(line);
+        }
+    }
+
     private boolean checkAndRequestPermissions() {
         boolean cameraPermissionGranted = ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED;
         boolean locationPermissionGranted = ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED;
@@ -267,73 +371,39 @@ public class ARSceneFragment extends Fragment {
         }
     }
 
-    private void setupLocationCallback() {
-        locationCallback = new LocationCallback() {
-            @Override
-            public void onLocationResult(@NonNull LocationResult locationResult) {
-                for (Location location : locationResult.getLocations()) {
-                    currentLocation = location;
-                    checkProximity();
-                }
-            }
-        };
-    }
-
     private void startLocationUpdates() {
         if (ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
             Log.w(TAG, "Attempted to start location updates without permission.");
             return;
         }
-        if (fusedLocationClient == null) {
-             fusedLocationClient = LocationServices.getFusedLocationProviderClient(requireActivity());
-        }
-        if (locationCallback == null) { // Should have been setup in onCreateView
-            setupLocationCallback();
-        }
-
-        LocationRequest locationRequest = LocationRequest.create();
-        locationRequest.setInterval(5000); // 5 seconds
-        locationRequest.setFastestInterval(2000); // 2 seconds
-        locationRequest.setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY);
-
-        Log.d(TAG, "Requesting location updates.");
-        fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, requireActivity().getMainLooper());
+        // The scheduler feeds every fix to the GeofenceEngine, which drives fenceListener
+        Log.d(TAG, "Subscribing to shared location updates.");
+        locationScheduler.addListener(locationListener);
     }
 
     private void stopLocationUpdates() {
-        if (fusedLocationClient != null && locationCallback != null) {
-            Log.d(TAG, "Stopping location updates.");
-            fusedLocationClient.removeLocationUpdates(locationCallback);
-        }
+        Log.d(TAG, "Unsubscribing from shared location updates.");
+        locationScheduler.removeListener(locationListener);
     }
 
-    private void checkProximity() {
-        if (currentLocation != null && targetLatitude != 0 && targetLongitude != 0) {
-            Location targetLocation = new Location("");
-            targetLocation.setLatitude(targetLatitude);
-            targetLocation.setLongitude(targetLongitude);
-
-            float distance = currentLocation.distanceTo(targetLocation);
-            // Log.d(TAG, "Distance to target (Clue ID " + clueId + "): " + distance + " meters");
-
-            boolean shouldBeVisible = distance < PROXIMITY_RADIUS_METERS;
-            if (shouldBeVisible && !objectVisible) {
-                objectVisible = true;
-                if(mainRenderer!=null) mainRenderer.setObjectVisible(true);
-                Log.i(TAG, "Object for Clue ID " + clueId + " is now IN RANGE.");
-                // Toast.makeText(getContext(), "Object in range!", Toast.LENGTH_SHORT).show();
-            } else if (!shouldBeVisible && objectVisible) {
-                objectVisible = false;
-                if(mainRenderer!=null) mainRenderer.setObjectVisible(false);
-                Log.i(TAG, "Object for Clue ID " + clueId + " is now OUT OF RANGE.");
-                // Toast.makeText(getContext(), "Object out of range", Toast.LENGTH_SHORT).show();
-            }
-        } else {
-             if (objectVisible) {
-                objectVisible = false;
-                if(mainRenderer!=null) mainRenderer.setObjectVisible(false);
-                Log.i(TAG, "No current location, hiding object for Clue ID " + clueId);
-             }
+    private void setClueInRange(long clueId, boolean inRange) {
+        if (collectedClueIds.contains(clueId)) return;
+        if (inRange ? !inRangeClueIds.add(clueId) : !inRangeClueIds.remove(clueId)) return;
+        if (mainRenderer != null) mainRenderer.setClueInRange(clueId, inRange);
+        if (renderScheduler != null) renderScheduler.setObjectsInRange(!inRangeClueIds.isEmpty());
+    }
+
+    private void onClueCollected(long clueId, int points) {
+        if (!collectedClueIds.add(clueId)) return;
+        inRangeClueIds.remove(clueId);
+        geofenceEngine.removeFence(FENCE_PREFIX + clueId);
+        if (renderScheduler != null) renderScheduler.setObjectsInRange(!inRangeClueIds.isEmpty());
+        Log.d(TAG, "Object collected: Clue ID " + clueId + ", Points: " + points);
+        if (interactionListener != null) interactionListener.onARElementCollected(clueId, points);
+
+        // Close the AR view once every clue in it has been collected
+        if (collectedClueIds.size() >= clueIds.length && isAdded()) {
+            getParentFragmentManager().popBackStack();
         }
     }
 
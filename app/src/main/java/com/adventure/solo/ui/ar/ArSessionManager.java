@@ -0,0 +1,107 @@
+package com.adventure.solo.ui.ar;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.adventure.solo.ui.ar.rendering.SharedEglContextFactory;
+import com.adventure.solo.ui.ar.rendering.SharedGlResources;
+import com.google.ar.core.Session;
+import com.google.ar.core.exceptions.UnavailableException;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import dagger.hilt.android.ActivityRetainedLifecycle;
+import dagger.hilt.android.qualifiers.ApplicationContext;
+import dagger.hilt.android.scopes.ActivityRetainedScoped;
+
+/**
+ * Keeps one ARCore session and one GL share group alive across consecutive AR views, so
+ * walking from one clue to the next resumes a paused session and reuses compiled shaders
+ * instead of paying a full ARCore and camera cold start each time.
+ * <p>
+ * Views acquire the session when they resume and release it, paused, when their view is
+ * destroyed. An unused session is closed after IDLE_CLOSE_MILLIS, and always when the
+ * activity finishes. Use on the main thread.
+ */
+@ActivityRetainedScoped
+public class ArSessionManager {
+    private static final String TAG = "ArSessionManager";
+    // Long enough to walk to the next clue, short enough not to hold ARCore's memory all quest
+    private static final long IDLE_CLOSE_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final SharedEglContextFactory eglContextFactory = new SharedEglContextFactory();
+    private final SharedGlResources glResources = new SharedGlResources(eglContextFactory);
+    private final Runnable idleClose = this::closeIfIdle;
+    private Session session;
+    private boolean inUse;
+
+    @Inject
+    public ArSessionManager(@ApplicationContext Context context, ActivityRetainedLifecycle lifecycle) {
+        this.context = context;
+        lifecycle.addOnClearedListener(this::close);
+    }
+
+    /** Whether a session is pooled, so acquire() will not create one. */
+    public boolean hasSession() {
+        return session != null;
+    }
+
+    /**
+     * The pooled session, created on first use. It is paused until the caller resumes it.
+     *
+     * @throws UnavailableException if ARCore cannot create a session on this device.
+     */
+    public Session acquire() throws UnavailableException {
+        mainHandler.removeCallbacks(idleClose);
+        if (session == null) {
+            long start = System.nanoTime();
+            session = new Session(context);
+            Log.i(TAG, "Created AR session in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } else {
+            Log.d(TAG, "Reusing pooled AR session");
+        }
+        inUse = true;
+        return session;
+    }
+
+    /** Hands a paused session back for the next AR view. */
+    public void release(Session released) {
+        if (released != session) {
+            released.close();
+            return;
+        }
+        inUse = false;
+        mainHandler.postDelayed(idleClose, IDLE_CLOSE_MILLIS);
+    }
+
+    /** Set on every AR GLSurfaceView, before setRenderer, so all views share GL objects. */
+    public SharedEglContextFactory getEglContextFactory() {
+        return eglContextFactory;
+    }
+
+    /** The renderers living in the shared GL objects; see SharedGlResources. */
+    public SharedGlResources getGlResources() {
+        return glResources;
+    }
+
+    private void closeIfIdle() {
+        if (!inUse) close();
+    }
+
+    private void close() {
+        mainHandler.removeCallbacks(idleClose);
+        if (session != null) {
+            Log.d(TAG, "Closing pooled AR session");
+            session.close();
+            session = null;
+        }
+        inUse = false;
+        eglContextFactory.release();
+    }
+}
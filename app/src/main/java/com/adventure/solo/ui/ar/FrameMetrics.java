@@ -0,0 +1,61 @@
+package com.adventure.solo.ui.ar;
+
+import java.util.concurrent.TimeUnit;
+
+// Point-in-time view of the AR renderer's recent frames, as recorded by FrameStats
+public class FrameMetrics {
+    public final int frames; // Frames in the window
+    public final long intervalP50Nanos; // Start-to-start time between frames
+    public final long intervalP95Nanos;
+    public final long intervalP99Nanos;
+    public final long workP50Nanos; // Time spent inside onDrawFrame
+    public final long workP95Nanos;
+    public final long workP99Nanos;
+    public final long updateP50Nanos; // Time spent inside session.update()
+    public final long updateP95Nanos;
+    public final long updateP99Nanos;
+    public final int jankFrames; // Intervals over 1.5x the median
+    public final int jankFramesWithGc; // Of those, frames during which a blocking GC ran
+    public final int notTrackingFrames;
+    public final int trackingDropouts; // Transitions from tracking to not tracking
+    public final long blockingGcs; // Since the stats were created or reset
+    public final long blockingGcMillis;
+
+    public FrameMetrics(int frames, long intervalP50Nanos, long intervalP95Nanos, long intervalP99Nanos,
+                        long workP50Nanos, long workP95Nanos, long workP99Nanos,
+                        long updateP50Nanos, long updateP95Nanos, long updateP99Nanos,
+                        int jankFrames, int jankFramesWithGc, int notTrackingFrames, int trackingDropouts,
+                        long blockingGcs, long blockingGcMillis) {
+        this.frames = frames;
+        this.intervalP50Nanos = intervalP50Nanos;
+        this.intervalP95Nanos = intervalP95Nanos;
+        this.intervalP99Nanos = intervalP99Nanos;
+        this.workP50Nanos = workP50Nanos;
+        this.workP95Nanos = workP95Nanos;
+        this.workP99Nanos = workP99Nanos;
+        this.updateP50Nanos = updateP50Nanos;
+        this.updateP95Nanos = updateP95Nanos;
+        this.updateP99Nanos = updateP99Nanos;
+        this.jankFrames = jankFrames;
+        this.jankFramesWithGc = jankFramesWithGc;
+        this.notTrackingFrames = notTrackingFrames;
+        this.trackingDropouts = trackingDropouts;
+        this.blockingGcs = blockingGcs;
+        this.blockingGcMillis = blockingGcMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "frames=" + frames
+                + "\ninterval p50/95/99=" + millis(intervalP50Nanos) + "/" + millis(intervalP95Nanos) + "/" + millis(intervalP99Nanos) + "ms"
+                + "\nwork p50/95/99=" + millis(workP50Nanos) + "/" + millis(workP95Nanos) + "/" + millis(workP99Nanos) + "ms"
+                + "\nupdate p50/95/99=" + millis(updateP50Nanos) + "/" + millis(updateP95Nanos) + "/" + millis(updateP99Nanos) + "ms"
+                + "\njank=" + jankFrames + " (gc " + jankFramesWithGc + ")"
+                + ", not tracking=" + notTrackingFrames + " (dropouts " + trackingDropouts + ")"
+                + "\nblocking gc=" + blockingGcs + " (" + blockingGcMillis + "ms)";
+    }
+
+    private static String millis(long nanos) {
+        return String.valueOf(TimeUnit.NANOSECONDS.toMicros(nanos) / 100 / 10.0);
+    }
+}
@@ -0,0 +1,59 @@
+package com.adventure.solo.ui.ar;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which display vsyncs should produce an AR frame, so the renderer runs at a
+ * target rate below the display's. Also holds the policy for that rate. Not thread-safe.
+ */
+public class FramePacer {
+    // ARCore's camera delivers 30 fps; rendering faster only repeats camera images
+    public static final int FULL_FPS = 30;
+    // Camera preview only, while no clue is close enough to show
+    public static final int IDLE_FPS = 10;
+    // Caps for PowerManager thermal statuses MODERATE, SEVERE and CRITICAL or worse
+    static final int MODERATE_THERMAL_FPS = 24;
+    static final int SEVERE_THERMAL_FPS = 15;
+    static final int CRITICAL_THERMAL_FPS = 10;
+    // Values of PowerManager.THERMAL_STATUS_*, which only exist from API 29
+    static final int THERMAL_STATUS_MODERATE = 2;
+    static final int THERMAL_STATUS_SEVERE = 3;
+    static final int THERMAL_STATUS_CRITICAL = 4;
+    // Vsync timestamps jitter; a frame this early still counts as on time
+    private static final long TOLERANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(3);
+
+    private long intervalNanos;
+    private long nextFrameAt;
+
+    public FramePacer(int fps) {
+        setFps(fps);
+    }
+
+    /** The rate to render at, given whether any object can be on screen and the thermal status. */
+    public static int targetFps(boolean objectsInRange, int thermalStatus) {
+        int fps = objectsInRange ? FULL_FPS : IDLE_FPS;
+        if (thermalStatus >= THERMAL_STATUS_CRITICAL) return Math.min(fps, CRITICAL_THERMAL_FPS);
+        if (thermalStatus >= THERMAL_STATUS_SEVERE) return Math.min(fps, SEVERE_THERMAL_FPS);
+        if (thermalStatus >= THERMAL_STATUS_MODERATE) return Math.min(fps, MODERATE_THERMAL_FPS);
+        return fps;
+    }
+
+    public void setFps(int fps) {
+        intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, fps);
+        nextFrameAt = 0; // The next vsync renders and sets the new cadence
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /** Whether the vsync at frameTimeNanos should render a frame. */
+    public boolean shouldRender(long frameTimeNanos) {
+        if (frameTimeNanos < nextFrameAt - TOLERANCE_NANOS) return false;
+        // Keep the cadence, unless we fell a whole interval behind (e.g. after a pause)
+        nextFrameAt = frameTimeNanos - nextFrameAt > intervalNanos || nextFrameAt == 0
+                ? frameTimeNanos + intervalNanos
+                : nextFrameAt + intervalNanos;
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+package com.adventure.solo.ui.ar;
+
+import android.os.Debug;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame timings of the AR renderer in a fixed ring buffer.
+ * <p>
+ * The GL thread is the only writer: record() fills a slot and then publishes it by bumping
+ * a volatile frame counter, with no locks and no allocation. Any thread can call
+ * snapshot(); it copies the window and drops the slots the writer overwrote while it was
+ * copying, so it never blocks the GL thread and never mixes two frames in one slot.
+ */
+public class FrameStats {
+    public static final int CAPACITY = 512; // About 17 s at ARCore's 30 fps camera rate
+    // A frame interval this far over the median counts as jank
+    private static final double JANK_FACTOR = 1.5;
+    // Frames slower than this check whether a blocking GC ran during them
+    private static final long SLOW_FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final int FLAG_TRACKING = 1;
+    private static final int FLAG_GC = 2;
+
+    /** Blocking GC counters of the runtime, swappable for tests. */
+    interface GcCounters {
+        long blockingGcCount();
+        long blockingGcTimeMillis();
+    }
+
+    private static final GcCounters RUNTIME_GC_COUNTERS = new GcCounters() {
+        @Override
+        public long blockingGcCount() {
+            return parse(Debug.getRuntimeStat("art.gc.blocking-gc-count"));
+        }
+
+        @Override
+        public long blockingGcTimeMillis() {
+            return parse(Debug.getRuntimeStat("art.gc.blocking-gc-time"));
+        }
+
+        private long parse(String value) {
+            try {
+                return value != null ? Long.parseLong(value) : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    };
+
+    private final GcCounters gcCounters;
+    private final long[] intervals = new long[CAPACITY];
+    private final long[] works = new long[CAPACITY];
+    private final long[] updates = new long[CAPACITY];
+    private final byte[] flags = new byte[CAPACITY];
+    // Frames recorded so far; slot i holds frame i % CAPACITY
+    private volatile long recorded;
+    // First frame of the current measurement window
+    private volatile long windowStart;
+
+    // Writer state, GL thread only
+    private long lastFrameStart;
+    private long lastGcCount;
+
+    // Baseline for the GC totals reported by snapshot()
+    private volatile long baseGcCount;
+    private volatile long baseGcMillis;
+
+    public FrameStats() {
+        this(RUNTIME_GC_COUNTERS);
+    }
+
+    FrameStats(GcCounters gcCounters) {
+        this.gcCounters = gcCounters;
+        baseGcCount = lastGcCount = gcCounters.blockingGcCount();
+        baseGcMillis = gcCounters.blockingGcTimeMillis();
+    }
+
+    /**
+     * Records one frame. Call on the GL thread at the end of every onDrawFrame.
+     *
+     * @param frameStartNanos System.nanoTime() at the start of onDrawFrame.
+     * @param updateNanos     time spent in session.update(), 0 if it was not called.
+     * @param tracking        whether the camera was tracking this frame.
+     */
+    public void record(long frameStartNanos, long updateNanos, boolean tracking) {
+        long work = System.nanoTime() - frameStartNanos;
+        long interval = lastFrameStart == 0 ? 0 : frameStartNanos - lastFrameStart;
+        lastFrameStart = frameStartNanos;
+
+        int flag = tracking ? FLAG_TRACKING : 0;
+        // Reading the runtime counters costs a JNI call, so only slow frames pay for it
+        if (interval > SLOW_FRAME_NANOS || work > SLOW_FRAME_NANOS) {
+            long gcCount = gcCounters.blockingGcCount();
+            if (gcCount != lastGcCount) flag |= FLAG_GC;
+            lastGcCount = gcCount;
+        }
+
+        long frame = recorded;
+        int slot = (int) (frame % CAPACITY);
+        intervals[slot] = interval;
+        works[slot] = work;
+        updates[slot] = updateNanos;
+        flags[slot] = (byte) flag;
+        recorded = frame + 1; // Publishes the slot
+    }
+
+    /** Metrics over the last CAPACITY frames. Safe to call from any thread. */
+    public FrameMetrics snapshot() {
+        long end = recorded;
+        long start = Math.max(windowStart, end - CAPACITY);
+        int size = (int) (end - start);
+        long[] interval = new long[size];
+        long[] work = new long[size];
+        long[] update = new long[size];
+        byte[] flag = new byte[size];
+        for (int i = 0; i < size; i++) {
+            int slot = (int) ((start + i) % CAPACITY);
+            interval[i] = intervals[slot];
+            work[i] = works[slot];
+            update[i] = updates[slot];
+            flag[i] = flags[slot];
+        }
+        // Frame f reuses the slot of frame f - CAPACITY, so everything up to the frame the
+        // writer is working on now, minus CAPACITY, may have changed while we copied it
+        int overwritten = (int) Math.min(size, Math.max(0, recorded - CAPACITY + 1 - start));
+        int first = overwritten;
+        // The very first frame has no interval
+        if (start == 0 && first == 0 && size > 0) first = 1;
+
+        int count = size - first;
+        int notTracking = 0, dropouts = 0;
+        for (int i = overwritten; i < size; i++) {
+            boolean tracking = (flag[i] & FLAG_TRACKING) != 0;
+            if (!tracking) {
+                notTracking++;
+                if (i > overwritten && (flag[i - 1] & FLAG_TRACKING) != 0) dropouts++;
+            }
+        }
+
+        long[] sortedIntervals = sortedRange(interval, first, size);
+        long medianInterval = percentile(sortedIntervals, 50);
+        int jank = 0, jankWithGc = 0;
+        for (int i = first; i < size; i++) {
+            if (interval[i] > medianInterval * JANK_FACTOR) {
+                jank++;
+                if ((flag[i] & FLAG_GC) != 0) jankWithGc++;
+            }
+        }
+        long[] sortedWork = sortedRange(work, overwritten, size);
+        long[] sortedUpdate = sortedRange(update, overwritten, size);
+
+        return new FrameMetrics(count,
+                medianInterval, percentile(sortedIntervals, 95), percentile(sortedIntervals, 99),
+                percentile(sortedWork, 50), percentile(sortedWork, 95), percentile(sortedWork, 99),
+                percentile(sortedUpdate, 50), percentile(sortedUpdate, 95), percentile(sortedUpdate, 99),
+                jank, jankWithGc, notTracking, dropouts,
+                gcCounters.blockingGcCount() - baseGcCount, gcCounters.blockingGcTimeMillis() - baseGcMillis);
+    }
+
+    /** Starts a new measurement window, e.g. between test runs. Safe to call from any thread. */
+    public void reset() {
+        windowStart = recorded;
+        baseGcCount = gcCounters.blockingGcCount();
+        baseGcMillis = gcCounters.blockingGcTimeMillis();
+    }
+
+    /** Human-readable metrics, for the debug overlay and dumpsys. */
+    public String dump() {
+        return snapshot().toString();
+    }
+
+    private static long[] sortedRange(long[] values, int from, int to) {
+        long[] sorted = Arrays.copyOfRange(values, from, Math.max(from, to));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // Nearest-rank percentile of sorted values, 0 when empty
+    static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,68 @@
+package com.adventure.solo.ui.ar;
+
+import android.content.Context;
+import android.hardware.GeomagneticField;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.util.Log;
+
+/**
+ * Compass bearing of the direction the back camera points, from the rotation vector
+ * sensor. Used to find where north is in ARCore's world, which has no heading of its own.
+ * Readable from any thread.
+ */
+public class HeadingSensor implements SensorEventListener {
+    private static final String TAG = "HeadingSensor";
+
+    private final SensorManager sensorManager;
+    private final Sensor rotationSensor;
+    private final float[] rotationMatrix = new float[9];
+    private volatile float declinationRadians;
+    private volatile float cameraAzimuth = Float.NaN;
+
+    public HeadingSensor(Context context) {
+        sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+        rotationSensor = sensorManager != null ? sensorManager.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR) : null;
+        if (rotationSensor == null) Log.w(TAG, "No rotation vector sensor; AR objects cannot be placed by heading.");
+    }
+
+    public void onResume() {
+        if (rotationSensor != null) sensorManager.registerListener(this, rotationSensor, SensorManager.SENSOR_DELAY_GAME);
+    }
+
+    public void onPause() {
+        if (rotationSensor != null) sensorManager.unregisterListener(this);
+        cameraAzimuth = Float.NaN;
+    }
+
+    /** Turns magnetic bearings into true ones for the area around a fix. */
+    public void updateDeclination(double latitude, double longitude, double altitude, long timeMillis) {
+        GeomagneticField field = new GeomagneticField((float) latitude, (float) longitude, (float) altitude, timeMillis);
+        declinationRadians = (float) Math.toRadians(field.getDeclination());
+    }
+
+    /** Radians clockwise from true north, or NaN before the first reading. */
+    public float getCameraAzimuth() {
+        return cameraAzimuth;
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        SensorManager.getRotationMatrixFromVector(rotationMatrix, event.values);
+        // The back camera looks down the device's -Z axis; its east and north components
+        // are minus the third column of the device-to-world matrix. This holds in any
+        // screen orientation, as long as the phone is not held flat.
+        float east = -rotationMatrix[2];
+        float north = -rotationMatrix[5];
+        cameraAzimuth = (float) Math.atan2(east, north) + declinationRadians;
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        if (accuracy <= SensorManager.SENSOR_STATUS_ACCURACY_LOW) {
+            Log.w(TAG, "Compass accuracy is low (" + accuracy + "); AR objects may be misplaced.");
+        }
+    }
+}
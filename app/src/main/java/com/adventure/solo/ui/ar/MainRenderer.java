@@ -7,57 +7,120 @@ import android.opengl.Matrix; // For matrix operations
 import android.util.Log;
 
 import com.adventure.solo.ui.ar.rendering.BackgroundRenderer; // Needs to be created or sourced
-import com.adventure.solo.ui.ar.rendering.Cube; // Your new Cube class
+import com.adventure.solo.ui.ar.rendering.SceneRenderer;
+import com.adventure.solo.ui.ar.rendering.SharedGlResources;
+import com.adventure.solo.ui.ar.scene.ArNode;
+import com.adventure.solo.ui.ar.scene.ArScene;
 import com.google.ar.core.Frame;
 import com.google.ar.core.Session;
 import com.google.ar.core.Camera; // ARCore Camera
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
 public class MainRenderer implements GLSurfaceView.Renderer {
     private static final String TAG = MainRenderer.class.getSimpleName();
 
+    public interface Listener {
+        /** A clue object on screen was tapped; it is already hidden. Called on the GL thread. */
+        void onClueTapped(long clueId, int rewardPoints);
+    }
+
     private final Context context;
     private final DisplayRotationHelper displayRotationHelper;
-    private final Runnable onObjectTappedCallback; // Renamed for clarity
+    private final HeadingSensor headingSensor;
+    private final Listener listener;
+    private final SharedGlResources glResources;
 
     private Session session;
-    private final BackgroundRenderer backgroundRenderer = new BackgroundRenderer();
-    private Cube cube;
+    // System.nanoTime() when the view started asking for a session, until its first camera frame
+    private volatile long sessionRequestedNanos;
+    private BackgroundRenderer backgroundRenderer;
+    private SceneRenderer sceneRenderer;
+    private final FrameStats frameStats = new FrameStats();
+    // Only touched on the GL thread once rendering starts; other threads go through glTasks
+    private final ArScene scene = new ArScene();
+    private final ConcurrentLinkedQueue<Runnable> glTasks = new ConcurrentLinkedQueue<>();
+    // Latest {latitude, longitude} fix not yet used to anchor the scene
+    private final AtomicReference<double[]> pendingFix = new AtomicReference<>();
+    // Latest unhandled tap, as the float bits of x and y packed into a long
+    private final AtomicLong pendingTap = new AtomicLong(NO_TAP);
+    private static final long NO_TAP = Long.MIN_VALUE;
 
-    private boolean objectVisible = false; // Controlled by ARSceneFragment
-    private final float[] modelMatrix = new float[16];
     private final float[] viewMatrix = new float[16];
     private final float[] projectionMatrix = new float[16];
-    private final float[] mvpMatrix = new float[16]; // Model-View-Projection
+    private final float[] viewProjectionMatrix = new float[16];
+    private final float[] cameraPosition = new float[3];
+    // Scratch for hit testing, so a tap allocates nothing on the GL thread
+    private final float[] inverseViewProjectionMatrix = new float[16];
+    private final float[] rayScratch = new float[8];
+    private final float[] ray = new float[6];
+    private int viewportWidth;
+    private int viewportHeight;
+
+    // North's world bearing, smoothed as a unit vector so the average wraps around correctly
+    private boolean hasNorth;
+    private float northSin;
+    private float northCos;
+    private float placedNorthBearing;
+    private static final float NORTH_SMOOTHING = 0.05f;
+    // Re-place the objects only when north has moved more than this
+    private static final float NORTH_EPSILON_RADIANS = (float) Math.toRadians(0.25);
+    // The compass is unreliable with the camera pointing at the sky or the floor
+    private static final float MAX_VERTICAL_FORWARD = 0.8f;
 
     // Z-Near and Z-Far planes for projection matrix
     private static final float Z_NEAR = 0.1f;
     private static final float Z_FAR = 100.0f;
 
 
-    public MainRenderer(Context context, DisplayRotationHelper displayRotationHelper, Runnable onObjectTapped) {
+    public MainRenderer(Context context, DisplayRotationHelper displayRotationHelper, HeadingSensor headingSensor,
+                        SharedGlResources glResources, List<ArNode> nodes, Listener listener) {
         this.context = context;
         this.displayRotationHelper = displayRotationHelper;
-        this.onObjectTappedCallback = onObjectTapped;
+        this.headingSensor = headingSensor;
+        this.glResources = glResources;
+        this.listener = listener;
+        for (ArNode node : nodes) scene.add(node);
     }
 
-    public void setSession(Session session) {
+    /**
+     * @param requestedNanos System.nanoTime() when the view started acquiring the session;
+     *                       the time from then to the first camera frame is logged.
+     */
+    public void setSession(Session session, long requestedNanos) {
         this.session = session;
+        this.sessionRequestedNanos = requestedNanos;
     }
 
-    public void setObjectVisible(boolean visible) {
-        this.objectVisible = visible;
+    /** Timings of recent frames; readable from any thread. */
+    public FrameStats getFrameStats() {
+        return frameStats;
     }
 
-    // Called from ARSceneFragment's touch listener
-    public void handleTap() {
-        Log.d(TAG, "MainRenderer handleTap. Object visible: " + objectVisible);
-        if (objectVisible && onObjectTappedCallback != null) {
-            // Could add hit testing here later if needed (e.g. raycast against cube bounds)
-            onObjectTappedCallback.run();
-        }
+    // Called from ARSceneFragment's fence listener
+    public void setClueInRange(long clueId, boolean inRange) {
+        glTasks.add(() -> scene.setInRange(clueId, inRange));
+    }
+
+    // Called from ARSceneFragment's location listener
+    public void onLocation(double latitude, double longitude) {
+        pendingFix.set(new double[] {latitude, longitude});
+    }
+
+    /**
+     * Called from ARSceneFragment's touch listener with view coordinates. The tap is hit
+     * tested on the GL thread against the objects of the next frame; taps arriving before
+     * that frame replace each other, so a double tap cannot collect twice.
+     */
+    public void handleTap(float x, float y) {
+        pendingTap.set(((long) Float.floatToIntBits(x) << 32) | (Float.floatToIntBits(y) & 0xffffffffL));
     }
 
     @Override
@@ -65,21 +128,30 @@ public class MainRenderer implements GLSurfaceView.Renderer {
         GLES20.glClearColor(0.1f, 0.1f, 0.1f, 1.0f);
         GLES20.glEnable(GLES20.GL_DEPTH_TEST); // Enable depth testing for 3D rendering
 
-        backgroundRenderer.createOnGlThread(context);
-        cube = new Cube();
-        // The Cube constructor already handles shader compilation and buffer setup.
+        // Shaders and meshes of an earlier AR view are reused if its share group is still alive
+        if (!glResources.onSurfaceCreated(context)) Log.d(TAG, "Reusing GL resources of the previous AR view");
+        backgroundRenderer = glResources.getBackgroundRenderer();
+        sceneRenderer = glResources.getSceneRenderer();
     }
 
     @Override
     public void onSurfaceChanged(GL10 gl, int width, int height) {
         displayRotationHelper.onSurfaceChanged(width, height);
         GLES20.glViewport(0, 0, width, height);
+        viewportWidth = width;
+        viewportHeight = height;
     }
 
     @Override
     public void onDrawFrame(GL10 gl) {
+        long frameStart = System.nanoTime();
+        long updateNanos = 0;
+        boolean tracking = false;
         GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_DEPTH_BUFFER_BIT);
 
+        Runnable task;
+        while ((task = glTasks.poll()) != null) task.run();
+
         if (session == null) {
             return; // Session is not yet available.
         }
@@ -88,38 +160,88 @@ public class MainRenderer implements GLSurfaceView.Renderer {
 
         try {
             session.setCameraTextureName(backgroundRenderer.getTextureId());
+            long updateStart = System.nanoTime();
             Frame frame = session.update();
+            updateNanos = System.nanoTime() - updateStart;
             Camera camera = frame.getCamera();
 
             backgroundRenderer.draw(frame);
+            if (sessionRequestedNanos != 0 && frame.getTimestamp() != 0) {
+                Log.i(TAG, "First camera frame " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sessionRequestedNanos)
+                        + " ms after the session was requested");
+                sessionRequestedNanos = 0;
+            }
 
-            // If tracking, and object is set to be visible, render it.
-            if (camera.getTrackingState() == com.google.ar.core.TrackingState.TRACKING && objectVisible) {
-                // Get projection matrix.
-                camera.getProjectionMatrix(projectionMatrix, 0, Z_NEAR, Z_FAR);
-                // Get camera matrix (view matrix).
-                camera.getViewMatrix(viewMatrix, 0);
-
-                // Set model matrix for the cube
-                // Place it 2 meters in front (negative Z) of the camera and slightly down
-                Matrix.setIdentityM(modelMatrix, 0);
-                Matrix.translateM(modelMatrix, 0, 0f, -0.5f, -2f);
-                // Example: Rotate the cube around the Y axis
-                // float angle = (float) (System.currentTimeMillis() / 100 % 360); // Simple continuous rotation
-                // Matrix.rotateM(modelMatrix, 0, angle, 0f, 1f, 0f);
-
-
-                // Calculate MVP matrix: P * V * M
-                // First, V * M
-                Matrix.multiplyMM(mvpMatrix, 0, viewMatrix, 0, modelMatrix, 0);
-                // Then, P * (V*M)
-                Matrix.multiplyMM(mvpMatrix, 0, projectionMatrix, 0, mvpMatrix, 0);
-
-                cube.draw(mvpMatrix);
+            tracking = camera.getTrackingState() == com.google.ar.core.TrackingState.TRACKING;
+            if (!tracking) {
+                pendingTap.set(NO_TAP); // Nothing is drawn, so there is nothing to hit
+                return;
+            }
+            camera.getProjectionMatrix(projectionMatrix, 0, Z_NEAR, Z_FAR);
+            camera.getViewMatrix(viewMatrix, 0);
+            ArScene.cameraPosition(viewMatrix, cameraPosition);
+
+            double[] fix = pendingFix.getAndSet(null);
+            if (fix != null) {
+                // The fix describes where the camera is now; tracking covers the walk to the next one
+                scene.setOrigin(fix[0], fix[1], cameraPosition[0], cameraPosition[1], cameraPosition[2]);
+            }
+            updateNorth();
+            if (!scene.isPlaced()) {
+                pendingTap.set(NO_TAP);
+                return;
             }
 
+            Matrix.multiplyMM(viewProjectionMatrix, 0, projectionMatrix, 0, viewMatrix, 0);
+            if (scene.cull(viewProjectionMatrix, cameraPosition[0], cameraPosition[1], cameraPosition[2]) > 0) {
+                // Hit test against exactly what this frame draws, before drawing it
+                handlePendingTap();
+                sceneRenderer.draw(scene, viewProjectionMatrix);
+            } else {
+                pendingTap.set(NO_TAP);
+            }
         } catch (Throwable t) {
             Log.e(TAG, "Exception on GL thread: " + t.getMessage(), t);
+        } finally {
+            frameStats.record(frameStart, updateNanos, tracking);
+        }
+    }
+
+    private void handlePendingTap() {
+        long tap = pendingTap.getAndSet(NO_TAP);
+        if (tap == NO_TAP || viewportWidth == 0 || viewportHeight == 0) return;
+        float x = Float.intBitsToFloat((int) (tap >>> 32));
+        float y = Float.intBitsToFloat((int) tap);
+        if (!Matrix.invertM(inverseViewProjectionMatrix, 0, viewProjectionMatrix, 0)) return;
+        // View coordinates grow down; normalized device coordinates grow up
+        ArScene.screenRay(inverseViewProjectionMatrix, 2 * x / viewportWidth - 1, 1 - 2 * y / viewportHeight, rayScratch, ray);
+        ArNode node = scene.pick(ray[0], ray[1], ray[2], ray[3], ray[4], ray[5]);
+        if (node == null) return;
+        Log.d(TAG, "Tap hit clue " + node.clueId);
+        // Collected right away, so it is neither drawn nor hit again
+        scene.setCollected(node.clueId);
+        scene.cull(viewProjectionMatrix, cameraPosition[0], cameraPosition[1], cameraPosition[2]);
+        if (listener != null) listener.onClueTapped(node.clueId, node.rewardPoints);
+    }
+
+    // North in the world is where the camera points, turned back by the compass azimuth
+    private void updateNorth() {
+        float azimuth = headingSensor.getCameraAzimuth();
+        if (Float.isNaN(azimuth) || Math.abs(viewMatrix[6]) > MAX_VERTICAL_FORWARD) return;
+        float bearing = ArScene.cameraBearing(viewMatrix) - azimuth;
+        if (!hasNorth) {
+            northSin = (float) Math.sin(bearing);
+            northCos = (float) Math.cos(bearing);
+            hasNorth = true;
+        } else {
+            northSin += ((float) Math.sin(bearing) - northSin) * NORTH_SMOOTHING;
+            northCos += ((float) Math.cos(bearing) - northCos) * NORTH_SMOOTHING;
+        }
+        float north = (float) Math.atan2(northSin, northCos);
+        float change = Math.abs(north - placedNorthBearing);
+        if (!scene.isPlaced() || Math.min(change, (float) (2 * Math.PI) - change) > NORTH_EPSILON_RADIANS) {
+            placedNorthBearing = north;
+            scene.setNorthBearing(north);
         }
     }
 }
@@ -0,0 +1,94 @@
+package com.adventure.solo.ui.ar;
+
+import android.content.Context;
+import android.opengl.GLSurfaceView;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+import android.view.Choreographer;
+
+import androidx.annotation.RequiresApi;
+
+/**
+ * Drives an AR GLSurfaceView in RENDERMODE_WHEN_DIRTY at the rate FramePacer picks: the
+ * full camera rate while a clue is in range, a low-rate camera preview while the player
+ * walks towards one, and lower caps as the device heats up. Frames are requested from
+ * Choreographer vsyncs so the cadence stays even. Use on the main thread.
+ */
+public class RenderScheduler implements Choreographer.FrameCallback {
+    private static final String TAG = "RenderScheduler";
+
+    private final GLSurfaceView surfaceView;
+    private final PowerManager powerManager;
+    private final FramePacer pacer = new FramePacer(FramePacer.IDLE_FPS);
+    private boolean objectsInRange;
+    private int thermalStatus;
+    private int fps;
+    private boolean running;
+    private Object thermalListener; // PowerManager.OnThermalStatusChangedListener from API 29
+
+    public RenderScheduler(Context context, GLSurfaceView surfaceView) {
+        this.surfaceView = surfaceView;
+        this.powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        surfaceView.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
+        fps = FramePacer.IDLE_FPS;
+    }
+
+    /** Ramps to the full rate as soon as a clue enters range, and back down when none is left. */
+    public void setObjectsInRange(boolean inRange) {
+        objectsInRange = inRange;
+        updateRate();
+    }
+
+    public void onResume() {
+        if (running) return;
+        running = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && powerManager != null) {
+            thermalStatus = powerManager.getCurrentThermalStatus();
+            registerThermalListener();
+        }
+        updateRate();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    public void onPause() {
+        if (!running) return;
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && thermalListener != null) {
+            powerManager.removeThermalStatusListener((PowerManager.OnThermalStatusChangedListener) thermalListener);
+            thermalListener = null;
+        }
+    }
+
+    public int getFps() {
+        return fps;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) return;
+        if (pacer.shouldRender(frameTimeNanos)) surfaceView.requestRender();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void updateRate() {
+        int target = FramePacer.targetFps(objectsInRange, thermalStatus);
+        if (target == fps) return;
+        Log.d(TAG, "AR render rate " + fps + " -> " + target + " fps (in range: " + objectsInRange
+                + ", thermal status: " + thermalStatus + ")");
+        fps = target;
+        pacer.setFps(target);
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private void registerThermalListener() {
+        PowerManager.OnThermalStatusChangedListener listener = status -> {
+            thermalStatus = status;
+            updateRate();
+        };
+        // Called on the main thread
+        powerManager.addThermalStatusListener(listener);
+        thermalListener = listener;
+    }
+}
@@ -8,8 +8,6 @@ import android.util.Log;
 import com.google.ar.core.Frame;
 // Remove import com.google.ar.core.Session; as it's not directly used in this version of BackgroundRenderer
 import java.io.IOException; // ShaderUtil might throw this, but it's handled there
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
 public class BackgroundRenderer {
@@ -17,15 +15,15 @@ public class BackgroundRenderer {
 
     private static final int COORDS_PER_VERTEX = 2; // OpenGL NDC
     private static final int TEXCOORDS_PER_VERTEX = 2;
-    private static final int FLOAT_SIZE = 4; // Bytes per float
 
-    private FloatBuffer quadCoords; // Buffer for normalized device coordinates
-    private FloatBuffer quadTexCoords; // Buffer for texture coordinates
+    // CPU copies, only read and written by transformCoordinates2d when the display geometry changes
+    private FloatBuffer quadCoords; // Normalized device coordinates
+    private FloatBuffer quadTexCoords; // Texture coordinates
 
-    private int quadProgram; // OpenGL ES program handle
-
-    private int quadPositionAttrib; // Attribute location for vertex positions
-    private int quadTexCoordAttrib; // Attribute location for texture coordinates
+    private Mesh quadMesh; // GPU copies of the above
+    private VertexBuffer quadTexCoordBuffer;
+    private ShaderProgram quadProgram;
+    private int[] quadAttributes; // Position and texture coordinate locations, in mesh order
     private int textureId = -1; // GL texture ID for the camera image
 
     public BackgroundRenderer() {}
@@ -51,40 +49,18 @@ public class BackgroundRenderer {
             throw new RuntimeException("Unexpected number of vertices in BackgroundRenderer's NDC coordinates.");
         }
 
-        // Initialize vertex buffer for quad.
-        ByteBuffer bbCoords = ByteBuffer.allocateDirect(QUAD_COORDS_NDC.length * FLOAT_SIZE);
-        bbCoords.order(ByteOrder.nativeOrder());
-        quadCoords = bbCoords.asFloatBuffer();
-        quadCoords.put(QUAD_COORDS_NDC);
-        quadCoords.position(0);
-
-        // Initialize texture coordinates buffer.
-        // The size is dynamic based on device aspect ratio and display rotation,
-        // so it's updated in draw().
-        ByteBuffer bbTexCoords =
-            ByteBuffer.allocateDirect(numVertices * TEXCOORDS_PER_VERTEX * FLOAT_SIZE);
-        bbTexCoords.order(ByteOrder.nativeOrder());
-        quadTexCoords = bbTexCoords.asFloatBuffer();
-
-        // Load and compile shaders.
-        final String vertexShader = ShaderUtil.loadShader(context, "shaders/screenquad.vert");
-        final String fragmentShader = ShaderUtil.loadShader(context, "shaders/screenquad.frag");
-
-        if (vertexShader == null || fragmentShader == null) {
-            Log.e(TAG, "Failed to load shaders.");
-            throw new RuntimeException("Failed to load shaders for BackgroundRenderer.");
-        }
-
-        quadProgram = GLES20.glCreateProgram();
-        GLES20.glAttachShader(quadProgram, ShaderUtil.compileShader(GLES20.GL_VERTEX_SHADER, vertexShader));
-        GLES20.glAttachShader(quadProgram, ShaderUtil.compileShader(GLES20.GL_FRAGMENT_SHADER, fragmentShader));
-        GLES20.glLinkProgram(quadProgram);
-        GLES20.glUseProgram(quadProgram); // Should be done before glGetAttribLocation
+        quadCoords = VertexBuffer.toFloatBuffer(QUAD_COORDS_NDC);
+        // Texture coordinates depend on the aspect ratio and display rotation, so they are
+        // filled in by draw() whenever the display geometry changes.
+        quadTexCoords = VertexBuffer.toFloatBuffer(new float[numVertices * TEXCOORDS_PER_VERTEX]);
+        quadTexCoordBuffer = new VertexBuffer(TEXCOORDS_PER_VERTEX, numVertices);
+        quadMesh = new Mesh(GLES20.GL_TRIANGLE_STRIP, null,
+            new VertexBuffer(COORDS_PER_VERTEX, QUAD_COORDS_NDC), quadTexCoordBuffer);
 
-        quadPositionAttrib = GLES20.glGetAttribLocation(quadProgram, "a_Position");
-        quadTexCoordAttrib = GLES20.glGetAttribLocation(quadProgram, "a_TexCoord");
+        quadProgram = ShaderUtil.getProgram(context, "shaders/screenquad.vert", "shaders/screenquad.frag");
+        quadAttributes = new int[] {quadProgram.attribute("a_Position"), quadProgram.attribute("a_TexCoord")};
         // Check for errors:
-        if (quadPositionAttrib == -1 || quadTexCoordAttrib == -1) {
+        if (quadAttributes[0] == -1 || quadAttributes[1] == -1) {
              Log.e(TAG, "Could not get attribute locations for screen quad shader.");
         }
     }
@@ -102,6 +78,7 @@ public class BackgroundRenderer {
                 quadCoords, // Use the static NDC quadCoords as input
                 com.google.ar.core.Coordinates2d.TEXTURE_NORMALIZED,
                 quadTexCoords); // Output transformed texture coordinates
+            quadTexCoordBuffer.set(quadTexCoords);
         }
 
         // ARCore frame timestamp is 0 when there is no new frame data.
@@ -115,23 +92,12 @@ public class BackgroundRenderer {
         GLES20.glDepthMask(false);
 
         GLES20.glBindTexture(GLES11Ext.GL_TEXTURE_EXTERNAL_OES, textureId);
-        GLES20.glUseProgram(quadProgram);
-
-        // Set shader uniforms and attributes.
-        GLES20.glVertexAttribPointer(
-            quadPositionAttrib, COORDS_PER_VERTEX, GLES20.GL_FLOAT, false, 0, quadCoords);
-        GLES20.glVertexAttribPointer(
-            quadTexCoordAttrib, TEXCOORDS_PER_VERTEX, GLES20.GL_FLOAT, false, 0, quadTexCoords);
-
-        GLES20.glEnableVertexAttribArray(quadPositionAttrib);
-        GLES20.glEnableVertexAttribArray(quadTexCoordAttrib);
+        quadProgram.use();
 
         // Draw the quad.
-        GLES20.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+        quadMesh.draw(quadAttributes);
 
         // Clean up GL state.
-        GLES20.glDisableVertexAttribArray(quadPositionAttrib);
-        GLES20.glDisableVertexAttribArray(quadTexCoordAttrib);
         GLES20.glDepthMask(true); // Re-enable depth write
         GLES20.glEnable(GLES20.GL_DEPTH_TEST); // Re-enable depth test
     }
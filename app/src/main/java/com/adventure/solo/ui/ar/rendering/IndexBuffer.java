@@ -0,0 +1,41 @@
+package com.adventure.solo.ui.ar.rendering;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+/** Unsigned short indices uploaded once into a GPU buffer object. Create and use on the GL thread. */
+public class IndexBuffer {
+    private static final int BYTES_PER_SHORT = 2;
+
+    private final int bufferId;
+    private final int count;
+
+    public IndexBuffer(short[] indices) {
+        count = indices.length;
+        ShortBuffer data = ByteBuffer.allocateDirect(count * BYTES_PER_SHORT)
+                .order(ByteOrder.nativeOrder()).asShortBuffer();
+        data.put(indices).position(0);
+
+        int[] ids = new int[1];
+        GLES20.glGenBuffers(1, ids, 0);
+        bufferId = ids[0];
+        GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, bufferId);
+        GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, count * BYTES_PER_SHORT, data, GLES20.GL_STATIC_DRAW);
+        GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+
+    int getBufferId() {
+        return bufferId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void release() {
+        GLES20.glDeleteBuffers(1, new int[] {bufferId}, 0);
+    }
+}
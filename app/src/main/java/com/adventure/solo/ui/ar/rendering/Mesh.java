@@ -0,0 +1,73 @@
+package com.adventure.solo.ui.ar.rendering;
+
+import android.opengl.GLES20;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Geometry that lives on the GPU: one VertexBuffer per attribute, optionally indexed.
+ * Drawing binds buffer objects and issues the draw call, so nothing is copied from the
+ * Java heap per frame.
+ * <p>
+ * Several objects sharing a mesh can bind it once, call drawBound() for each of them with
+ * their own uniforms, and unbind at the end. Use on the GL thread.
+ */
+public class Mesh {
+    private final int primitive;
+    @Nullable private final IndexBuffer indexBuffer;
+    private final VertexBuffer[] vertexBuffers;
+
+    /**
+     * @param primitive     GL_TRIANGLES, GL_TRIANGLE_STRIP, ...
+     * @param vertexBuffers one buffer per attribute, in the order draw() receives their locations.
+     */
+    public Mesh(int primitive, @Nullable IndexBuffer indexBuffer, VertexBuffer... vertexBuffers) {
+        if (vertexBuffers.length == 0) throw new IllegalArgumentException("A mesh needs vertices");
+        this.primitive = primitive;
+        this.indexBuffer = indexBuffer;
+        this.vertexBuffers = vertexBuffers;
+    }
+
+    /** Binds, draws and unbinds. attributeLocations[i] receives vertexBuffers[i]; -1 skips it. */
+    public void draw(int[] attributeLocations) {
+        bind(attributeLocations);
+        drawBound();
+        unbind(attributeLocations);
+    }
+
+    public void bind(int[] attributeLocations) {
+        for (int i = 0; i < vertexBuffers.length; i++) {
+            int location = attributeLocations[i];
+            if (location < 0) continue;
+            VertexBuffer buffer = vertexBuffers[i];
+            GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffer.getBufferId());
+            GLES20.glVertexAttribPointer(location, buffer.getComponents(), GLES20.GL_FLOAT, false, 0, 0);
+            GLES20.glEnableVertexAttribArray(location);
+        }
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        if (indexBuffer != null) {
+            GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, indexBuffer.getBufferId());
+        }
+    }
+
+    /** Issues the draw call for a mesh bound with bind(). */
+    public void drawBound() {
+        if (indexBuffer != null) {
+            GLES20.glDrawElements(primitive, indexBuffer.getCount(), GLES20.GL_UNSIGNED_SHORT, 0);
+        } else {
+            GLES20.glDrawArrays(primitive, 0, vertexBuffers[0].getVertexCount());
+        }
+    }
+
+    public void unbind(int[] attributeLocations) {
+        for (int i = 0; i < vertexBuffers.length; i++) {
+            if (attributeLocations[i] >= 0) GLES20.glDisableVertexAttribArray(attributeLocations[i]);
+        }
+        if (indexBuffer != null) GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+
+    public void release() {
+        if (indexBuffer != null) indexBuffer.release();
+        for (VertexBuffer buffer : vertexBuffers) buffer.release();
+    }
+}
@@ -0,0 +1,61 @@
+package com.adventure.solo.ui.ar.rendering;
+
+import android.content.Context;
+import android.opengl.GLES20;
+import android.opengl.Matrix;
+
+import com.adventure.solo.ui.ar.scene.ArNode;
+import com.adventure.solo.ui.ar.scene.ArScene;
+
+import java.util.List;
+
+/**
+ * Draws the batches of an ArScene. Each level of detail binds its mesh once and then only
+ * sets a matrix uniform and issues a draw call per object, so adding clues adds draw calls
+ * but no state changes or buffer uploads. Create and use on the GL thread.
+ */
+public class SceneRenderer {
+    // Gold
+    private static final float[] CLUE_COLOR = {1.0f, 0.843f, 0.0f, 1.0f};
+
+    private final Mesh[] lodMeshes = new Mesh[ArScene.LOD_COUNT];
+    private final ShaderProgram program;
+    private final int[] attributeLocations;
+    private final int mvpMatrixUniform;
+    private final int colorUniform;
+    private final float[] mvpMatrix = new float[16];
+
+    public SceneRenderer(Context context) {
+        lodMeshes[ArScene.LOD_NEAR] = Shapes.cube();
+        lodMeshes[ArScene.LOD_FAR] = Shapes.octahedron();
+        program = ShaderUtil.getProgram(context, "shaders/cube.vert", "shaders/cube.frag");
+        attributeLocations = new int[] {program.attribute("a_Position")};
+        mvpMatrixUniform = program.uniform("u_MvpMatrix");
+        colorUniform = program.uniform("u_Color");
+    }
+
+    /** Draws what the scene's last cull() kept. */
+    public void draw(ArScene scene, float[] viewProjectionMatrix) {
+        program.use();
+        GLES20.glUniform4fv(colorUniform, 1, CLUE_COLOR, 0);
+        for (int lod = 0; lod < ArScene.LOD_COUNT; lod++) {
+            List<ArNode> batch = scene.batch(lod);
+            if (batch.isEmpty()) continue;
+            Mesh mesh = lodMeshes[lod];
+            mesh.bind(attributeLocations);
+            for (int i = 0; i < batch.size(); i++) {
+                ArNode node = batch.get(i);
+                // Objects are unrotated and unit-sized, so the model matrix is a translation
+                System.arraycopy(viewProjectionMatrix, 0, mvpMatrix, 0, 16);
+                Matrix.translateM(mvpMatrix, 0, node.getX(), node.getY(), node.getZ());
+                GLES20.glUniformMatrix4fv(mvpMatrixUniform, 1, false, mvpMatrix, 0);
+                mesh.drawBound();
+            }
+            mesh.unbind(attributeLocations);
+        }
+    }
+
+    public void release() {
+        for (Mesh mesh : lodMeshes) mesh.release();
+    }
+}
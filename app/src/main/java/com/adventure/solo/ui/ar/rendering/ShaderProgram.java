@@ -0,0 +1,82 @@
+package com.adventure.solo.ui.ar.rendering;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A linked GL program with its attribute and uniform locations read once at link time, so
+ * draw calls never query the driver for them. Obtain instances through
+ * ShaderUtil.getProgram, which shares them between renderers.
+ */
+public class ShaderProgram {
+    private static final String TAG = ShaderProgram.class.getSimpleName();
+
+    private final int handle;
+    private final Map<String, Integer> attributes = new HashMap<>();
+    private final Map<String, Integer> uniforms = new HashMap<>();
+
+    ShaderProgram(int vertexShader, int fragmentShader) {
+        handle = GLES20.glCreateProgram();
+        GLES20.glAttachShader(handle, vertexShader);
+        GLES20.glAttachShader(handle, fragmentShader);
+        GLES20.glLinkProgram(handle);
+        // The program keeps the compiled code; the shader objects are no longer needed
+        GLES20.glDeleteShader(vertexShader);
+        GLES20.glDeleteShader(fragmentShader);
+
+        final int[] status = new int[1];
+        GLES20.glGetProgramiv(handle, GLES20.GL_LINK_STATUS, status, 0);
+        if (status[0] == 0) {
+            String log = GLES20.glGetProgramInfoLog(handle);
+            GLES20.glDeleteProgram(handle);
+            throw new RuntimeException("Error linking GL program: " + log);
+        }
+
+        final int[] count = new int[1];
+        final int[] size = new int[1];
+        final int[] type = new int[1];
+        GLES20.glGetProgramiv(handle, GLES20.GL_ACTIVE_ATTRIBUTES, count, 0);
+        for (int i = 0; i < count[0]; i++) {
+            String name = GLES20.glGetActiveAttrib(handle, i, size, 0, type, 0);
+            attributes.put(name, GLES20.glGetAttribLocation(handle, name));
+        }
+        GLES20.glGetProgramiv(handle, GLES20.GL_ACTIVE_UNIFORMS, count, 0);
+        for (int i = 0; i < count[0]; i++) {
+            String name = GLES20.glGetActiveUniform(handle, i, size, 0, type, 0);
+            // Arrays are reported as "name[0]"
+            if (name.endsWith("[0]")) name = name.substring(0, name.length() - 3);
+            uniforms.put(name, GLES20.glGetUniformLocation(handle, name));
+        }
+    }
+
+    public int getHandle() {
+        return handle;
+    }
+
+    public void use() {
+        GLES20.glUseProgram(handle);
+    }
+
+    /** Location of an attribute, or -1 if the shader does not use it. Look it up once, not per frame. */
+    public int attribute(String name) {
+        Integer location = attributes.get(name);
+        if (location == null) {
+            Log.w(TAG, "Program " + handle + " has no active attribute " + name);
+            return -1;
+        }
+        return location;
+    }
+
+    /** Location of a uniform, or -1 if the shader does not use it. Look it up once, not per frame. */
+    public int uniform(String name) {
+        Integer location = uniforms.get(name);
+        if (location == null) {
+            Log.w(TAG, "Program " + handle + " has no active uniform " + name);
+            return -1;
+        }
+        return location;
+    }
+}
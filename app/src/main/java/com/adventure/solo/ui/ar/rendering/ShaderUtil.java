@@ -8,10 +8,40 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets; // Specify charset
+import java.util.HashMap;
+import java.util.Map;
 
 public class ShaderUtil {
     private static final String TAG = ShaderUtil.class.getSimpleName();
 
+    // Linked programs by asset pair, valid for the current GL share group. Only touched on the GL thread.
+    private static final Map<String, ShaderProgram> programs = new HashMap<>();
+
+    /**
+     * The program for a vertex/fragment shader asset pair, compiled and linked on first use
+     * and shared by every renderer afterwards. Call on the GL thread.
+     */
+    public static ShaderProgram getProgram(Context context, String vertexShaderFile, String fragmentShaderFile) {
+        String key = vertexShaderFile + "|" + fragmentShaderFile;
+        ShaderProgram program = programs.get(key);
+        if (program == null) {
+            String vertexShader = loadShader(context, vertexShaderFile);
+            String fragmentShader = loadShader(context, fragmentShaderFile);
+            program = new ShaderProgram(compileShader(GLES20.GL_VERTEX_SHADER, vertexShader),
+                    compileShader(GLES20.GL_FRAGMENT_SHADER, fragmentShader));
+            programs.put(key, program);
+        }
+        return program;
+    }
+
+    /**
+     * Forgets the cached programs. Call when a context starts a new share group: its
+     * predecessor's handles are already gone, so there is nothing to delete.
+     */
+    public static void onContextCreated() {
+        programs.clear();
+    }
+
     public static String loadShader(Context context, String shaderFileName) {
         StringBuilder shaderSource = new StringBuilder();
         try {
@@ -0,0 +1,47 @@
+package com.adventure.solo.ui.ar.rendering;
+
+import android.opengl.GLES20;
+
+/** Unit-sized meshes centred on the origin, one per level of detail. Create on the GL thread. */
+public final class Shapes {
+    private static final int COORDS_PER_VERTEX = 3;
+
+    private static final float[] CUBE_COORDS = {
+        -0.5f, -0.5f,  0.5f,   0.5f, -0.5f,  0.5f,   0.5f,  0.5f,  0.5f,  -0.5f,  0.5f,  0.5f, // Front corners
+        -0.5f, -0.5f, -0.5f,   0.5f, -0.5f, -0.5f,   0.5f,  0.5f, -0.5f,  -0.5f,  0.5f, -0.5f  // Back corners
+    };
+
+    private static final short[] CUBE_INDICES = {
+        0, 1, 2,   0, 2, 3,    // Front face
+        5, 4, 7,   5, 7, 6,    // Back face
+        3, 2, 6,   3, 6, 7,    // Top face
+        4, 5, 1,   4, 1, 0,    // Bottom face
+        1, 5, 6,   1, 6, 2,    // Right face
+        4, 0, 3,   4, 3, 7     // Left face
+    };
+
+    private static final float[] OCTAHEDRON_COORDS = {
+         0.0f,  0.5f,  0.0f,   0.0f, -0.5f,  0.0f, // Top, bottom
+        -0.5f,  0.0f,  0.0f,   0.5f,  0.0f,  0.0f, // Left, right
+         0.0f,  0.0f,  0.5f,   0.0f,  0.0f, -0.5f  // Front, back
+    };
+
+    private static final short[] OCTAHEDRON_INDICES = {
+        0, 4, 3,   0, 3, 5,   0, 5, 2,   0, 2, 4, // Upper half
+        1, 3, 4,   1, 5, 3,   1, 2, 5,   1, 4, 2  // Lower half
+    };
+
+    private Shapes() {}
+
+    /** 12 triangles. */
+    public static Mesh cube() {
+        return new Mesh(GLES20.GL_TRIANGLES, new IndexBuffer(CUBE_INDICES),
+                new VertexBuffer(COORDS_PER_VERTEX, CUBE_COORDS));
+    }
+
+    /** 8 triangles, for objects far enough away that the cube's corners are not visible. */
+    public static Mesh octahedron() {
+        return new Mesh(GLES20.GL_TRIANGLES, new IndexBuffer(OCTAHEDRON_INDICES),
+                new VertexBuffer(COORDS_PER_VERTEX, OCTAHEDRON_COORDS));
+    }
+}
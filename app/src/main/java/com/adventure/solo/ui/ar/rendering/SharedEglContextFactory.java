@@ -0,0 +1,79 @@
+package com.adventure.solo.ui.ar.rendering;
+
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import javax.microedition.khronos.egl.EGL10;
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.egl.EGLContext;
+import javax.microedition.khronos.egl.EGLDisplay;
+
+/**
+ * Creates every GLSurfaceView context in one share group, kept alive by a root context that
+ * is never made current. Programs, buffers and textures created by one AR view are still
+ * valid in the next one, so a new view skips compiling shaders and uploading meshes.
+ * <p>
+ * getShareGroup() changes whenever a context is created outside the previous group, which
+ * tells SharedGlResources that its objects are gone.
+ */
+public class SharedEglContextFactory implements GLSurfaceView.EGLContextFactory {
+    private static final String TAG = SharedEglContextFactory.class.getSimpleName();
+    private static final int EGL_CONTEXT_CLIENT_VERSION = 0x3098;
+    private static final int[] CONTEXT_ATTRIBUTES = {EGL_CONTEXT_CLIENT_VERSION, 2, EGL10.EGL_NONE};
+
+    private EGL10 egl;
+    private EGLDisplay display;
+    private EGLContext root;
+    private int shareGroup;
+
+    @Override
+    public synchronized EGLContext createContext(EGL10 egl, EGLDisplay display, EGLConfig config) {
+        if (root == null) {
+            // Our own reference to the display: Android reference-counts eglTerminate, so
+            // GLSurfaceView terminating it on detach leaves the root context alone
+            if (egl.eglInitialize(display, new int[2])) {
+                root = egl.eglCreateContext(display, config, EGL10.EGL_NO_CONTEXT, CONTEXT_ATTRIBUTES);
+                if (root == null || root == EGL10.EGL_NO_CONTEXT) {
+                    Log.w(TAG, "Could not create root context, error 0x" + Integer.toHexString(egl.eglGetError()));
+                    egl.eglTerminate(display);
+                    root = null;
+                } else {
+                    this.egl = egl;
+                    this.display = display;
+                }
+            }
+            shareGroup++;
+        }
+        if (root == null) {
+            // Unshared; nothing survives this context
+            shareGroup++;
+            return egl.eglCreateContext(display, config, EGL10.EGL_NO_CONTEXT, CONTEXT_ATTRIBUTES);
+        }
+        return egl.eglCreateContext(display, config, root, CONTEXT_ATTRIBUTES);
+    }
+
+    @Override
+    public synchronized void destroyContext(EGL10 egl, EGLDisplay display, EGLContext context) {
+        if (!egl.eglDestroyContext(display, context)) {
+            Log.e(TAG, "eglDestroyContext failed, error 0x" + Integer.toHexString(egl.eglGetError()));
+        }
+    }
+
+    /** Identifies the share group of the contexts created last. */
+    public synchronized int getShareGroup() {
+        return shareGroup;
+    }
+
+    /**
+     * Destroys the root context, and with it every object no live context still shares.
+     * Call once no view is rendering with this factory; the next context starts a new group.
+     */
+    public synchronized void release() {
+        if (root == null) return;
+        egl.eglDestroyContext(display, root);
+        egl.eglTerminate(display);
+        root = null;
+        egl = null;
+        display = null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.adventure.solo.ui.ar.rendering;
+
+import android.content.Context;
+
+/**
+ * The AR renderers whose GL objects live in a SharedEglContextFactory share group, created
+ * once per group instead of once per view. Only one view may render with them at a time.
+ * Use on the GL thread.
+ */
+public class SharedGlResources {
+    private final SharedEglContextFactory contextFactory;
+    private int shareGroup = -1; // Group the renderers below were created in
+    private BackgroundRenderer backgroundRenderer;
+    private SceneRenderer sceneRenderer;
+
+    public SharedGlResources(SharedEglContextFactory contextFactory) {
+        this.contextFactory = contextFactory;
+    }
+
+    /**
+     * Call from onSurfaceCreated. Recreates the renderers only if the new context is not in
+     * the group they were created in.
+     *
+     * @return whether the renderers were recreated.
+     */
+    public synchronized boolean onSurfaceCreated(Context context) {
+        int current = contextFactory.getShareGroup();
+        if (current == shareGroup) return false;
+        // A new group holds none of the old objects, so there is nothing to delete
+        ShaderUtil.onContextCreated();
+        backgroundRenderer = new BackgroundRenderer();
+        backgroundRenderer.createOnGlThread(context);
+        sceneRenderer = new SceneRenderer(context);
+        shareGroup = current;
+        return true;
+    }
+
+    public synchronized BackgroundRenderer getBackgroundRenderer() {
+        return backgroundRenderer;
+    }
+
+    public synchronized SceneRenderer getSceneRenderer() {
+        return sceneRenderer;
+    }
+}
@@ -0,0 +1,72 @@
+package com.adventure.solo.ui.ar.rendering;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/** One float vertex attribute stored in a GPU buffer object. Create and use on the GL thread. */
+public class VertexBuffer {
+    private static final int BYTES_PER_FLOAT = 4;
+
+    private final int bufferId;
+    private final int components;
+    private final int vertexCount;
+
+    /** A static buffer uploaded once from data. */
+    public VertexBuffer(int components, float[] data) {
+        this(components, data.length / components, GLES20.GL_STATIC_DRAW);
+        set(toFloatBuffer(data));
+    }
+
+    /** An empty buffer for vertexCount vertices whose contents change through set(). */
+    public VertexBuffer(int components, int vertexCount) {
+        this(components, vertexCount, GLES20.GL_DYNAMIC_DRAW);
+    }
+
+    private VertexBuffer(int components, int vertexCount, int usage) {
+        this.components = components;
+        this.vertexCount = vertexCount;
+        int[] ids = new int[1];
+        GLES20.glGenBuffers(1, ids, 0);
+        bufferId = ids[0];
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferId);
+        GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, vertexCount * components * BYTES_PER_FLOAT, null, usage);
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+    }
+
+    /** Replaces the contents with data, read from position 0 and exactly vertexCount vertices long. */
+    public void set(FloatBuffer data) {
+        if (data.capacity() != vertexCount * components) {
+            throw new IllegalArgumentException("Expected " + vertexCount * components + " floats, got " + data.capacity());
+        }
+        data.position(0);
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferId);
+        GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, 0, data.capacity() * BYTES_PER_FLOAT, data);
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+    }
+
+    int getBufferId() {
+        return bufferId;
+    }
+
+    int getComponents() {
+        return components;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public void release() {
+        GLES20.glDeleteBuffers(1, new int[] {bufferId}, 0);
+    }
+
+    static FloatBuffer toFloatBuffer(float[] data) {
+        FloatBuffer buffer = ByteBuffer.allocateDirect(data.length * BYTES_PER_FLOAT)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        buffer.put(data).position(0);
+        return buffer;
+    }
+}
@@ -0,0 +1,46 @@
+package com.adventure.solo.ui.ar.scene;
+
+/** A collectable object in the AR scene, anchored to the geo position of its clue. */
+public final class ArNode {
+    public final long clueId;
+    public final double latitude;
+    public final double longitude;
+    public final int rewardPoints;
+
+    // Inside the clue's proximity fence, so it may be drawn
+    boolean inRange;
+    boolean collected;
+    // ARCore world position, valid once the scene has a geo origin
+    final float[] position = new float[3];
+    boolean placed;
+    // Distance to the camera and level of detail, from the last cull
+    float distance;
+    int lod;
+
+    public ArNode(long clueId, double latitude, double longitude, int rewardPoints) {
+        this.clueId = clueId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.rewardPoints = rewardPoints;
+    }
+
+    public boolean isCollected() {
+        return collected;
+    }
+
+    public float getX() {
+        return position[0];
+    }
+
+    public float getY() {
+        return position[1];
+    }
+
+    public float getZ() {
+        return position[2];
+    }
+
+    public int getLod() {
+        return lod;
+    }
+}
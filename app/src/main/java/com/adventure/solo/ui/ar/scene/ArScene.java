@@ -0,0 +1,255 @@
+package com.adventure.solo.ui.ar.scene;
+
+import androidx.annotation.Nullable;
+
+import com.adventure.solo.geo.GeoMath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The clue objects shown in the AR view, placed in ARCore's world from their geo offset to
+ * the device.
+ * <p>
+ * ARCore's world has a gravity-aligned Y axis but an arbitrary heading, so placement needs
+ * two inputs: a geo origin, which is a location fix paired with where the camera was in the
+ * world when the fix arrived, and the world bearing of true north. Between fixes ARCore's
+ * own tracking keeps the objects still while the player walks.
+ * <p>
+ * Every frame, cull() drops objects that are out of range, collected or outside the view
+ * frustum, and sorts the rest into one batch per level of detail. The renderer can then
+ * bind each mesh once per frame, however many clues are nearby. pick() hit-tests what the
+ * last cull kept. Confined to the GL thread.
+ */
+public final class ArScene {
+    public static final int LOD_NEAR = 0;
+    public static final int LOD_FAR = 1;
+    public static final int LOD_COUNT = 2;
+    // Closer than this an object gets its detailed mesh
+    static final float NEAR_LOD_METERS = 8f;
+    // Every LOD fits in an axis-aligned unit cube around the object's position
+    public static final float OBJECT_HALF_SIZE_METERS = 0.5f;
+    // Bounding sphere of that cube
+    public static final float OBJECT_RADIUS_METERS = 0.87f;
+    // Objects float at about waist height for a phone held in front of the face
+    static final float HEIGHT_BELOW_CAMERA_METERS = 0.5f;
+
+    private static final Comparator<ArNode> NEAREST_FIRST = (a, b) -> Float.compare(a.distance, b.distance);
+
+    private final List<ArNode> nodes = new ArrayList<>();
+    private final Map<Long, ArNode> nodesById = new HashMap<>();
+    private final Frustum frustum = new Frustum();
+    private final List<List<ArNode>> batches = new ArrayList<>(LOD_COUNT);
+
+    private boolean hasOrigin;
+    private double originLatitude;
+    private double originLongitude;
+    private final float[] originPosition = new float[3];
+    private boolean hasNorth;
+    private float northBearing;
+
+    public ArScene() {
+        for (int i = 0; i < LOD_COUNT; i++) batches.add(new ArrayList<>());
+    }
+
+    public void add(ArNode node) {
+        if (nodesById.put(node.clueId, node) != null) {
+            nodes.remove(findIndex(node.clueId));
+        }
+        nodes.add(node);
+        if (hasOrigin && hasNorth) place(node);
+    }
+
+    @Nullable
+    public ArNode get(long clueId) {
+        return nodesById.get(clueId);
+    }
+
+    public void setInRange(long clueId, boolean inRange) {
+        ArNode node = nodesById.get(clueId);
+        if (node != null) node.inRange = inRange;
+    }
+
+    public void setCollected(long clueId) {
+        ArNode node = nodesById.get(clueId);
+        if (node != null) node.collected = true;
+    }
+
+    public boolean hasUncollected() {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (!nodes.get(i).collected) return true;
+        }
+        return false;
+    }
+
+    /** Anchors the scene: the device was at latitude/longitude while the camera was at x, y, z. */
+    public void setOrigin(double latitude, double longitude, float x, float y, float z) {
+        originLatitude = latitude;
+        originLongitude = longitude;
+        originPosition[0] = x;
+        originPosition[1] = y;
+        originPosition[2] = z;
+        hasOrigin = true;
+        placeAll();
+    }
+
+    /** World bearing of true north in radians, clockwise from -Z seen from above. */
+    public void setNorthBearing(float radians) {
+        northBearing = radians;
+        hasNorth = true;
+        placeAll();
+    }
+
+    public boolean isPlaced() {
+        return hasOrigin && hasNorth;
+    }
+
+    private void placeAll() {
+        if (!isPlaced()) return;
+        for (int i = 0; i < nodes.size(); i++) place(nodes.get(i));
+    }
+
+    private void place(ArNode node) {
+        double north = (node.latitude - originLatitude) * GeoMath.METERS_PER_DEGREE_LAT;
+        double east = GeoMath.normalizeLongitude(node.longitude - originLongitude)
+                * GeoMath.METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(originLatitude));
+        // North is (sin b, -cos b) in the world's XZ plane and east is 90 degrees clockwise of it
+        double sin = Math.sin(northBearing), cos = Math.cos(northBearing);
+        node.position[0] = originPosition[0] + (float) (north * sin + east * cos);
+        node.position[1] = originPosition[1] - HEIGHT_BELOW_CAMERA_METERS;
+        node.position[2] = originPosition[2] + (float) (-north * cos + east * sin);
+        node.placed = true;
+    }
+
+    /**
+     * Rebuilds the per-LOD batches for this frame, nearest first so the depth test rejects
+     * as many hidden fragments as possible.
+     *
+     * @return the number of objects to draw.
+     */
+    public int cull(float[] viewProjection, float cameraX, float cameraY, float cameraZ) {
+        frustum.set(viewProjection);
+        for (int i = 0; i < LOD_COUNT; i++) batches.get(i).clear();
+        int visible = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            ArNode node = nodes.get(i);
+            if (!node.placed || !node.inRange || node.collected) continue;
+            float dx = node.position[0] - cameraX;
+            float dy = node.position[1] - cameraY;
+            float dz = node.position[2] - cameraZ;
+            node.distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (!frustum.intersectsSphere(node.position[0], node.position[1], node.position[2], OBJECT_RADIUS_METERS)) {
+                continue;
+            }
+            node.lod = node.distance < NEAR_LOD_METERS ? LOD_NEAR : LOD_FAR;
+            batches.get(node.lod).add(node);
+            visible++;
+        }
+        for (int i = 0; i < LOD_COUNT; i++) Collections.sort(batches.get(i), NEAREST_FIRST);
+        return visible;
+    }
+
+    /** Objects drawn with the given LOD in the last cull, nearest first. */
+    public List<ArNode> batch(int lod) {
+        return batches.get(lod);
+    }
+
+    /** The nearest object drawn in the last cull, or null if nothing is on screen. */
+    @Nullable
+    public ArNode nearestDrawn() {
+        ArNode nearest = null;
+        for (int i = 0; i < LOD_COUNT; i++) {
+            List<ArNode> batch = batches.get(i);
+            if (!batch.isEmpty() && (nearest == null || batch.get(0).distance < nearest.distance)) {
+                nearest = batch.get(0);
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * The nearest object drawn in the last cull whose bounding box the ray hits, or null.
+     * The direction does not need to be normalized.
+     */
+    @Nullable
+    public ArNode pick(float originX, float originY, float originZ, float directionX, float directionY, float directionZ) {
+        // Slab test; an axis-parallel ray divides by zero into infinities, which compare correctly
+        float inverseX = 1 / directionX, inverseY = 1 / directionY, inverseZ = 1 / directionZ;
+        ArNode hit = null;
+        float hitDistance = Float.POSITIVE_INFINITY;
+        for (int lod = 0; lod < LOD_COUNT; lod++) {
+            List<ArNode> batch = batches.get(lod);
+            for (int i = 0; i < batch.size(); i++) {
+                ArNode node = batch.get(i);
+                float[] p = node.position;
+                float t1 = (p[0] - OBJECT_HALF_SIZE_METERS - originX) * inverseX;
+                float t2 = (p[0] + OBJECT_HALF_SIZE_METERS - originX) * inverseX;
+                float near = Math.min(t1, t2), far = Math.max(t1, t2);
+                t1 = (p[1] - OBJECT_HALF_SIZE_METERS - originY) * inverseY;
+                t2 = (p[1] + OBJECT_HALF_SIZE_METERS - originY) * inverseY;
+                near = Math.max(near, Math.min(t1, t2));
+                far = Math.min(far, Math.max(t1, t2));
+                t1 = (p[2] - OBJECT_HALF_SIZE_METERS - originZ) * inverseZ;
+                t2 = (p[2] + OBJECT_HALF_SIZE_METERS - originZ) * inverseZ;
+                near = Math.max(near, Math.min(t1, t2));
+                far = Math.min(far, Math.max(t1, t2));
+                // A hit box lies ahead of the ray, or contains its origin
+                if (far >= Math.max(near, 0) && Math.max(near, 0) < hitDistance) {
+                    hit = node;
+                    hitDistance = Math.max(near, 0);
+                }
+            }
+        }
+        return hit;
+    }
+
+    /**
+     * The world-space ray through a point in normalized device coordinates, from the near
+     * to the far plane. Writes the origin to out[0..2] and the direction to out[3..5];
+     * scratch needs 8 floats. Allocation-free, so it can run every frame.
+     */
+    public static void screenRay(float[] inverseViewProjection, float ndcX, float ndcY, float[] scratch, float[] out) {
+        unproject(inverseViewProjection, ndcX, ndcY, -1, scratch, 0);
+        unproject(inverseViewProjection, ndcX, ndcY, 1, scratch, 4);
+        for (int i = 0; i < 3; i++) {
+            out[i] = scratch[i];
+            out[3 + i] = scratch[4 + i] - scratch[i];
+        }
+    }
+
+    // Multiplies (x, y, z, 1) by a column-major matrix and divides by w into out[offset..offset+2]
+    private static void unproject(float[] m, float x, float y, float z, float[] out, int offset) {
+        float w = m[3] * x + m[7] * y + m[11] * z + m[15];
+        out[offset] = (m[0] * x + m[4] * y + m[8] * z + m[12]) / w;
+        out[offset + 1] = (m[1] * x + m[5] * y + m[9] * z + m[13]) / w;
+        out[offset + 2] = (m[2] * x + m[6] * y + m[10] * z + m[14]) / w;
+    }
+
+    private int findIndex(long clueId) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i).clueId == clueId) return i;
+        }
+        return -1;
+    }
+
+    /** Camera position in the world from a column-major view matrix, written to out[0..2]. */
+    public static void cameraPosition(float[] viewMatrix, float[] out) {
+        float[] v = viewMatrix;
+        // The view matrix is [R | t] with the camera at -R^T t
+        out[0] = -(v[0] * v[12] + v[1] * v[13] + v[2] * v[14]);
+        out[1] = -(v[4] * v[12] + v[5] * v[13] + v[6] * v[14]);
+        out[2] = -(v[8] * v[12] + v[9] * v[13] + v[10] * v[14]);
+    }
+
+    /** World bearing the camera looks along, in radians clockwise from -Z seen from above. */
+    public static float cameraBearing(float[] viewMatrix) {
+        // The camera looks down its -Z axis, which is minus the third row of R in the world
+        float forwardX = -viewMatrix[2];
+        float forwardZ = -viewMatrix[10];
+        return (float) Math.atan2(forwardX, -forwardZ);
+    }
+}
@@ -0,0 +1,41 @@
+package com.adventure.solo.ui.ar.scene;
+
+/**
+ * The six clip planes of a view-projection matrix, for rejecting objects that cannot be on
+ * screen before any GL work is done for them. Reused from frame to frame; not thread-safe.
+ */
+public final class Frustum {
+    // a, b, c, d per plane, normals pointing inwards: left, right, bottom, top, near, far
+    private final float[] planes = new float[24];
+
+    /** Extracts the planes from a column-major view-projection matrix (Gribb/Hartmann). */
+    public void set(float[] viewProjection) {
+        float[] m = viewProjection;
+        for (int axis = 0; axis < 3; axis++) {
+            for (int side = 0; side < 2; side++) {
+                int p = (axis * 2 + side) * 4;
+                float sign = side == 0 ? 1 : -1;
+                // Row 3 plus or minus row "axis" of the matrix
+                float a = m[3] + sign * m[axis];
+                float b = m[7] + sign * m[4 + axis];
+                float c = m[11] + sign * m[8 + axis];
+                float d = m[15] + sign * m[12 + axis];
+                float length = (float) Math.sqrt(a * a + b * b + c * c);
+                planes[p] = a / length;
+                planes[p + 1] = b / length;
+                planes[p + 2] = c / length;
+                planes[p + 3] = d / length;
+            }
+        }
+    }
+
+    /** False only if the sphere lies entirely outside one of the planes. */
+    public boolean intersectsSphere(float x, float y, float z, float radius) {
+        for (int p = 0; p < planes.length; p += 4) {
+            if (planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3] < -radius) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
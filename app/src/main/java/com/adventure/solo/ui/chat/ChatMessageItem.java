@@ -0,0 +1,40 @@
+package com.adventure.solo.ui.chat;
+
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.Objects;
+
+// What one chat row shows, formatted once per message rather than on every bind
+public class ChatMessageItem {
+    public final long id; // Stable RecyclerView item id for messageId
+    public final String messageId;
+    public final boolean self;
+    public final String senderName;
+    public final String messageText;
+    public final String timeText;
+    public final boolean pending;
+    // The source values, to tell whether a later copy of the message needs reformatting
+    private final Object timestamp;
+
+    ChatMessageItem(long id, ChatMessage message, String currentUserId, DateFormat timeFormat, String sendingText) {
+        this.id = id;
+        this.messageId = message.messageId;
+        this.self = message.senderId != null && message.senderId.equals(currentUserId);
+        this.senderName = message.senderName != null ? message.senderName : "Unknown";
+        this.messageText = message.messageText != null ? message.messageText : "";
+        this.pending = message.pending;
+        this.timestamp = message.timestamp;
+        // A queued message can carry Firebase's local timestamp estimate before the server has it
+        this.timeText = !message.pending && message.timestamp instanceof Long
+                ? timeFormat.format(new Date((Long) message.timestamp)) : sendingText;
+    }
+
+    // Whether this item still shows the given copy of its message
+    boolean isFor(ChatMessage message) {
+        return pending == message.pending && Objects.equals(timestamp, message.timestamp)
+                && messageText.equals(message.messageText != null ? message.messageText : "")
+                && senderName.equals(message.senderName != null ? message.senderName : "Unknown");
+    }
+}
@@ -0,0 +1,49 @@
+package com.adventure.solo.ui.chat;
+
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a subscription's message list into rows, reusing the row of every message that has
+ * not changed since the previous list. A new message costs one timestamp format; the rest
+ * of the list is a map lookup each, and unchanged rows keep their identity for the diff.
+ * <p>
+ * Use on one thread; the DateFormat is not thread-safe.
+ */
+class ChatMessageItemMapper {
+    private final String currentUserId;
+    private final DateFormat timeFormat;
+    private final String sendingText; // Time text of a message not yet on the server
+    private Map<String, ChatMessageItem> items = new HashMap<>();
+    private long nextId;
+
+    ChatMessageItemMapper(String currentUserId, DateFormat timeFormat, String sendingText) {
+        this.currentUserId = currentUserId;
+        this.timeFormat = timeFormat;
+        this.sendingText = sendingText;
+    }
+
+    List<ChatMessageItem> map(List<ChatMessage> messages) {
+        List<ChatMessageItem> result = new ArrayList<>(messages.size());
+        Map<String, ChatMessageItem> current = new HashMap<>(messages.size() * 2);
+        for (ChatMessage message : messages) {
+            if (message.messageId == null) continue;
+            ChatMessageItem item = items.get(message.messageId);
+            if (item == null) {
+                item = new ChatMessageItem(nextId++, message, currentUserId, timeFormat, sendingText);
+            } else if (!item.isFor(message)) {
+                item = new ChatMessageItem(item.id, message, currentUserId, timeFormat, sendingText);
+            }
+            current.put(message.messageId, item);
+            result.add(item);
+        }
+        // Drops rows of messages that are gone
+        items = current;
+        return result;
+    }
+}
@@ -8,18 +8,17 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.adventure.solo.databinding.ActivityTeamChatBinding;
 import com.adventure.solo.model.PlayerProfile;
 import com.adventure.solo.model.firebase.ChatMessage;
+import com.adventure.solo.repository.ChatRepository;
+import com.adventure.solo.repository.ChatSubscription;
 import com.adventure.solo.repository.PlayerProfileRepository;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.ChildEventListener;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import dagger.hilt.android.AndroidEntryPoint;
+import java.util.List;
 import javax.inject.Inject;
 import android.util.Log;
 
@@ -31,16 +30,19 @@ public class TeamChatActivity extends AppCompatActivity {
 
     private ActivityTeamChatBinding binding;
     private ChatMessageAdapter adapter;
-    private DatabaseReference chatMessagesRef;
-    private ChildEventListener childEventListener;
+    private LinearLayoutManager layoutManager;
+    private ChatSubscription chatSubscription;
+    // Older history is fetched once the list is scrolled to within this many messages of its top
+    private static final int LOAD_OLDER_THRESHOLD = 10;
 
     private String teamIdFromIntent; // Store teamId passed via intent
+    private String teamId; // Resolved team whose chat is shown
     private FirebaseUser currentUser;
     private String currentUsername; // Display name for the current user
 
     @Inject PlayerProfileRepository playerProfileRepository;
+    @Inject ChatRepository chatRepository;
     @Inject FirebaseAuth firebaseAuth; // Injected via Hilt (FirebaseModule)
-    @Inject FirebaseDatabase firebaseDatabase; // Injected via Hilt (FirebaseModule)
 
 
     @Override
@@ -124,14 +126,21 @@ public class TeamChatActivity extends AppCompatActivity {
             finish();
             return;
         }
-        adapter = new ChatMessageAdapter(uidForAdapter);
-        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        adapter = new ChatMessageAdapter(this, uidForAdapter);
+        layoutManager = new LinearLayoutManager(this);
         layoutManager.setStackFromEnd(true); // New messages appear at the bottom and scroll
         binding.chatRecyclerView.setLayoutManager(layoutManager);
         binding.chatRecyclerView.setAdapter(adapter);
-
-        // Path: /chats/{teamId}/messages
-        chatMessagesRef = firebaseDatabase.getReference("chats").child(teamId).child("messages");
+        binding.chatRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Scrolling up towards the oldest loaded message fetches the page before it
+                if (dy < 0 && chatSubscription != null && chatSubscription.hasOlder()
+                        && layoutManager.findFirstVisibleItemPosition() <= LOAD_OLDER_THRESHOLD) {
+                    chatSubscription.loadOlder();
+                }
+            }
+        });
 
         binding.sendMessageButton.setOnClickListener(v -> sendMessage());
         listenForMessages();
@@ -154,66 +163,40 @@ public class TeamChatActivity extends AppCompatActivity {
 
         ChatMessage chatMessage = new ChatMessage(teamId, currentUser.getUid(), senderDisplayName, messageText);
 
-        // Firebase will generate a unique key for the message
-        DatabaseReference newMsgRef = chatMessagesRef.push();
-        chatMessage.messageId = newMsgRef.getKey(); // Store the generated key in the message object
-
-        newMsgRef.setValue(chatMessage)
-            .addOnSuccessListener(aVoid -> {
-                binding.messageEditText.setText("");
-                Log.d(TAG, "Message sent successfully: " + chatMessage.messageId);
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Failed to send message", e);
-                Toast.makeText(TeamChatActivity.this, "Failed to send message.", Toast.LENGTH_SHORT).show();
-            });
+        // Shows as sending right away and is retried until Firebase has it
+        chatRepository.sendMessage(chatMessage);
+        binding.messageEditText.setText("");
     }
 
     private void listenForMessages() {
-        if (chatMessagesRef == null) {
-            Log.e(TAG, "chatMessagesRef is null, cannot listen for messages.");
-            return;
+        if (chatSubscription != null) { // Close the previous subscription if any (e.g., if teamId changed)
+            chatSubscription.close();
         }
-        if (childEventListener != null) { // Remove previous listener if any (e.g., if teamId changed)
-             chatMessagesRef.removeEventListener(childEventListener);
-        }
-        childEventListener = new ChildEventListener() {
+        // Cached messages show first; older pages follow as the user scrolls up
+        chatSubscription = chatRepository.subscribe(teamId, new ChatRepository.ChatListener() {
             @Override
-            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
-                try {
-                    ChatMessage message = snapshot.getValue(ChatMessage.class);
-                    if (message != null) {
-                        message.messageId = snapshot.getKey();
-                        adapter.addMessage(message);
-                        binding.chatRecyclerView.scrollToPosition(adapter.getItemCount() - 1);
-                    } else {
-                        Log.w(TAG, "Received null message object from Firebase snapshot.");
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error deserializing chat message", e);
-                }
+            public void onMessages(List<ChatMessage> messages, boolean newAtEnd) {
+                if (binding == null) return;
+                // The list is diffed in the background; scroll once it is on screen
+                adapter.submitList(messages, newAtEnd ? () -> {
+                    if (binding != null) binding.chatRecyclerView.scrollToPosition(adapter.getItemCount() - 1);
+                } : null);
             }
 
-            @Override public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) { /* Handle edited messages if feature exists */ }
-            @Override public void onChildRemoved(@NonNull DataSnapshot snapshot) { /* Handle deleted messages if feature exists */ }
-            @Override public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) { /* Not typical for chat */ }
-
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Chat listener cancelled", error.toException());
-                Toast.makeText(TeamChatActivity.this, "Chat listener error: " + error.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String message) {
+                Toast.makeText(TeamChatActivity.this, "Chat listener error: " + message, Toast.LENGTH_SHORT).show();
             }
-        };
-        chatMessagesRef.addChildEventListener(childEventListener);
-        Log.d(TAG, "Attached chat message listener for team: " + teamId);
+        });
+        Log.d(TAG, "Subscribed to chat messages for team: " + teamId);
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "onDestroy: Removing chat listener.");
-        if (childEventListener != null && chatMessagesRef != null) {
-            chatMessagesRef.removeEventListener(childEventListener);
+        if (chatSubscription != null) {
+            chatSubscription.close();
         }
         binding = null; // For ViewBinding
     }
@@ -0,0 +1,71 @@
+package com.adventure.solo.ui.map;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Round count badges for cluster markers. Counts are bucketed into a handful of labels
+ * ("2".."9", "10+", "50+", ...), so only a few bitmaps are ever drawn however many
+ * clusters are on screen.
+ */
+public class ClusterIconCache {
+    private static final int[] THRESHOLDS = {1000, 500, 100, 50, 10};
+    private static final float BASE_DIAMETER_DP = 34;
+
+    private final Resources resources;
+    private final Map<String, Drawable> icons = new HashMap<>();
+    private final Paint fill = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint stroke = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint text = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    public ClusterIconCache(Resources resources) {
+        this.resources = resources;
+        fill.setColor(Color.argb(220, 33, 150, 243));
+        stroke.setStyle(Paint.Style.STROKE);
+        stroke.setColor(Color.WHITE);
+        text.setColor(Color.WHITE);
+        text.setFakeBoldText(true);
+        text.setTextAlign(Paint.Align.CENTER);
+    }
+
+    public static String label(int count) {
+        for (int threshold : THRESHOLDS) {
+            if (count >= threshold) return threshold >= 1000 ? (threshold / 1000) + "k+" : threshold + "+";
+        }
+        return String.valueOf(count);
+    }
+
+    public Drawable get(int count) {
+        String label = label(count);
+        Drawable icon = icons.get(label);
+        if (icon == null) {
+            icon = draw(label);
+            icons.put(label, icon);
+        }
+        return icon;
+    }
+
+    private Drawable draw(String label) {
+        float density = resources.getDisplayMetrics().density;
+        // Larger buckets get slightly larger badges
+        int size = Math.round((BASE_DIAMETER_DP + 4 * (label.length() - 1)) * density);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        float radius = size / 2f;
+        stroke.setStrokeWidth(2 * density);
+        canvas.drawCircle(radius, radius, radius - density, fill);
+        canvas.drawCircle(radius, radius, radius - density, stroke);
+        text.setTextSize(13 * density);
+        float baseline = radius - (text.descent() + text.ascent()) / 2f;
+        canvas.drawText(label, radius, baseline, text);
+        return new BitmapDrawable(resources, bitmap);
+    }
+}
@@ -0,0 +1,150 @@
+package com.adventure.solo.ui.map;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.DrawableRes;
+
+import com.adventure.solo.geo.GridClusterer;
+
+import org.osmdroid.events.DelayedMapListener;
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.Marker;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clustered markers for large item sets. Items are grouped per zoom level by a
+ * GridClusterer; on every pan or zoom (debounced) only the clusters inside the padded
+ * viewport are handed to a KeyedMarkerManager, so Marker objects exist for what is on
+ * screen and unchanged clusters keep their markers.
+ * <p>
+ * A lone item is drawn with the caller's binder and keyed by its own key; a group shows
+ * a count badge and zooms in when tapped. Must be used from the main thread.
+ */
+public class ClusteredMarkerOverlay<K, T> {
+    private static final long REFRESH_DELAY_MILLIS = 100;
+    private static final float CELL_SIZE_DP = 64;
+    // Markers slightly outside the screen are kept so short pans do not pop them in and out
+    private static final double VIEWPORT_PADDING = 0.25;
+    private static final int MAX_CLUSTER_ZOOM = 18;
+    private static final double TAP_ZOOM_STEP = 2;
+
+    private final MapView mapView;
+    private final KeyedMarkerManager.Binder<K, T> itemBinder;
+    private final GridClusterer<T> clusterer;
+    private final KeyedMarkerManager<Object, GridClusterer.Cluster<T>> markers;
+    private final ClusterIconCache clusterIcons;
+    private final List<GridClusterer.Cluster<T>> visible = new ArrayList<>();
+    private final GridClusterer.Locator<T> locator;
+    private boolean waitingForLayout;
+
+    private final DelayedMapListener mapListener = new DelayedMapListener(new MapListener() {
+        @Override
+        public boolean onScroll(ScrollEvent event) {
+            refresh();
+            return false;
+        }
+
+        @Override
+        public boolean onZoom(ZoomEvent event) {
+            refresh();
+            return false;
+        }
+    }, REFRESH_DELAY_MILLIS);
+
+    public ClusteredMarkerOverlay(MapView mapView, KeyedMarkerManager.Binder<K, T> itemBinder,
+                                  KeyedMarkerManager.OnItemClickListener<T> itemClickListener) {
+        this.mapView = mapView;
+        this.itemBinder = itemBinder;
+        this.locator = new GridClusterer.Locator<T>() {
+            @Override public double latitudeOf(T item) { return itemBinder.latitudeOf(item); }
+            @Override public double longitudeOf(T item) { return itemBinder.longitudeOf(item); }
+        };
+        float density = mapView.getResources().getDisplayMetrics().density;
+        this.clusterer = new GridClusterer<>(CELL_SIZE_DP * density, MAX_CLUSTER_ZOOM);
+        this.clusterIcons = new ClusterIconCache(mapView.getResources());
+        this.markers = new KeyedMarkerManager<>(mapView, new KeyedMarkerManager.Binder<Object, GridClusterer.Cluster<T>>() {
+            // Groups are keyed by the cached cluster itself, which is stable for a zoom level
+            @Override public Object keyOf(GridClusterer.Cluster<T> c) { return c.isSingle() ? itemBinder.keyOf(c.first) : c; }
+            @Override public double latitudeOf(GridClusterer.Cluster<T> c) { return c.latitude; }
+            @Override public double longitudeOf(GridClusterer.Cluster<T> c) { return c.longitude; }
+            @Override public Object styleKeyOf(GridClusterer.Cluster<T> c) {
+                return c.isSingle() ? itemBinder.styleKeyOf(c.first) : ClusterIconCache.label(c.count);
+            }
+            @Override public void style(Marker marker, GridClusterer.Cluster<T> c) {
+                if (c.isSingle()) {
+                    itemBinder.style(marker, c.first);
+                } else {
+                    marker.setIcon(clusterIcons.get(c.count));
+                    marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_CENTER);
+                    marker.setTitle(c.count + " items");
+                    marker.setSnippet(null);
+                }
+            }
+        }, (c, marker) -> {
+            if (c.isSingle()) {
+                if (itemClickListener != null) itemClickListener.onItemClick(c.first, marker);
+            } else {
+                mapView.getController().setZoom(Math.min(mapView.getMaxZoomLevel(), mapView.getZoomLevelDouble() + TAP_ZOOM_STEP));
+                mapView.getController().animateTo(new GeoPoint(c.latitude, c.longitude));
+            }
+        });
+        mapView.addMapListener(mapListener);
+    }
+
+    /** Replaces the items; clusters for every zoom level are rebuilt lazily. */
+    public void setItems(List<T> items) {
+        clusterer.setItems(items, locator);
+        refresh();
+    }
+
+    /** Re-filters the cached clusters against the current viewport and zoom. */
+    public void refresh() {
+        if (mapView.getWidth() == 0 || mapView.getHeight() == 0) {
+            // Not laid out yet, so the bounding box is meaningless
+            if (!waitingForLayout) {
+                waitingForLayout = true;
+                mapView.addOnFirstLayoutListener((v, left, top, right, bottom) -> {
+                    waitingForLayout = false;
+                    refresh();
+                });
+            }
+            return;
+        }
+        BoundingBox box = mapView.getBoundingBox();
+        double latPad = box.getLatitudeSpan() * VIEWPORT_PADDING;
+        double lonSpan = box.getLongitudeSpanWithDateLine();
+        double west, east;
+        if (lonSpan * (1 + 2 * VIEWPORT_PADDING) >= 360) {
+            west = -180;
+            east = 179.999999;
+        } else {
+            west = box.getLonWest() - lonSpan * VIEWPORT_PADDING;
+            east = box.getLonEast() + lonSpan * VIEWPORT_PADDING;
+        }
+        visible.clear();
+        clusterer.query((int) Math.round(mapView.getZoomLevelDouble()),
+                box.getLatSouth() - latPad, west, box.getLatNorth() + latPad, east, visible);
+        markers.submit(visible);
+    }
+
+    public void detach() {
+        mapView.removeMapListener(mapListener);
+        markers.detach();
+    }
+
+    public Overlay getOverlay() {
+        return markers.getOverlay();
+    }
+
+    public Drawable icon(@DrawableRes int resId) {
+        return markers.icon(resId);
+    }
+}
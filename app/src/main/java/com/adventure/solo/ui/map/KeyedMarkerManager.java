@@ -0,0 +1,201 @@
+package com.adventure.solo.ui.map;
+
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+
+import androidx.annotation.DrawableRes;
+
+import com.adventure.solo.image.BitmapCache;
+
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.FolderOverlay;
+import org.osmdroid.views.overlay.Marker;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps one osmdroid Marker per item key and reconciles it against each new item list,
+ * instead of removing and recreating every marker on each update.
+ * <p>
+ * submit() moves markers whose position changed, restyles only those whose style key
+ * changed, recycles markers for vanished keys into a small pool and invalidates the map
+ * once, and only if something actually changed. All markers live in a single
+ * FolderOverlay, so adds and removals do not scan the map's whole overlay list.
+ * Icons are rasterized once per drawable resource and shared between markers.
+ * <p>
+ * Must be used from the main thread.
+ */
+public class KeyedMarkerManager<K, T> {
+    private static final int MAX_POOLED_MARKERS = 32;
+
+    public interface Binder<K, T> {
+        K keyOf(T item);
+        double latitudeOf(T item);
+        double longitudeOf(T item);
+        // Markers are restyled only when this changes; equal keys must mean equal icon and text
+        Object styleKeyOf(T item);
+        void style(Marker marker, T item);
+    }
+
+    public interface OnItemClickListener<T> {
+        void onItemClick(T item, Marker marker);
+    }
+
+    private static class Entry<T> {
+        final Marker marker;
+        Object styleKey;
+        boolean styled;
+        double latitude;
+        double longitude;
+        T item;
+        int generation;
+
+        Entry(Marker marker) {
+            this.marker = marker;
+        }
+    }
+
+    private final MapView mapView;
+    private final Binder<K, T> binder;
+    private final FolderOverlay folder = new FolderOverlay();
+    private final Map<K, Entry<T>> live = new HashMap<>();
+    private final ArrayDeque<Marker> pool = new ArrayDeque<>();
+    private final SparseArray<Drawable> icons = new SparseArray<>();
+    private final Marker.OnMarkerClickListener markerClickListener;
+    private int generation;
+
+    public KeyedMarkerManager(MapView mapView, Binder<K, T> binder, OnItemClickListener<T> clickListener) {
+        this.mapView = mapView;
+        this.binder = binder;
+        this.markerClickListener = (marker, view) -> {
+            @SuppressWarnings("unchecked")
+            T item = (T) marker.getRelatedObject();
+            if (item != null && clickListener != null) clickListener.onItemClick(item, marker);
+            return true;
+        };
+        mapView.getOverlays().add(folder);
+    }
+
+    /** Reconciles the markers with items; keys missing from items are removed. */
+    public void submit(List<T> items) {
+        int current = ++generation;
+        boolean changed = false;
+        if (items != null) {
+            for (T item : items) {
+                K key = binder.keyOf(item);
+                Entry<T> entry = live.get(key);
+                if (entry == null) {
+                    entry = new Entry<>(obtainMarker());
+                    live.put(key, entry);
+                    folder.add(entry.marker);
+                    entry.latitude = Double.NaN;
+                    changed = true;
+                }
+                double lat = binder.latitudeOf(item);
+                double lon = binder.longitudeOf(item);
+                if (lat != entry.latitude || lon != entry.longitude) {
+                    entry.latitude = lat;
+                    entry.longitude = lon;
+                    entry.marker.setPosition(new GeoPoint(lat, lon));
+                    changed = true;
+                }
+                Object styleKey = binder.styleKeyOf(item);
+                if (!entry.styled || !Objects.equals(styleKey, entry.styleKey)) {
+                    binder.style(entry.marker, item);
+                    entry.styleKey = styleKey;
+                    entry.styled = true;
+                    changed = true;
+                }
+                entry.item = item;
+                entry.marker.setRelatedObject(item);
+                entry.generation = current;
+            }
+        }
+        Iterator<Entry<T>> it = live.values().iterator();
+        while (it.hasNext()) {
+            Entry<T> entry = it.next();
+            if (entry.generation != current) {
+                it.remove();
+                recycle(entry.marker);
+                changed = true;
+            }
+        }
+        if (changed) mapView.invalidate();
+    }
+
+    public boolean remove(K key) {
+        Entry<T> entry = live.remove(key);
+        if (entry == null) return false;
+        recycle(entry.marker);
+        mapView.invalidate();
+        return true;
+    }
+
+    public void clear() {
+        if (live.isEmpty()) return;
+        for (Entry<T> entry : live.values()) recycle(entry.marker);
+        live.clear();
+        mapView.invalidate();
+    }
+
+    /** Removes the folder from the map; the manager must not be used afterwards. */
+    public void detach() {
+        clear();
+        pool.clear();
+        mapView.getOverlays().remove(folder);
+    }
+
+    /** The single overlay holding every marker of this manager. */
+    public Overlay getOverlay() {
+        return folder;
+    }
+
+    public Marker getMarker(K key) {
+        Entry<T> entry = live.get(key);
+        return entry != null ? entry.marker : null;
+    }
+
+    public List<T> getItems() {
+        List<T> items = new ArrayList<>(live.size());
+        for (Entry<T> entry : live.values()) items.add(entry.item);
+        return items;
+    }
+
+    public int size() {
+        return live.size();
+    }
+
+    /** Shared icon for a drawable resource, rasterized once through the BitmapCache. */
+    public Drawable icon(@DrawableRes int resId) {
+        Drawable icon = icons.get(resId);
+        if (icon == null) {
+            icon = BitmapCache.getInstance(mapView.getContext()).getResourceDrawable(resId, 0, 0);
+            icons.put(resId, icon);
+        }
+        return icon;
+    }
+
+    private Marker obtainMarker() {
+        Marker marker = pool.poll();
+        if (marker == null) {
+            marker = new Marker(mapView);
+            marker.setOnMarkerClickListener(markerClickListener);
+        }
+        return marker;
+    }
+
+    private void recycle(Marker marker) {
+        marker.closeInfoWindow();
+        marker.setRelatedObject(null);
+        folder.remove(marker);
+        if (pool.size() < MAX_POOLED_MARKERS) pool.push(marker);
+    }
+}
@@ -16,9 +16,12 @@ import androidx.core.app.ActivityCompat;
 import androidx.fragment.app.Fragment;
 
 import com.adventure.solo.databinding.FragmentMapBinding;
+import com.adventure.solo.location.LocationScheduler;
+import com.adventure.solo.location.SharedLocationProvider;
 import com.adventure.solo.model.Quest;
 import com.adventure.solo.model.Clue;
 import com.adventure.solo.service.QuestManager;
+import com.adventure.solo.tiles.QuestTileSource;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
@@ -26,13 +29,11 @@ import com.google.android.material.snackbar.Snackbar;
 
 import org.osmdroid.api.IMapController;
 import org.osmdroid.config.Configuration;
-import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
 import org.osmdroid.views.overlay.compass.CompassOverlay;
 import org.osmdroid.views.overlay.gestures.RotationGestureOverlay;
-import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 
 import javax.inject.Inject;
@@ -50,6 +51,8 @@ public class MapFragment extends Fragment {
 
     @Inject
     QuestManager questManager;
+    @Inject
+    LocationScheduler locationScheduler;
 
     private Quest currentQuest;
     private Clue currentClue;
@@ -81,12 +84,13 @@ public class MapFragment extends Fragment {
         Context ctx = requireActivity().getApplicationContext();
         Configuration.getInstance().load(ctx, androidx.preference.PreferenceManager.getDefaultSharedPreferences(ctx));
 
-        mapView.setTileSource(TileSourceFactory.MAPNIK);
+        mapView.setTileSource(QuestTileSource.get());
         mapView.setMultiTouchControls(true);
         mapView.getController().setZoom(18.0);
 
         // Add location overlay
-        locationOverlay = new MyLocationNewOverlay(new GpsMyLocationProvider(ctx), mapView);
+        // Shares the scheduler's stream instead of opening a second GPS listener
+        locationOverlay = new MyLocationNewOverlay(new SharedLocationProvider(locationScheduler), mapView);
         locationOverlay.enableMyLocation();
         mapView.getOverlays().add(locationOverlay);
 
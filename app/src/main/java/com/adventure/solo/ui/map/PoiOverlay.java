@@ -0,0 +1,108 @@
+package com.adventure.solo.ui.map;
+
+import com.adventure.solo.model.Poi;
+import com.adventure.solo.poi.PoiService;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.Marker;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clustered POI markers fed by PoiService. Tiles are merged into what is already shown
+ * instead of replacing it, and a tile that comes back unchanged from the service's memory
+ * cache is skipped, so re-scanning a seen area does no marker work at all. Merges that
+ * arrive together are applied in a single pass. Must be used from the main thread.
+ */
+public class PoiOverlay implements PoiService.Callback {
+    public interface Listener {
+        void onAreaLoaded(int poiCount, int tilesFailed);
+    }
+
+    private final MapView mapView;
+    private final PoiService poiService;
+    private final Listener listener;
+    private final ClusteredMarkerOverlay<Long, Poi> markers;
+    private final Map<Long, List<Poi>> shownTiles = new HashMap<>();
+    private final Runnable mergeRunnable = this::merge;
+    private boolean mergePending;
+    private PoiService.AreaRequest currentArea;
+    private boolean detached;
+
+    public PoiOverlay(MapView mapView, PoiService poiService, Listener listener) {
+        this.mapView = mapView;
+        this.poiService = poiService;
+        this.listener = listener;
+        this.markers = new ClusteredMarkerOverlay<>(mapView, new KeyedMarkerManager.Binder<Long, Poi>() {
+            @Override public Long keyOf(Poi poi) { return poi.id; }
+            @Override public double latitudeOf(Poi poi) { return poi.latitude; }
+            @Override public double longitudeOf(Poi poi) { return poi.longitude; }
+            @Override public Object styleKeyOf(Poi poi) { return poi.name + "|" + poi.type; }
+            @Override public void style(Marker marker, Poi poi) {
+                marker.setIcon(markers.icon(org.osmdroid.library.R.drawable.marker_default));
+                marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
+                marker.setTitle(poi.name);
+                marker.setSnippet("Type: " + poi.type);
+            }
+        }, null);
+    }
+
+    /**
+     * Loads the POIs of an area, superseding the previous load: tiles only the old area
+     * needed are no longer fetched, so rapid panning does not pile up requests.
+     *
+     * @return false if the area is too large to search at once.
+     */
+    public boolean load(BoundingBox box) {
+        PoiService.AreaRequest area = poiService.loadArea(box.getLatSouth(), box.getLonWest(),
+                box.getLatNorth(), box.getLonEast(), this, currentArea);
+        if (area == null) return false;
+        currentArea = area;
+        return true;
+    }
+
+    public boolean isLoading() {
+        return currentArea != null && !currentArea.isDone();
+    }
+
+    @Override
+    public void onTileLoaded(long tileKey, List<Poi> pois) {
+        if (detached || shownTiles.get(tileKey) == pois) return;
+        shownTiles.put(tileKey, pois);
+        if (!mergePending) {
+            mergePending = true;
+            mapView.post(mergeRunnable);
+        }
+    }
+
+    @Override
+    public void onAreaLoaded(int poiCount, int tilesFailed) {
+        if (!detached && listener != null) listener.onAreaLoaded(poiCount, tilesFailed);
+    }
+
+    private void merge() {
+        mergePending = false;
+        if (detached) return;
+        int total = 0;
+        for (List<Poi> pois : shownTiles.values()) total += pois.size();
+        List<Poi> all = new ArrayList<>(total);
+        for (List<Poi> pois : shownTiles.values()) all.addAll(pois);
+        markers.setItems(all);
+    }
+
+    public void detach() {
+        detached = true;
+        if (currentArea != null) currentArea.cancel();
+        mapView.removeCallbacks(mergeRunnable);
+        markers.detach();
+    }
+
+    public Overlay getOverlay() {
+        return markers.getOverlay();
+    }
+}
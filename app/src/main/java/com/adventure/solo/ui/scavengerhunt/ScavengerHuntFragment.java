@@ -12,36 +12,40 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
-import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.adventure.solo.R;
 import com.adventure.solo.databinding.FragmentScavengerHuntBinding;
+import com.adventure.solo.geo.GeoMath;
+import com.adventure.solo.location.LocationScheduler;
+import com.adventure.solo.location.SharedLocationProvider;
 import com.adventure.solo.model.Clue; // Still needed for Clue specific fields
 import com.adventure.solo.model.PlayerProfile; // For observing
 import com.adventure.solo.model.Quest; // Still needed for Quest specific fields
 import com.adventure.solo.model.wrapper.ClueWithProgress;
 import com.adventure.solo.model.wrapper.QuestWithProgress;
+import com.adventure.solo.tiles.QuestTileSource;
 import com.adventure.solo.model.ClueType; // Added for puzzle check
 import com.adventure.solo.ui.ar.ARObjectInteractionListener;
 import com.adventure.solo.ui.ar.ARSceneFragment;
+import com.adventure.solo.ui.map.ClusteredMarkerOverlay;
+import com.adventure.solo.ui.map.KeyedMarkerManager;
 import com.adventure.solo.ui.puzzle.PuzzleDisplayFragment; // Added for puzzle dialog
 
 import org.osmdroid.config.Configuration;
-import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
 import org.osmdroid.views.overlay.Overlay;
 import org.osmdroid.views.overlay.compass.CompassOverlay;
 import org.osmdroid.views.overlay.gestures.RotationGestureOverlay;
-import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 
 import java.util.ArrayList;
 import java.util.List;
 // Removed @Inject for QuestManager as it's not directly used by Fragment anymore
+import javax.inject.Inject;
 import dagger.hilt.android.AndroidEntryPoint;
 
 @AndroidEntryPoint
@@ -51,6 +55,9 @@ public class ScavengerHuntFragment extends Fragment implements ARObjectInteracti
     private FragmentScavengerHuntBinding binding;
     private ScavengerHuntViewModel viewModel;
 
+    @Inject
+    LocationScheduler locationScheduler;
+
     // currentQuestForFragmentContext is now QuestWithProgress
     private QuestWithProgress currentQuestForFragmentContext;
 
@@ -58,7 +65,7 @@ public class ScavengerHuntFragment extends Fragment implements ARObjectInteracti
     private MyLocationNewOverlay myLocationOverlay;
     private CompassOverlay compassOverlay;
     private RotationGestureOverlay rotationGestureOverlay;
-    private List<Marker> clueMarkers = new ArrayList<>();
+    private ClusteredMarkerOverlay<Long, ClueWithProgress> clueMarkers;
     // private Location lastKnownLocation; // Replaced by direct use of myLocationOverlay.getLastFix()
 
     private static final float PROXIMITY_RADIUS_FOR_AR_METERS = 30.0f;
@@ -117,10 +124,11 @@ public class ScavengerHuntFragment extends Fragment implements ARObjectInteracti
     public void onDestroyView() {
         super.onDestroyView();
         Log.d(TAG, "onDestroyView called.");
+        if (clueMarkers != null) clueMarkers.detach();
         if (mapView != null) mapView.onDetach();
         mapView = null;
         myLocationOverlay = null; compassOverlay = null; rotationGestureOverlay = null;
-        clueMarkers.clear();
+        clueMarkers = null;
         binding = null;
     }
 
@@ -131,11 +139,12 @@ public class ScavengerHuntFragment extends Fragment implements ARObjectInteracti
         }
         Context ctx = requireActivity().getApplicationContext();
         Configuration.getInstance().load(ctx, PreferenceManager.getDefaultSharedPreferences(ctx));
-        mapView.setTileSource(TileSourceFactory.MAPNIK);
+        mapView.setTileSource(QuestTileSource.get());
         mapView.setMultiTouchControls(true);
         mapView.getController().setZoom(16.0);
 
-        myLocationOverlay = new MyLocationNewOverlay(new GpsMyLocationProvider(ctx), mapView);
+        // Shares the scheduler's stream instead of opening a second GPS listener
+        myLocationOverlay = new MyLocationNewOverlay(new SharedLocationProvider(locationScheduler), mapView);
         myLocationOverlay.enableMyLocation();
         // myLocationOverlay.enableFollowLocation(); // Can be annoying, user can re-center
         // if (getContext() != null && ContextCompat.getDrawable(requireContext(), R.drawable.ic_user_location_marker) != null) {
@@ -159,6 +168,19 @@ public class ScavengerHuntFragment extends Fragment implements ARObjectInteracti
         rotationGestureOverlay = new RotationGestureOverlay(mapView);
         rotationGestureOverlay.setEnabled(true);
         mapView.getOverlays().add(rotationGestureOverlay);
+
+        clueMarkers = new ClusteredMarkerOverlay<>(mapView, new KeyedMarkerManager.Binder<Long, ClueWithProgress>() {
+            @Override public Long keyOf(ClueWithProgress cwp) { return cwp.clue.getId(); }
+            @Override public double latitudeOf(ClueWithProgress cwp) { return cwp.clue.getTargetLatitude(); }
+            @Override public double longitudeOf(ClueWithProgress cwp) { return cwp.clue.getTargetLongitude(); }
+            @Override public Object styleKeyOf(ClueWithProgress cwp) { return isDiscovered(cwp); }
+            @Override public void style(Marker marker, ClueWithProgress cwp) {
+                Clue clue = cwp.clue;
+                marker.setTitle(clue.getText() != null ? clue.getText().substring(0, Math.min(clue.getText().length(), 20)) + "..." : "Clue");
+                marker.setIcon(clueMarkers.icon(isDiscovered(cwp) ? R.drawable.ic_marker_discovered : R.drawable.ic_marker_undiscovered));
+                marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
+            }
+        }, (cwp, marker) -> showClueDetailsDialog(cwp));
         Log.d(TAG, "Map initialized.");
     }
 
@@ -219,49 +241,32 @@ public class ScavengerHuntFragment extends Fragment implements ARObjectInteracti
     }
 
     private void updateClueMarkers(List<ClueWithProgress> cluesWithProgressList) {
-        if (mapView == null || getContext() == null) {
-            Log.e(TAG, "updateClueMarkers: mapView or context is null.");
+        if (mapView == null || clueMarkers == null || getContext() == null) {
+            Log.e(TAG, "updateClueMarkers: mapView, markers or context is null.");
             return;
         }
 
-        for (Marker oldMarker : clueMarkers) {
-            mapView.getOverlays().remove(oldMarker);
-        }
-        clueMarkers.clear();
-
         if (cluesWithProgressList == null || cluesWithProgressList.isEmpty()) {
-            mapView.invalidate();
+            clueMarkers.setItems(new ArrayList<>());
             Log.d(TAG, "updateClueMarkers: No clues to display or list is null/empty.");
             return;
         }
         Log.d(TAG, "updateClueMarkers: Displaying " + cluesWithProgressList.size() + " clues.");
 
+        List<ClueWithProgress> clues = new ArrayList<>(cluesWithProgressList.size());
         for (ClueWithProgress cwp : cluesWithProgressList) {
             if (cwp.clue == null) {
                 Log.w(TAG, "ClueWithProgress contains a null Clue object.");
                 continue;
             }
-            Clue clue = cwp.clue;
-            boolean discovered = (cwp.progress != null && cwp.progress.discoveredByTeam);
-
-            Marker marker = new Marker(mapView);
-            marker.setPosition(new GeoPoint(clue.getTargetLatitude(), clue.getTargetLongitude()));
-            marker.setRelatedObject(cwp);
-            marker.setTitle(clue.getText() != null ? clue.getText().substring(0, Math.min(clue.getText().length(), 20)) + "..." : "Clue");
-
-            marker.setIcon(ContextCompat.getDrawable(requireContext(),
-                discovered ? R.drawable.ic_marker_discovered : R.drawable.ic_marker_undiscovered));
-            marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-
-            marker.setOnMarkerClickListener((m, mv) -> {
-                ClueWithProgress clickedCwp = (ClueWithProgress) m.getRelatedObject();
-                if (clickedCwp != null) showClueDetailsDialog(clickedCwp);
-                return true;
-            });
-            clueMarkers.add(marker);
-            mapView.getOverlays().add(marker);
+            clues.add(cwp);
         }
-        mapView.invalidate();
+        // Clustered per zoom level; only markers inside the viewport are materialized
+        clueMarkers.setItems(clues);
+    }
+
+    private static boolean isDiscovered(ClueWithProgress cwp) {
+        return cwp.progress != null && cwp.progress.discoveredByTeam;
     }
 
     private void showClueDetailsDialog(ClueWithProgress cwp) {
@@ -327,17 +332,16 @@ public class ScavengerHuntFragment extends Fragment implements ARObjectInteracti
     }
 
     private boolean isPlayerNearClue(Clue clue, float proximityRadiusMeters) {
-        Location deviceLocation = null;
+        double deviceLat, deviceLon;
         if (myLocationOverlay != null && myLocationOverlay.getLastFix() != null) {
-            deviceLocation = myLocationOverlay.getLastFix();
+            Location lastFix = myLocationOverlay.getLastFix();
+            deviceLat = lastFix.getLatitude();
+            deviceLon = lastFix.getLongitude();
         } else if (myLocationOverlay != null && myLocationOverlay.getMyLocation() != null) {
             GeoPoint currentGeoPoint = myLocationOverlay.getMyLocation();
-            deviceLocation = new Location("");
-            deviceLocation.setLatitude(currentGeoPoint.getLatitude());
-            deviceLocation.setLongitude(currentGeoPoint.getLongitude());
-        }
-
-        if (deviceLocation == null) {
+            deviceLat = currentGeoPoint.getLatitude();
+            deviceLon = currentGeoPoint.getLongitude();
+        } else {
             if(getContext() != null) Toast.makeText(getContext(), "Current location unavailable for proximity check.", Toast.LENGTH_SHORT).show();
             Log.w(TAG, "isPlayerNearClue: deviceLocation is null.");
             return false;
@@ -346,10 +350,7 @@ public class ScavengerHuntFragment extends Fragment implements ARObjectInteracti
             Log.e(TAG, "isPlayerNearClue: Clue object is null.");
             return false;
         }
-        Location clueLocation = new Location("");
-        clueLocation.setLatitude(clue.getTargetLatitude());
-        clueLocation.setLongitude(clue.getTargetLongitude());
-        float distance = deviceLocation.distanceTo(clueLocation);
+        double distance = GeoMath.distance(deviceLat, deviceLon, clue.getTargetLatitude(), clue.getTargetLongitude());
         Log.d(TAG, "isPlayerNearClue: Distance to clue " + clue.getId() + " is " + distance + "m. Radius: " + proximityRadiusMeters + "m.");
         return distance < proximityRadiusMeters;
     }
@@ -364,9 +365,27 @@ public class ScavengerHuntFragment extends Fragment implements ARObjectInteracti
         Clue clue = cwp.clue;
         Quest quest = activeQwp.quest;
 
-        Log.d(TAG, "Launching AR for Clue ID: " + clue.getId() + " of Quest: " + quest.getTitle());
-        ARSceneFragment arFragment = ARSceneFragment.newInstance(
-            clue.getTargetLatitude(), clue.getTargetLongitude(), clue.getId(), quest.getRewardPoints());
+        // The other undiscovered location clues share the scene and show up as the player nears them
+        List<Clue> arClues = new ArrayList<>();
+        arClues.add(clue);
+        List<ClueWithProgress> questClues = viewModel.currentQuestCluesWithProgress.getValue();
+        if (questClues != null) {
+            for (ClueWithProgress other : questClues) {
+                if (other == null || other.clue == null || other.clue.getId() == clue.getId() || isDiscovered(other)) continue;
+                if (other.clue.getClueType() == ClueType.LOCATION) arClues.add(other.clue);
+            }
+        }
+        long[] clueIds = new long[arClues.size()];
+        double[] lats = new double[arClues.size()];
+        double[] lons = new double[arClues.size()];
+        for (int i = 0; i < arClues.size(); i++) {
+            clueIds[i] = arClues.get(i).getId();
+            lats[i] = arClues.get(i).getTargetLatitude();
+            lons[i] = arClues.get(i).getTargetLongitude();
+        }
+
+        Log.d(TAG, "Launching AR for Clue ID: " + clue.getId() + " (+" + (arClues.size() - 1) + " nearby) of Quest: " + quest.getTitle());
+        ARSceneFragment arFragment = ARSceneFragment.newInstance(clueIds, lats, lons, quest.getRewardPoints());
 
         // Ensure R.id.nav_host_fragment (or nav_host_fragment_content_main) is correct for MainActivity's NavHost
         getParentFragmentManager().beginTransaction()
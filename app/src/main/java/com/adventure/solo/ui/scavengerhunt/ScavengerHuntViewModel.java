@@ -264,11 +264,9 @@ public class ScavengerHuntViewModel extends ViewModel {
         }
 
         if (profile.stamina >= STAMINA_COST_SEARCH) {
-            int newStamina = profile.stamina - STAMINA_COST_SEARCH;
-            int newCoins = profile.coins + COINS_GAINED_SEARCH;
-
-            // This method needs to be added to PlayerProfileRepository
-            playerProfileRepository.updateStaminaAndCoins(fbUser.getUid(), newStamina, newCoins, success -> {
+            // Cost and reward are applied as SQL deltas, guarded on the stored stamina,
+            // so a stale profile snapshot cannot overwrite concurrent changes.
+            playerProfileRepository.spendStaminaForCoins(fbUser.getUid(), STAMINA_COST_SEARCH, COINS_GAINED_SEARCH, success -> {
                 if(success) {
                     Log.d(TAG, "Search successful. Stamina/Coins updated in DB for UID: " + fbUser.getUid());
                     refreshUserProfile(); // Refresh profile LiveData to show new stamina/coins
@@ -8,6 +8,12 @@ import java.util.Arrays;
 
 public class AssetUtils {
     private static final String TAG = "AssetUtils";
+    private static final String AVATAR_DIR = "drawable/avatars/";
+
+    /** Asset path of an avatar, given either its name ("whiteboy") or file name ("whiteboy.png"). */
+    public static String avatarPath(String avatar) {
+        return AVATAR_DIR + (avatar.endsWith(".png") ? avatar : avatar + ".png");
+    }
     
     public static void checkAvatarAssets(Context context) {
         try {
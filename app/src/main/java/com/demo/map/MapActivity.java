@@ -4,12 +4,9 @@ import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Color;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.location.Location;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.util.Log;
@@ -25,8 +22,11 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.adventure.solo.geo.GeoMath;
+import com.adventure.solo.image.BitmapCache;
+import com.adventure.solo.poi.PoiService;
+import com.adventure.solo.ui.map.PoiOverlay;
+
 import org.osmdroid.api.IMapController;
 import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
@@ -37,12 +37,7 @@ import org.osmdroid.views.overlay.Marker;
 import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -60,6 +55,7 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
     private ImageButton btnAvatar;
     private Marker userMarker;
     private List<Marker> huntMarkers = new ArrayList<>();
+    private PoiOverlay poiOverlay;
     private static final int HUNT_MARKER_COUNT = 5;
     private static final double HUNT_MARKER_MIN_DISTANCE = 5; // 5 meters
     private static final double HUNT_MARKER_MAX_DISTANCE = 10; // 10 meters
@@ -124,6 +120,8 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
                 // Initialize map controller
                 mapController = mapView.getController();
                 mapController.setZoom(15.0);
+
+                setupPoiMarkers();
                 
                 // Request necessary permissions
                 requestPermissionsIfNecessary(new String[]{
@@ -162,6 +160,18 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
         }
     }
 
+    // POIs can number in the hundreds; they are clustered per zoom and only materialized on screen
+    private void setupPoiMarkers() {
+        poiOverlay = new PoiOverlay(mapView, PoiService.getInstance(this), (poiCount, tilesFailed) -> {
+            if (!poiOverlay.isLoading()) progressBar.setVisibility(View.GONE);
+            if (tilesFailed > 0) {
+                Toast.makeText(MapActivity.this, "Failed to fetch some POIs", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(MapActivity.this, "Found " + poiCount + " POIs", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     private void initializeLocationOverlay() {
         if (ContextCompat.checkSelfPermission(this, 
                 Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
@@ -200,92 +210,12 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
     }
 
     private void fetchPOIs(BoundingBox boundingBox) {
-        // Example Overpass API query for amenities in the current view
-        String overpassQuery = "[out:json][timeout:25];(" +
-                "node[\"amenity\"](" + boundingBox.getLatSouth() + "," + boundingBox.getLonWest() + 
-                "," + boundingBox.getLatNorth() + "," + boundingBox.getLonEast() + ");" +
-                ");out body;>;out skel qt;";
-
-        String overpassUrl = "https://overpass-api.de/api/interpreter?data=" + overpassQuery;
-        Log.d(TAG, "Overpass URL: " + overpassUrl);
-        new FetchPOIsTask().execute(overpassUrl);
-    }
-
-    private class FetchPOIsTask extends AsyncTask<String, Void, String> {
-        @Override
-        protected void onPreExecute() {
-            super.onPreExecute();
-            progressBar.setVisibility(View.VISIBLE);
-            // Clear existing markers except MyLocationOverlay
-            List<org.osmdroid.views.overlay.Overlay> overlaysToRemove = new ArrayList<>();
-            for (org.osmdroid.views.overlay.Overlay overlay : mapView.getOverlays()) {
-                if (!(overlay instanceof MyLocationNewOverlay)) {
-                    overlaysToRemove.add(overlay);
-                }
-            }
-            mapView.getOverlays().removeAll(overlaysToRemove);
-            mapView.invalidate(); // Refresh the map
-        }
-
-        @Override
-        protected String doInBackground(String... urls) {
-            if (urls.length < 1 || urls[0] == null) {
-                return null;
-            }
-            try {
-                URL url = new URL(urls[0]);
-                HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-                try {
-                    BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(urlConnection.getInputStream()));
-                    StringBuilder stringBuilder = new StringBuilder();
-                    String line;
-                    while ((line = bufferedReader.readLine()) != null) {
-                        stringBuilder.append(line).append("\n");
-                    }
-                    bufferedReader.close();
-                    return stringBuilder.toString();
-                } finally {
-                    urlConnection.disconnect();
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error fetching POIs: " + e.getMessage(), e);
-                return null;
-            }
-        }
-
-        @Override
-        protected void onPostExecute(String response) {
-            super.onPostExecute(response);
-            progressBar.setVisibility(View.GONE);
-            if (response != null) {
-                try {
-                    JSONObject jsonResponse = new JSONObject(response);
-                    JSONArray elements = jsonResponse.getJSONArray("elements");
-                    for (int i = 0; i < elements.length(); i++) {
-                        JSONObject element = elements.getJSONObject(i);
-                        if (element.has("lat") && element.has("lon")) {
-                            double lat = element.getDouble("lat");
-                            double lon = element.getDouble("lon");
-                            String name = element.optJSONObject("tags") != null ? 
-                                element.optJSONObject("tags").optString("name", "N/A") : "N/A";
-                            String amenityType = element.optJSONObject("tags") != null ? 
-                                element.optJSONObject("tags").optString("amenity", "Unknown") : "Unknown";
-
-                            HuntMarker poiMarker = new HuntMarker(mapView, new GeoPoint(lat, lon), 
-                                name, "Type: " + amenityType, amenityType, name);
-                            mapView.getOverlays().add(poiMarker);
-                        }
-                    }
-                    mapView.invalidate(); // Refresh the map to show new markers
-                    Toast.makeText(MapActivity.this, "Found " + elements.length() + " POIs", Toast.LENGTH_SHORT).show();
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing POIs: " + e.getMessage(), e);
-                    Toast.makeText(MapActivity.this, "Error parsing POIs", Toast.LENGTH_SHORT).show();
-                }
-            } else {
-                Toast.makeText(MapActivity.this, "Failed to fetch POIs", Toast.LENGTH_SHORT).show();
-            }
+        // Served per tile from memory, Room or Overpass and merged into the markers already shown
+        progressBar.setVisibility(View.VISIBLE);
+        if (!poiOverlay.load(boundingBox)) {
+            Toast.makeText(this, "Zoom in to search for POIs", Toast.LENGTH_SHORT).show();
         }
+        if (!poiOverlay.isLoading()) progressBar.setVisibility(View.GONE);
     }
 
     @Override
@@ -305,6 +235,12 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
         super.onPause();
         mapView.onPause();  //needed for compass, my location overlays, v6.0.0 and up
     }
+
+    @Override
+    protected void onDestroy() {
+        if (poiOverlay != null) poiOverlay.detach();
+        super.onDestroy();
+    }
     
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
@@ -423,8 +359,8 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
             double lon = center.getLongitude();
             
             // Convert meters to degrees (approximate)
-            double latDelta = (radiusMeters / 111320.0);
-            double lonDelta = (radiusMeters / (111320.0 * Math.cos(Math.toRadians(lat))));
+            double latDelta = GeoMath.metersToLatitudeDegrees(radiusMeters);
+            double lonDelta = GeoMath.metersToLongitudeDegrees(radiusMeters, lat);
             
             BoundingBox boundingBox = new BoundingBox(
                 lat + latDelta, 
@@ -446,45 +382,30 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
             return;
         }
 
-        try {
-            Log.d(TAG, "Loading avatar for button: " + currentAvatar);
-            InputStream is = getAssets().open("drawable/avatars/" + currentAvatar);
-            if (is == null) {
-                Log.e(TAG, "Failed to open avatar file: " + currentAvatar);
-                return;
-            }
-            
-            Bitmap original = BitmapFactory.decodeStream(is);
-            if (original == null) {
-                Log.e(TAG, "Failed to decode avatar: " + currentAvatar);
-                is.close();
-                return;
-            }
-            
-            // Scale down the bitmap for the button
-            Bitmap scaled = Bitmap.createScaledBitmap(original, 200, 200, true);
-            btnAvatar.setImageBitmap(scaled);
-            
-            // Clean up
-            original.recycle();
-            is.close();
-            
-            Log.d(TAG, "Avatar button updated with: " + currentAvatar);
-            
-        } catch (IOException e) {
-            Log.e(TAG, "Error loading avatar for button: " + currentAvatar, e);
+        Log.d(TAG, "Loading avatar for button: " + currentAvatar);
+        // Decoded once at button size off the main thread and served from the shared cache afterwards
+        String avatarName = currentAvatar;
+        Bitmap cached = avatarName != null
+                ? BitmapCache.getInstance(this).peekAsset(AssetUtils.avatarPath(avatarName), 200, 200) : null;
+        if (cached != null || avatarName == null) {
+            showAvatarOnButton(cached, avatarName);
+            return;
+        }
+        ScavengerHuntApplication app = (ScavengerHuntApplication) getApplication();
+        BitmapCache.getInstance(this).loadAsset(AssetUtils.avatarPath(avatarName), 200, 200, app.getAppExecutors(), avatar -> {
+            // The player may have picked another avatar meanwhile
+            if (avatarName.equals(currentAvatar) && !isDestroyed()) showAvatarOnButton(avatar, avatarName);
+        });
+    }
+
+    private void showAvatarOnButton(Bitmap avatar, String avatarName) {
+        if (avatar != null) {
+            btnAvatar.setImageBitmap(avatar);
+            Log.d(TAG, "Avatar button updated with: " + avatarName);
+        } else {
+            Log.e(TAG, "Error loading avatar for button: " + avatarName);
             // Fallback to a default icon
             btnAvatar.setImageResource(android.R.drawable.ic_menu_compass);
-        } catch (OutOfMemoryError e) {
-            Log.e(TAG, "Out of memory error loading avatar", e);
-            // Try with smaller bitmap
-            try {
-                Bitmap fallback = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
-                fallback.eraseColor(Color.BLUE);
-                btnAvatar.setImageBitmap(fallback);
-            } catch (Exception ex) {
-                Log.e(TAG, "Failed to create fallback bitmap", ex);
-            }
         }
     }
 
@@ -522,55 +443,40 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
             mapView.getOverlays().add(testMarker);
             Log.d(TAG, "Test marker added at: " + myLocation);
 
-            try {
-                // Log the avatar file we're trying to load
-                Log.d(TAG, "Loading avatar: " + currentAvatar);
-                
-                // Try to load the avatar from assets
-                InputStream is = getAssets().open("drawable/avatars/" + currentAvatar);
-                if (is == null) {
-                    throw new IOException("Failed to open avatar file: " + currentAvatar);
-                }
-                
-                // Decode and scale the bitmap
-                Bitmap original = BitmapFactory.decodeStream(is);
-                if (original == null) {
-                    throw new IOException("Failed to decode avatar: " + currentAvatar);
-                }
-                
-                // Scale to appropriate size for map marker (smaller size for better performance)
-                Bitmap scaled = Bitmap.createScaledBitmap(original, 150, 150, true);
-                is.close();
-                original.recycle();
-
-                // Create a bordered drawable for better visibility
-                Drawable iconDrawable = new BitmapDrawable(getResources(), scaled);
-                
-                // Create and add marker
-                userMarker = new Marker(mapView);
-                userMarker.setPosition(location);
+            Log.d(TAG, "Loading avatar: " + currentAvatar);
+            // Only a cache hit is used here; a miss is decoded off the main thread and swapped in
+            String avatarName = currentAvatar;
+            Bitmap cachedAvatar = avatarName != null
+                    ? BitmapCache.getInstance(this).peekAsset(AssetUtils.avatarPath(avatarName), 150, 150) : null;
+            Drawable iconDrawable = cachedAvatar != null ? new BitmapDrawable(getResources(), cachedAvatar) : null;
+            userMarker = new Marker(mapView);
+            userMarker.setPosition(location);
+            userMarker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
+            if (iconDrawable != null) {
                 userMarker.setIcon(iconDrawable);
-                userMarker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
                 userMarker.setTitle("You are here");
-                
-                // Make sure the marker is above other overlays
-                mapView.getOverlays().add(0, userMarker);
-                
-                // Force a redraw
-                mapView.invalidate();
                 Log.d(TAG, "User marker updated with avatar: " + currentAvatar);
-                
-            } catch (IOException e) {
-                Log.e(TAG, "Error loading avatar: " + currentAvatar, e);
-                
+            } else {
+                Log.e(TAG, "Error loading avatar: " + currentAvatar);
                 // Fallback to default marker
-                userMarker = new Marker(mapView);
-                userMarker.setPosition(location);
                 userMarker.setIcon(getResources().getDrawable(android.R.drawable.ic_menu_compass));
-                userMarker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
                 userMarker.setTitle("You are here (default)");
-                mapView.getOverlays().add(0, userMarker);
-                mapView.invalidate();
+            }
+
+            // Make sure the marker is above other overlays
+            mapView.getOverlays().add(0, userMarker);
+            mapView.invalidate();
+
+            if (cachedAvatar == null && avatarName != null) {
+                Marker marker = userMarker;
+                ScavengerHuntApplication app = (ScavengerHuntApplication) getApplication();
+                BitmapCache.getInstance(this).loadAsset(AssetUtils.avatarPath(avatarName), 150, 150, app.getAppExecutors(), avatar -> {
+                    // Skip if the marker was replaced or the avatar changed meanwhile
+                    if (avatar == null || marker != userMarker || !avatarName.equals(currentAvatar) || isDestroyed()) return;
+                    marker.setIcon(new BitmapDrawable(getResources(), avatar));
+                    marker.setTitle("You are here");
+                    mapView.invalidate();
+                });
             }
         });
     }
@@ -590,8 +496,8 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
             double angle = Math.random() * 2 * Math.PI; // Random angle in radians
             
             // Calculate new position
-            double lat = center.getLatitude() + (distance / 111320.0 * Math.cos(angle));
-            double lon = center.getLongitude() + (distance / (111320.0 * Math.cos(Math.toRadians(center.getLatitude()))) * Math.sin(angle));
+            double lat = center.getLatitude() + GeoMath.metersToLatitudeDegrees(distance * Math.cos(angle));
+            double lon = center.getLongitude() + GeoMath.metersToLongitudeDegrees(distance * Math.sin(angle), center.getLatitude());
             
             // Create marker
             Marker huntMarker = new Marker(mapView);
@@ -599,12 +505,12 @@ public class MapActivity extends AppCompatActivity implements AvatarSelectionDia
             huntMarker.setTitle("Hunt Item " + (i + 1));
             huntMarker.setSnippet("Tap to collect!");
             
-            // Use a simple bitmap for hunt markers
-            try {
-                Bitmap markerBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.ic_place);
-                huntMarker.setIcon(new BitmapDrawable(getResources(), markerBitmap));
+            // ic_place is rasterized once and shared by every hunt marker
+            Drawable placeIcon = BitmapCache.getInstance(this).getResourceDrawable(R.drawable.ic_place, 0, 0);
+            if (placeIcon != null) {
+                huntMarker.setIcon(placeIcon);
                 huntMarker.setTitle("Hunt Item");
-            } catch (Exception e) {
+            } else {
                 // Fallback to default marker if custom icon fails
                 huntMarker.setIcon(getResources().getDrawable(android.R.drawable.ic_dialog_map));
             }
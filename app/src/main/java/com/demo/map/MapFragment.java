@@ -4,7 +4,6 @@ import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.location.Location;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.util.Log;
@@ -21,10 +20,10 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
+import com.adventure.solo.poi.PoiService;
+import com.adventure.solo.ui.map.PoiOverlay;
 import com.demo.map.BuildConfig;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.osmdroid.api.IMapController;
 import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
@@ -34,12 +33,7 @@ import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.ArrayList;
-import java.util.List;
 
 public class MapFragment extends Fragment {
 
@@ -49,6 +43,7 @@ public class MapFragment extends Fragment {
     private MyLocationNewOverlay myLocationOverlay;
     private ProgressBar progressBar;
     private Button btnSearch;
+    private PoiOverlay poiOverlay;
 
     private final int REQUEST_PERMISSIONS_REQUEST_CODE = 2; // Different from Activity's code
 
@@ -118,6 +113,9 @@ public class MapFragment extends Fragment {
                 // Initialize map controller
                 mapController = mapView.getController();
                 mapController.setZoom(15.0);
+
+                // POIs are clustered per zoom and only materialized on screen
+                poiOverlay = new PoiOverlay(mapView, PoiService.getInstance(requireContext()), this::onPoisLoaded);
                 
                 // Request necessary permissions
                 requestPermissionsIfNecessary(new String[]{
@@ -186,87 +184,22 @@ public class MapFragment extends Fragment {
     }
 
     private void fetchPOIs(BoundingBox boundingBox) {
-        String overpassQuery = "[out:json][timeout:25];(" +
-                "node[\"amenity\"](" + boundingBox.getLatSouth() + "," + boundingBox.getLonWest() + "," + boundingBox.getLatNorth() + "," + boundingBox.getLonEast() + ");" +
-                ");out body;>;out skel qt;";
-        String overpassUrl = "https://overpass-api.de/api/interpreter?data=" + overpassQuery;
-        Log.d(TAG, "Overpass URL: " + overpassUrl);
-        new FetchPOIsTask().execute(overpassUrl);
-    }
-
-    private class FetchPOIsTask extends AsyncTask<String, Void, String> {
-        @Override
-        protected void onPreExecute() {
-            super.onPreExecute();
-            if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
-            // Clear existing markers except MyLocationOverlay
-            List<org.osmdroid.views.overlay.Overlay> overlaysToRemove = new ArrayList<>();
-            for (org.osmdroid.views.overlay.Overlay overlay : mapView.getOverlays()) {
-                if (!(overlay instanceof MyLocationNewOverlay)) {
-                    overlaysToRemove.add(overlay);
-                }
-            }
-            mapView.getOverlays().removeAll(overlaysToRemove);
-            mapView.invalidate();
-        }
-
-        @Override
-        protected String doInBackground(String... urls) {
-            if (urls.length < 1 || urls[0] == null) return null;
-            try {
-                URL url = new URL(urls[0]);
-                HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-                try {
-                    BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(urlConnection.getInputStream()));
-                    StringBuilder stringBuilder = new StringBuilder();
-                    String line;
-                    while ((line = bufferedReader.readLine()) != null) {
-                        stringBuilder.append(line).append("\n");
-                    }
-                    bufferedReader.close();
-                    return stringBuilder.toString();
-                } finally {
-                    urlConnection.disconnect();
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error fetching POIs: " + e.getMessage(), e);
-                return null;
-            }
+        if (poiOverlay == null) return;
+        // Served per tile from memory, Room or Overpass and merged into the markers already shown
+        if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
+        if (!poiOverlay.load(boundingBox)) {
+            Toast.makeText(requireContext(), "Zoom in to search for POIs", Toast.LENGTH_SHORT).show();
         }
+        if (!poiOverlay.isLoading() && progressBar != null) progressBar.setVisibility(View.GONE);
+    }
 
-        @Override
-        protected void onPostExecute(String response) {
-            super.onPostExecute(response);
-            if (progressBar != null) progressBar.setVisibility(View.GONE);
-            if (response != null) {
-                Log.d(TAG, "Overpass Response: " + response);
-                try {
-                    JSONObject jsonResponse = new JSONObject(response);
-                    JSONArray elements = jsonResponse.getJSONArray("elements");
-                    for (int i = 0; i < elements.length(); i++) {
-                        JSONObject element = elements.getJSONObject(i);
-                        if (element.has("lat") && element.has("lon")) {
-                            double lat = element.getDouble("lat");
-                            double lon = element.getDouble("lon");
-                            String name = element.optJSONObject("tags") != null ? element.optJSONObject("tags").optString("name", "N/A") : "N/A";
-                            String amenityType = element.optJSONObject("tags") != null ? element.optJSONObject("tags").optString("amenity", "Unknown") : "Unknown";
-
-                            HuntMarker poiMarker = new HuntMarker(mapView, new GeoPoint(lat, lon), name, "Type: " + amenityType, amenityType, name);
-                            mapView.getOverlays().add(poiMarker);
-                        }
-                    }
-                    mapView.invalidate();
-                    if (getContext() != null)
-                        Toast.makeText(getContext(), "Found " + elements.length() + " POIs", Toast.LENGTH_SHORT).show();
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing POIs: " + e.getMessage(), e);
-                    if (getContext() != null)
-                        Toast.makeText(getContext(), "Error parsing POIs", Toast.LENGTH_SHORT).show();
-                }
-            } else {
-                if (getContext() != null)
-                    Toast.makeText(getContext(), "Failed to fetch POIs", Toast.LENGTH_SHORT).show();
-            }
+    private void onPoisLoaded(int poiCount, int tilesFailed) {
+        if (poiOverlay != null && !poiOverlay.isLoading() && progressBar != null) progressBar.setVisibility(View.GONE);
+        if (getContext() == null) return;
+        if (tilesFailed > 0) {
+            Toast.makeText(getContext(), "Failed to fetch some POIs", Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(getContext(), "Found " + poiCount + " POIs", Toast.LENGTH_SHORT).show();
         }
     }
 
@@ -282,6 +215,13 @@ public class MapFragment extends Fragment {
         if (mapView != null) mapView.onPause();
     }
 
+    @Override
+    public void onDestroyView() {
+        if (poiOverlay != null) poiOverlay.detach();
+        poiOverlay = null;
+        super.onDestroyView();
+    }
+
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
@@ -4,6 +4,8 @@ import android.app.Application;
 import android.content.SharedPreferences;
 import androidx.preference.PreferenceManager;
 
+import com.adventure.solo.executor.AppExecutors;
+import com.adventure.solo.image.BitmapCache;
 import com.demo.map.game.ScavengerHuntGame;
 import com.demo.map.model.Player;
 
@@ -15,6 +17,8 @@ public class ScavengerHuntApplication extends Application {
     private ScavengerHuntGame game;
     private Player currentPlayer;
     private SharedPreferences prefs;
+    // The demo runs without Hilt, so the app holds the one set of background lanes
+    private final AppExecutors appExecutors = new AppExecutors();
 
     @Override
     public void onCreate() {
@@ -37,6 +41,12 @@ public class ScavengerHuntApplication extends Application {
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        BitmapCache.getInstance(this).trimMemory(level);
+    }
+
     public void createPlayer(String name, String avatarResource) {
         currentPlayer = new Player(String.valueOf(System.currentTimeMillis()), name);
         currentPlayer.setAvatarResource(avatarResource);
@@ -54,6 +64,10 @@ public class ScavengerHuntApplication extends Application {
         return game;
     }
 
+    public AppExecutors getAppExecutors() {
+        return appExecutors;
+    }
+
     public Player getCurrentPlayer() {
         return currentPlayer;
     }
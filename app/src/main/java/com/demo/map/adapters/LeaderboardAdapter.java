@@ -1,18 +1,25 @@
 package com.demo.map.adapters;
 
+import android.graphics.Bitmap;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.adventure.solo.image.BitmapCache;
+import com.demo.map.AssetUtils;
 import com.demo.map.R;
+import com.demo.map.ScavengerHuntApplication;
 import com.demo.map.model.Player;
 
 import java.util.List;
 
 public class LeaderboardAdapter extends RecyclerView.Adapter<LeaderboardAdapter.ViewHolder> {
+    private static final float AVATAR_SIZE_DP = 40;
+
     private List<Player> players;
 
     public LeaderboardAdapter(List<Player> players) {
@@ -32,6 +39,27 @@ public class LeaderboardAdapter extends RecyclerView.Adapter<LeaderboardAdapter.
         Player player = players.get(position);
         holder.playerName.setText(player.getName());
         holder.playerScore.setText(String.valueOf(player.getScore()));
+
+        holder.avatarPath = player.getAvatarResource() != null ? AssetUtils.avatarPath(player.getAvatarResource()) : null;
+        if (holder.avatarPath == null) {
+            holder.playerAvatar.setImageResource(R.drawable.ic_person);
+            return;
+        }
+        // Cache hits bind directly; a miss is decoded once at row size off the main thread
+        BitmapCache bitmapCache = BitmapCache.getInstance(holder.itemView.getContext());
+        int size = bitmapCache.dpToPx(AVATAR_SIZE_DP);
+        Bitmap avatar = bitmapCache.peekAsset(holder.avatarPath, size, size);
+        if (avatar != null) {
+            holder.playerAvatar.setImageBitmap(avatar);
+            return;
+        }
+        holder.playerAvatar.setImageResource(R.drawable.ic_person);
+        String path = holder.avatarPath;
+        ScavengerHuntApplication app = (ScavengerHuntApplication) holder.itemView.getContext().getApplicationContext();
+        bitmapCache.loadAsset(path, size, size, app.getAppExecutors(), bitmap -> {
+            // The row may have been rebound to another player while decoding
+            if (bitmap != null && path.equals(holder.avatarPath)) holder.playerAvatar.setImageBitmap(bitmap);
+        });
     }
 
     @Override
@@ -45,11 +73,14 @@ public class LeaderboardAdapter extends RecyclerView.Adapter<LeaderboardAdapter.
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
+        ImageView playerAvatar;
         TextView playerName;
         TextView playerScore;
+        String avatarPath; // Asset the row shows, null for the placeholder
 
         ViewHolder(View itemView) {
             super(itemView);
+            playerAvatar = itemView.findViewById(R.id.playerAvatar);
             playerName = itemView.findViewById(R.id.playerName);
             playerScore = itemView.findViewById(R.id.playerScore);
         }
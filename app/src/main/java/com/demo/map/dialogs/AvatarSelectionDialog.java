@@ -2,6 +2,7 @@ package com.demo.map.dialogs;
 
 import android.app.Dialog;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -12,10 +13,15 @@ import android.widget.LinearLayout;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.DialogFragment;
 
+import com.adventure.solo.image.BitmapCache;
+import com.demo.map.AssetUtils;
 import com.demo.map.R;
+import com.demo.map.ScavengerHuntApplication;
 import com.google.android.material.button.MaterialButton;
 
 public class AvatarSelectionDialog extends DialogFragment {
+    private static final float AVATAR_SIZE_DP = 100;
+
     private OnAvatarSelectedListener listener;
     private String selectedAvatar = null;
     private EditText nameInput;
@@ -81,6 +87,19 @@ public class AvatarSelectionDialog extends DialogFragment {
 
     private void setupAvatarClickListener(View rootView, int avatarViewId, String avatarResource) {
         ImageView avatarView = rootView.findViewById(avatarViewId);
+        // Decoded at view size instead of full resolution, and shared with the map and leaderboard
+        BitmapCache bitmapCache = BitmapCache.getInstance(requireContext());
+        int size = bitmapCache.dpToPx(AVATAR_SIZE_DP);
+        String path = AssetUtils.avatarPath(avatarResource);
+        Bitmap avatar = bitmapCache.peekAsset(path, size, size);
+        if (avatar != null) {
+            avatarView.setImageBitmap(avatar);
+        } else {
+            ScavengerHuntApplication app = (ScavengerHuntApplication) requireActivity().getApplication();
+            bitmapCache.loadAsset(path, size, size, app.getAppExecutors(), bitmap -> {
+                if (bitmap != null) avatarView.setImageBitmap(bitmap);
+            });
+        }
         avatarView.setOnClickListener(v -> {
             // Clear previous selection
             clearSelections(rootView);
@@ -3,6 +3,8 @@ package com.demo.map.fragments;
 import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.location.Location;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -17,6 +19,11 @@ import androidx.core.app.ActivityCompat;
 import androidx.fragment.app.Fragment;
 import androidx.preference.PreferenceManager;
 
+import com.adventure.solo.geo.GeoMath;
+import com.adventure.solo.geo.GeofenceEngine;
+import com.adventure.solo.image.BitmapCache;
+import com.adventure.solo.ui.map.KeyedMarkerManager;
+import com.demo.map.AssetUtils;
 import com.demo.map.R;
 import com.demo.map.ScavengerHuntApplication;
 import com.demo.map.game.ScavengerHuntGame;
@@ -32,11 +39,11 @@ import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
 import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
+import org.osmdroid.views.overlay.mylocation.IMyLocationProvider;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import com.demo.map.dialogs.DashboardDialog;
 import com.demo.map.dialogs.ProfileDialog;
@@ -48,6 +55,7 @@ public class ScavengerHuntFragment extends Fragment {
     private static final float REWARD_COLLECTION_DISTANCE = 10f; // meters
     private static final float MAX_PLAY_RADIUS = 50f; // meters
     private static final float SCAN_RADIUS = 50f; // meters (changed from 200m)
+    private static final float PLAYER_MARKER_SIZE_DP = 48;
 
     private MapView map;
     private IMapController mapController;
@@ -57,21 +65,28 @@ public class ScavengerHuntFragment extends Fragment {
     private TextView pointsTextView;
     private TextView missionTextView;
     private TextView outOfRangeWarning;
-    private Map<Marker, GameReward> rewardMarkers;
-    private Map<String, Marker> playerMarkers;
+    private KeyedMarkerManager<Long, GameReward> rewardMarkers;
+    private KeyedMarkerManager<String, Player> playerMarkers;
     private GeoPoint lastCenterLocation;
     private FloatingActionButton profileButton;
     private FloatingActionButton dashboardButton;
     private FloatingActionButton recenterButton;
 
+    // Reward markers are refreshed when a reward fence is entered or left, not on every fix
+    private final GeofenceEngine.Listener rewardFenceListener = (fence, transition, distanceMeters) -> {
+        if (transition == GeofenceEngine.Transition.DWELL || !isAdded()) return;
+        requireActivity().runOnUiThread(() -> {
+            GeoPoint location = locationOverlay != null ? locationOverlay.getMyLocation() : null;
+            if (map != null && location != null) updateNearbyRewards(locationToAndroid(location));
+        });
+    };
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         ScavengerHuntApplication app = (ScavengerHuntApplication) requireActivity().getApplication();
         game = app.getGame();
         currentPlayer = app.getCurrentPlayer();
-        rewardMarkers = new HashMap<>();
-        playerMarkers = new HashMap<>();
 
         // Initialize OSMDroid configuration
         Context ctx = requireActivity().getApplicationContext();
@@ -102,6 +117,7 @@ public class ScavengerHuntFragment extends Fragment {
         mapController.setZoom(DEFAULT_ZOOM);
 
         setupLocationOverlay();
+        setupMarkerOverlays();
         
         if (checkLocationPermission()) {
             startLocationUpdates();
@@ -131,7 +147,14 @@ public class ScavengerHuntFragment extends Fragment {
     }
 
     private void setupLocationOverlay() {
-        locationOverlay = new MyLocationNewOverlay(new GpsMyLocationProvider(requireContext()), map);
+        locationOverlay = new MyLocationNewOverlay(new GpsMyLocationProvider(requireContext()), map) {
+            @Override
+            public void onLocationChanged(Location location, IMyLocationProvider source) {
+                super.onLocationChanged(location, source);
+                if (location != null) game.onPlayerLocation(location);
+            }
+        };
+        game.getGeofenceEngine().addListener(rewardFenceListener);
         locationOverlay.enableMyLocation();
         locationOverlay.enableFollowLocation();
         locationOverlay.runOnFirstFix(() -> {
@@ -149,59 +172,73 @@ public class ScavengerHuntFragment extends Fragment {
         map.getOverlays().add(locationOverlay);
     }
 
-    private void updateNearbyPlayers(GeoPoint currentLocation) {
-        // Remove old player markers
-        for (Marker marker : playerMarkers.values()) {
-            map.getOverlays().remove(marker);
-        }
-        playerMarkers.clear();
-
-        // Add markers for all players except current player
-        List<Player> nearbyPlayers = game.getPlayers();
-        for (Player player : nearbyPlayers) {
-            if (!player.getId().equals(currentPlayer.getId()) && player.getLastLocation() != null) {
-                GeoPoint playerLocation = new GeoPoint(
-                    player.getLastLocation().getLatitude(),
-                    player.getLastLocation().getLongitude()
-                );
-                
-                // Only show players within the play radius
-                float[] results = new float[1];
-                android.location.Location.distanceBetween(
-                    currentLocation.getLatitude(), currentLocation.getLongitude(),
-                    playerLocation.getLatitude(), playerLocation.getLongitude(),
-                    results
-                );
-                
-                if (results[0] <= MAX_PLAY_RADIUS) {
-                    Marker playerMarker = new Marker(map);
-                    playerMarker.setPosition(playerLocation);
-                    playerMarker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-                    playerMarker.setTitle(player.getName());
-                    playerMarker.setSnippet(getString(R.string.points_format, player.getTotalPoints()));
-                    
-                    // Set player's avatar as marker icon
-                    if (player.getAvatarResource() != null) {
-                        try {
-                            playerMarker.setIcon(getResources().getDrawable(
-                                getResources().getIdentifier(
-                                    player.getAvatarResource(),
-                                    "drawable",
-                                    requireContext().getPackageName()
-                                )
-                            ));
-                        } catch (Exception e) {
-                            playerMarker.setIcon(getResources().getDrawable(R.drawable.ic_person));
-                        }
-                    }
-                    
-                    map.getOverlays().add(playerMarker);
-                    playerMarkers.put(player.getId(), playerMarker);
+    // Markers are keyed by reward id / player id and diffed on each update instead of rebuilt
+    private void setupMarkerOverlays() {
+        rewardMarkers = new KeyedMarkerManager<>(map, new KeyedMarkerManager.Binder<Long, GameReward>() {
+            @Override public Long keyOf(GameReward reward) { return reward.getId(); }
+            @Override public double latitudeOf(GameReward reward) { return reward.getLatitude(); }
+            @Override public double longitudeOf(GameReward reward) { return reward.getLongitude(); }
+            @Override public Object styleKeyOf(GameReward reward) { return reward.getType(); }
+            @Override public void style(Marker marker, GameReward reward) {
+                marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
+                switch (reward.getType()) {
+                    case COIN:
+                        marker.setIcon(rewardMarkers.icon(R.drawable.ic_coin));
+                        break;
+                    case GOLD_BAR:
+                        marker.setIcon(rewardMarkers.icon(R.drawable.ic_gold_bar));
+                        break;
+                    case TREASURE_CHEST:
+                        marker.setIcon(rewardMarkers.icon(R.drawable.ic_treasure));
+                        break;
                 }
+                marker.setTitle(reward.getType().name());
+            }
+        }, (reward, marker) -> checkRewardCollection(reward));
+
+        playerMarkers = new KeyedMarkerManager<>(map, new KeyedMarkerManager.Binder<String, Player>() {
+            @Override public String keyOf(Player player) { return player.getId(); }
+            @Override public double latitudeOf(Player player) { return player.getLastLocation().getLatitude(); }
+            @Override public double longitudeOf(Player player) { return player.getLastLocation().getLongitude(); }
+            @Override public Object styleKeyOf(Player player) {
+                return player.getAvatarResource() + "|" + player.getName() + "|" + player.getTotalPoints();
+            }
+            @Override public void style(Marker marker, Player player) {
+                marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
+                marker.setTitle(player.getName());
+                marker.setSnippet(getString(R.string.points_format, player.getTotalPoints()));
+
+                // Set player's avatar as marker icon, decoded at marker size through the shared cache.
+                // A miss shows the placeholder until the avatar is decoded off the main thread.
+                String path = player.getAvatarResource() != null ? AssetUtils.avatarPath(player.getAvatarResource()) : null;
+                marker.setId(path); // Which avatar the marker should show
+                BitmapCache bitmapCache = BitmapCache.getInstance(requireContext());
+                int size = bitmapCache.dpToPx(PLAYER_MARKER_SIZE_DP);
+                Bitmap avatar = path != null ? bitmapCache.peekAsset(path, size, size) : null;
+                marker.setIcon(avatar != null ? new BitmapDrawable(getResources(), avatar) : playerMarkers.icon(R.drawable.ic_person));
+                if (avatar != null || path == null) return;
+                ScavengerHuntApplication app = (ScavengerHuntApplication) requireActivity().getApplication();
+                bitmapCache.loadAsset(path, size, size, app.getAppExecutors(), bitmap -> {
+                    // The marker may have been restyled for another avatar or the view torn down meanwhile
+                    if (bitmap == null || map == null || !isAdded() || !path.equals(marker.getId())) return;
+                    marker.setIcon(new BitmapDrawable(getResources(), bitmap));
+                    map.invalidate();
+                });
+            }
+        }, null);
+    }
+
+    private void updateNearbyPlayers(GeoPoint currentLocation) {
+        // Show all players except the current one, within the play radius
+        List<Player> nearbyPlayers = new ArrayList<>();
+        for (Player player : game.getPlayers()) {
+            if (!player.getId().equals(currentPlayer.getId()) && player.getLastLocation() != null
+                    && GeoMath.isWithin(currentLocation.getLatitude(), currentLocation.getLongitude(),
+                            player.getLastLocation().getLatitude(), player.getLastLocation().getLongitude(), MAX_PLAY_RADIUS)) {
+                nearbyPlayers.add(player);
             }
         }
-        
-        map.invalidate();
+        playerMarkers.submit(nearbyPlayers);
 
         // Update dashboard if it's open
         DashboardDialog dashboardDialog = (DashboardDialog) getChildFragmentManager()
@@ -213,8 +250,8 @@ public class ScavengerHuntFragment extends Fragment {
 
     private void checkOutOfRange(Location currentLocation) {
         if (lastCenterLocation != null) {
-            float distance = currentLocation.distanceTo(locationToAndroid(lastCenterLocation));
-            boolean isOutOfRange = distance > MAX_PLAY_RADIUS;
+            boolean isOutOfRange = !GeoMath.isWithin(currentLocation.getLatitude(), currentLocation.getLongitude(),
+                    lastCenterLocation.getLatitude(), lastCenterLocation.getLongitude(), MAX_PLAY_RADIUS);
             outOfRangeWarning.setVisibility(isOutOfRange ? View.VISIBLE : View.GONE);
             
             if (isOutOfRange) {
@@ -225,14 +262,7 @@ public class ScavengerHuntFragment extends Fragment {
     }
 
     private void clearDistantRewards(Location currentLocation) {
-        List<GameReward> nearbyRewards = game.getNearbyRewards(currentLocation, MAX_PLAY_RADIUS);
-        for (Map.Entry<Marker, GameReward> entry : new HashMap<>(rewardMarkers).entrySet()) {
-            if (!nearbyRewards.contains(entry.getValue())) {
-                map.getOverlays().remove(entry.getKey());
-                rewardMarkers.remove(entry.getKey());
-            }
-        }
-        map.invalidate();
+        rewardMarkers.submit(game.getNearbyRewards(currentLocation, MAX_PLAY_RADIUS));
     }
 
     private Location locationToAndroid(GeoPoint geoPoint) {
@@ -243,42 +273,7 @@ public class ScavengerHuntFragment extends Fragment {
     }
 
     private void updateNearbyRewards(Location location) {
-        // Clear old markers
-        for (Marker marker : rewardMarkers.keySet()) {
-            map.getOverlays().remove(marker);
-        }
-        rewardMarkers.clear();
-
-        // Add new markers for nearby rewards
-        List<GameReward> nearbyRewards = game.getNearbyRewards(location, 50);
-        for (GameReward reward : nearbyRewards) {
-            Marker marker = new Marker(map);
-            marker.setPosition(new GeoPoint(reward.getLatitude(), reward.getLongitude()));
-            marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-            
-            switch (reward.getType()) {
-                case COIN:
-                    marker.setIcon(getResources().getDrawable(R.drawable.ic_coin));
-                    break;
-                case GOLD_BAR:
-                    marker.setIcon(getResources().getDrawable(R.drawable.ic_gold_bar));
-                    break;
-                case TREASURE_CHEST:
-                    marker.setIcon(getResources().getDrawable(R.drawable.ic_treasure));
-                    break;
-            }
-            
-            marker.setTitle(reward.getType().name());
-            marker.setOnMarkerClickListener((m, mapView) -> {
-                checkRewardCollection(reward, m);
-                return true;
-            });
-            
-            map.getOverlays().add(marker);
-            rewardMarkers.put(marker, reward);
-        }
-        
-        map.invalidate();
+        rewardMarkers.submit(game.getNearbyRewards(location, 50));
         updateUI();
     }
 
@@ -292,7 +287,7 @@ public class ScavengerHuntFragment extends Fragment {
         }
     }
 
-    private void checkRewardCollection(GameReward reward, Marker marker) {
+    private void checkRewardCollection(GameReward reward) {
         GeoPoint playerLocation = locationOverlay.getMyLocation();
         if (playerLocation == null) {
             Toast.makeText(requireContext(), 
@@ -301,18 +296,10 @@ public class ScavengerHuntFragment extends Fragment {
             return;
         }
 
-        Location rewardLocation = new Location("");
-        rewardLocation.setLatitude(reward.getLatitude());
-        rewardLocation.setLongitude(reward.getLongitude());
-
-        Location playerLoc = locationToAndroid(playerLocation);
-        float distance = playerLoc.distanceTo(rewardLocation);
-        
-        if (distance <= REWARD_COLLECTION_DISTANCE) {
+        if (GeoMath.isWithin(playerLocation.getLatitude(), playerLocation.getLongitude(),
+                reward.getLatitude(), reward.getLongitude(), REWARD_COLLECTION_DISTANCE)) {
             game.collectReward(currentPlayer, reward);
-            map.getOverlays().remove(marker);
-            rewardMarkers.remove(marker);
-            map.invalidate();
+            rewardMarkers.remove(reward.getId());
             Toast.makeText(requireContext(), 
                 String.format(getString(R.string.reward_collected), 
                     reward.getPoints()), 
@@ -394,6 +381,12 @@ public class ScavengerHuntFragment extends Fragment {
         }
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        game.getGeofenceEngine().removeListener(rewardFenceListener);
+    }
+
     private void recenterMap() {
         if (map != null && locationOverlay != null && locationOverlay.getMyLocation() != null) {
             GeoPoint myLocation = locationOverlay.getMyLocation();
@@ -1,6 +1,8 @@
 package com.demo.map.game;
 
 import android.location.Location;
+import com.adventure.solo.geo.GeoMath;
+import com.adventure.solo.geo.GeofenceEngine;
 import com.demo.map.model.GameReward;
 import com.demo.map.model.Mission;
 import com.demo.map.model.Player;
@@ -32,12 +34,18 @@ public class ScavengerHuntGame {
     private final Random random;
     private final List<Player> players;
     private final List<Mission> activeMissions;
+    // One REWARD_RADIUS fence per uncollected reward of the active missions, tagged with the
+    // reward. Screens subscribe instead of polling distances, and nearby queries use its index.
+    private final GeofenceEngine geofenceEngine;
+    // Reused by getNearbyRewards, which runs on every location fix
+    private final List<GeofenceEngine.Fence> nearbyFences = new ArrayList<>();
     private Player currentPlayer;
 
     public ScavengerHuntGame() {
         this.random = new Random();
         this.players = new ArrayList<>();
         this.activeMissions = new ArrayList<>();
+        this.geofenceEngine = new GeofenceEngine();
         this.currentPlayer = new Player("player1", "Player 1");
         this.players.add(currentPlayer);
     }
@@ -61,7 +69,9 @@ public class ScavengerHuntGame {
         for (int i = 0; i < rewardCount; i++) {
             Location rewardLocation = generateNearbyLocation(playerLocation);
             GameReward.RewardType type = getRandomRewardType();
-            mission.addReward(new GameReward(type, rewardLocation.getLatitude(), rewardLocation.getLongitude()));
+            GameReward reward = new GameReward(type, rewardLocation.getLatitude(), rewardLocation.getLongitude());
+            mission.addReward(reward);
+            geofenceEngine.addFence(rewardFenceId(reward), reward.getLatitude(), reward.getLongitude(), REWARD_RADIUS, reward);
         }
 
         activeMissions.add(mission);
@@ -80,23 +90,18 @@ public class ScavengerHuntGame {
     }
 
     private Location generateNearbyLocation(Location center) {
-        double radius = REWARD_RADIUS;
-        double x0 = center.getLatitude();
-        double y0 = center.getLongitude();
-
-        // Convert radius from meters to degrees
-        double radiusInDegrees = radius / 111000f;
-
+        // Uniform point in a disc of REWARD_RADIUS metres; the offset is applied in metres
+        // so longitude is scaled by cos(latitude) and the disc is not stretched east-west
         double u = random.nextDouble();
         double v = random.nextDouble();
-        double w = radiusInDegrees * Math.sqrt(u);
+        double w = REWARD_RADIUS * Math.sqrt(u);
         double t = 2 * Math.PI * v;
-        double x = w * Math.cos(t);
-        double y = w * Math.sin(t);
+        double[] point = new double[2];
+        GeoMath.offset(center.getLatitude(), center.getLongitude(), w * Math.cos(t), w * Math.sin(t), point);
 
         Location location = new Location("");
-        location.setLatitude(x0 + x);
-        location.setLongitude(y0 + y);
+        location.setLatitude(point[0]);
+        location.setLongitude(point[1]);
         return location;
     }
 
@@ -107,28 +112,23 @@ public class ScavengerHuntGame {
 
     public List<GameReward> getNearbyRewards(Location playerLocation, double maxDistance) {
         List<GameReward> nearbyRewards = new ArrayList<>();
-        for (Mission mission : activeMissions) {
-            for (GameReward reward : mission.getRewards()) {
-                if (reward.isCollected()) {
-                    continue;
-                }
-
-                Location rewardLocation = new Location("");
-                rewardLocation.setLatitude(reward.getLatitude());
-                rewardLocation.setLongitude(reward.getLongitude());
-
-                float distance = playerLocation.distanceTo(rewardLocation);
-                if (distance <= maxDistance) {
-                    nearbyRewards.add(reward);
-                }
-            }
-        }
+        getNearbyRewards(playerLocation, maxDistance, nearbyRewards);
         return nearbyRewards;
     }
 
+    // Appends to a caller-owned list so per-fix callers can reuse it
+    public int getNearbyRewards(Location playerLocation, double maxDistance, List<GameReward> out) {
+        nearbyFences.clear();
+        int count = geofenceEngine.queryFences(playerLocation.getLatitude(), playerLocation.getLongitude(), maxDistance, nearbyFences);
+        for (int i = 0; i < count; i++) out.add((GameReward) nearbyFences.get(i).tag);
+        nearbyFences.clear();
+        return count;
+    }
+
     public void collectReward(Player player, GameReward reward) {
         if (!reward.isCollected()) {
             reward.setCollected(true);
+            geofenceEngine.removeFence(rewardFenceId(reward));
             player.addCollectedReward(reward);
             
             // Check if mission is completed
@@ -145,6 +145,9 @@ public class ScavengerHuntGame {
         player.incrementCompletedMissions();
         player.removeMission(mission);
         activeMissions.remove(mission);
+        for (GameReward reward : mission.getRewards()) {
+            geofenceEngine.removeFence(rewardFenceId(reward));
+        }
     }
 
     public List<Player> getLeaderboard() {
@@ -177,4 +180,17 @@ public class ScavengerHuntGame {
         player.setLatitude(latitude);
         player.setLongitude(longitude);
     }
+
+    // Feeds a fix of the current player to the reward fences
+    public void onPlayerLocation(Location location) {
+        geofenceEngine.onLocation(location);
+    }
+
+    public GeofenceEngine getGeofenceEngine() {
+        return geofenceEngine;
+    }
+
+    public static String rewardFenceId(GameReward reward) {
+        return "reward:" + reward.getId();
+    }
 } 
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.demo.map.model;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class GameReward {
     public enum RewardType {
         COIN(10),
@@ -17,18 +19,26 @@ public class GameReward {
         }
     }
 
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id; // Process-unique, used to key fences and markers
     private final RewardType type;
     private final double latitude;
     private final double longitude;
     private boolean collected;
 
     public GameReward(RewardType type, double latitude, double longitude) {
+        this.id = NEXT_ID.getAndIncrement();
         this.type = type;
         this.latitude = latitude;
         this.longitude = longitude;
         this.collected = false;
     }
 
+    public long getId() {
+        return id;
+    }
+
     public RewardType getType() {
         return type;
     }
@@ -1,6 +1,7 @@
 package com.demo.map.model;
 
 import android.location.Location;
+import com.adventure.solo.geo.GeoMath;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -146,7 +147,8 @@ public class Player {
 
     public void updateLocation(Location location) {
         if (lastLocation != null) {
-            float distance = lastLocation.distanceTo(location);
+            double distance = GeoMath.distance(lastLocation.getLatitude(), lastLocation.getLongitude(),
+                    location.getLatitude(), location.getLongitude());
             totalDistanceTraveled += distance;
             achievements.get(Achievement.Type.EXPLORER).updateProgress(totalDistanceTraveled);
         }
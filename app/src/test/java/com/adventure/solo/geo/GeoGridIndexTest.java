@@ -0,0 +1,238 @@
+package com.adventure.solo.geo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeoGridIndexTest {
+    private static final double LAT = 52.5200, LON = 13.4050;
+    private static final double SVALBARD_LAT = 78.2232, SVALBARD_LON = 15.6267;
+    private static final double CELL_METERS = 100;
+
+    /** An indexed item that remembers where it is, for brute-force comparison. */
+    private static class Point {
+        final String name;
+        double lat, lon;
+
+        Point(String name, double lat, double lon) {
+            this.name = name;
+            this.lat = lat;
+            this.lon = lon;
+        }
+
+        @Override public String toString() { return name; }
+    }
+
+    private GeoGridIndex<Point> index;
+    private final List<Point> points = new ArrayList<>();
+    private final double[] offset = new double[2];
+
+    @Before
+    public void setUp() {
+        index = new GeoGridIndex<>(CELL_METERS);
+    }
+
+    private Point add(String name, double lat, double lon, double northMeters, double eastMeters) {
+        GeoMath.offset(lat, lon, northMeters, eastMeters, offset);
+        Point point = new Point(name, offset[0], offset[1]);
+        index.put(point, point.lat, point.lon);
+        points.add(point);
+        return point;
+    }
+
+    private void addRandom(int count, double lat, double lon, double spreadMeters, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            add("p" + points.size(), lat, lon, (random.nextDouble() * 2 - 1) * spreadMeters,
+                    (random.nextDouble() * 2 - 1) * spreadMeters);
+        }
+    }
+
+    private List<Point> radius(double lat, double lon, double meters) {
+        List<Point> out = new ArrayList<>();
+        assertEquals(index.queryRadius(lat, lon, meters, out), out.size());
+        return out;
+    }
+
+    private List<Point> nearest(double lat, double lon, int k, double maxMeters) {
+        List<Point> out = new ArrayList<>();
+        assertEquals(index.queryNearest(lat, lon, k, maxMeters, out), out.size());
+        return out;
+    }
+
+    private static double distanceSq(double lat, double lon, Point point) {
+        return GeoMath.equirectangularSq(lat, lon, point.lat, point.lon);
+    }
+
+    private void assertRadiusMatchesBruteForce(double lat, double lon, double meters) {
+        IdentityHashMap<Point, Boolean> expected = new IdentityHashMap<>();
+        for (Point point : points) {
+            if (distanceSq(lat, lon, point) <= meters * meters) expected.put(point, true);
+        }
+        List<Point> actual = radius(lat, lon, meters);
+        assertEquals("radius " + meters + " at " + lat + "," + lon, expected.size(), actual.size());
+        for (Point point : actual) assertTrue("unexpected " + point, expected.containsKey(point));
+    }
+
+    private void assertNearestMatchesBruteForce(double lat, double lon, int k, double maxMeters) {
+        List<Point> expected = new ArrayList<>();
+        for (Point point : points) {
+            if (distanceSq(lat, lon, point) <= maxMeters * maxMeters) expected.add(point);
+        }
+        Collections.sort(expected, Comparator.comparingDouble(point -> distanceSq(lat, lon, point)));
+        expected = expected.subList(0, Math.min(k, expected.size()));
+        assertEquals("nearest " + k + " within " + maxMeters, expected, nearest(lat, lon, k, maxMeters));
+    }
+
+    @Test
+    public void radiusQueriesReachAcrossCellBorders() {
+        // A point exactly on a cell corner, so every neighbour lies in a different cell
+        double cellDegrees = CELL_METERS / GeoMath.METERS_PER_DEGREE_LAT;
+        double cornerLat = Math.floor(LAT / cellDegrees) * cellDegrees;
+        double cornerLon = Math.floor(LON / cellDegrees) * cellDegrees;
+        Point north = add("north", cornerLat, cornerLon, 30, 0);
+        Point south = add("south", cornerLat, cornerLon, -30, 0);
+        Point east = add("east", cornerLat, cornerLon, 0, 30);
+        Point west = add("west", cornerLat, cornerLon, 0, -30);
+        add("far", cornerLat, cornerLon, 60, 60);
+
+        List<Point> found = radius(cornerLat, cornerLon, 50);
+        assertEquals(4, found.size());
+        assertTrue(found.containsAll(Arrays.asList(north, south, east, west)));
+
+        // Radii larger than a cell span several rings of cells
+        addRandom(300, LAT, LON, 1_000, 1);
+        for (double meters : new double[]{10, 99, 100, 101, 250, 800}) {
+            assertRadiusMatchesBruteForce(LAT, LON, meters);
+            assertRadiusMatchesBruteForce(cornerLat, cornerLon, meters);
+        }
+    }
+
+    @Test
+    public void nearestIsClosestFirstAndStopsAtTheMaxRadius() {
+        Point near = add("near", LAT, LON, 10, 0);
+        Point middle = add("middle", LAT, LON, 0, -140);
+        Point far = add("far", LAT, LON, -450, 0);
+
+        assertEquals(Arrays.asList(near, middle, far), nearest(LAT, LON, 5, 1_000));
+        assertEquals(Arrays.asList(near, middle), nearest(LAT, LON, 2, 1_000));
+        assertEquals(Arrays.asList(near, middle), nearest(LAT, LON, 5, 200));
+        assertTrue(nearest(LAT, LON, 5, 5).isEmpty());
+        assertTrue(nearest(LAT, LON, 0, 1_000).isEmpty());
+
+        addRandom(400, LAT, LON, 2_000, 2);
+        for (int k : new int[]{1, 3, 10, 50}) {
+            assertNearestMatchesBruteForce(LAT, LON, k, 3_000);
+            assertNearestMatchesBruteForce(LAT, LON, k, 150);
+        }
+    }
+
+    @Test
+    public void putMovesAnItemBetweenCells() {
+        Point point = add("moving", LAT, LON, 0, 0);
+        GeoMath.offset(LAT, LON, 500, 500, offset);
+        point.lat = offset[0];
+        point.lon = offset[1];
+        index.put(point, point.lat, point.lon);
+
+        assertEquals(1, index.size());
+        assertTrue(radius(LAT, LON, 100).isEmpty());
+        assertEquals(Arrays.asList(point), radius(point.lat, point.lon, 1));
+
+        // A move within the same cell updates the position in place
+        GeoMath.offset(point.lat, point.lon, 1, 1, offset);
+        point.lat = offset[0];
+        point.lon = offset[1];
+        index.put(point, point.lat, point.lon);
+        assertEquals(1, index.size());
+        assertEquals(Arrays.asList(point), nearest(point.lat, point.lon, 1, 0.5));
+    }
+
+    @Test
+    public void removedSlotsAreReusedWithoutLeakingOldItems() {
+        addRandom(40, LAT, LON, 300, 3);
+        List<Point> removed = new ArrayList<>();
+        for (int i = 0; i < points.size(); i += 2) {
+            assertTrue(index.remove(points.get(i)));
+            removed.add(points.get(i));
+        }
+        points.removeAll(removed);
+        assertEquals(20, index.size());
+        assertFalse(index.remove(removed.get(0)));
+        assertFalse(index.contains(removed.get(0)));
+
+        // New items take the freed slots; none of the removed ones may come back
+        addRandom(15, LAT, LON, 300, 4);
+        assertEquals(35, index.size());
+        List<Point> all = radius(LAT, LON, 1_000);
+        assertEquals(35, all.size());
+        for (Point point : removed) assertFalse(all.contains(point));
+        assertRadiusMatchesBruteForce(LAT, LON, 120);
+        assertNearestMatchesBruteForce(LAT, LON, 8, 1_000);
+
+        // Re-adding a removed item works like a fresh put
+        Point back = removed.get(1);
+        index.put(back, back.lat, back.lon);
+        points.add(back);
+        assertTrue(index.contains(back));
+        assertRadiusMatchesBruteForce(back.lat, back.lon, 50);
+    }
+
+    @Test
+    public void clearEmptiesTheIndexAndLeavesItUsable() {
+        addRandom(50, LAT, LON, 500, 5);
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(radius(LAT, LON, 10_000).isEmpty());
+        assertTrue(nearest(LAT, LON, 5, 10_000).isEmpty());
+        assertFalse(index.contains(points.get(0)));
+
+        points.clear();
+        Point point = add("after", LAT, LON, 20, 20);
+        assertEquals(1, index.size());
+        assertEquals(Arrays.asList(point), nearest(LAT, LON, 3, 100));
+    }
+
+    @Test
+    public void manyCellsSurviveRehashing() {
+        // 20 x 20 points 150 m apart, each in its own cell: far past the 48 cells of the initial table
+        for (int row = 0; row < 20; row++) {
+            for (int col = 0; col < 20; col++) {
+                add("r" + row + "c" + col, LAT, LON, row * 150, col * 150);
+            }
+        }
+        assertEquals(400, index.size());
+        for (Point point : points) {
+            assertEquals(Arrays.asList(point), radius(point.lat, point.lon, 1));
+        }
+        assertRadiusMatchesBruteForce(LAT, LON, 1_000);
+        assertNearestMatchesBruteForce(LAT, LON, 25, 5_000);
+    }
+
+    @Test
+    public void queriesStayExactAtHighLatitude() {
+        // Longitude degrees are about a fifth as long here, so radius and ring searches need more columns
+        addRandom(400, SVALBARD_LAT, SVALBARD_LON, 1_500, 6);
+        for (double meters : new double[]{50, 150, 600, 1_200}) {
+            assertRadiusMatchesBruteForce(SVALBARD_LAT, SVALBARD_LON, meters);
+        }
+        for (int k : new int[]{1, 5, 30}) {
+            assertNearestMatchesBruteForce(SVALBARD_LAT, SVALBARD_LON, k, 2_000);
+            assertNearestMatchesBruteForce(SVALBARD_LAT, SVALBARD_LON, k, 200);
+        }
+
+        Point east = add("east", SVALBARD_LAT, SVALBARD_LON, 0, 250);
+        index.remove(east);
+        points.remove(east);
+        assertRadiusMatchesBruteForce(SVALBARD_LAT, SVALBARD_LON, 300);
+    }
+}
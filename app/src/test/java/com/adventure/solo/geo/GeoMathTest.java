@@ -0,0 +1,82 @@
+package com.adventure.solo.geo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GeoMathTest {
+    private static final double BERLIN_LAT = 52.5200, BERLIN_LON = 13.4050;
+
+    @Test
+    public void haversine_matchesKnownCityDistance() {
+        // Berlin to Paris is about 878 km on a spherical Earth
+        double d = GeoMath.haversine(BERLIN_LAT, BERLIN_LON, 48.8566, 2.3522);
+        assertEquals(878_000, d, 2_000);
+    }
+
+    @Test
+    public void equirectangular_agreesWithHaversineAtShortRange() {
+        double lat2 = BERLIN_LAT + 0.0009, lon2 = BERLIN_LON + 0.0012; // roughly 100 m away
+        double exact = GeoMath.haversine(BERLIN_LAT, BERLIN_LON, lat2, lon2);
+        double fast = GeoMath.equirectangular(BERLIN_LAT, BERLIN_LON, lat2, lon2);
+        assertEquals(exact, fast, exact * 1e-4);
+        assertEquals(fast * fast, GeoMath.equirectangularSq(BERLIN_LAT, BERLIN_LON, lat2, lon2), 1e-6);
+    }
+
+    @Test
+    public void distance_fallsBackToHaversineAtLongRange() {
+        double exact = GeoMath.haversine(0, 0, 40, 100);
+        assertEquals(exact, GeoMath.distance(0, 0, 40, 100), 1e-6);
+    }
+
+    @Test
+    public void distance_handlesAntimeridian() {
+        double d = GeoMath.distance(0, 179.9995, 0, -179.9995);
+        assertEquals(111.2, d, 0.5);
+    }
+
+    @Test
+    public void isWithin_usesInclusiveThreshold() {
+        double[] point = new double[2];
+        GeoMath.offset(BERLIN_LAT, BERLIN_LON, 30, 40, point); // 50 m away
+        assertTrue(GeoMath.isWithin(BERLIN_LAT, BERLIN_LON, point[0], point[1], 50.1));
+        assertFalse(GeoMath.isWithin(BERLIN_LAT, BERLIN_LON, point[0], point[1], 49.9));
+    }
+
+    @Test
+    public void offset_scalesLongitudeByLatitude() {
+        double[] point = new double[2];
+        GeoMath.offset(60, 10, 0, 1000, point);
+        assertEquals(60, point[0], 1e-12);
+        // At 60 degrees a degree of longitude is half as long as at the equator
+        assertEquals(2 * GeoMath.metersToLatitudeDegrees(1000), point[1] - 10, 1e-9);
+        assertEquals(1000, GeoMath.distance(60, 10, point[0], point[1]), 0.5);
+    }
+
+    @Test
+    public void distances_batchMatchesSingleCalls() {
+        double[] lats = {BERLIN_LAT, BERLIN_LAT + 0.01, BERLIN_LAT - 0.2, 48.8566};
+        double[] lons = {BERLIN_LON, BERLIN_LON - 0.01, BERLIN_LON + 0.3, 2.3522};
+        double[] out = new double[lats.length];
+        GeoMath.distances(BERLIN_LAT, BERLIN_LON, lats, lons, lats.length, out);
+        for (int i = 0; i < lats.length; i++) {
+            double expected = GeoMath.distance(BERLIN_LAT, BERLIN_LON, lats[i], lons[i]);
+            assertEquals(expected, out[i], Math.max(0.5, expected * 1e-3));
+        }
+    }
+
+    @Test
+    public void firstWithin_returnsFirstMatchOrMinusOne() {
+        double[] lats = {BERLIN_LAT + 0.01, BERLIN_LAT + 0.0001, BERLIN_LAT};
+        double[] lons = {BERLIN_LON, BERLIN_LON, BERLIN_LON};
+        assertEquals(1, GeoMath.firstWithin(BERLIN_LAT, BERLIN_LON, lats, lons, lats.length, 20));
+        assertEquals(-1, GeoMath.firstWithin(BERLIN_LAT, BERLIN_LON, lats, lons, 1, 20));
+    }
+
+    @Test
+    public void normalizeLongitude_wrapsIntoRange() {
+        assertEquals(-170, GeoMath.normalizeLongitude(190), 1e-9);
+        assertEquals(170, GeoMath.normalizeLongitude(-190), 1e-9);
+        assertEquals(-180, GeoMath.normalizeLongitude(180), 1e-9);
+    }
+}
@@ -0,0 +1,111 @@
+package com.adventure.solo.geo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GeofenceEngineTest {
+    private static final double LAT = 52.5200, LON = 13.4050;
+
+    private GeofenceEngine engine;
+    private final List<GeofenceEngine.Transition> events = new ArrayList<>();
+    private final double[] point = new double[2];
+
+    @Before
+    public void setUp() {
+        engine = new GeofenceEngine();
+        engine.configure(8, 30_000, 75, 0.5);
+        engine.addFence("clue:1", LAT, LON, 20, null);
+        engine.addListener((fence, transition, distance) -> events.add(transition));
+    }
+
+    private void fixAt(double northMeters, float accuracy, long time) {
+        GeoMath.offset(LAT, LON, northMeters, 0, point);
+        engine.onLocation(point[0], point[1], accuracy, time);
+    }
+
+    @Test
+    public void entersAndExitsWithHysteresis() {
+        fixAt(19, 0, 0);
+        assertEquals(1, events.size());
+        assertEquals(GeofenceEngine.Transition.ENTER, events.get(0));
+
+        // Just outside the radius but within the hysteresis band: still inside
+        fixAt(25, 0, 1_000);
+        fixAt(19, 0, 2_000);
+        fixAt(27, 0, 3_000);
+        assertEquals(1, events.size());
+
+        fixAt(29, 0, 4_000);
+        assertEquals(2, events.size());
+        assertEquals(GeofenceEngine.Transition.EXIT, events.get(1));
+    }
+
+    @Test
+    public void impreciseFixMustBeDeeperInsideToEnter() {
+        fixAt(15, 20, 0); // 15 m + 10 m of accuracy slack > 20 m
+        assertTrue(events.isEmpty());
+        fixAt(8, 20, 1_000);
+        assertEquals(GeofenceEngine.Transition.ENTER, events.get(0));
+    }
+
+    @Test
+    public void ignoresFixesWorseThanMaxAccuracy() {
+        fixAt(0, 200, 0);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void reportsDwellOnce() {
+        fixAt(0, 0, 0);
+        fixAt(1, 0, 31_000);
+        fixAt(2, 0, 62_000);
+        assertEquals(2, events.size());
+        assertEquals(GeofenceEngine.Transition.DWELL, events.get(1));
+    }
+
+    @Test
+    public void exitsWhenFixJumpsFarAway() {
+        fixAt(0, 0, 0);
+        fixAt(5_000, 0, 1_000);
+        assertEquals(GeofenceEngine.Transition.EXIT, events.get(events.size() - 1));
+        assertFalse(engine.isInside("clue:1"));
+    }
+
+    @Test
+    public void removedFenceEmitsNothing() {
+        engine.removeFence("clue:1");
+        fixAt(0, 0, 0);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void distanceToNearestFenceMeasuresToTheEdge() {
+        GeoMath.offset(LAT, LON, 120, 0, point);
+        assertEquals(100, engine.distanceToNearestFence(point[0], point[1], 1_000), 0.5);
+        assertEquals(0, engine.distanceToNearestFence(LAT, LON, 1_000), 0);
+        assertTrue(Double.isInfinite(engine.distanceToNearestFence(point[0], point[1], 50)));
+    }
+
+    @Test
+    public void queryFencesFindsFencesByCentreDistance() {
+        GeoMath.offset(LAT, LON, 120, 0, point);
+        engine.addFence("clue:2", point[0], point[1], 20, "tag");
+        List<GeofenceEngine.Fence> found = new ArrayList<>();
+
+        assertEquals(1, engine.queryFences(LAT, LON, 100, found));
+        assertEquals("clue:1", found.get(0).id);
+
+        found.clear();
+        assertEquals(2, engine.queryFences(LAT, LON, 130, found));
+
+        engine.removeFence("clue:1");
+        found.clear();
+        assertEquals(1, engine.queryFences(LAT, LON, 130, found));
+        assertEquals("tag", found.get(0).tag);
+    }
+}
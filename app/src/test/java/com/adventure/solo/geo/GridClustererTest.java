@@ -0,0 +1,84 @@
+package com.adventure.solo.geo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GridClustererTest {
+    private static final double LAT = 52.5200, LON = 13.4050;
+
+    private final GridClusterer.Locator<double[]> locator = new GridClusterer.Locator<double[]>() {
+        @Override public double latitudeOf(double[] p) { return p[0]; }
+        @Override public double longitudeOf(double[] p) { return p[1]; }
+    };
+    private GridClusterer<double[]> clusterer;
+    private final List<GridClusterer.Cluster<double[]>> out = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        clusterer = new GridClusterer<>(64, 18);
+        List<double[]> points = new ArrayList<>();
+        // 100 points on a 10 x 10 grid with 20 m spacing
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                double[] p = new double[2];
+                GeoMath.offset(LAT, LON, i * 20, j * 20, p);
+                points.add(p);
+            }
+        }
+        clusterer.setItems(points, locator);
+    }
+
+    private int total() {
+        int n = 0;
+        for (GridClusterer.Cluster<double[]> c : out) n += c.count;
+        return n;
+    }
+
+    @Test
+    public void mergesAtLowZoomAndSplitsBeyondMaxClusterZoom() {
+        clusterer.query(10, -90, -180, 90, 179.99, out);
+        assertEquals(1, out.size());
+        assertEquals(100, out.get(0).count);
+        assertEquals(LAT + GeoMath.metersToLatitudeDegrees(90), out.get(0).latitude, 1e-4);
+
+        out.clear();
+        clusterer.query(19, -90, -180, 90, 179.99, out);
+        assertEquals(100, out.size());
+        assertTrue(out.get(0).isSingle());
+    }
+
+    @Test
+    public void everyItemIsCountedOnceAtEveryZoom() {
+        for (int zoom = 0; zoom <= GridClusterer.MAX_ZOOM; zoom++) {
+            out.clear();
+            clusterer.query(zoom, -90, -180, 90, 179.99, out);
+            assertEquals("zoom " + zoom, 100, total());
+        }
+    }
+
+    @Test
+    public void onlyReturnsClustersInsideTheViewport() {
+        clusterer.query(19, LAT - 0.0001, LON - 0.0001, LAT + 0.0001, LON + 0.0001, out);
+        assertEquals(1, out.size());
+
+        out.clear();
+        clusterer.query(19, 0, 100, 10, 110, out);
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    public void viewportMayCrossTheAntimeridian() {
+        List<double[]> points = new ArrayList<>();
+        points.add(new double[] {0, 179.9});
+        points.add(new double[] {0, -179.9});
+        points.add(new double[] {0, 0});
+        clusterer.setItems(points, locator);
+        clusterer.query(15, -1, 179, 1, -179, out);
+        assertEquals(2, total());
+    }
+}
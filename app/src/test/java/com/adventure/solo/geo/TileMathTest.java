@@ -0,0 +1,42 @@
+package com.adventure.solo.geo;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TileMathTest {
+    @Test
+    public void tileKeyRoundTrips() {
+        long key = TileMath.tileKey(15, 17603, 10747);
+        assertEquals(15, TileMath.zoomOf(key));
+        assertEquals(17603, TileMath.xOf(key));
+        assertEquals(10747, TileMath.yOf(key));
+    }
+
+    @Test
+    public void tileBoundsContainThePointTheTileWasComputedFrom() {
+        int x = TileMath.tileX(13.4050, 15), y = TileMath.tileY(52.5200, 15);
+        double[] bounds = TileMath.tileBounds(TileMath.tileKey(15, x, y));
+        assertTrue(bounds[0] <= 52.5200 && 52.5200 < bounds[2]);
+        assertTrue(bounds[1] <= 13.4050 && 13.4050 < bounds[3]);
+    }
+
+    @Test
+    public void overlappingBoxesShareTiles() {
+        List<Long> a = TileMath.tilesCovering(52.510, 13.390, 52.520, 13.405, 15, 16);
+        List<Long> b = TileMath.tilesCovering(52.512, 13.392, 52.521, 13.407, 15, 16);
+        assertFalse(a.isEmpty());
+        assertTrue(b.containsAll(a) || a.containsAll(b));
+    }
+
+    @Test
+    public void coverageRespectsTheTileLimitAndTheAntimeridian() {
+        assertTrue(TileMath.tilesCovering(40, -10, 60, 30, 15, 16).isEmpty());
+        List<Long> wrapped = TileMath.tilesCovering(0.001, 179.99, 0.002, -179.99, 15, 16);
+        assertEquals(2, wrapped.size());
+        assertEquals((1 << 15) - 1, TileMath.xOf(wrapped.get(0)));
+        assertEquals(0, TileMath.xOf(wrapped.get(1)));
+    }
+}
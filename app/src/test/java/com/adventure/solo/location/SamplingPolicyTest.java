@@ -0,0 +1,49 @@
+package com.adventure.solo.location;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SamplingPolicyTest {
+
+    @Test
+    public void samplesAtOneHertzWithGpsNearAFence() {
+        SamplingPolicy.Sample sample = SamplingPolicy.choose(60, 1.4f, false);
+        assertEquals(1_000, sample.intervalMillis);
+        assertEquals(SamplingPolicy.Power.HIGH_ACCURACY, sample.power);
+    }
+
+    @Test
+    public void pollsRarelyFarFromEveryFence() {
+        SamplingPolicy.Sample sample = SamplingPolicy.choose(2_000, 0f, false);
+        assertEquals(60_000, sample.intervalMillis);
+        assertEquals(SamplingPolicy.Power.BALANCED, sample.power);
+
+        SamplingPolicy.Sample idle = SamplingPolicy.choose(Double.POSITIVE_INFINITY, 0f, false);
+        assertEquals(SamplingPolicy.Power.LOW_POWER, idle.power);
+        assertTrue(idle.intervalMillis >= sample.intervalMillis);
+    }
+
+    @Test
+    public void speedCapsIntervalBeforeReachingTheNearBand() {
+        // 900 m out at 10 m/s reaches the 100 m band in 80 s; sample at least every 40 s
+        SamplingPolicy.Sample sample = SamplingPolicy.choose(900, 10f, false);
+        assertTrue(sample.intervalMillis <= 40_000);
+        assertEquals(30_000, sample.intervalMillis);
+    }
+
+    @Test
+    public void lowPowerStretchesIntervalsAndDropsGpsOutsideNearBand() {
+        SamplingPolicy.Sample normal = SamplingPolicy.choose(200, 0f, false);
+        SamplingPolicy.Sample saving = SamplingPolicy.choose(200, 0f, true);
+        assertEquals(SamplingPolicy.Power.HIGH_ACCURACY, normal.power);
+        assertEquals(SamplingPolicy.Power.BALANCED, saving.power);
+        assertTrue(saving.intervalMillis > normal.intervalMillis);
+        assertEquals(SamplingPolicy.Power.HIGH_ACCURACY, SamplingPolicy.choose(50, 0f, true).power);
+    }
+
+    @Test
+    public void smallSpeedChangesDoNotChangeTheSample() {
+        assertEquals(SamplingPolicy.choose(500, 1.3f, false), SamplingPolicy.choose(500, 1.5f, false));
+    }
+}
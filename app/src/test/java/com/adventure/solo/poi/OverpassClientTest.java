@@ -0,0 +1,94 @@
+package com.adventure.solo.poi;
+
+import com.adventure.solo.model.Poi;
+import com.sun.net.httpserver.HttpServer;
+
+import okhttp3.OkHttpClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class OverpassClientTest {
+    private static final String RESPONSE = "{\"version\":0.6,\"osm3s\":{\"copyright\":\"ODbL\"},\"elements\":["
+            + "{\"type\":\"node\",\"id\":1,\"lat\":52.52,\"lon\":13.405,\"tags\":{\"amenity\":\"cafe\",\"name\":\"Kaffee\",\"opening_hours\":\"Mo-Fr\"}},"
+            + "{\"type\":\"node\",\"id\":2,\"lat\":52.53,\"lon\":13.41,\"tags\":{\"amenity\":\"bench\"}},"
+            + "{\"type\":\"node\",\"id\":3,\"lat\":52.54,\"lon\":13.42},"
+            + "{\"type\":\"way\",\"id\":4,\"nodes\":[1,2],\"tags\":{\"amenity\":\"parking\",\"name\":\"Lot\"}}"
+            + "]}";
+
+    private HttpServer server;
+    private OverpassClient client;
+    private volatile String lastQuery;
+    private volatile int status = 200;
+    private volatile boolean gzip;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/interpreter", exchange -> {
+            lastQuery = exchange.getRequestURI().getQuery();
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            if (gzip && "gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+                    out.write(body);
+                }
+                body = bytes.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        client = new OverpassClient(new OkHttpClient(), "http://127.0.0.1:" + server.getAddress().getPort() + "/api/interpreter");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void parsesNodesAndSkipsEverythingElse() throws IOException {
+        List<Poi> pois = client.fetchAmenities(52.5, 13.4, 52.6, 13.5);
+        assertEquals(3, pois.size());
+        assertEquals(1, pois.get(0).id);
+        assertEquals("Kaffee", pois.get(0).name);
+        assertEquals("cafe", pois.get(0).type);
+        assertEquals(52.52, pois.get(0).latitude, 0);
+        assertEquals(OverpassParser.UNNAMED, pois.get(1).name);
+        assertEquals(OverpassParser.UNKNOWN_TYPE, pois.get(2).type);
+        // The bounding box travels URL-encoded inside the data parameter
+        assertTrue(lastQuery.contains("node[\"amenity\"](52.5,13.4,52.6,13.5)"));
+    }
+
+    @Test
+    public void decodesGzippedResponses() throws IOException {
+        gzip = true;
+        assertEquals(3, client.fetchAmenities(52.5, 13.4, 52.6, 13.5).size());
+    }
+
+    @Test
+    public void errorStatusThrows() {
+        status = 429;
+        try {
+            client.fetchAmenities(52.5, 13.4, 52.6, 13.5);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("429"));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.adventure.solo.poi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TileLoaderTest {
+    // Fetches stay open until the test completes or fails them
+    private final Map<Long, TileLoader.Sink<String>> open = new HashMap<>();
+    private final List<Long> started = new ArrayList<>();
+    private final List<Long> cancelled = new ArrayList<>();
+    private final List<String> delivered = new ArrayList<>();
+    private TileLoader<String> loader;
+
+    private final TileLoader.Listener<String> listener = new TileLoader.Listener<String>() {
+        @Override public void onLoaded(long tileKey, String result) { delivered.add(tileKey + "=" + result); }
+        @Override public void onFailed(long tileKey, IOException e) { delivered.add(tileKey + "!"); }
+    };
+
+    @Before
+    public void setUp() {
+        loader = new TileLoader<>((tileKey, sink) -> {
+            started.add(tileKey);
+            open.put(tileKey, sink);
+            return () -> cancelled.add(tileKey);
+        }, 2);
+    }
+
+    @Test
+    public void concurrentRequestsForATileShareOneFetch() {
+        loader.load(1, listener);
+        loader.load(1, listener);
+        assertEquals(1, started.size());
+        open.get(1L).onSuccess("a");
+        assertEquals(2, delivered.size());
+        assertEquals(0, loader.pendingCount());
+
+        // Finished tiles are fetched again on the next request
+        loader.load(1, listener);
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    public void concurrencyIsBoundedAndNewestTilesStartFirst() {
+        for (long tile = 1; tile <= 4; tile++) loader.load(tile, listener);
+        assertEquals(2, loader.runningCount());
+        assertEquals(4, loader.pendingCount());
+
+        open.get(1L).onSuccess("a");
+        assertEquals(3, started.size());
+        assertEquals(4L, (long) started.get(2));
+    }
+
+    @Test
+    public void cancellingTheLastRequestCancelsTheFetchAndFreesItsSlot() {
+        TileLoader<String>.Request first = loader.load(1, listener);
+        TileLoader<String>.Request second = loader.load(1, listener);
+        loader.load(2, listener);
+        loader.load(3, listener);
+
+        first.cancel();
+        assertTrue(cancelled.isEmpty());
+        second.cancel();
+        assertEquals(1, cancelled.size());
+        assertEquals(2, loader.runningCount());
+        assertTrue(started.contains(3L));
+
+        // A late response from the cancelled fetch is dropped
+        open.get(1L).onSuccess("late");
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    public void cancelledQueuedTilesAreNeverStarted() {
+        loader.load(1, listener);
+        loader.load(2, listener);
+        TileLoader<String>.Request queued = loader.load(3, listener);
+        queued.cancel();
+        open.get(2L).onFailure(new IOException("boom"));
+        assertFalse(started.contains(3L));
+        assertEquals("2!", delivered.get(0));
+    }
+}
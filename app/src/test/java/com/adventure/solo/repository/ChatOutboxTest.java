@@ -0,0 +1,239 @@
+package com.adventure.solo.repository;
+
+import com.adventure.solo.database.PendingChatMessageDao;
+import com.adventure.solo.model.PendingChatMessage;
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class ChatOutboxTest {
+    private static final String TEAM = "team";
+    private static final Executor DIRECT = Runnable::run;
+
+    /** pending_chat_messages in memory, with the queries of the real DAO. */
+    static class InMemoryPendingChatMessageDao implements PendingChatMessageDao {
+        final TreeMap<String, PendingChatMessage> rows = new TreeMap<>();
+
+        @Override
+        public void insert(PendingChatMessage message) {
+            rows.put(message.messageId, message);
+        }
+
+        @Override
+        public List<PendingChatMessage> getDue(long now, int limit) {
+            List<PendingChatMessage> due = new ArrayList<>();
+            for (PendingChatMessage row : rows.values()) {
+                if (due.size() == limit) break;
+                if (row.nextAttemptAt <= now) due.add(row);
+            }
+            return due;
+        }
+
+        @Override
+        public List<PendingChatMessage> getForTeam(String teamId) {
+            List<PendingChatMessage> result = new ArrayList<>();
+            for (PendingChatMessage row : rows.values()) if (row.teamId.equals(teamId)) result.add(row);
+            return result;
+        }
+
+        @Override
+        public Long getNextAttemptAt() {
+            Long next = null;
+            for (PendingChatMessage row : rows.values()) if (next == null || row.nextAttemptAt < next) next = row.nextAttemptAt;
+            return next;
+        }
+
+        @Override
+        public void delete(List<String> messageIds) {
+            for (String id : messageIds) rows.remove(id);
+        }
+
+        @Override
+        public void markFailed(List<String> messageIds, long nextAttemptAt) {
+            for (String id : messageIds) {
+                PendingChatMessage row = rows.get(id);
+                if (row == null) continue;
+                row.attempts++;
+                row.nextAttemptAt = nextAttemptAt;
+            }
+        }
+    }
+
+    /** A clock and timer that only move when the test advances them. */
+    static class ManualTime implements ChatOutbox.Timer, ChatOutbox.Clock {
+        private final List<long[]> dueAt = new ArrayList<>();
+        private final List<Runnable> tasks = new ArrayList<>();
+        long now = 1_000_000;
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            dueAt.add(new long[]{now + delayMillis});
+            tasks.add(task);
+        }
+
+        @Override
+        public long now() {
+            return now;
+        }
+
+        void advance(long millis) {
+            now += millis;
+            boolean ran = true;
+            while (ran) {
+                ran = false;
+                for (int i = 0; i < tasks.size(); i++) {
+                    if (dueAt.get(i)[0] > now) continue;
+                    Runnable task = tasks.remove(i);
+                    dueAt.remove(i);
+                    task.run();
+                    ran = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Holds each write until the test completes it. */
+    private static class FakeRemote implements ChatRemote {
+        final List<List<ChatMessage>> writes = new ArrayList<>();
+        final List<WriteCallback> callbacks = new ArrayList<>();
+        private int nextKey;
+
+        @Override
+        public Runnable listen(String teamId, Long sinceTimestamp, int limit, MessageListener listener) {
+            return () -> {};
+        }
+
+        @Override
+        public void fetchBefore(String teamId, String beforeKey, int limit, PageCallback callback) {}
+
+        @Override
+        public String newKey(String teamId) {
+            return String.format("p%04d", ++nextKey);
+        }
+
+        @Override
+        public void write(List<ChatMessage> messages, WriteCallback callback) {
+            writes.add(messages);
+            callbacks.add(callback);
+        }
+
+        void complete(String error) {
+            callbacks.get(callbacks.size() - 1).onComplete(error);
+        }
+    }
+
+    private InMemoryPendingChatMessageDao dao;
+    private FakeRemote remote;
+    private ManualTime time;
+    private ChatOutbox outbox;
+
+    @Before
+    public void setUp() {
+        dao = new InMemoryPendingChatMessageDao();
+        remote = new FakeRemote();
+        time = new ManualTime();
+        outbox = newOutbox();
+    }
+
+    private ChatOutbox newOutbox() {
+        return new ChatOutbox(remote, dao, DIRECT, DIRECT, DIRECT, time, time);
+    }
+
+    private static ChatMessage message(String text) {
+        return new ChatMessage(TEAM, "uid", "Name", text);
+    }
+
+    private static List<String> ids(List<ChatMessage> messages) {
+        List<String> ids = new ArrayList<>();
+        for (ChatMessage message : messages) ids.add(message.messageId);
+        return ids;
+    }
+
+    @Test
+    public void aBurstOfMessagesGoesOutInOneWrite() {
+        List<ChatMessage> queued = new ArrayList<>();
+        List<String> sent = new ArrayList<>();
+        outbox.addListener(TEAM, new ChatOutbox.Listener() {
+            @Override public void onQueued(ChatMessage message) { queued.add(message); }
+            @Override public void onSent(String messageId) { sent.add(messageId); }
+        });
+
+        outbox.enqueue(message("one"));
+        time.advance(100);
+        outbox.enqueue(message("two"));
+        outbox.enqueue(message("three"));
+        assertEquals(3, queued.size());
+        assertTrue(queued.get(0).pending);
+        assertTrue(remote.writes.isEmpty());
+
+        time.advance(ChatOutbox.BATCH_WINDOW_MILLIS);
+        assertEquals(1, remote.writes.size());
+        assertEquals(Arrays.asList("p0001", "p0002", "p0003"), ids(remote.writes.get(0)));
+        assertFalse(remote.writes.get(0).get(0).pending);
+
+        remote.complete(null);
+        assertEquals(Arrays.asList("p0001", "p0002", "p0003"), sent);
+        assertTrue(dao.rows.isEmpty());
+        time.advance(ChatOutbox.MAX_BACKOFF_MILLIS);
+        assertEquals(1, remote.writes.size());
+    }
+
+    @Test
+    public void aFailedWriteIsRetriedWithBackoffUnderTheSameKeys() {
+        outbox.enqueue(message("one"));
+        time.advance(ChatOutbox.BATCH_WINDOW_MILLIS);
+        remote.complete("offline");
+        assertEquals(1, dao.rows.get("p0001").attempts);
+
+        time.advance(ChatOutbox.MIN_BACKOFF_MILLIS - 1);
+        assertEquals(1, remote.writes.size());
+        time.advance(1);
+        assertEquals(2, remote.writes.size());
+        remote.complete("offline");
+
+        // The second failure waits twice as long
+        time.advance(2 * ChatOutbox.MIN_BACKOFF_MILLIS - 1);
+        assertEquals(2, remote.writes.size());
+        time.advance(1);
+        assertEquals(3, remote.writes.size());
+        assertEquals(ids(remote.writes.get(0)), ids(remote.writes.get(2)));
+
+        remote.complete(null);
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void messagesLeftByAnEarlierProcessAreSentOnStart() {
+        outbox.enqueue(message("one"));
+        assertEquals(1, dao.rows.size());
+
+        // The process dies before the batch window closes
+        remote.writes.clear();
+        ChatOutbox restarted = newOutbox();
+        assertEquals(Arrays.asList("p0001"), ids(restarted.getPending(TEAM)));
+        assertTrue(restarted.getPending(TEAM).get(0).pending);
+
+        restarted.start();
+        time.advance(0);
+        assertEquals(Arrays.asList("p0001"), ids(remote.writes.get(0)));
+    }
+
+    @Test
+    public void backoffDoublesUpToTheCap() {
+        assertEquals(0, ChatOutbox.backoffMillis(0));
+        assertEquals(ChatOutbox.MIN_BACKOFF_MILLIS, ChatOutbox.backoffMillis(1));
+        assertEquals(4 * ChatOutbox.MIN_BACKOFF_MILLIS, ChatOutbox.backoffMillis(3));
+        assertEquals(ChatOutbox.MAX_BACKOFF_MILLIS, ChatOutbox.backoffMillis(20));
+        assertEquals(ChatOutbox.MAX_BACKOFF_MILLIS, ChatOutbox.backoffMillis(Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,239 @@
+package com.adventure.solo.repository;
+
+import com.adventure.solo.database.ChatMessageDao;
+import com.adventure.solo.model.CachedChatMessage;
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class ChatSubscriptionTest {
+    private static final String TEAM = "team";
+    private static final Executor DIRECT = Runnable::run;
+
+    /** chat_messages in memory, with the queries of the real DAO. */
+    private static class InMemoryChatMessageDao implements ChatMessageDao {
+        final TreeMap<String, CachedChatMessage> rows = new TreeMap<>();
+
+        @Override
+        public List<CachedChatMessage> getLatest(String teamId, int limit) {
+            return before(teamId, null, limit);
+        }
+
+        @Override
+        public List<CachedChatMessage> getBefore(String teamId, String beforeKey, int limit) {
+            return before(teamId, beforeKey, limit);
+        }
+
+        @Override
+        public Long getLatestTimestamp(String teamId) {
+            Long latest = null;
+            for (CachedChatMessage row : rows.values()) {
+                if (row.teamId.equals(teamId) && (latest == null || row.timestamp > latest)) latest = row.timestamp;
+            }
+            return latest;
+        }
+
+        @Override
+        public void insertAll(List<CachedChatMessage> messages) {
+            for (CachedChatMessage row : messages) rows.put(row.messageId, row);
+        }
+
+        private List<CachedChatMessage> before(String teamId, String beforeKey, int limit) {
+            List<CachedChatMessage> result = new ArrayList<>();
+            for (CachedChatMessage row : rows.descendingMap().values()) {
+                if (result.size() == limit) break;
+                if (row.teamId.equals(teamId) && (beforeKey == null || row.messageId.compareTo(beforeKey) < 0)) result.add(row);
+            }
+            return result;
+        }
+    }
+
+    /** The server's history; live messages and write acknowledgements arrive when the test delivers them. */
+    private static class FakeRemote implements ChatRemote {
+        final TreeMap<String, ChatMessage> server = new TreeMap<>();
+        final List<String> calls = new ArrayList<>();
+        MessageListener live;
+        WriteCallback write;
+        boolean stopped;
+
+        @Override
+        public Runnable listen(String teamId, Long sinceTimestamp, int limit, MessageListener listener) {
+            calls.add("listen since " + sinceTimestamp);
+            live = listener;
+            return () -> stopped = true;
+        }
+
+        @Override
+        public void fetchBefore(String teamId, String beforeKey, int limit, PageCallback callback) {
+            calls.add("fetch before " + beforeKey);
+            List<ChatMessage> page = new ArrayList<>(server.headMap(beforeKey).values());
+            boolean last = page.size() <= limit;
+            page = page.subList(Math.max(0, page.size() - limit), page.size());
+            callback.onPage(page, last);
+        }
+
+        @Override
+        public String newKey(String teamId) {
+            return "k9999";
+        }
+
+        @Override
+        public void write(List<ChatMessage> messages, WriteCallback callback) {
+            calls.add("write " + messages.size());
+            write = callback;
+        }
+    }
+
+    private InMemoryChatMessageDao dao;
+    private FakeRemote remote;
+    private ChatOutboxTest.InMemoryPendingChatMessageDao pendingDao;
+    private ChatOutboxTest.ManualTime time;
+    private ChatOutbox outbox;
+    private final List<List<ChatMessage>> delivered = new ArrayList<>();
+
+    private final ChatRepository.ChatListener listener = new ChatRepository.ChatListener() {
+        @Override public void onMessages(List<ChatMessage> messages, boolean newAtEnd) { delivered.add(messages); }
+        @Override public void onError(String message) { fail(message); }
+    };
+
+    @Before
+    public void setUp() {
+        dao = new InMemoryChatMessageDao();
+        remote = new FakeRemote();
+        pendingDao = new ChatOutboxTest.InMemoryPendingChatMessageDao();
+        time = new ChatOutboxTest.ManualTime();
+        outbox = new ChatOutbox(remote, pendingDao, DIRECT, DIRECT, DIRECT, time, time);
+    }
+
+    private static ChatMessage message(int index) {
+        ChatMessage message = new ChatMessage();
+        message.messageId = String.format("k%04d", index);
+        message.teamId = TEAM;
+        message.messageText = "message " + index;
+        message.timestamp = 1000L + index;
+        return message;
+    }
+
+    private ChatSubscription subscribe() {
+        ChatSubscription subscription = new ChatSubscription(TEAM, remote, dao, outbox, DIRECT, DIRECT, DIRECT, listener);
+        subscription.start();
+        return subscription;
+    }
+
+    private List<ChatMessage> latest() {
+        return delivered.get(delivered.size() - 1);
+    }
+
+    @Test
+    public void firstOpenListensToTheLatestPageAndCachesIt() {
+        subscribe();
+        assertEquals(Collections.singletonList("listen since null"), remote.calls);
+        assertTrue(delivered.isEmpty());
+
+        remote.live.onMessage(message(1));
+        remote.live.onMessage(message(2));
+        assertEquals(2, latest().size());
+        assertEquals(2, dao.rows.size());
+    }
+
+    @Test
+    public void reopeningRendersTheCacheThenOnlyListensForNewerMessages() {
+        List<CachedChatMessage> cached = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) cached.add(CachedChatMessage.from(message(i)));
+        dao.insertAll(cached);
+
+        subscribe();
+        assertEquals(3, delivered.get(0).size());
+        assertEquals(Collections.singletonList("listen since 1003"), remote.calls);
+
+        // The boundary message arrives again; it is merged, not duplicated
+        remote.live.onMessage(message(3));
+        remote.live.onMessage(message(4));
+        assertEquals(4, latest().size());
+        assertEquals("k0004", latest().get(3).messageId);
+    }
+
+    @Test
+    public void messagesWithoutAServerTimestampAreShownButNotCached() {
+        subscribe();
+        ChatMessage pending = message(1);
+        pending.timestamp = Collections.singletonMap(".sv", "timestamp");
+        remote.live.onMessage(pending);
+        assertEquals(1, latest().size());
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void olderPagesComeFromTheCacheBeforeTheServer() {
+        int total = 3 * ChatRepository.PAGE_SIZE + 10;
+        for (int i = 1; i <= total; i++) remote.server.put(message(i).messageId, message(i));
+        // The newest 71 messages are cached
+        List<CachedChatMessage> cached = new ArrayList<>();
+        for (int i = total - ChatRepository.PAGE_SIZE - 20; i <= total; i++) cached.add(CachedChatMessage.from(message(i)));
+        dao.insertAll(cached);
+
+        ChatSubscription subscription = subscribe();
+        assertEquals(ChatRepository.PAGE_SIZE, latest().size());
+
+        // 21 cached messages are left, then a full page comes from the server and is cached
+        subscription.loadOlder();
+        assertEquals("fetch before k0090", remote.calls.get(remote.calls.size() - 1));
+        assertEquals(2 * ChatRepository.PAGE_SIZE + 21, latest().size());
+        assertTrue(subscription.hasOlder());
+        assertEquals(2 * ChatRepository.PAGE_SIZE + 21, dao.rows.size());
+
+        subscription.loadOlder();
+        assertEquals(total, latest().size());
+        assertFalse(subscription.hasOlder());
+        assertEquals("k0001", latest().get(0).messageId);
+    }
+
+    @Test
+    public void closingStopsTheListenerAndIgnoresLateMessages() {
+        ChatSubscription subscription = subscribe();
+        subscription.close();
+        assertTrue(remote.stopped);
+        remote.live.onMessage(message(1));
+        assertTrue(delivered.isEmpty());
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void aSentMessageShowsAsPendingUntilAcknowledged() {
+        subscribe();
+        outbox.enqueue(new ChatMessage(TEAM, "uid", "Name", "hello"));
+        assertEquals(1, latest().size());
+        assertTrue(latest().get(0).pending);
+
+        // Firebase echoes the local write with an estimated timestamp; it stays pending and uncached
+        time.advance(ChatOutbox.BATCH_WINDOW_MILLIS);
+        ChatMessage echo = message(9999);
+        remote.live.onMessage(echo);
+        assertTrue(latest().get(0).pending);
+        assertTrue(dao.rows.isEmpty());
+
+        remote.write.onComplete(null);
+        assertEquals(1, latest().size());
+        assertFalse(latest().get(0).pending);
+        assertEquals(1, dao.rows.size());
+        assertTrue(pendingDao.rows.isEmpty());
+    }
+
+    @Test
+    public void queuedMessagesAreShownAfterReopening() {
+        outbox.enqueue(new ChatMessage(TEAM, "uid", "Name", "hello"));
+        subscribe();
+        assertEquals(1, latest().size());
+        assertEquals("k9999", latest().get(0).messageId);
+        assertTrue(latest().get(0).pending);
+    }
+}
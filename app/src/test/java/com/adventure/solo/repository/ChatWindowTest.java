@@ -0,0 +1,76 @@
+package com.adventure.solo.repository;
+
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChatWindowTest {
+    private ChatWindow window;
+
+    @Before
+    public void setUp() {
+        window = new ChatWindow();
+    }
+
+    private static ChatMessage message(String key, String text) {
+        ChatMessage message = new ChatMessage();
+        message.messageId = key;
+        message.messageText = text;
+        return message;
+    }
+
+    private static String keys(List<ChatMessage> messages) {
+        StringBuilder keys = new StringBuilder();
+        for (ChatMessage message : messages) keys.append(message.messageId).append(' ');
+        return keys.toString().trim();
+    }
+
+    @Test
+    public void messagesAreKeptInKeyOrder() {
+        // Push keys sort chronologically, including across their digit, letter and '-' '_' characters
+        assertTrue(window.put(message("-Nb0", "first")));
+        assertTrue(window.put(message("-Nb9", "second")));
+        assertTrue(window.put(message("-NbA", "third")));
+        assertFalse(window.put(message("-Nb5", "late")));
+        assertTrue(window.put(message("-Nb_", "fourth")));
+        assertTrue(window.put(message("-Nba", "fifth")));
+        assertEquals("-Nb0 -Nb5 -Nb9 -NbA -Nb_ -Nba", keys(window.snapshot()));
+        assertEquals("-Nb0", window.oldestKey());
+    }
+
+    @Test
+    public void putReplacesTheMessageWithTheSameKey() {
+        window.put(message("a", "before"));
+        window.put(message("b", "other"));
+        window.put(message("a", "after"));
+        assertEquals(2, window.size());
+        assertEquals("after", window.snapshot().get(0).messageText);
+    }
+
+    @Test
+    public void olderPagesArePrependedUntilAShortPage() {
+        window.put(message("m", "live"));
+        window.addOlderPage(Arrays.asList(message("f", ""), message("g", "")), false);
+        assertTrue(window.hasOlder());
+        assertEquals("f", window.oldestKey());
+
+        window.addOlderPage(Arrays.asList(message("a", "")), true);
+        assertFalse(window.hasOlder());
+        assertEquals("a f g m", keys(window.snapshot()));
+    }
+
+    @Test
+    public void snapshotsAreUnaffectedByLaterChanges() {
+        window.put(message("a", ""));
+        List<ChatMessage> snapshot = window.snapshot();
+        window.put(message("b", ""));
+        assertEquals(1, snapshot.size());
+        assertNull(new ChatWindow().oldestKey());
+    }
+}
@@ -0,0 +1,63 @@
+package com.adventure.solo.tiles;
+
+import com.adventure.solo.geo.TileMath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TileCoverageTest {
+    private static final List<double[]> ROUTE = Arrays.asList(
+            new double[] {52.5200, 13.4050},
+            new double[] {52.5230, 13.4200},
+            new double[] {52.5160, 13.4300});
+
+    @Test
+    public void lowerZoomsComeFirst() {
+        int lastZoom = 0;
+        for (long key : TileCoverage.forRoute(ROUTE, 150, 14, 18)) {
+            assertTrue(TileMath.zoomOf(key) >= lastZoom);
+            lastZoom = TileMath.zoomOf(key);
+        }
+        assertEquals(18, lastZoom);
+    }
+
+    @Test
+    public void everyWaypointTileIsCovered() {
+        Set<Long> keys = TileCoverage.forRoute(ROUTE, 150, 14, 18);
+        for (int zoom = 14; zoom <= 18; zoom++) {
+            for (double[] point : ROUTE) {
+                assertTrue(keys.contains(TileMath.tileKey(zoom,
+                        TileMath.tileX(point[1], zoom), TileMath.tileY(point[0], zoom))));
+            }
+        }
+    }
+
+    @Test
+    public void corridorHasNoGapsBetweenWaypoints() {
+        Set<Long> keys = TileCoverage.forRoute(ROUTE.subList(0, 2), 20, 18, 18);
+        double[] from = ROUTE.get(0), to = ROUTE.get(1);
+        for (int s = 0; s <= 100; s++) {
+            double t = s / 100.0;
+            double lat = from[0] + (to[0] - from[0]) * t, lon = from[1] + (to[1] - from[1]) * t;
+            assertTrue(keys.contains(TileMath.tileKey(18, TileMath.tileX(lon, 18), TileMath.tileY(lat, 18))));
+        }
+    }
+
+    @Test
+    public void eachZoomNeedsAtLeastAsManyTilesAsTheOneBelow() {
+        List<Integer> perZoom = new ArrayList<>();
+        for (int zoom = 14; zoom <= 18; zoom++) {
+            perZoom.add(TileCoverage.forRoute(ROUTE, 150, zoom, zoom).size());
+        }
+        for (int i = 1; i < perZoom.size(); i++) {
+            assertTrue(perZoom.get(i) >= perZoom.get(i - 1));
+        }
+        assertTrue(perZoom.get(perZoom.size() - 1) < 800);
+    }
+}
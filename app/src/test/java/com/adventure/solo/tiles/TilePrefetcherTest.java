@@ -0,0 +1,257 @@
+package com.adventure.solo.tiles;
+
+import android.util.Log;
+
+import com.adventure.solo.geo.GeoMath;
+import com.adventure.solo.geo.TileMath;
+import com.adventure.solo.model.Clue;
+import com.adventure.solo.model.Quest;
+import com.sun.net.httpserver.HttpServer;
+
+import okhttp3.OkHttpClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class TilePrefetcherTest {
+    private static final double LAT = 52.5200, LON = 13.4050;
+    private static final double ROUTE_MARGIN_METERS = 150;
+
+    /** A tile archive in memory. */
+    private static class InMemoryTileStore implements TilePrefetcher.TileStore {
+        final Map<Long, byte[]> tiles = Collections.synchronizedMap(new HashMap<>());
+        boolean opened;
+
+        @Override public void open() { opened = true; }
+
+        @Override
+        public boolean contains(int zoom, int x, int y) {
+            return tiles.containsKey(TileMath.tileKey(zoom, x, y));
+        }
+
+        @Override
+        public void save(int zoom, int x, int y, byte[] tile) {
+            tiles.put(TileMath.tileKey(zoom, x, y), tile);
+        }
+    }
+
+    /** Runs tasks when the test says so, in submission order, to interleave overlapping runs. */
+    private static class QueuedExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) task.run();
+        }
+    }
+
+    /** The counts a run finished with. */
+    private static class Result implements TilePrefetcher.Listener {
+        int downloaded = -1, skipped = -1, failed = -1;
+
+        @Override
+        public void onPrefetchFinished(int downloaded, int skipped, int failed) {
+            this.downloaded = downloaded;
+            this.skipped = skipped;
+            this.failed = failed;
+        }
+    }
+
+    private HttpServer server;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private volatile int status = 200;
+    private InMemoryTileStore store;
+    private QueuedExecutor executor;
+    private TilePrefetcher prefetcher;
+    private MockedStatic<Log> log;
+
+    @Before
+    public void setUp() throws IOException {
+        log = Mockito.mockStatic(Log.class);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(exchange.getRequestURI().getPath());
+            byte[] body = "png".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        store = new InMemoryTileStore();
+        executor = new QueuedExecutor();
+        String template = "http://127.0.0.1:" + server.getAddress().getPort() + "/{z}/{x}/{y}.png";
+        prefetcher = new TilePrefetcher(new OkHttpClient(), QuestTileSource.fromTemplate("test", template), store,
+                "TilePrefetcherTest", executor);
+        executor.runAll(); // Opens the store
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        log.close();
+    }
+
+    private static List<double[]> around(double northMeters) {
+        double[] point = new double[2];
+        GeoMath.offset(LAT, LON, northMeters, 0, point);
+        return Collections.singletonList(point);
+    }
+
+    private static int tilesFor(List<double[]> route) {
+        return TileCoverage.forRoute(route, ROUTE_MARGIN_METERS, TilePrefetcher.MIN_ZOOM, TilePrefetcher.MAX_ZOOM).size();
+    }
+
+    @Test
+    public void downloadsEveryTileOfTheRouteOnce() {
+        Result first = new Result();
+        prefetcher.prefetchRoute(around(0), first);
+        executor.runAll();
+        int tiles = tilesFor(around(0));
+        assertEquals(tiles, first.downloaded);
+        assertEquals(0, first.failed);
+        assertEquals(tiles, requests.size());
+        assertEquals(tiles, store.tiles.size());
+        assertTrue(requests.contains("/" + TilePrefetcher.MAX_ZOOM + "/" + TileMath.tileX(LON, TilePrefetcher.MAX_ZOOM)
+                + "/" + TileMath.tileY(LAT, TilePrefetcher.MAX_ZOOM) + ".png"));
+
+        // Tiles already stored are skipped without a request
+        Result second = new Result();
+        prefetcher.prefetchRoute(around(0), second);
+        executor.runAll();
+        assertEquals(0, second.downloaded);
+        assertEquals(tiles, second.skipped);
+        assertEquals(tiles, requests.size());
+    }
+
+    @Test
+    public void tilesPendingInAnotherRunAreNotFetchedTwice() {
+        Result first = new Result();
+        Result second = new Result();
+        prefetcher.prefetchRoute(around(0), first);
+        prefetcher.prefetchRoute(around(0), second);
+        executor.runAll();
+
+        int tiles = tilesFor(around(0));
+        assertEquals(tiles, requests.size());
+        assertEquals(tiles, first.downloaded);
+        assertEquals(0, second.downloaded);
+        assertEquals(tiles, second.skipped);
+        assertEquals(0, second.failed);
+    }
+
+    @Test
+    public void aFailedDownloadAlsoFailsTheRunsWaitingForIt() {
+        status = 503;
+        Result first = new Result();
+        Result second = new Result();
+        prefetcher.prefetchRoute(around(0), first);
+        prefetcher.prefetchRoute(around(0), second);
+        executor.runAll();
+
+        int tiles = tilesFor(around(0));
+        assertEquals(tiles, requests.size());
+        assertEquals(tiles, first.failed);
+        assertEquals(tiles, second.failed);
+        assertEquals(0, second.skipped);
+        assertTrue(store.tiles.isEmpty());
+    }
+
+    @Test
+    public void httpErrorsCountAsFailed() {
+        status = 404;
+        Result result = new Result();
+        prefetcher.prefetchRoute(around(0), result);
+        executor.runAll();
+        assertEquals(0, result.downloaded);
+        assertEquals(tilesFor(around(0)), result.failed);
+        assertTrue(store.tiles.isEmpty());
+    }
+
+    @Test
+    public void aLongRouteIsCappedAt800Tiles() {
+        List<double[]> route = new ArrayList<>(around(0));
+        route.addAll(around(20_000));
+        assertTrue(tilesFor(route) > 800);
+
+        Result result = new Result();
+        prefetcher.prefetchRoute(route, result);
+        executor.runAll();
+        assertEquals(800, result.downloaded);
+        assertEquals(800, requests.size());
+        // Lowest zooms come first, so the whole route is at least coarsely covered
+        assertTrue(requests.contains("/" + TilePrefetcher.MIN_ZOOM + "/" + TileMath.tileX(LON, TilePrefetcher.MIN_ZOOM)
+                + "/" + TileMath.tileY(LAT, TilePrefetcher.MIN_ZOOM) + ".png"));
+    }
+
+    @Test
+    public void aQuestIsRetriedOnlyAfterAFailedRun() {
+        Quest quest = new Quest("Quest", "", LAT, LON, 1, 10, "test");
+        quest.setId(7);
+        List<Clue> clues = Arrays.asList(new Clue(7, "clue", LAT, LON, 1, "text", null));
+        int tiles = tilesFor(around(0));
+
+        assertTrue(prefetcher.needsPrefetch(7));
+        status = 500;
+        prefetcher.prefetchQuest(quest, clues);
+        executor.runAll();
+        assertEquals(tiles, requests.size());
+        assertTrue(prefetcher.needsPrefetch(7));
+
+        status = 200;
+        prefetcher.prefetchQuest(quest, clues);
+        executor.runAll();
+        assertEquals(2 * tiles, requests.size());
+        assertEquals(tiles, store.tiles.size());
+
+        // Fully prefetched now, so later activations do nothing
+        assertFalse(prefetcher.needsPrefetch(7));
+        prefetcher.prefetchQuest(quest, clues);
+        executor.runAll();
+        assertEquals(2 * tiles, requests.size());
+    }
+
+    @Test
+    public void nothingIsFetchedFromASourceThatForbidsBulkDownload() {
+        InMemoryTileStore osmStore = new InMemoryTileStore();
+        TilePrefetcher osm = new TilePrefetcher(new OkHttpClient(), TileSourceFactory.MAPNIK, osmStore,
+                "TilePrefetcherTest", executor);
+        assertFalse(osm.isEnabled());
+        assertFalse(osm.needsPrefetch(7));
+
+        Result result = new Result();
+        osm.prefetchRoute(around(0), result);
+        osm.prefetchQuest(new Quest("Quest", "", LAT, LON, 1, 10, "test"), null);
+        executor.runAll();
+        assertEquals(0, result.downloaded);
+        assertEquals(0, result.skipped);
+        assertEquals(0, result.failed);
+        assertFalse(osmStore.opened);
+        assertTrue(requests.isEmpty());
+    }
+}
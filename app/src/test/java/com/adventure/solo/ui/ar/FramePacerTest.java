@@ -0,0 +1,64 @@
+package com.adventure.solo.ui.ar;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FramePacerTest {
+    // A 60 Hz display
+    private static final long VSYNC_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    private static int framesOverOneSecond(FramePacer pacer, long startNanos) {
+        int frames = 0;
+        for (int i = 0; i < 60; i++) {
+            if (pacer.shouldRender(startNanos + i * VSYNC_NANOS)) frames++;
+        }
+        return frames;
+    }
+
+    @Test
+    public void targetRateFollowsRangeAndThermalStatus() {
+        assertEquals(FramePacer.FULL_FPS, FramePacer.targetFps(true, 0));
+        assertEquals(FramePacer.IDLE_FPS, FramePacer.targetFps(false, 0));
+        assertEquals(FramePacer.MODERATE_THERMAL_FPS, FramePacer.targetFps(true, FramePacer.THERMAL_STATUS_MODERATE));
+        assertEquals(FramePacer.SEVERE_THERMAL_FPS, FramePacer.targetFps(true, FramePacer.THERMAL_STATUS_SEVERE));
+        assertEquals(FramePacer.CRITICAL_THERMAL_FPS, FramePacer.targetFps(true, 6));
+        // A cap never raises the idle rate
+        assertEquals(FramePacer.IDLE_FPS, FramePacer.targetFps(false, FramePacer.THERMAL_STATUS_MODERATE));
+    }
+
+    @Test
+    public void rendersAnEvenSubsetOfVsyncs() {
+        FramePacer pacer = new FramePacer(10);
+        for (int i = 0; i < 60; i++) {
+            assertEquals("vsync " + i, i % 6 == 0, pacer.shouldRender(1_000_000_000L + i * VSYNC_NANOS));
+        }
+        pacer.setFps(30);
+        assertEquals(30, framesOverOneSecond(pacer, 2_000_000_000L));
+    }
+
+    @Test
+    public void ratesBetweenVsyncDivisorsAverageOut() {
+        FramePacer pacer = new FramePacer(24);
+        int frames = 0;
+        for (int second = 1; second <= 10; second++) {
+            frames += framesOverOneSecond(pacer, second * 1_000_000_000L);
+        }
+        assertEquals(240, frames, 2);
+    }
+
+    @Test
+    public void resyncsAfterAGap() {
+        FramePacer pacer = new FramePacer(10);
+        assertTrue(pacer.shouldRender(1_000_000_000L));
+        // Five seconds without vsyncs, e.g. while paused: render once, not a burst of catch-up frames
+        long resumed = 6_000_000_000L;
+        assertTrue(pacer.shouldRender(resumed));
+        for (int i = 1; i < 6; i++) {
+            assertFalse(pacer.shouldRender(resumed + i * VSYNC_NANOS));
+        }
+        assertTrue(pacer.shouldRender(resumed + 6 * VSYNC_NANOS));
+    }
+}
@@ -0,0 +1,84 @@
+package com.adventure.solo.ui.ar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FrameStatsTest {
+    private static final long FRAME = TimeUnit.MILLISECONDS.toNanos(33);
+
+    private long gcCount;
+    private long gcMillis;
+    private FrameStats stats;
+    private long now;
+
+    @Before
+    public void setUp() {
+        stats = new FrameStats(new FrameStats.GcCounters() {
+            @Override public long blockingGcCount() { return gcCount; }
+            @Override public long blockingGcTimeMillis() { return gcMillis; }
+        });
+        now = 1_000_000_000L;
+    }
+
+    private void frame(long interval, long update, boolean tracking) {
+        now += interval;
+        stats.record(now, update, tracking);
+    }
+
+    @Test
+    public void percentilesCoverTheWindow() {
+        for (int i = 1; i <= 100; i++) frame(FRAME, TimeUnit.MILLISECONDS.toNanos(i), true);
+        FrameMetrics metrics = stats.snapshot();
+        // The first frame has no interval
+        assertEquals(99, metrics.frames);
+        assertEquals(FRAME, metrics.intervalP50Nanos);
+        assertEquals(FRAME, metrics.intervalP99Nanos);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), metrics.updateP50Nanos);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(95), metrics.updateP95Nanos);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(99), metrics.updateP99Nanos);
+        assertEquals(0, metrics.jankFrames);
+    }
+
+    @Test
+    public void jankIsCountedAgainstTheMedianAndAttributedToGc() {
+        for (int i = 0; i < 50; i++) frame(FRAME, 0, true);
+        frame(3 * FRAME, 0, true);
+        gcCount = 1;
+        gcMillis = 40;
+        frame(3 * FRAME, 0, true);
+        FrameMetrics metrics = stats.snapshot();
+        assertEquals(2, metrics.jankFrames);
+        assertEquals(1, metrics.jankFramesWithGc);
+        assertEquals(1, metrics.blockingGcs);
+        assertEquals(40, metrics.blockingGcMillis);
+    }
+
+    @Test
+    public void trackingDropoutsAreCountedOnTransitions() {
+        boolean[] tracking = {true, true, false, false, true, false, true, true};
+        for (boolean t : tracking) frame(FRAME, 0, t);
+        FrameMetrics metrics = stats.snapshot();
+        assertEquals(3, metrics.notTrackingFrames);
+        assertEquals(2, metrics.trackingDropouts);
+    }
+
+    @Test
+    public void theWindowKeepsTheLatestFramesAndRestartsOnReset() {
+        for (int i = 0; i < FrameStats.CAPACITY + 100; i++) frame(FRAME, 0, true);
+        frame(FRAME, TimeUnit.MILLISECONDS.toNanos(5), false);
+        // The oldest slot is the one the next frame writes to, so it is never trusted
+        assertEquals(FrameStats.CAPACITY - 1, stats.snapshot().frames);
+
+        stats.reset();
+        assertEquals(0, stats.snapshot().frames);
+        frame(2 * FRAME, 0, true);
+        FrameMetrics metrics = stats.snapshot();
+        assertEquals(1, metrics.frames);
+        assertEquals(2 * FRAME, metrics.intervalP50Nanos);
+        assertEquals(0, metrics.notTrackingFrames);
+    }
+}
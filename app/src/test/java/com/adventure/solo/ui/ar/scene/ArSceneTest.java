@@ -0,0 +1,153 @@
+package com.adventure.solo.ui.ar.scene;
+
+import com.adventure.solo.geo.GeoMath;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ArSceneTest {
+    private static final double LAT = 52.5200;
+    private static final double LON = 13.4050;
+    private static final float EPSILON = 0.05f;
+
+    private ArScene scene;
+
+    @Before
+    public void setUp() {
+        scene = new ArScene();
+    }
+
+    // Camera at the origin looking down -Z, 60 degree vertical field of view
+    private static float[] viewProjection() {
+        float near = 0.1f, far = 100f, f = (float) (1 / Math.tan(Math.toRadians(30)));
+        float[] m = new float[16];
+        m[0] = f;
+        m[5] = f;
+        m[10] = (far + near) / (near - far);
+        m[11] = -1;
+        m[14] = 2 * far * near / (near - far);
+        return m;
+    }
+
+    private ArNode addAt(long id, double northMeters, double eastMeters) {
+        double[] latLon = new double[2];
+        GeoMath.offset(LAT, LON, northMeters, eastMeters, latLon);
+        ArNode node = new ArNode(id, latLon[0], latLon[1], 10);
+        scene.add(node);
+        scene.setInRange(id, true);
+        return node;
+    }
+
+    @Test
+    public void nodesArePlacedByGeoOffsetAndNorthBearing() {
+        ArNode north = addAt(1, 10, 0);
+        ArNode east = addAt(2, 0, 10);
+        scene.setOrigin(LAT, LON, 1, 2, 3);
+        scene.setNorthBearing(0);
+        // With north straight ahead (-Z), east is to the right (+X)
+        assertEquals(1, north.getX(), EPSILON);
+        assertEquals(3 - 10, north.getZ(), EPSILON);
+        assertEquals(2 - ArScene.HEIGHT_BELOW_CAMERA_METERS, north.getY(), EPSILON);
+        assertEquals(1 + 10, east.getX(), EPSILON);
+        assertEquals(3, east.getZ(), EPSILON);
+
+        // North a quarter turn clockwise, to +X, puts east behind the origin (+Z)
+        scene.setNorthBearing((float) (Math.PI / 2));
+        assertEquals(1 + 10, north.getX(), EPSILON);
+        assertEquals(3, north.getZ(), EPSILON);
+        assertEquals(1, east.getX(), EPSILON);
+        assertEquals(3 + 10, east.getZ(), EPSILON);
+    }
+
+    @Test
+    public void cullKeepsOnlyPlacedInRangeUncollectedNodesInView() {
+        addAt(1, 5, 0);      // Ahead
+        addAt(2, -5, 0);     // Behind
+        addAt(3, 15, 0);     // Ahead, but collected
+        addAt(4, 10, 1);     // Ahead, but out of range
+        scene.setCollected(3);
+        scene.setInRange(4, false);
+
+        assertEquals(0, scene.cull(viewProjection(), 0, 0, 0));
+        scene.setOrigin(LAT, LON, 0, 0, 0);
+        scene.setNorthBearing(0);
+        assertEquals(1, scene.cull(viewProjection(), 0, 0, 0));
+        assertEquals(1, scene.nearestDrawn().clueId);
+    }
+
+    @Test
+    public void batchesSplitByDistanceAndSortNearestFirst() {
+        addAt(1, 15, 0);
+        addAt(2, 3, 0);
+        addAt(3, 12, 1);
+        addAt(4, 5, -1);
+        scene.setOrigin(LAT, LON, 0, 0, 0);
+        scene.setNorthBearing(0);
+
+        assertEquals(4, scene.cull(viewProjection(), 0, 0, 0));
+        assertEquals(2, scene.batch(ArScene.LOD_NEAR).size());
+        assertEquals(2, scene.batch(ArScene.LOD_NEAR).get(0).clueId);
+        assertEquals(4, scene.batch(ArScene.LOD_NEAR).get(1).clueId);
+        assertEquals(2, scene.batch(ArScene.LOD_FAR).size());
+        assertEquals(3, scene.batch(ArScene.LOD_FAR).get(0).clueId);
+        assertEquals(1, scene.batch(ArScene.LOD_FAR).get(1).clueId);
+        assertEquals(2, scene.nearestDrawn().clueId);
+    }
+
+    @Test
+    public void pickReturnsTheNearestDrawnObjectAlongTheRay() {
+        addAt(1, 10, 0);
+        addAt(2, 5, 0);
+        addAt(3, 5, 3);
+        addAt(4, -5, 0);  // Behind the camera, never drawn
+        scene.setOrigin(LAT, LON, 0, 0, 0);
+        scene.setNorthBearing(0);
+        scene.cull(viewProjection(), 0, 0, 0);
+
+        float y = -ArScene.HEIGHT_BELOW_CAMERA_METERS;
+        // Straight ahead passes through 2, then 1
+        assertEquals(2, scene.pick(0, y, 0, 0, 0, -1).clueId);
+        // Aimed at 3, and not normalized
+        assertEquals(3, scene.pick(0, y, 0, 6, 0, -10).clueId);
+        // Between the objects, above them, and backwards
+        assertNull(scene.pick(0, y, 0, 3, 0, -10));
+        assertNull(scene.pick(0, 2, 0, 0, 0, -1));
+        assertNull(scene.pick(0, y, 0, 0, 0, 1));
+
+        scene.setCollected(2);
+        scene.cull(viewProjection(), 0, 0, 0);
+        assertEquals(1, scene.pick(0, y, 0, 0, 0, -1).clueId);
+    }
+
+    @Test
+    public void screenRayUnprojectsBetweenTheClipPlanes() {
+        float[] identity = new float[16];
+        identity[0] = identity[5] = identity[10] = identity[15] = 1;
+        float[] ray = new float[6];
+        ArScene.screenRay(identity, 0.25f, -0.5f, new float[8], ray);
+        assertEquals(0.25f, ray[0], EPSILON);
+        assertEquals(-0.5f, ray[1], EPSILON);
+        assertEquals(-1, ray[2], EPSILON);
+        assertEquals(0, ray[3], EPSILON);
+        assertEquals(0, ray[4], EPSILON);
+        assertEquals(2, ray[5], EPSILON);
+    }
+
+    @Test
+    public void cameraPoseIsRecoveredFromTheViewMatrix() {
+        // Camera at (2, 1, -4) turned 90 degrees to the right, looking down +X
+        float[] view = {
+                0, 0, -1, 0,
+                0, 1, 0, 0,
+                1, 0, 0, 0,
+                4, -1, 2, 1};
+        float[] position = new float[3];
+        ArScene.cameraPosition(view, position);
+        assertEquals(2, position[0], EPSILON);
+        assertEquals(1, position[1], EPSILON);
+        assertEquals(-4, position[2], EPSILON);
+        assertEquals(Math.PI / 2, ArScene.cameraBearing(view), EPSILON);
+    }
+}
@@ -0,0 +1,77 @@
+package com.adventure.solo.ui.chat;
+
+import com.adventure.solo.model.firebase.ChatMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class ChatMessageItemMapperTest {
+    private static final String SENDING = "sending";
+
+    private ChatMessageItemMapper mapper;
+
+    @Before
+    public void setUp() {
+        SimpleDateFormat format = new SimpleDateFormat("HH:mm", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        mapper = new ChatMessageItemMapper("me", format, SENDING);
+    }
+
+    private static ChatMessage message(String id, String senderId, long timestamp) {
+        ChatMessage message = new ChatMessage();
+        message.messageId = id;
+        message.teamId = "team";
+        message.senderId = senderId;
+        message.senderName = senderId;
+        message.messageText = "text " + id;
+        message.timestamp = timestamp;
+        return message;
+    }
+
+    @Test
+    public void itemsAreFormattedOnce() {
+        List<ChatMessageItem> items = mapper.map(Arrays.asList(message("a", "me", 0), message("b", "you", 3_600_000)));
+        assertTrue(items.get(0).self);
+        assertFalse(items.get(1).self);
+        assertEquals("00:00", items.get(0).timeText);
+        assertEquals("01:00", items.get(1).timeText);
+    }
+
+    @Test
+    public void unchangedMessagesKeepTheirItem() {
+        ChatMessageItem first = mapper.map(Collections.singletonList(message("a", "me", 0))).get(0);
+        // A fresh copy of the same message, as every subscription update delivers
+        List<ChatMessageItem> items = mapper.map(Arrays.asList(message("a", "me", 0), message("b", "you", 0)));
+        assertSame(first, items.get(0));
+        assertNotEquals(first.id, items.get(1).id);
+    }
+
+    @Test
+    public void aMessageLeavingPendingIsReformattedUnderTheSameId() {
+        ChatMessage pending = message("a", "me", 60_000);
+        pending.pending = true;
+        ChatMessageItem sending = mapper.map(Collections.singletonList(pending)).get(0);
+        assertEquals(SENDING, sending.timeText);
+
+        ChatMessageItem sent = mapper.map(Collections.singletonList(message("a", "me", 60_000))).get(0);
+        assertNotSame(sending, sent);
+        assertEquals(sending.id, sent.id);
+        assertEquals("00:01", sent.timeText);
+    }
+
+    @Test
+    public void removedMessagesGetANewIdIfTheyReturn() {
+        ChatMessageItem first = mapper.map(Collections.singletonList(message("a", "me", 0))).get(0);
+        mapper.map(Collections.emptyList());
+        assertNotEquals(first.id, mapper.map(Collections.singletonList(message("a", "me", 0))).get(0).id);
+    }
+}